@@ -0,0 +1,52 @@
+package com.lovingapp.client;
+
+import java.util.function.Consumer;
+
+import com.lovingapp.model.domain.ai.LLMRequest;
+import com.lovingapp.model.domain.ai.LLMResponse;
+
+/**
+ * LlmClient decorator that admits calls through a {@link FairLlmBulkhead}. A
+ * permit is held for the whole call, including its retries, so the number of
+ * concurrent provider calls stays bounded.
+ */
+public class BulkheadLlmClient implements LlmClient {
+
+    private final LlmClient delegate;
+    private final FairLlmBulkhead bulkhead;
+    private final boolean enabled;
+
+    public BulkheadLlmClient(LlmClient delegate, FairLlmBulkhead bulkhead) {
+        this.delegate = delegate;
+        this.bulkhead = bulkhead;
+        this.enabled = bulkhead.isEnabled();
+    }
+
+    @Override
+    public <T> LLMResponse<T> generate(LLMRequest request, Class<T> responseClass) {
+        if (!enabled) {
+            return delegate.generate(request, responseClass);
+        }
+
+        long acquiredAt = bulkhead.acquire(request.getUserId(), request.getPriority());
+        try {
+            return delegate.generate(request, responseClass);
+        } finally {
+            bulkhead.release(acquiredAt, request.getPriority());
+        }
+    }
+
+    @Override
+    public <T> LLMResponse<T> generateStream(LLMRequest request, Class<T> responseClass, Consumer<String> onDelta) {
+        if (!enabled) {
+            return delegate.generateStream(request, responseClass, onDelta);
+        }
+
+        long acquiredAt = bulkhead.acquire(request.getUserId(), request.getPriority());
+        try {
+            return delegate.generateStream(request, responseClass, onDelta);
+        } finally {
+            bulkhead.release(acquiredAt, request.getPriority());
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.lovingapp.client;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.lovingapp.config.llm.LlmClientProperties.BulkheadProperties;
+import com.lovingapp.exception.LLMCapacityExceededException;
+import com.lovingapp.exception.LLMException;
+import com.lovingapp.model.domain.ai.LLMCallPriority;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Concurrency limiter for LLM calls with per-user fair queuing.
+ * At most {@code maxConcurrentCalls} calls run at once. Further callers wait in
+ * a per-user FIFO queue and freed permits are handed to the users with waiting
+ * calls in round-robin order, so one busy user cannot starve the others. The
+ * wait queue is bounded in total and per user, and waiting is bounded in time;
+ * a call that cannot be admitted is shed with {@link LLMCapacityExceededException}.
+ *
+ * Background calls (context extraction, summary checkpoints) wait in a lane of
+ * their own with separate queue limits, may hold at most
+ * {@code maxConcurrentBackgroundCalls} of the permits, and are admitted only
+ * while no interactive call is waiting. A user's background work therefore
+ * never takes the queue slots or the permits their own chat turns need.
+ *
+ * Shared by {@link BulkheadLlmClient}, which admits every call, and
+ * {@link ResilientLlmClient}, whose hedged requests take an extra permit only
+ * when one is free right away.
+ */
+@Slf4j
+public final class FairLlmBulkhead {
+
+    private static final String METRIC_PREFIX = "llm.bulkhead.";
+    private static final UUID ANONYMOUS = new UUID(0L, 0L);
+    private static final Duration MIN_RETRY_AFTER = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY_AFTER = Duration.ofSeconds(60);
+
+    private final BulkheadProperties properties;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Guarded by lock
+    private final Lane interactive;
+    private final Lane background;
+    private int inFlight;
+    private int backgroundInFlight;
+    private double averageHoldNanos;
+
+    private final Timer acquiredWaitTimer;
+    private final Timer shedWaitTimer;
+    private final MeterRegistry meterRegistry;
+
+    private final class Waiter {
+        private final UUID userId;
+        private final Condition granted = lock.newCondition();
+        private boolean admitted;
+
+        private Waiter(UUID userId) {
+            this.userId = userId;
+        }
+    }
+
+    /**
+     * Waiting calls of one priority, per user in round-robin order. Guarded by
+     * lock.
+     */
+    private final class Lane {
+        private final LLMCallPriority priority;
+        private final int maxQueued;
+        private final int maxQueuedPerUser;
+        private final Duration maxWait;
+        private final Map<UUID, ArrayDeque<Waiter>> waitersByUser = new HashMap<>();
+        private final ArrayDeque<UUID> usersInTurn = new ArrayDeque<>();
+        private int queued;
+
+        private Lane(LLMCallPriority priority, int maxQueued, int maxQueuedPerUser, Duration maxWait) {
+            this.priority = priority;
+            this.maxQueued = maxQueued;
+            this.maxQueuedPerUser = maxQueuedPerUser;
+            this.maxWait = maxWait;
+        }
+
+        private int queuedBy(UUID user) {
+            ArrayDeque<Waiter> userWaiters = waitersByUser.get(user);
+            return userWaiters != null ? userWaiters.size() : 0;
+        }
+
+        private void add(Waiter waiter) {
+            ArrayDeque<Waiter> userWaiters = waitersByUser.get(waiter.userId);
+            if (userWaiters == null) {
+                userWaiters = new ArrayDeque<>();
+                waitersByUser.put(waiter.userId, userWaiters);
+                usersInTurn.addLast(waiter.userId);
+            }
+            userWaiters.addLast(waiter);
+            queued++;
+        }
+
+        /** The oldest waiter of the user whose turn it is, or null */
+        private Waiter next() {
+            UUID user = usersInTurn.pollFirst();
+            if (user == null) {
+                return null;
+            }
+
+            ArrayDeque<Waiter> userWaiters = waitersByUser.get(user);
+            Waiter next = userWaiters.pollFirst();
+            if (userWaiters.isEmpty()) {
+                waitersByUser.remove(user);
+            } else {
+                usersInTurn.addLast(user);
+            }
+            queued--;
+            return next;
+        }
+
+        private void remove(Waiter waiter) {
+            ArrayDeque<Waiter> userWaiters = waitersByUser.get(waiter.userId);
+            if (userWaiters != null && userWaiters.remove(waiter)) {
+                queued--;
+                if (userWaiters.isEmpty()) {
+                    waitersByUser.remove(waiter.userId);
+                    usersInTurn.remove(waiter.userId);
+                }
+            }
+        }
+    }
+
+    public FairLlmBulkhead(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.interactive = new Lane(LLMCallPriority.INTERACTIVE, properties.getMaxQueuedCalls(),
+                properties.getMaxQueuedCallsPerUser(), properties.getMaxWait());
+        this.background = new Lane(LLMCallPriority.BACKGROUND, properties.getMaxQueuedBackgroundCalls(),
+                properties.getMaxQueuedBackgroundCallsPerUser(), properties.getBackgroundMaxWait());
+
+        for (Lane lane : new Lane[] { interactive, background }) {
+            Gauge.builder(METRIC_PREFIX + "queue.depth", this, bulkhead -> bulkhead.queued(lane))
+                    .description("LLM calls waiting for a bulkhead permit")
+                    .tag("priority", lane.priority.getTagValue())
+                    .register(meterRegistry);
+        }
+        Gauge.builder(METRIC_PREFIX + "in.flight", this, FairLlmBulkhead::inFlight)
+                .description("LLM calls currently holding a bulkhead permit")
+                .register(meterRegistry);
+
+        this.acquiredWaitTimer = waitTimer("acquired");
+        this.shedWaitTimer = waitTimer("shed");
+    }
+
+    boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Takes a permit if one is free and nobody is waiting for one, without
+     * waiting. Returns the time the permit was acquired at, to be passed back to
+     * {@link #release(long, LLMCallPriority)}, or -1.
+     */
+    long tryAcquire(LLMCallPriority priority) {
+        lock.lock();
+        try {
+            if (interactive.queued == 0 && background.queued == 0 && hasFreePermit(lane(priority))) {
+                take(lane(priority));
+                return System.nanoTime();
+            }
+            return -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a permit for the given user. Returns the time the permit was
+     * acquired at, to be passed back to {@link #release(long, LLMCallPriority)}.
+     */
+    long acquire(UUID userId, LLMCallPriority priority) {
+        UUID user = userId != null ? userId : ANONYMOUS;
+        Lane lane = lane(priority);
+        long start = System.nanoTime();
+
+        lock.lock();
+        try {
+            // Background calls never overtake waiting interactive calls; interactive calls overtake background ones
+            if (hasFreePermit(lane) && interactive.queued == 0 && lane.queued == 0) {
+                take(lane);
+                acquiredWaitTimer.record(0, TimeUnit.NANOSECONDS);
+                return start;
+            }
+
+            if (lane.queued >= lane.maxQueued) {
+                throw shed("queue_full", lane, user, start);
+            }
+            if (lane.queuedBy(user) >= lane.maxQueuedPerUser) {
+                throw shed("user_queue_full", lane, user, start);
+            }
+
+            Waiter waiter = new Waiter(user);
+            lane.add(waiter);
+
+            long remaining = lane.maxWait.toNanos();
+            try {
+                while (!waiter.admitted && remaining > 0) {
+                    remaining = waiter.granted.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.admitted) {
+                    releaseLocked(start, lane);
+                } else {
+                    lane.remove(waiter);
+                    // The waiter may have been what held background calls back
+                    dispatchLocked();
+                }
+                Thread.currentThread().interrupt();
+                throw new LLMException(new InterruptedIOException("Interrupted while waiting for LLM capacity"));
+            }
+
+            if (!waiter.admitted) {
+                lane.remove(waiter);
+                dispatchLocked();
+                throw shed("wait_timeout", lane, user, start);
+            }
+
+            long acquiredAt = System.nanoTime();
+            acquiredWaitTimer.record(acquiredAt - start, TimeUnit.NANOSECONDS);
+            return acquiredAt;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(long acquiredAt, LLMCallPriority priority) {
+        lock.lock();
+        try {
+            releaseLocked(acquiredAt, lane(priority));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lane lane(LLMCallPriority priority) {
+        return priority == LLMCallPriority.BACKGROUND ? background : interactive;
+    }
+
+    private boolean hasFreePermit(Lane lane) {
+        return inFlight < properties.getMaxConcurrentCalls()
+                && (lane != background || backgroundInFlight < properties.getMaxConcurrentBackgroundCalls());
+    }
+
+    private void take(Lane lane) {
+        inFlight++;
+        if (lane == background) {
+            backgroundInFlight++;
+        }
+    }
+
+    private void releaseLocked(long acquiredAt, Lane lane) {
+        long held = System.nanoTime() - acquiredAt;
+        averageHoldNanos = averageHoldNanos == 0 ? held : 0.9 * averageHoldNanos + 0.1 * held;
+
+        inFlight--;
+        if (lane == background) {
+            backgroundInFlight--;
+        }
+        dispatchLocked();
+    }
+
+    /**
+     * Hands free permits to waiting calls: interactive users first in
+     * round-robin order, then background users while the background budget
+     * allows.
+     */
+    private void dispatchLocked() {
+        while (true) {
+            Lane lane = interactive.queued > 0 ? interactive : background;
+            if (lane.queued == 0 || !hasFreePermit(lane)) {
+                return;
+            }
+
+            Waiter next = lane.next();
+            take(lane);
+            next.admitted = true;
+            next.granted.signal();
+        }
+    }
+
+    /**
+     * Estimates when capacity frees up: the queue ahead drains at roughly
+     * maxConcurrentCalls per average call duration.
+     */
+    private LLMCapacityExceededException shed(String reason, Lane lane, UUID user, long start) {
+        shedWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        Counter.builder(METRIC_PREFIX + "shed")
+                .description("LLM calls rejected by the bulkhead")
+                .tag("reason", reason)
+                .tag("priority", lane.priority.getTagValue())
+                .register(meterRegistry)
+                .increment();
+
+        int ahead = lane == background ? interactive.queued + background.queued : interactive.queued;
+        double drainRounds = (double) (ahead + 1) / properties.getMaxConcurrentCalls();
+        Duration retryAfter = Duration.ofNanos((long) (Math.max(1.0, drainRounds) * averageHoldNanos));
+        if (retryAfter.compareTo(MIN_RETRY_AFTER) < 0) {
+            retryAfter = MIN_RETRY_AFTER;
+        } else if (retryAfter.compareTo(MAX_RETRY_AFTER) > 0) {
+            retryAfter = MAX_RETRY_AFTER;
+        }
+
+        log.warn("LLM call shed by bulkhead reason={} priority={} userId={} inFlight={} queued={} retryAfterMs={}",
+                reason, lane.priority.getTagValue(), user, inFlight, lane.queued, retryAfter.toMillis());
+
+        return new LLMCapacityExceededException("LLM capacity exceeded: " + reason, retryAfter);
+    }
+
+    private int queued(Lane lane) {
+        lock.lock();
+        try {
+            return lane.queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Timer waitTimer(String outcome) {
+        return Timer.builder(METRIC_PREFIX + "wait")
+                .description("Time LLM calls spent waiting for a bulkhead permit")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
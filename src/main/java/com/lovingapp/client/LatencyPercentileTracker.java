@@ -0,0 +1,45 @@
+package com.lovingapp.client;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent successful calls in a ring buffer and
+ * answers percentile queries over them. Thread-safe.
+ */
+final class LatencyPercentileTracker {
+
+    private final long[] samples;
+    private int index;
+    private int count;
+
+    LatencyPercentileTracker(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    synchronized void record(long nanos) {
+        samples[index] = nanos;
+        index = (index + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * Returns the given percentile of the recorded latencies, or null while
+     * fewer than {@code minSamples} have been recorded.
+     */
+    Duration percentile(double percentile, int minSamples) {
+        long[] sorted;
+        synchronized (this) {
+            if (count < minSamples || count == 0) {
+                return null;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile * sorted.length) - 1;
+        return Duration.ofNanos(sorted[Math.max(0, Math.min(rank, sorted.length - 1))]);
+    }
+}
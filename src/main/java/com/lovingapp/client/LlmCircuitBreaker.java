@@ -0,0 +1,138 @@
+package com.lovingapp.client;
+
+import java.util.function.LongSupplier;
+
+import com.lovingapp.config.llm.LlmClientProperties.CircuitBreakerProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Count-based circuit breaker for one LLM call type. CLOSED records outcomes in
+ * a ring buffer and opens once the failure rate over the window reaches the
+ * threshold; OPEN rejects calls until the open duration has passed; HALF_OPEN
+ * lets a limited number of trial calls through and closes only when all of
+ * them succeed. Thread-safe.
+ */
+@Slf4j
+final class LlmCircuitBreaker {
+
+    enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final String name;
+    private final CircuitBreakerProperties properties;
+    private final boolean[] window;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private long openedAtNanos;
+    private int halfOpenPermitsIssued;
+    private int halfOpenSuccesses;
+
+    LlmCircuitBreaker(String name, CircuitBreakerProperties properties) {
+        this(name, properties, System::nanoTime);
+    }
+
+    LlmCircuitBreaker(String name, CircuitBreakerProperties properties, LongSupplier nanoClock) {
+        this.name = name;
+        this.properties = properties;
+        this.window = new boolean[properties.getWindowSize()];
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns whether a call may proceed. Every permitted call must be followed
+     * by exactly one {@link #onResult(boolean)}.
+     */
+    synchronized boolean tryAcquire() {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAtNanos < properties.getOpenDuration().toNanos()) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermitsIssued >= properties.getHalfOpenPermittedCalls()) {
+                return false;
+            }
+            halfOpenPermitsIssued++;
+        }
+
+        return true;
+    }
+
+    /**
+     * Records the outcome of a permitted call; {@code failure} means the provider
+     * was unavailable, throttling or too slow.
+     */
+    synchronized void onResult(boolean failure) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failure) {
+                    transitionTo(State.OPEN);
+                } else if (++halfOpenSuccesses >= properties.getHalfOpenPermittedCalls()) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+            case CLOSED -> {
+                if (windowCount == window.length) {
+                    if (window[windowIndex]) {
+                        windowFailures--;
+                    }
+                } else {
+                    windowCount++;
+                }
+                window[windowIndex] = failure;
+                if (failure) {
+                    windowFailures++;
+                }
+                windowIndex = (windowIndex + 1) % window.length;
+
+                if (windowCount >= properties.getMinimumCalls()
+                        && windowFailures * 100 >= properties.getFailureRateThresholdPercent() * windowCount) {
+                    transitionTo(State.OPEN);
+                }
+            }
+            case OPEN -> {
+                // Late result of a call permitted before the breaker opened
+            }
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void transitionTo(State newState) {
+        log.warn("LLM circuit breaker state change name={} from={} to={} failures={}/{}", name, state, newState,
+                windowFailures, windowCount);
+
+        state = newState;
+        halfOpenPermitsIssued = 0;
+        halfOpenSuccesses = 0;
+
+        if (newState == State.OPEN) {
+            openedAtNanos = nanoClock.getAsLong();
+        }
+        if (newState == State.CLOSED) {
+            windowIndex = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+    }
+}
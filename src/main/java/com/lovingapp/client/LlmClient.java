@@ -1,5 +1,9 @@
 package com.lovingapp.client;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 import com.lovingapp.model.domain.ai.LLMRequest;
 import com.lovingapp.model.domain.ai.LLMResponse;
 
@@ -10,4 +14,46 @@ public interface LlmClient {
     default LLMResponse<String> generate(LLMRequest request) {
         return generate(request, String.class);
     }
+
+    /**
+     * Generates a response while emitting the raw model output incrementally.
+     * {@code onDelta} receives every output text fragment as soon as it arrives;
+     * the returned response holds the complete (and, for JSON, parsed) output
+     * once the stream has finished.
+     *
+     * Providers without native streaming emit the whole output as a single delta.
+     */
+    default <T> LLMResponse<T> generateStream(LLMRequest request, Class<T> responseClass, Consumer<String> onDelta) {
+        LLMResponse<T> response = generate(request, responseClass);
+        if (response.getRawText() != null && !response.getRawText().isEmpty()) {
+            onDelta.accept(response.getRawText());
+        }
+        return response;
+    }
+
+    /**
+     * Asynchronous variant of {@link #generate(LLMRequest, Class)} using the
+     * client's default deadline.
+     */
+    default <T> CompletableFuture<LLMResponse<T>> generateAsync(LLMRequest request, Class<T> responseClass) {
+        return generateAsync(request, responseClass, null);
+    }
+
+    /**
+     * Asynchronous variant of {@link #generate(LLMRequest, Class)}. The returned
+     * future fails with an {@link com.lovingapp.exception.LLMException} of type
+     * TIMEOUT once {@code deadline} has passed, and cancelling it aborts the
+     * underlying call.
+     *
+     * Implementations without an executor complete the future on the calling
+     * thread.
+     */
+    default <T> CompletableFuture<LLMResponse<T>> generateAsync(LLMRequest request, Class<T> responseClass,
+            Duration deadline) {
+        try {
+            return CompletableFuture.completedFuture(generate(request, responseClass));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
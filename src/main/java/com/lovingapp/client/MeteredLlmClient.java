@@ -0,0 +1,128 @@
+package com.lovingapp.client;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.lovingapp.exception.LLMException;
+import com.lovingapp.model.domain.ai.LLMRequest;
+import com.lovingapp.model.domain.ai.LLMResponse;
+import com.lovingapp.model.domain.ai.LLMUsage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * LlmClient decorator recording per-call metrics, tagged by call type, model,
+ * mode (blocking or stream) and outcome (SUCCESS or the LLMException type):
+ * <ul>
+ * <li>{@code llm.call.duration} total latency, with percentiles and histogram</li>
+ * <li>{@code llm.call.ttfb} time to first byte (blocking) or first delta (stream)</li>
+ * <li>{@code llm.tokens} input, cached and output token counters, plus
+ * {@code llm.call.tokens} per-call token distributions</li>
+ * </ul>
+ */
+public class MeteredLlmClient implements LlmClient {
+
+    private static final String METRIC_PREFIX = "llm.";
+    private static final String SUCCESS = "SUCCESS";
+    private static final double[] PERCENTILES = { 0.5, 0.9, 0.95, 0.99 };
+
+    private final LlmClient delegate;
+    private final MeterRegistry meterRegistry;
+    private final String defaultModel;
+
+    public MeteredLlmClient(LlmClient delegate, MeterRegistry meterRegistry, String defaultModel) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.defaultModel = defaultModel;
+    }
+
+    @Override
+    public <T> LLMResponse<T> generate(LLMRequest request, Class<T> responseClass) {
+        return record(request, "blocking", () -> delegate.generate(request, responseClass));
+    }
+
+    @Override
+    public <T> LLMResponse<T> generateStream(LLMRequest request, Class<T> responseClass, Consumer<String> onDelta) {
+        return record(request, "stream", () -> delegate.generateStream(request, responseClass, onDelta));
+    }
+
+    private <T> LLMResponse<T> record(LLMRequest request, String mode, Supplier<LLMResponse<T>> call) {
+        long start = System.nanoTime();
+        try {
+            LLMResponse<T> response = call.get();
+            recordCall(request, mode, SUCCESS, response, System.nanoTime() - start);
+            return response;
+        } catch (LLMException e) {
+            recordCall(request, mode, e.getType().name(), null, System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            recordCall(request, mode, LLMException.Type.UNKNOWN.name(), null, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private void recordCall(LLMRequest request, String mode, String outcome, LLMResponse<?> response,
+            long durationNanos) {
+        String model = response != null && response.getModel() != null ? response.getModel()
+                : request.getModel() != null ? request.getModel() : defaultModel;
+        Tags callTags = Tags.of(
+                "call_type", request.getCallType() != null ? request.getCallType().getTagValue() : "other",
+                "model", model);
+
+        Timer.builder(METRIC_PREFIX + "call.duration")
+                .description("Total latency of LLM calls")
+                .tags(callTags)
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Duration.ofNanos(durationNanos));
+
+        if (response == null) {
+            return;
+        }
+
+        if (response.getTimeToFirstByte() != null) {
+            Timer.builder(METRIC_PREFIX + "call.ttfb")
+                    .description("Time until the first response byte (blocking) or output delta (stream) of LLM calls")
+                    .tags(callTags)
+                    .tag("mode", mode)
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(response.getTimeToFirstByte());
+        }
+
+        LLMUsage usage = response.getUsage();
+        if (usage != null) {
+            recordTokens(callTags, "input", usage.getInputTokens());
+            recordTokens(callTags, "cached", usage.getCachedInputTokens());
+            recordTokens(callTags, "output", usage.getOutputTokens());
+        }
+    }
+
+    private void recordTokens(Tags callTags, String kind, long tokens) {
+        Counter.builder(METRIC_PREFIX + "tokens")
+                .description("Tokens consumed by LLM calls")
+                .baseUnit("tokens")
+                .tags(callTags)
+                .tag("kind", kind)
+                .register(meterRegistry)
+                .increment(tokens);
+
+        DistributionSummary.builder(METRIC_PREFIX + "call.tokens")
+                .description("Tokens per LLM call")
+                .baseUnit("tokens")
+                .tags(callTags)
+                .tag("kind", kind)
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry)
+                .record(tokens);
+    }
+}
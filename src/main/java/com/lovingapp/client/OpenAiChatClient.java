@@ -1,22 +1,34 @@
 package com.lovingapp.client;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lovingapp.config.llm.LlmClientProperties.HttpProperties;
 import com.lovingapp.config.llm.LlmClientProperties.OpenAiProperties;
 import com.lovingapp.exception.LLMException;
 import com.lovingapp.model.domain.ai.LLMChatMessage;
 import com.lovingapp.model.domain.ai.LLMRequest;
 import com.lovingapp.model.domain.ai.LLMResponse;
 import com.lovingapp.model.domain.ai.LLMResponseFormat;
+import com.lovingapp.model.domain.ai.LLMUsage;
 import com.lovingapp.model.enums.ChatMessageRole;
 import com.openai.client.OpenAIClient;
-import com.openai.client.okhttp.OpenAIOkHttpClient;
+import com.openai.client.OpenAIClientImpl;
+import com.openai.core.ClientOptions;
+import com.openai.core.Timeout;
+import com.openai.core.http.HttpResponseFor;
+import com.openai.core.http.StreamResponse;
 import com.openai.models.responses.EasyInputMessage;
+import com.openai.models.responses.Response;
 import com.openai.models.responses.ResponseCreateParams;
 import com.openai.models.responses.ResponseInputItem;
-import com.openai.models.responses.StructuredResponseCreateParams;
+import com.openai.models.responses.ResponseStreamEvent;
+import com.openai.models.responses.StructuredResponse;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -27,35 +39,46 @@ import lombok.extern.slf4j.Slf4j;
 public class OpenAiChatClient implements LlmClient {
 
     private final OpenAiProperties openAiProperties;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OpenAIClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-    public OpenAiChatClient(OpenAiProperties openAiProperties) {
+    public OpenAiChatClient(OpenAiProperties openAiProperties, OpenAiHttpClient httpClient) {
         this.openAiProperties = openAiProperties;
+        this.client = buildClientFromProps(httpClient);
     }
 
     @Override
     public <T> LLMResponse<T> generate(LLMRequest request, Class<T> responseClass) {
         try {
-            OpenAIClient client = buildClientFromProps();
+            boolean structured = isStructured(request, responseClass);
+            String model = getLLMModel(request);
 
-            String rawText = "";
-            T parsed = null;
+            ResponseCreateParams params = structured
+                    ? buildResponseCreateParams(request).text(responseClass).build().rawParams()
+                    : buildResponseCreateParams(request).build();
 
-            if (request.getResponseFormat() == LLMResponseFormat.JSON && responseClass != null
-                    && !String.class.equals(responseClass)) {
-                StructuredResponseCreateParams<T> params = buildResponseCreateParams(request)
-                        .text(responseClass)
-                        .build();
+            log.info("LLM request: model={}, format={}, systemPrompt.len={}, messages.size={}",
+                    model,
+                    request.getResponseFormat(),
+                    request.getSystemPrompt() == null ? 0 : request.getSystemPrompt().length(),
+                    request.getMessages() == null ? 0 : request.getMessages().size());
 
-                log.info("LLM request: model={}, format={}, systemPrompt.len={}, messages.size={}",
-                        getLLMModel(request),
-                        request.getResponseFormat(),
-                        request.getSystemPrompt() == null ? 0 : request.getSystemPrompt().length(),
-                        request.getMessages() == null ? 0 : request.getMessages().size());
+            // The raw call returns once the response headers have arrived; the body
+            // is read by parse(), which separates time-to-first-byte from the total
+            long start = System.nanoTime();
+            Response response;
+            Duration timeToFirstByte;
+            try (HttpResponseFor<Response> rawResponse = client.responses().withRawResponse().create(params)) {
+                timeToFirstByte = Duration.ofNanos(System.nanoTime() - start);
+                response = rawResponse.parse();
+            }
 
-                var response = client.responses().create(params);
+            String rawText;
+            T parsed = null;
 
-                parsed = response.output().stream()
+            if (structured) {
+                parsed = new StructuredResponse<>(responseClass, response).output().stream()
                         .flatMap(item -> item.message().stream())
                         .flatMap(message -> message.content().stream())
                         .flatMap(content -> content.outputText().stream())
@@ -71,22 +94,7 @@ public class OpenAiChatClient implements LlmClient {
                 } else {
                     rawText = "";
                 }
-
-                log.info("LLM response(JSON): parsedClass={}, text.len={}",
-                        (parsed == null ? null : parsed.getClass().getSimpleName()),
-                        rawText == null ? 0 : rawText.length());
             } else {
-                ResponseCreateParams params = buildResponseCreateParams(request)
-                        .build();
-
-                log.info("LLM request: model={}, format={}, systemPrompt.len={}, messages.size={}",
-                        getLLMModel(request),
-                        request.getResponseFormat(),
-                        request.getSystemPrompt() == null ? 0 : request.getSystemPrompt().length(),
-                        request.getMessages() == null ? 0 : request.getMessages().size());
-
-                var response = client.responses().create(params);
-
                 rawText = response.output().stream()
                         .flatMap(item -> item.message().stream())
                         .flatMap(message -> message.content().stream())
@@ -94,11 +102,25 @@ public class OpenAiChatClient implements LlmClient {
                         .findFirst()
                         .map(outputText -> outputText.text())
                         .orElse("");
-
-                log.info("LLM response(TEXT): text.len={}",
-                        rawText == null ? 0 : rawText.length());
             }
-            return new LLMResponse<>(rawText, parsed);
+
+            LLMUsage usage = toUsage(response);
+
+            log.info("LLM response: format={}, parsedClass={}, text.len={}, inputTokens={}, cachedTokens={}, outputTokens={}",
+                    request.getResponseFormat(),
+                    parsed == null ? null : parsed.getClass().getSimpleName(),
+                    rawText.length(),
+                    usage == null ? null : usage.getInputTokens(),
+                    usage == null ? null : usage.getCachedInputTokens(),
+                    usage == null ? null : usage.getOutputTokens());
+
+            return LLMResponse.<T>builder()
+                    .rawText(rawText)
+                    .parsed(parsed)
+                    .model(model)
+                    .usage(usage)
+                    .timeToFirstByte(timeToFirstByte)
+                    .build();
 
         } catch (Exception e) {
             log.error("OpenAI LLM request failed: model={} format={} responseClass={}",
@@ -109,6 +131,105 @@ public class OpenAiChatClient implements LlmClient {
         }
     }
 
+    @Override
+    public <T> LLMResponse<T> generateStream(LLMRequest request, Class<T> responseClass, Consumer<String> onDelta) {
+        try {
+            boolean structured = isStructured(request, responseClass);
+            String model = getLLMModel(request);
+
+            log.info("LLM stream request: model={}, format={}, systemPrompt.len={}, messages.size={}",
+                    model,
+                    request.getResponseFormat(),
+                    request.getSystemPrompt() == null ? 0 : request.getSystemPrompt().length(),
+                    request.getMessages() == null ? 0 : request.getMessages().size());
+
+            StringBuilder rawText = new StringBuilder();
+            AtomicReference<LLMUsage> usage = new AtomicReference<>();
+            AtomicReference<Duration> timeToFirstByte = new AtomicReference<>();
+            long start = System.nanoTime();
+
+            try (StreamResponse<ResponseStreamEvent> stream = structured
+                    ? client.responses().createStreaming(buildResponseCreateParams(request)
+                            .text(responseClass)
+                            .build())
+                    : client.responses().createStreaming(buildResponseCreateParams(request).build())) {
+
+                stream.stream().forEach(event -> {
+                    event.outputTextDelta().ifPresent(delta -> {
+                        if (timeToFirstByte.get() == null) {
+                            timeToFirstByte.set(Duration.ofNanos(System.nanoTime() - start));
+                        }
+                        rawText.append(delta.delta());
+                        onDelta.accept(delta.delta());
+                    });
+
+                    event.completed().ifPresent(completed -> usage.set(toUsage(completed.response())));
+
+                    event.error().ifPresent(error -> {
+                        throw new IllegalStateException("LLM stream error: " + error.message());
+                    });
+
+                    event.failed().ifPresent(failed -> {
+                        throw new IllegalStateException("LLM stream failed: " + failed.response().error()
+                                .map(Object::toString)
+                                .orElse("unknown error"));
+                    });
+                });
+            }
+
+            T parsed = null;
+            if (structured && rawText.length() > 0) {
+                parsed = objectMapper.readValue(rawText.toString(), responseClass);
+            }
+
+            log.info("LLM stream response: format={}, text.len={}, inputTokens={}, cachedTokens={}, outputTokens={}",
+                    request.getResponseFormat(),
+                    rawText.length(),
+                    usage.get() == null ? null : usage.get().getInputTokens(),
+                    usage.get() == null ? null : usage.get().getCachedInputTokens(),
+                    usage.get() == null ? null : usage.get().getOutputTokens());
+
+            return LLMResponse.<T>builder()
+                    .rawText(rawText.toString())
+                    .parsed(parsed)
+                    .model(model)
+                    .usage(usage.get())
+                    .timeToFirstByte(timeToFirstByte.get())
+                    .build();
+
+        } catch (Exception e) {
+            log.error("OpenAI LLM stream request failed: model={} format={} responseClass={}",
+                    getLLMModel(request),
+                    request == null ? null : request.getResponseFormat(),
+                    responseClass == null ? null : responseClass.getSimpleName());
+            throw new LLMException(e);
+        }
+    }
+
+    private static boolean isStructured(LLMRequest request, Class<?> responseClass) {
+        return request.getResponseFormat() == LLMResponseFormat.JSON && responseClass != null
+                && !String.class.equals(responseClass);
+    }
+
+    /**
+     * Maps the usage block of a response; usage is optional in the API, and
+     * malformed usage must never fail an otherwise successful call.
+     */
+    private static LLMUsage toUsage(Response response) {
+        try {
+            return response.usage()
+                    .map(usage -> LLMUsage.builder()
+                            .inputTokens(usage.inputTokens())
+                            .cachedInputTokens(usage.inputTokensDetails().cachedTokens())
+                            .outputTokens(usage.outputTokens())
+                            .build())
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            log.debug("LLM response usage unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
     private ResponseCreateParams.Builder buildResponseCreateParams(LLMRequest request) {
         return ResponseCreateParams.builder()
                 .model(getLLMModel(request))
@@ -142,14 +263,29 @@ public class OpenAiChatClient implements LlmClient {
         return inputItems;
     }
 
-    private OpenAIClient buildClientFromProps() {
-        OpenAIOkHttpClient.Builder builder = OpenAIOkHttpClient.builder().fromEnv();
+    /**
+     * Builds the long-lived SDK client on top of the shared, pooled HTTP transport.
+     */
+    private OpenAIClient buildClientFromProps(OpenAiHttpClient httpClient) {
+        HttpProperties http = openAiProperties.getHttp();
+
+        ClientOptions.Builder builder = ClientOptions.builder()
+                .httpClient(httpClient)
+                .fromEnv()
+                .baseUrl(openAiProperties.getBaseUrl())
+                .maxRetries(http.getMaxRetries())
+                .timeout(Timeout.builder()
+                        .connect(http.getConnectTimeout())
+                        .read(http.getReadTimeout())
+                        .write(http.getWriteTimeout())
+                        .request(http.getRequestTimeout())
+                        .build());
 
         if (openAiProperties.getApiKey() != null && !openAiProperties.getApiKey().isBlank()) {
             builder.apiKey(openAiProperties.getApiKey());
         }
 
-        return builder.build();
+        return new OpenAIClientImpl(builder.build());
     }
 
     private String getLLMModel(LLMRequest request) {
@@ -0,0 +1,274 @@
+package com.lovingapp.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.lang.NonNull;
+
+import com.lovingapp.config.llm.LlmClientProperties.HttpProperties;
+import com.openai.core.RequestOptions;
+import com.openai.core.Timeout;
+import com.openai.core.http.Headers;
+import com.openai.core.http.HttpClient;
+import com.openai.core.http.HttpMethod;
+import com.openai.core.http.HttpRequest;
+import com.openai.core.http.HttpRequestBody;
+import com.openai.core.http.HttpResponse;
+import com.openai.errors.OpenAIIoException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+
+/**
+ * Long-lived HTTP transport for the OpenAI SDK.
+ * Owns a single OkHttp connection pool and dispatcher so that TLS sessions and
+ * HTTP/2 connections are reused across LLM calls instead of being rebuilt per
+ * request. Pool statistics are exposed as Micrometer gauges.
+ */
+@Slf4j
+public class OpenAiHttpClient implements HttpClient, MeterBinder {
+
+    private static final String METRIC_PREFIX = "llm.http.";
+
+    private final OkHttpClient okHttpClient;
+
+    public OpenAiHttpClient(HttpProperties httpProperties) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(httpProperties.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(httpProperties.getMaxRequestsPerHost());
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(
+                        httpProperties.getMaxIdleConnections(),
+                        httpProperties.getKeepAlive().toMillis(),
+                        TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .connectTimeout(httpProperties.getConnectTimeout())
+                .readTimeout(httpProperties.getReadTimeout())
+                .writeTimeout(httpProperties.getWriteTimeout())
+                .callTimeout(httpProperties.getRequestTimeout())
+                .retryOnConnectionFailure(true);
+
+        if (!httpProperties.isHttp2Enabled()) {
+            builder.protocols(List.of(Protocol.HTTP_1_1));
+        }
+
+        this.okHttpClient = builder.build();
+
+        log.info(
+                "OpenAI HTTP client created maxIdleConnections={} keepAlive={} maxRequests={} maxRequestsPerHost={} http2Enabled={}",
+                httpProperties.getMaxIdleConnections(), httpProperties.getKeepAlive(),
+                httpProperties.getMaxRequests(), httpProperties.getMaxRequestsPerHost(),
+                httpProperties.isHttp2Enabled());
+    }
+
+    @Override
+    public HttpResponse execute(@NonNull HttpRequest request, @NonNull RequestOptions requestOptions) {
+        Call call = newCall(request, requestOptions);
+        // Stays registered until the async call ends, so a response body still being streamed is cut off too
+        VirtualThreadLlmClient.onCurrentCallAborted(call::cancel);
+        try {
+            return toResponse(call.execute());
+        } catch (IOException e) {
+            throw new OpenAIIoException("Request failed", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> executeAsync(@NonNull HttpRequest request,
+            @NonNull RequestOptions requestOptions) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        Call call = newCall(request, requestOptions);
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(@NonNull Call c, @NonNull Response response) {
+                future.complete(toResponse(response));
+            }
+
+            @Override
+            public void onFailure(@NonNull Call c, @NonNull IOException e) {
+                future.completeExceptionally(new OpenAIIoException("Request failed", e));
+            }
+        });
+
+        future.whenComplete((response, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Opens a connection to the given base URL so the first user-facing LLM call
+     * does not pay for DNS, TCP and TLS setup. The response status is irrelevant;
+     * only the pooled connection matters.
+     */
+    public void warmUp(String baseUrl) {
+        long start = System.nanoTime();
+        Request request = new Request.Builder()
+                .url(baseUrl)
+                .head()
+                .build();
+
+        try (Response response = okHttpClient.newCall(request).execute()) {
+            log.info("OpenAI HTTP connection warmed up url={} status={} protocol={} durationMs={}",
+                    baseUrl, response.code(), response.protocol(),
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (IOException e) {
+            log.warn("OpenAI HTTP connection warm-up failed url={}: {}", baseUrl, e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        ConnectionPool pool = okHttpClient.connectionPool();
+        Dispatcher dispatcher = okHttpClient.dispatcher();
+
+        Gauge.builder(METRIC_PREFIX + "pool.connections", pool, ConnectionPool::connectionCount)
+                .description("Connections currently held by the LLM HTTP connection pool")
+                .tag("state", "total")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + "pool.connections", pool, ConnectionPool::idleConnectionCount)
+                .description("Connections currently held by the LLM HTTP connection pool")
+                .tag("state", "idle")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + "dispatcher.calls", dispatcher, Dispatcher::runningCallsCount)
+                .description("Calls currently handled by the LLM HTTP dispatcher")
+                .tag("state", "running")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + "dispatcher.calls", dispatcher, Dispatcher::queuedCallsCount)
+                .description("Calls currently handled by the LLM HTTP dispatcher")
+                .tag("state", "queued")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        log.info("Shutting down OpenAI HTTP client connections={}", okHttpClient.connectionPool().connectionCount());
+        okHttpClient.dispatcher().executorService().shutdown();
+        okHttpClient.connectionPool().evictAll();
+    }
+
+    private Call newCall(HttpRequest request, RequestOptions requestOptions) {
+        OkHttpClient client = okHttpClient;
+
+        // Per-request timeouts share the pool and dispatcher of the base client
+        Timeout timeout = requestOptions.getTimeout();
+        if (timeout != null) {
+            client = okHttpClient.newBuilder()
+                    .connectTimeout(timeout.connect())
+                    .readTimeout(timeout.read())
+                    .writeTimeout(timeout.write())
+                    .callTimeout(timeout.request())
+                    .build();
+        }
+
+        return client.newCall(toRequest(request));
+    }
+
+    private Request toRequest(HttpRequest request) {
+        HttpUrl.Builder url = HttpUrl.get(request.baseUrl()).newBuilder();
+        request.pathSegments().forEach(url::addPathSegment);
+        for (String key : request.queryParams().keys()) {
+            request.queryParams().values(key).forEach(value -> url.addQueryParameter(key, value));
+        }
+
+        Request.Builder builder = new Request.Builder().url(url.build());
+        Headers headers = request.headers();
+        for (String name : headers.names()) {
+            headers.values(name).forEach(value -> builder.addHeader(name, value));
+        }
+
+        RequestBody body = toRequestBody(request.body());
+        if (body == null && requiresBody(request.method())) {
+            body = RequestBody.create(new byte[0]);
+        }
+
+        return builder.method(request.method().name(), body).build();
+    }
+
+    private static boolean requiresBody(HttpMethod method) {
+        return method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH;
+    }
+
+    private static RequestBody toRequestBody(HttpRequestBody body) {
+        if (body == null) {
+            return null;
+        }
+
+        MediaType mediaType = body.contentType() != null ? MediaType.parse(body.contentType()) : null;
+
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return mediaType;
+            }
+
+            @Override
+            public long contentLength() {
+                return body.contentLength();
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return !body.repeatable();
+            }
+
+            @Override
+            public void writeTo(@NonNull BufferedSink sink) {
+                body.writeTo(sink.outputStream());
+            }
+        };
+    }
+
+    private static HttpResponse toResponse(Response response) {
+        Headers.Builder headers = Headers.builder();
+        for (String name : response.headers().names()) {
+            headers.put(name, response.headers(name));
+        }
+        Headers responseHeaders = headers.build();
+
+        return new HttpResponse() {
+            @Override
+            public int statusCode() {
+                return response.code();
+            }
+
+            @Override
+            public Headers headers() {
+                return responseHeaders;
+            }
+
+            @Override
+            public InputStream body() {
+                return response.body().byteStream();
+            }
+
+            @Override
+            public void close() {
+                response.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,420 @@
+package com.lovingapp.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lovingapp.config.llm.LlmClientProperties.StubProperties;
+import com.lovingapp.helpers.ai.LLMTokenCounter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local stand-in for the OpenAI Responses API, for load and latency testing
+ * without the real provider. Implements the subset used by
+ * {@link OpenAiChatClient}: {@code POST /v1/responses} with plain text or
+ * json_schema structured output, blocking or streamed (SSE).
+ *
+ * Structured replies are generated from the request's JSON schema, so
+ * LLMEmpatheticResponse, LLMUserContextExtraction and any future schema get
+ * valid output. Time to first byte follows a log-normal distribution, output
+ * is paced at a configurable token rate, and errors and hangs can be injected
+ * at configurable rates.
+ *
+ * Runs on its own port with a virtual thread per request so simulated provider
+ * latency never occupies the application's request threads.
+ */
+@Slf4j
+public class OpenAiStubServer {
+
+    private static final Pattern WORD_PATTERN = Pattern.compile("\\S+\\s*");
+    private static final double Z_99 = 2.326;
+
+    private static final List<String> SENTENCES = List.of(
+            "It sounds like you have been carrying a lot lately, and it makes sense that you feel this way.",
+            "Wanting to feel close and understood by your partner is such a natural and tender need.",
+            "Small, consistent moments of attention can slowly rebuild a sense of warmth between you.",
+            "It takes courage to notice what is missing and to look for ways to reconnect.",
+            "You seem to long for more presence and softness in the everyday rhythm of your relationship.",
+            "Being gentle with yourself matters just as much as the effort you put into your partner.");
+
+    private static final List<String> TITLES = List.of(
+            "Finding Our Way Back", "Rebuilding Warmth", "Longing for Closeness", "Quiet Distance",
+            "Growing Together Again");
+
+    private final StubProperties properties;
+    private final LLMTokenCounter tokenCounter;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("llm-stub-", 0).factory());
+    private final HttpServer server;
+
+    public OpenAiStubServer(StubProperties properties, LLMTokenCounter tokenCounter) {
+        this.properties = properties;
+        this.tokenCounter = tokenCounter;
+
+        try {
+            this.server = HttpServer.create(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), properties.getPort()), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to start OpenAI stub server on port " + properties.getPort(), e);
+        }
+        server.setExecutor(executor);
+        server.createContext("/v1/responses", this::handleResponses);
+        server.createContext("/", exchange -> sendStatus(exchange, 404, null));
+        server.start();
+
+        log.info("OpenAI stub server started baseUrl={} ttfbMedian={} ttfbP99={} tokensPerSecond={} errorRate={} hangRate={}",
+                getBaseUrl(), properties.getTtfbMedian(), properties.getTtfbP99(),
+                properties.getOutputTokensPerSecond(), properties.getErrorRate(), properties.getHangRate());
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v1";
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.close();
+        log.info("OpenAI stub server stopped");
+    }
+
+    private void handleResponses(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendStatus(exchange, 405, null);
+                return;
+            }
+
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = objectMapper.readTree(body);
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            sleep(sampleTtfb());
+
+            if (random.nextDouble() < properties.getHangRate()) {
+                sleep(properties.getHangDuration());
+                sendStatus(exchange, 504, "Stub hang elapsed");
+                return;
+            }
+            if (random.nextDouble() < properties.getErrorRate()) {
+                List<Integer> statuses = properties.getErrorStatuses();
+                sendStatus(exchange, statuses.get(random.nextInt(statuses.size())), "Injected stub error");
+                return;
+            }
+
+            String model = request.path("model").asText("stub-model");
+            String outputText = generateOutput(request.path("text").path("format"));
+            long inputTokens = countInputTokens(request.path("input"));
+            long outputTokens = tokenCounter.count(outputText);
+
+            if (request.path("stream").asBoolean(false)) {
+                stream(exchange, model, outputText, inputTokens, outputTokens);
+            } else {
+                sleep(generationTime(outputTokens));
+                ObjectNode response = response(model, outputText, inputTokens, outputTokens);
+                byte[] bytes = objectMapper.writeValueAsBytes(response);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // Client went away (cancelled or timed out); nothing to answer
+            log.debug("OpenAI stub request aborted: {}", e.getMessage());
+        }
+    }
+
+    private void stream(HttpExchange exchange, String model, String outputText, long inputTokens, long outputTokens)
+            throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+
+        String responseId = "resp_" + UUID.randomUUID().toString().replace("-", "");
+        String itemId = "msg_" + UUID.randomUUID().toString().replace("-", "");
+        int sequence = 0;
+
+        ObjectNode inProgress = response(model, "", 0, 0);
+        inProgress.put("id", responseId).put("status", "in_progress");
+        inProgress.putArray("output");
+        inProgress.remove("usage");
+        writeEvent(out, "response.created", objectMapper.createObjectNode()
+                .put("type", "response.created")
+                .put("sequence_number", sequence++)
+                .set("response", inProgress));
+
+        Duration perToken = Duration.ofNanos((long) (1_000_000_000L / properties.getOutputTokensPerSecond()));
+        Matcher words = WORD_PATTERN.matcher(outputText);
+        while (words.find()) {
+            ObjectNode delta = objectMapper.createObjectNode()
+                    .put("type", "response.output_text.delta")
+                    .put("sequence_number", sequence++)
+                    .put("item_id", itemId)
+                    .put("output_index", 0)
+                    .put("content_index", 0)
+                    .put("delta", words.group());
+            delta.putArray("logprobs");
+            writeEvent(out, "response.output_text.delta", delta);
+            sleep(perToken);
+        }
+
+        ObjectNode completed = response(model, outputText, inputTokens, outputTokens);
+        completed.put("id", responseId);
+        writeEvent(out, "response.completed", objectMapper.createObjectNode()
+                .put("type", "response.completed")
+                .put("sequence_number", sequence)
+                .set("response", completed));
+    }
+
+    private void writeEvent(OutputStream out, String event, JsonNode data) throws IOException {
+        out.write(("event: " + event + "\ndata: " + objectMapper.writeValueAsString(data) + "\n\n")
+                .getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private ObjectNode response(String model, String outputText, long inputTokens, long outputTokens) {
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("id", "resp_" + UUID.randomUUID().toString().replace("-", ""))
+                .put("object", "response")
+                .put("created_at", Instant.now().getEpochSecond())
+                .put("status", "completed")
+                .put("model", model)
+                .put("parallel_tool_calls", false)
+                .put("tool_choice", "auto")
+                .put("temperature", 1.0)
+                .put("top_p", 1.0)
+                .putNull("error")
+                .putNull("incomplete_details")
+                .putNull("instructions");
+        response.putObject("metadata");
+        response.putArray("tools");
+
+        ObjectNode message = response.putArray("output").addObject()
+                .put("type", "message")
+                .put("id", "msg_" + UUID.randomUUID().toString().replace("-", ""))
+                .put("role", "assistant")
+                .put("status", "completed");
+        ObjectNode content = message.putArray("content").addObject()
+                .put("type", "output_text")
+                .put("text", outputText);
+        content.putArray("annotations");
+
+        ObjectNode usage = response.putObject("usage")
+                .put("input_tokens", inputTokens)
+                .put("output_tokens", outputTokens)
+                .put("total_tokens", inputTokens + outputTokens);
+        usage.putObject("input_tokens_details").put("cached_tokens", 0);
+        usage.putObject("output_tokens_details").put("reasoning_tokens", 0);
+
+        return response;
+    }
+
+    private String generateOutput(JsonNode format) throws IOException {
+        if (!"json_schema".equals(format.path("type").asText())) {
+            return sentences(3);
+        }
+
+        JsonNode schema = format.path("schema");
+        return objectMapper.writeValueAsString(generateValue(schema, schema, null));
+    }
+
+    /**
+     * Generates a value valid for the given (strict-mode) JSON schema node.
+     */
+    private JsonNode generateValue(JsonNode node, JsonNode root, String fieldName) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (node.has("$ref")) {
+            return generateValue(resolveRef(node.get("$ref").asText(), root), root, fieldName);
+        }
+        if (node.has("anyOf")) {
+            for (JsonNode option : node.get("anyOf")) {
+                if (!"null".equals(option.path("type").asText())) {
+                    return generateValue(option, root, fieldName);
+                }
+            }
+            return objectMapper.nullNode();
+        }
+        if (node.has("enum") && node.get("enum").size() > 0) {
+            List<JsonNode> values = new ArrayList<>();
+            node.get("enum").forEach(value -> {
+                if (!value.isNull()) {
+                    values.add(value);
+                }
+            });
+            return values.isEmpty() ? objectMapper.nullNode() : values.get(random.nextInt(values.size()));
+        }
+
+        String type = schemaType(node.path("type"));
+        switch (type) {
+            case "object" -> {
+                ObjectNode object = objectMapper.createObjectNode();
+                for (Map.Entry<String, JsonNode> field : node.path("properties").properties()) {
+                    object.set(field.getKey(), generateValue(field.getValue(), root, field.getKey()));
+                }
+                return object;
+            }
+            case "array" -> {
+                ArrayNode array = objectMapper.createArrayNode();
+                int size = 1 + random.nextInt(2);
+                for (int i = 0; i < size; i++) {
+                    JsonNode item = generateValue(node.path("items"), root, fieldName);
+                    if (!containsValue(array, item)) {
+                        array.add(item);
+                    }
+                }
+                return array;
+            }
+            case "boolean" -> {
+                return objectMapper.getNodeFactory()
+                        .booleanNode(random.nextDouble() < properties.getBooleanTrueRate());
+            }
+            case "integer" -> {
+                return objectMapper.getNodeFactory().numberNode(random.nextInt(1, 10));
+            }
+            case "number" -> {
+                return objectMapper.getNodeFactory().numberNode(random.nextDouble());
+            }
+            case "null" -> {
+                return objectMapper.nullNode();
+            }
+            default -> {
+                return objectMapper.getNodeFactory().textNode(stringFor(fieldName));
+            }
+        }
+    }
+
+    private static String schemaType(JsonNode type) {
+        if (type.isArray()) {
+            for (JsonNode t : type) {
+                if (!"null".equals(t.asText())) {
+                    return t.asText();
+                }
+            }
+            return "null";
+        }
+        return type.asText("string");
+    }
+
+    private static JsonNode resolveRef(String ref, JsonNode root) {
+        // Local refs only, e.g. #/$defs/Journey or #/definitions/Journey
+        JsonNode node = root;
+        for (String part : ref.replaceFirst("^#/?", "").split("/")) {
+            if (!part.isEmpty()) {
+                node = node.path(part);
+            }
+        }
+        return node;
+    }
+
+    private static boolean containsValue(ArrayNode array, JsonNode value) {
+        for (JsonNode existing : array) {
+            if (existing.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String stringFor(String fieldName) {
+        if (fieldName != null && fieldName.toLowerCase().contains("title")) {
+            return TITLES.get(ThreadLocalRandom.current().nextInt(TITLES.size()));
+        }
+        return sentences(fieldName != null && fieldName.toLowerCase().contains("summary") ? 3 : 2);
+    }
+
+    private String sentences(int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(SENTENCES.get(random.nextInt(SENTENCES.size())));
+        }
+        return text.toString();
+    }
+
+    private long countInputTokens(JsonNode input) {
+        long tokens = 0;
+        for (JsonNode item : input) {
+            JsonNode content = item.path("content");
+            if (content.isTextual()) {
+                tokens += tokenCounter.count(content.asText()) + tokenCounter.messageOverheadTokens();
+            } else {
+                for (JsonNode part : content) {
+                    tokens += tokenCounter.count(part.path("text").asText(""));
+                }
+                tokens += tokenCounter.messageOverheadTokens();
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Log-normal time to first byte, parameterised by its median and p99.
+     */
+    private Duration sampleTtfb() {
+        double medianMs = properties.getTtfbMedian().toMillis();
+        double p99Ms = Math.max(medianMs, properties.getTtfbP99().toMillis());
+        if (medianMs <= 0) {
+            return Duration.ZERO;
+        }
+
+        double mu = Math.log(medianMs);
+        double sigma = (Math.log(p99Ms) - mu) / Z_99;
+        double sampleMs = Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+        return Duration.ofMillis((long) sampleMs);
+    }
+
+    private Duration generationTime(long outputTokens) {
+        return Duration.ofNanos((long) (outputTokens * 1_000_000_000L / properties.getOutputTokensPerSecond()));
+    }
+
+    private static void sleep(Duration duration) throws InterruptedException {
+        if (!duration.isZero() && !duration.isNegative()) {
+            Thread.sleep(duration);
+        }
+    }
+
+    private void sendStatus(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = message == null ? new byte[0]
+                : objectMapper.writeValueAsBytes(Map.of("error", Map.of(
+                        "message", message,
+                        "type", status == 429 ? "rate_limit_exceeded" : "server_error")));
+
+        if (status == 429) {
+            exchange.getResponseHeaders().set("retry-after-ms",
+                    String.valueOf(properties.getRetryAfter().toMillis()));
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            exchange.getResponseBody().write(body);
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.lovingapp.client;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.MDC;
+
+import com.lovingapp.config.llm.LlmClientProperties.CallResilienceProperties;
+import com.lovingapp.config.llm.LlmClientProperties.HedgingProperties;
+import com.lovingapp.config.llm.LlmClientProperties.ResilienceProperties;
+import com.lovingapp.config.llm.LlmClientProperties.RetryProperties;
+import com.lovingapp.exception.LLMException;
+import com.lovingapp.model.domain.ai.LLMCallPriority;
+import com.lovingapp.model.domain.ai.LLMCallType;
+import com.lovingapp.model.domain.ai.LLMRequest;
+import com.lovingapp.model.domain.ai.LLMResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * LlmClient decorator adding, per call type:
+ * <ul>
+ * <li>retries with jittered exponential backoff that honour the provider's
+ * retry-after</li>
+ * <li>a circuit breaker that fails fast with SERVICE_UNAVAILABLE while the
+ * provider is degraded</li>
+ * <li>optional hedging: a second request once the call outlives a latency
+ * percentile of recent calls; the first success wins. The hedge needs a
+ * bulkhead permit of its own that is free right away, otherwise it is skipped,
+ * so hedging never exceeds the concurrency limits or queues ahead of other
+ * calls</li>
+ * </ul>
+ * Streaming calls are retried only until the first delta has been emitted and
+ * are never hedged.
+ */
+@Slf4j
+public class ResilientLlmClient implements LlmClient {
+
+    private static final String METRIC_PREFIX = "llm.resilience.";
+    private static final String DEFAULT_KEY = "other";
+    private static final int LATENCY_SAMPLES = 200;
+
+    private final LlmClient delegate;
+    private final ResilienceProperties properties;
+    private final ExecutorService hedgeExecutor;
+    private final FairLlmBulkhead bulkhead;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<LLMCallType, LlmCircuitBreaker> circuitBreakers = new EnumMap<>(LLMCallType.class);
+    private final Map<LLMCallType, LatencyPercentileTracker> latencyTrackers = new EnumMap<>(LLMCallType.class);
+    private final LlmCircuitBreaker defaultCircuitBreaker;
+    private final LatencyPercentileTracker defaultLatencyTracker;
+
+    public ResilientLlmClient(LlmClient delegate, ResilienceProperties properties, ExecutorService hedgeExecutor,
+            FairLlmBulkhead bulkhead, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.hedgeExecutor = hedgeExecutor;
+        this.bulkhead = bulkhead;
+        this.meterRegistry = meterRegistry;
+
+        for (LLMCallType callType : LLMCallType.values()) {
+            LlmCircuitBreaker breaker = new LlmCircuitBreaker(callType.getTagValue(),
+                    properties.forCallType(callType).getCircuitBreaker());
+            circuitBreakers.put(callType, breaker);
+            latencyTrackers.put(callType, new LatencyPercentileTracker(LATENCY_SAMPLES));
+            registerStateGauge(callType.getTagValue(), breaker);
+        }
+        this.defaultCircuitBreaker = new LlmCircuitBreaker(DEFAULT_KEY,
+                properties.getDefaults().getCircuitBreaker());
+        this.defaultLatencyTracker = new LatencyPercentileTracker(LATENCY_SAMPLES);
+        registerStateGauge(DEFAULT_KEY, defaultCircuitBreaker);
+    }
+
+    @Override
+    public <T> LLMResponse<T> generate(LLMRequest request, Class<T> responseClass) {
+        if (!properties.isEnabled()) {
+            return delegate.generate(request, responseClass);
+        }
+
+        CallResilienceProperties callProperties = properties.forCallType(request.getCallType());
+        HedgingProperties hedging = callProperties.getHedging();
+        LatencyPercentileTracker latencyTracker = latencyTracker(request.getCallType());
+
+        return withRetries(request, callProperties, () -> true, () -> {
+            Duration hedgeDelay = hedging.isEnabled()
+                    ? latencyTracker.percentile(hedging.getPercentile(), hedging.getMinSamples())
+                    : null;
+            if (hedgeDelay == null) {
+                return delegate.generate(request, responseClass);
+            }
+            if (hedgeDelay.compareTo(hedging.getMinDelay()) < 0) {
+                hedgeDelay = hedging.getMinDelay();
+            }
+            return hedged(request, () -> delegate.generate(request, responseClass), hedgeDelay);
+        });
+    }
+
+    @Override
+    public <T> LLMResponse<T> generateStream(LLMRequest request, Class<T> responseClass, Consumer<String> onDelta) {
+        if (!properties.isEnabled()) {
+            return delegate.generateStream(request, responseClass, onDelta);
+        }
+
+        // Once output has reached the caller a retry would duplicate it
+        AtomicBoolean emitted = new AtomicBoolean(false);
+        Consumer<String> trackingOnDelta = delta -> {
+            emitted.set(true);
+            onDelta.accept(delta);
+        };
+
+        return withRetries(request, properties.forCallType(request.getCallType()), () -> !emitted.get(),
+                () -> delegate.generateStream(request, responseClass, trackingOnDelta));
+    }
+
+    private <T> LLMResponse<T> withRetries(LLMRequest request, CallResilienceProperties callProperties,
+            BooleanSupplier retryAllowed, Supplier<LLMResponse<T>> attempt) {
+        RetryProperties retry = callProperties.getRetry();
+        LlmCircuitBreaker circuitBreaker = circuitBreaker(request.getCallType());
+        LatencyPercentileTracker latencyTracker = latencyTracker(request.getCallType());
+        String callTypeTag = callTypeTag(request.getCallType());
+
+        for (int attemptNumber = 1;; attemptNumber++) {
+            if (!circuitBreaker.tryAcquire()) {
+                counter("circuit.rejected", callTypeTag).increment();
+                throw new LLMException(LLMException.Type.SERVICE_UNAVAILABLE,
+                        "LLM circuit breaker open for call type " + callTypeTag);
+            }
+
+            long start = System.nanoTime();
+            try {
+                LLMResponse<T> response = attempt.get();
+                circuitBreaker.onResult(false);
+                latencyTracker.record(System.nanoTime() - start);
+                return response;
+            } catch (LLMException e) {
+                // Aborted by the caller (deadline or cancellation): not the provider's fault
+                if (Thread.currentThread().isInterrupted() || VirtualThreadLlmClient.isCurrentCallAborted()) {
+                    circuitBreaker.onResult(false);
+                    throw e;
+                }
+
+                circuitBreaker.onResult(isProviderFailure(e.getType()));
+
+                Duration backoff = nextBackoff(retry, attemptNumber, e);
+                if (backoff == null || !retryAllowed.getAsBoolean()) {
+                    throw e;
+                }
+
+                log.warn("LLM call failed, retrying callType={} attempt={}/{} type={} backoffMs={}", callTypeTag,
+                        attemptNumber, retry.getMaxAttempts(), e.getType(), backoff.toMillis());
+                counter("retries", callTypeTag).increment();
+
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                // Not raised by the provider call itself; release the permit and propagate
+                circuitBreaker.onResult(false);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the delay before the next attempt, or null when the failure must
+     * not be retried.
+     */
+    private static Duration nextBackoff(RetryProperties retry, int attemptNumber, LLMException e) {
+        if (attemptNumber >= retry.getMaxAttempts() || !retry.getRetryOn().contains(e.getType())) {
+            return null;
+        }
+
+        Duration retryAfter = e.getRetryAfter();
+        if (retryAfter != null) {
+            if (retryAfter.compareTo(retry.getMaxRetryAfter()) > 0) {
+                return null;
+            }
+            // Small jitter on top so throttled callers do not return in lockstep
+            long jitterMs = ThreadLocalRandom.current().nextLong(Math.max(1, retryAfter.toMillis() / 10 + 1));
+            return retryAfter.plusMillis(jitterMs);
+        }
+
+        // Full jitter: uniform in [0, min(maxBackoff, initial * multiplier^(n-1))]
+        double ceilingMs = Math.min(retry.getMaxBackoff().toMillis(),
+                retry.getInitialBackoff().toMillis() * Math.pow(retry.getMultiplier(), attemptNumber - 1));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong((long) ceilingMs + 1));
+    }
+
+    /**
+     * Runs the call and, if it has not finished after {@code hedgeDelay}, races
+     * an identical second request against it. The first success wins and the
+     * other request is cancelled; the attempt fails only when both fail.
+     */
+    private <T> LLMResponse<T> hedged(LLMRequest request, Supplier<LLMResponse<T>> call, Duration hedgeDelay) {
+        String callTypeTag = callTypeTag(request.getCallType());
+        HedgeRace<T> race = new HedgeRace<>();
+        LaunchedRequest primary = race.launch(call, "primary", () -> {
+        });
+        LaunchedRequest hedge = null;
+
+        try {
+            try {
+                return race.result.get(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException timeout) {
+                hedge = launchHedge(race, call, request.getPriority(), callTypeTag, hedgeDelay);
+            }
+
+            LLMResponse<T> response = race.result.get();
+            if ("hedge".equals(race.winner)) {
+                counter("hedges.won", callTypeTag).increment();
+            }
+            return response;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new LLMException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LLMException(e);
+        } finally {
+            primary.cancel();
+            if (hedge != null) {
+                hedge.cancel();
+            }
+        }
+    }
+
+    /**
+     * Launches the hedge with a bulkhead permit of its own, or returns null
+     * when no permit is free right away.
+     */
+    private <T> LaunchedRequest launchHedge(HedgeRace<T> race, Supplier<LLMResponse<T>> call,
+            LLMCallPriority priority, String callTypeTag, Duration hedgeDelay) {
+        Runnable releasePermit = () -> {
+        };
+        if (bulkhead.isEnabled()) {
+            long acquiredAt = bulkhead.tryAcquire(priority);
+            if (acquiredAt < 0) {
+                log.info("LLM call slower than hedge delay, no capacity for a hedged request callType={}",
+                        callTypeTag);
+                counter("hedges.skipped", callTypeTag).increment();
+                return null;
+            }
+            releasePermit = () -> bulkhead.release(acquiredAt, priority);
+        }
+
+        LaunchedRequest hedge = race.launch(call, "hedge", releasePermit);
+        if (hedge != null) {
+            log.info("LLM call slower than hedge delay, sending hedged request callType={} delayMs={}",
+                    callTypeTag, hedgeDelay.toMillis());
+            counter("hedges", callTypeTag).increment();
+        }
+        return hedge;
+    }
+
+    /**
+     * A request of a hedged attempt. {@code onFinish} runs exactly once, when the
+     * request has finished or when it is cancelled before it started.
+     */
+    private static final class LaunchedRequest {
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private final Runnable onFinish;
+        private Future<?> future;
+
+        private LaunchedRequest(Runnable onFinish) {
+            this.onFinish = onFinish;
+        }
+
+        /** Claims the request for running; false once it has been cancelled */
+        private boolean start() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        private void cancel() {
+            future.cancel(true);
+            if (claimed.compareAndSet(false, true)) {
+                onFinish.run();
+            }
+        }
+    }
+
+    /**
+     * Shared state of a hedged attempt. The result fails only once every launched
+     * request has failed; a hedge is not launched once the result is decided.
+     */
+    private final class HedgeRace<T> {
+        private final CompletableFuture<LLMResponse<T>> result = new CompletableFuture<>();
+        private int launched;
+        private int failed;
+        private volatile String winner;
+
+        /**
+         * Returns the launched request, or null (after running {@code onFinish})
+         * when the result is already decided.
+         */
+        synchronized LaunchedRequest launch(Supplier<LLMResponse<T>> call, String name, Runnable onFinish) {
+            if (result.isDone()) {
+                onFinish.run();
+                return null;
+            }
+            launched++;
+
+            LaunchedRequest launchedRequest = new LaunchedRequest(onFinish);
+            Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+            launchedRequest.future = hedgeExecutor.submit(() -> {
+                if (!launchedRequest.start()) {
+                    return;
+                }
+                if (mdcContext != null) {
+                    MDC.setContextMap(mdcContext);
+                }
+                try {
+                    LLMResponse<T> response = call.get();
+                    if (result.complete(response)) {
+                        winner = name;
+                    }
+                } catch (RuntimeException e) {
+                    onFailure(e);
+                } finally {
+                    MDC.clear();
+                    onFinish.run();
+                }
+            });
+            return launchedRequest;
+        }
+
+        private synchronized void onFailure(RuntimeException e) {
+            if (++failed == launched) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static boolean isProviderFailure(LLMException.Type type) {
+        return type == LLMException.Type.RATE_LIMIT
+                || type == LLMException.Type.SERVICE_UNAVAILABLE
+                || type == LLMException.Type.TIMEOUT;
+    }
+
+    private LlmCircuitBreaker circuitBreaker(LLMCallType callType) {
+        return callType != null ? circuitBreakers.get(callType) : defaultCircuitBreaker;
+    }
+
+    private LatencyPercentileTracker latencyTracker(LLMCallType callType) {
+        return callType != null ? latencyTrackers.get(callType) : defaultLatencyTracker;
+    }
+
+    private static String callTypeTag(LLMCallType callType) {
+        return callType != null ? callType.getTagValue() : DEFAULT_KEY;
+    }
+
+    private Counter counter(String name, String callTypeTag) {
+        return Counter.builder(METRIC_PREFIX + name)
+                .tag("call_type", callTypeTag)
+                .register(meterRegistry);
+    }
+
+    private void registerStateGauge(String callTypeTag, LlmCircuitBreaker breaker) {
+        Gauge.builder("llm.circuit.state", breaker, b -> b.getState().ordinal())
+                .description("LLM circuit breaker state (0 closed, 1 half-open, 2 open)")
+                .tag("call_type", callTypeTag)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,166 @@
+package com.lovingapp.client;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.MDC;
+
+import com.lovingapp.exception.LLMException;
+import com.lovingapp.model.domain.ai.LLMRequest;
+import com.lovingapp.model.domain.ai.LLMResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Outermost LlmClient decorator providing the asynchronous API.
+ * Every async call runs the (blocking) delegate chain on its own virtual thread,
+ * so in-flight LLM calls do not pin servlet or platform threads. Deadlines fail
+ * the future with an LLMException of type TIMEOUT; cancelling the future, or
+ * hitting the deadline, runs the abort handlers registered by the transport
+ * (which cancel the HTTP call, so it stops using provider quota) and
+ * interrupts the virtual thread.
+ */
+@Slf4j
+public class VirtualThreadLlmClient implements LlmClient, AutoCloseable {
+
+    /** Abort state of the async call running on the current thread, if any */
+    private static final ThreadLocal<CallAbort> CURRENT_CALL_ABORT = new ThreadLocal<>();
+
+    private final LlmClient delegate;
+    private final ExecutorService executor;
+    private final Duration defaultDeadline;
+    private final ScheduledThreadPoolExecutor deadlineScheduler;
+
+    public VirtualThreadLlmClient(LlmClient delegate, ExecutorService executor, Duration defaultDeadline) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.defaultDeadline = defaultDeadline;
+        this.deadlineScheduler = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().daemon().name("llm-deadline").factory());
+        this.deadlineScheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public <T> LLMResponse<T> generate(LLMRequest request, Class<T> responseClass) {
+        return delegate.generate(request, responseClass);
+    }
+
+    @Override
+    public <T> LLMResponse<T> generateStream(LLMRequest request, Class<T> responseClass, Consumer<String> onDelta) {
+        return delegate.generateStream(request, responseClass, onDelta);
+    }
+
+    @Override
+    public <T> CompletableFuture<LLMResponse<T>> generateAsync(LLMRequest request, Class<T> responseClass,
+            Duration deadline) {
+        CompletableFuture<LLMResponse<T>> result = new CompletableFuture<>();
+        CallAbort abort = new CallAbort();
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+
+        Future<?> task = executor.submit(() -> {
+            if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+            }
+            CURRENT_CALL_ABORT.set(abort);
+            try {
+                result.complete(delegate.generate(request, responseClass));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                CURRENT_CALL_ABORT.remove();
+                MDC.clear();
+            }
+        });
+
+        Duration effectiveDeadline = deadline != null ? deadline : defaultDeadline;
+        ScheduledFuture<?> timer = effectiveDeadline == null ? null
+                : deadlineScheduler.schedule(
+                        () -> result.completeExceptionally(new LLMException(new TimeoutException(
+                                "LLM call exceeded deadline of " + effectiveDeadline.toMillis() + "ms"))),
+                        effectiveDeadline.toMillis(), TimeUnit.MILLISECONDS);
+
+        result.whenComplete((response, error) -> {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            // Cancelled by the caller or deadline exceeded: stop the running call
+            if (error != null && !task.isDone()) {
+                log.info("Aborting in-flight LLM call: {}", error.getClass().getSimpleName());
+                abort.abort();
+                task.cancel(true);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Whether the async call executing on the current thread has been cancelled
+     * or has exceeded its deadline. Lets inner decorators stop retrying even when
+     * the I/O layer has already consumed the thread's interrupt flag.
+     */
+    public static boolean isCurrentCallAborted() {
+        CallAbort abort = CURRENT_CALL_ABORT.get();
+        return abort != null && abort.aborted.get();
+    }
+
+    /**
+     * Runs {@code handler} once the async call executing on the current thread
+     * is cancelled or exceeds its deadline, right away if it already has. Used by
+     * the transport to cancel the underlying HTTP call instead of letting it run
+     * to its own timeout. Does nothing outside an async call.
+     */
+    public static void onCurrentCallAborted(Runnable handler) {
+        CallAbort abort = CURRENT_CALL_ABORT.get();
+        if (abort != null) {
+            abort.onAbort(handler);
+        }
+    }
+
+    private static final class CallAbort {
+
+        private final AtomicBoolean aborted = new AtomicBoolean(false);
+        private final Queue<Runnable> handlers = new ConcurrentLinkedQueue<>();
+
+        private void onAbort(Runnable handler) {
+            handlers.add(handler);
+            // Aborted meanwhile: whoever removes the handler from the queue runs it, exactly once
+            if (aborted.get() && handlers.remove(handler)) {
+                run(handler);
+            }
+        }
+
+        private void abort() {
+            if (aborted.compareAndSet(false, true)) {
+                Runnable handler;
+                while ((handler = handlers.poll()) != null) {
+                    run(handler);
+                }
+            }
+        }
+
+        private static void run(Runnable handler) {
+            try {
+                handler.run();
+            } catch (RuntimeException e) {
+                log.warn("LLM call abort handler failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        deadlineScheduler.shutdownNow();
+    }
+}
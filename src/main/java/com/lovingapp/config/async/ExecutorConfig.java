@@ -0,0 +1,29 @@
+package com.lovingapp.config.async;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Executor driving streamed chat turns. Each stream runs on its own virtual
+     * thread, so a long LLM stream never pins a servlet or platform thread.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService chatStreamExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-stream-", 0).factory());
+    }
+
+    /**
+     * Executor for asynchronous LLM calls. One virtual thread per call keeps
+     * thousands of concurrent calls cheap without growing any platform thread pool.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService llmExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("llm-", 0).factory());
+    }
+}
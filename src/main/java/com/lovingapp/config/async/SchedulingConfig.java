@@ -0,0 +1,12 @@
+package com.lovingapp.config.async;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} maintenance jobs.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,12 +1,26 @@
 package com.lovingapp.config.llm;
 
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.lovingapp.client.BulkheadLlmClient;
+import com.lovingapp.client.FairLlmBulkhead;
 import com.lovingapp.client.LlmClient;
+import com.lovingapp.client.MeteredLlmClient;
 import com.lovingapp.client.OpenAiChatClient;
+import com.lovingapp.client.OpenAiHttpClient;
+import com.lovingapp.client.OpenAiStubServer;
+import com.lovingapp.client.ResilientLlmClient;
+import com.lovingapp.client.VirtualThreadLlmClient;
+import com.lovingapp.config.llm.LlmClientProperties.OpenAiProperties;
+import com.lovingapp.helpers.ai.LLMTokenCounter;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -18,14 +32,75 @@ public class LlmClientConfig {
 
     private final LlmClientProperties properties;
 
+    /**
+     * Shared HTTP transport for the OpenAI client. Closed on context shutdown and
+     * registered as a MeterBinder so pool statistics are exported.
+     */
+    @Bean(destroyMethod = "close")
+    public OpenAiHttpClient openAiHttpClient() {
+        return new OpenAiHttpClient(properties.getOpenai().getHttp());
+    }
+
+    /**
+     * Local tokenizer matching the configured model, used for context budgeting.
+     */
     @Bean
-    public LlmClient llmClient() {
+    public LLMTokenCounter llmTokenCounter() {
+        return new LLMTokenCounter(properties.getOpenai().getModel());
+    }
+
+    /**
+     * Local OpenAI-compatible stub server, started only for provider {@code stub}.
+     */
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "ai", name = "provider", havingValue = "stub")
+    public OpenAiStubServer openAiStubServer(LLMTokenCounter llmTokenCounter) {
+        return new OpenAiStubServer(properties.getStub(), llmTokenCounter);
+    }
+
+    /**
+     * The provider client wrapped in decorators, innermost first: per-call
+     * metrics (so every attempt is measured), retry/circuit breaker/hedging, the
+     * concurrency bulkhead, then the virtual-thread decorator that provides the
+     * asynchronous API. Hedged requests take their own permit from the same
+     * bulkhead.
+     */
+    @Bean(destroyMethod = "close")
+    public VirtualThreadLlmClient llmClient(OpenAiHttpClient openAiHttpClient, ExecutorService llmExecutor,
+            MeterRegistry meterRegistry, ObjectProvider<OpenAiStubServer> openAiStubServer) {
         log.info("LLM provider configured provider={}", properties.getProvider());
 
-        return switch (properties.getProvider()) {
-            case OPENAI -> new OpenAiChatClient(properties.getOpenai());
+        LlmClient providerClient = switch (properties.getProvider()) {
+            case OPENAI -> new OpenAiChatClient(properties.getOpenai(), openAiHttpClient);
+            case STUB -> new OpenAiChatClient(stubOpenAiProperties(openAiStubServer.getObject()), openAiHttpClient);
             default -> throw new IllegalArgumentException("Unsupported LLM provider: " + properties.getProvider());
 
         };
+
+        LlmClient meteredClient = new MeteredLlmClient(providerClient, meterRegistry,
+                properties.getOpenai().getModel());
+
+        FairLlmBulkhead bulkhead = new FairLlmBulkhead(properties.getBulkhead(), meterRegistry);
+
+        LlmClient resilientClient = new ResilientLlmClient(meteredClient, properties.getResilience(), llmExecutor,
+                bulkhead, meterRegistry);
+
+        LlmClient bulkheadClient = new BulkheadLlmClient(resilientClient, bulkhead);
+
+        return new VirtualThreadLlmClient(bulkheadClient, llmExecutor,
+                properties.getAsync().getDefaultDeadline());
+    }
+
+    /**
+     * The OpenAI settings pointed at the stub server; model and HTTP tuning stay
+     * as configured so the client path matches production.
+     */
+    private OpenAiProperties stubOpenAiProperties(OpenAiStubServer stubServer) {
+        OpenAiProperties stubProperties = new OpenAiProperties();
+        stubProperties.setApiKey(properties.getOpenai().getApiKey());
+        stubProperties.setModel(properties.getOpenai().getModel());
+        stubProperties.setHttp(properties.getOpenai().getHttp());
+        stubProperties.setBaseUrl(stubServer.getBaseUrl());
+        return stubProperties;
     }
 }
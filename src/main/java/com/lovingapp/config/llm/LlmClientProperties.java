@@ -1,9 +1,25 @@
 package com.lovingapp.config.llm;
 
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
+import com.lovingapp.exception.LLMException;
+import com.lovingapp.helpers.ai.PromptTemplateId;
+import com.lovingapp.model.domain.ai.LLMCallType;
+
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
@@ -13,15 +29,38 @@ import lombok.Data;
 public class LlmClientProperties {
 
     /**
-     * Select which provider to use (openai or perplexity)
+     * Select which provider to use (openai, or stub for the local OpenAI stub
+     * server used by load tests)
      */
     private LlmProvider provider = LlmProvider.OPENAI;
 
     @Valid
     private OpenAiProperties openai = new OpenAiProperties();
 
+    @Valid
+    private AsyncProperties async = new AsyncProperties();
+
+    @Valid
+    private ContextWindowProperties contextWindow = new ContextWindowProperties();
+
+    @Valid
+    private PromptProperties prompts = new PromptProperties();
+
+    @Valid
+    private ResilienceProperties resilience = new ResilienceProperties();
+
+    @Valid
+    private BulkheadProperties bulkhead = new BulkheadProperties();
+
+    @Valid
+    private StubProperties stub = new StubProperties();
+
+    @Valid
+    private ChatProperties chat = new ChatProperties();
+
     public enum LlmProvider {
-        OPENAI
+        OPENAI,
+        STUB
     }
 
     @Data
@@ -32,6 +71,467 @@ public class LlmClientProperties {
 
         @NotBlank(message = "OpenAI model is required")
         private String model = "gpt-4.1-mini";
+
+        @NotBlank(message = "OpenAI base URL is required")
+        private String baseUrl = "https://api.openai.com/v1";
+
+        @Valid
+        private HttpProperties http = new HttpProperties();
+    }
+
+    /**
+     * Tuning for the shared HTTP connection pool used by the LLM client.
+     */
+    @Data
+    public static class HttpProperties {
+
+        /** Maximum number of idle connections kept alive in the pool */
+        @Min(1)
+        private int maxIdleConnections = 20;
+
+        /** How long an idle connection is kept before being evicted */
+        private Duration keepAlive = Duration.ofMinutes(5);
+
+        /** Maximum number of concurrent in-flight requests */
+        @Min(1)
+        private int maxRequests = 128;
+
+        /** Maximum number of concurrent in-flight requests per host */
+        @Min(1)
+        private int maxRequestsPerHost = 64;
+
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration readTimeout = Duration.ofSeconds(60);
+        private Duration writeTimeout = Duration.ofSeconds(30);
+
+        /** Upper bound for a complete call, including retries done by the SDK */
+        private Duration requestTimeout = Duration.ofSeconds(90);
+
+        /**
+         * Number of retries performed by the OpenAI SDK on retryable errors. Retries
+         * are handled by the resilience layer (ai.resilience), so this is off by
+         * default to avoid multiplying attempts.
+         */
+        @Min(0)
+        private int maxRetries = 0;
+
+        /** Negotiate HTTP/2 via ALPN when the provider supports it */
+        private boolean http2Enabled = true;
+
+        /** Open a pooled connection to the provider on application startup */
+        private boolean warmUpOnStartup = true;
+    }
+
+    /**
+     * Settings for the asynchronous LLM API.
+     */
+    @Data
+    public static class AsyncProperties {
+
+        /**
+         * Deadline applied to async LLM calls that do not specify their own; the
+         * HTTP call is cancelled when it passes, even if the transport timeout
+         * (ai.openai.http.request-timeout) is longer
+         */
+        private Duration defaultDeadline = Duration.ofSeconds(60);
+    }
+
+    /**
+     * Token budgets for the conversation context sent with each LLM call.
+     * Budgets cover the system prompt plus conversation messages.
+     */
+    @Data
+    public static class ContextWindowProperties {
+
+        /** When disabled the full conversation history is sent on every call */
+        private boolean enabled = true;
+
+        @Min(256)
+        private int empatheticMaxTokens = 6000;
+
+        @Min(256)
+        private int extractionMaxTokens = 12000;
+
+        @Min(256)
+        private int wrapUpMaxTokens = 4000;
+
+        /** Combined turns extract the user context too, so they see as much as extraction */
+        @Min(256)
+        private int combinedTurnMaxTokens = 12000;
+
+        /** Summary checkpoints condense the conversation they replace, so they see as much as extraction */
+        @Min(256)
+        private int checkpointMaxTokens = 12000;
+
+        /** Newest messages that are always kept verbatim (truncated only if alone over budget) */
+        @Min(1)
+        private int minRecentMessages = 2;
+
+        /** Upper bound for the semantic summaries of earlier recommendation rounds */
+        @Min(0)
+        private int summaryMaxTokens = 1500;
+
+        /** Length to which each older, non-verbatim message is cut when condensed */
+        @Min(0)
+        private int condensedMessageMaxTokens = 40;
+
+        public int maxTokensFor(LLMCallType callType) {
+            return switch (callType) {
+                case EMPATHETIC -> empatheticMaxTokens;
+                case EXTRACTION -> extractionMaxTokens;
+                case WRAP_UP -> wrapUpMaxTokens;
+                case COMBINED_TURN -> combinedTurnMaxTokens;
+                case CHECKPOINT -> checkpointMaxTokens;
+            };
+        }
+    }
+
+    /**
+     * Prompt template location, versions and reloading.
+     */
+    @Data
+    public static class PromptProperties {
+
+        /** Resource location prefix the template files are resolved against */
+        @NotBlank
+        private String location = "classpath:prompts/";
+
+        /** Template version per prompt; prompts not listed use the default version */
+        private Map<PromptTemplateId, String> versions = new EnumMap<>(PromptTemplateId.class);
+
+        /** Recompile templates whose files changed (development only) */
+        private boolean hotReload = false;
+
+        private Duration hotReloadCheckInterval = Duration.ofSeconds(2);
+    }
+
+    /**
+     * Retry, circuit breaker and hedging around LLM calls. Call types without an
+     * entry in {@code callTypes} use {@code defaults}.
+     */
+    @Data
+    public static class ResilienceProperties {
+
+        private boolean enabled = true;
+
+        @Valid
+        private CallResilienceProperties defaults = new CallResilienceProperties();
+
+        @Valid
+        private Map<LLMCallType, CallResilienceProperties> callTypes = new EnumMap<>(LLMCallType.class);
+
+        public CallResilienceProperties forCallType(LLMCallType callType) {
+            return callType != null ? callTypes.getOrDefault(callType, defaults) : defaults;
+        }
     }
 
+    @Data
+    public static class CallResilienceProperties {
+
+        @Valid
+        private RetryProperties retry = new RetryProperties();
+
+        @Valid
+        private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+
+        @Valid
+        private HedgingProperties hedging = new HedgingProperties();
+    }
+
+    /**
+     * Retries with exponential backoff and full jitter. A provider retry-after
+     * takes precedence over the computed backoff.
+     */
+    @Data
+    public static class RetryProperties {
+
+        /** Total attempts including the first one; 1 disables retries */
+        @Min(1)
+        private int maxAttempts = 3;
+
+        private Duration initialBackoff = Duration.ofMillis(500);
+        private Duration maxBackoff = Duration.ofSeconds(8);
+        private double multiplier = 2.0;
+
+        /** Give up instead of retrying when the provider asks to wait longer than this */
+        private Duration maxRetryAfter = Duration.ofSeconds(20);
+
+        private Set<LLMException.Type> retryOn = EnumSet.of(
+                LLMException.Type.RATE_LIMIT,
+                LLMException.Type.SERVICE_UNAVAILABLE,
+                LLMException.Type.TIMEOUT);
+    }
+
+    /**
+     * Count-based circuit breaker over the most recent calls. Rate limits,
+     * unavailability and timeouts count as failures.
+     */
+    @Data
+    public static class CircuitBreakerProperties {
+
+        private boolean enabled = true;
+
+        @Min(1)
+        private int windowSize = 20;
+
+        /** Calls needed in the window before the failure rate is evaluated */
+        @Min(1)
+        private int minimumCalls = 10;
+
+        @Min(1)
+        @Max(100)
+        private int failureRateThresholdPercent = 50;
+
+        /** How long calls are rejected before trial calls are let through */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /** Trial calls in half-open state; all must succeed to close the breaker */
+        @Min(1)
+        private int halfOpenPermittedCalls = 2;
+    }
+
+    /**
+     * Hedged requests: when a call is still running after the configured latency
+     * percentile of recent calls, a second identical request is sent and the
+     * first successful reply wins. Doubles the cost of slow calls, so it is off
+     * by default. Not applied to streaming calls.
+     */
+    @Data
+    public static class HedgingProperties {
+
+        private boolean enabled = false;
+
+        @DecimalMin("0.5")
+        @DecimalMax("0.999")
+        private double percentile = 0.95;
+
+        /** Lower bound for the hedge delay */
+        private Duration minDelay = Duration.ofSeconds(2);
+
+        /** Recent successful calls needed before hedging starts */
+        @Min(1)
+        private int minSamples = 20;
+    }
+
+    /**
+     * Limits on concurrent LLM calls. Calls beyond the limits are shed with 429.
+     */
+    @Data
+    public static class BulkheadProperties {
+
+        private boolean enabled = true;
+
+        /** Calls allowed to run against the provider at the same time */
+        @Min(1)
+        private int maxConcurrentCalls = 32;
+
+        /** Calls allowed to wait for a permit, across all users */
+        @Min(0)
+        private int maxQueuedCalls = 200;
+
+        /** Calls a single user may have waiting for a permit */
+        @Min(0)
+        private int maxQueuedCallsPerUser = 4;
+
+        /** Longest a call waits for a permit before it is shed */
+        private Duration maxWait = Duration.ofSeconds(15);
+
+        /** Permits background calls may hold at the same time, out of maxConcurrentCalls */
+        @Min(1)
+        private int maxConcurrentBackgroundCalls = 8;
+
+        /** Background calls allowed to wait for a permit, across all users */
+        @Min(0)
+        private int maxQueuedBackgroundCalls = 100;
+
+        /** Background calls a single user may have waiting for a permit */
+        @Min(0)
+        private int maxQueuedBackgroundCallsPerUser = 2;
+
+        /** Longest a background call waits for a permit before it is shed */
+        private Duration backgroundMaxWait = Duration.ofSeconds(60);
+    }
+
+    /**
+     * Behaviour of the local OpenAI stub server (provider {@code stub}).
+     */
+    @Data
+    public static class StubProperties {
+
+        /** Port of the stub server on the loopback interface; 0 picks a free port */
+        @Min(0)
+        @Max(65535)
+        private int port = 18080;
+
+        /** Median and p99 of the log-normal time to first byte */
+        private Duration ttfbMedian = Duration.ofMillis(300);
+        private Duration ttfbP99 = Duration.ofMillis(1500);
+
+        /** Pace at which output is generated and streamed */
+        @DecimalMin(value = "0.0", inclusive = false)
+        private double outputTokensPerSecond = 80;
+
+        /** Share of requests answered with one of {@code errorStatuses} */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double errorRate = 0.0;
+
+        private List<Integer> errorStatuses = List.of(429, 500, 503);
+
+        /** Retry-after sent with injected 429 responses */
+        private Duration retryAfter = Duration.ofSeconds(2);
+
+        /** Share of requests that hang for {@code hangDuration} before failing */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double hangRate = 0.0;
+
+        private Duration hangDuration = Duration.ofSeconds(120);
+
+        /** Probability of {@code true} for generated boolean fields */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double booleanTrueRate = 0.3;
+    }
+
+    /**
+     * How the chat flow uses the LLM.
+     */
+    @Data
+    public static class ChatProperties {
+
+        /**
+         * separate: the chat turn only replies; the recommendation turn extracts the
+         * user context and then writes the wrap-up (two sequential calls).
+         * combined: the chat turn that becomes ready for a suggestion also returns
+         * the extracted user context, so the recommendation turn only writes the
+         * wrap-up.
+         */
+        private TurnMode turnMode = TurnMode.SEPARATE;
+
+        @Valid
+        private BackgroundExtractionProperties backgroundExtraction = new BackgroundExtractionProperties();
+
+        @Valid
+        private TurnSerializationProperties turnSerialization = new TurnSerializationProperties();
+
+        @Valid
+        private MessageCacheProperties messageCache = new MessageCacheProperties();
+
+        @Valid
+        private SummaryCheckpointProperties summaryCheckpoint = new SummaryCheckpointProperties();
+    }
+
+    /**
+     * Rolling summary checkpoints that keep the LLM context of long sessions
+     * bounded.
+     */
+    @Data
+    public static class SummaryCheckpointProperties {
+
+        private boolean enabled = true;
+
+        /** Context tokens (summaries and messages since the last checkpoint) that trigger a new checkpoint */
+        @Min(256)
+        private int triggerTokens = 4000;
+
+        /** Newest messages left out of a new checkpoint, so they stay verbatim in the context */
+        @Min(1)
+        private int keepRecentMessages = 6;
+    }
+
+    /**
+     * In-memory window of the most recent messages per chat session.
+     */
+    @Data
+    public static class MessageCacheProperties {
+
+        private boolean enabled = true;
+
+        /** Sessions kept; the least recently used are evicted beyond this */
+        @Min(1)
+        private int maxSessions = 10_000;
+
+        /** Most recent messages kept per session */
+        @Min(1)
+        private int maxMessagesPerSession = 100;
+
+        /**
+         * Estimated heap size of all cached messages; the least recently used
+         * sessions are evicted beyond this
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+
+        /** Sessions not accessed for this long are evicted */
+        private Duration idleTimeout = Duration.ofMinutes(30);
+
+        /** How often idle sessions are evicted */
+        private Duration sweepInterval = Duration.ofMinutes(1);
+
+        /**
+         * Check a cached window against the newest message of the session in the
+         * database before serving it, so messages written through other instances
+         * are seen. May be turned off only when a single instance serves all chats.
+         */
+        private boolean verifyNewestMessage = true;
+    }
+
+    /**
+     * User context extraction in the background after each chat turn, reused by
+     * the recommendation turn while still current.
+     */
+    @Data
+    public static class BackgroundExtractionProperties {
+
+        private boolean enabled = true;
+
+        /** Quiet period after a turn before extracting; a newer turn restarts it */
+        private Duration debounce = Duration.ofSeconds(2);
+    }
+
+    /**
+     * One chat turn at a time per session.
+     */
+    @Data
+    public static class TurnSerializationProperties {
+
+        private boolean enabled = true;
+
+        /**
+         * local: in-process only, enough for a single instance.
+         * advisory: additionally a Postgres advisory lock per session, for
+         * deployments with several instances. Keeps one connection from the
+         * pool open for the life of each instance.
+         */
+        private TurnLockMode lockMode = TurnLockMode.LOCAL;
+
+        /** queue: overlapping turns wait for the running one; reject: they fail right away */
+        private TurnOverlapPolicy onOverlap = TurnOverlapPolicy.QUEUE;
+
+        /** Turns allowed to wait behind the running one before further turns are rejected */
+        @Min(0)
+        private int maxQueuedTurnsPerSession = 1;
+
+        /** Longest a turn waits for the running one before it is rejected */
+        private Duration maxWait = Duration.ofSeconds(30);
+
+        /** Locks guarding the per-session turn queues; sessions sharing one still run independently */
+        @Min(1)
+        private int stripes = 1024;
+    }
+
+    public enum TurnMode {
+        SEPARATE,
+        COMBINED
+    }
+
+    public enum TurnLockMode {
+        LOCAL,
+        ADVISORY
+    }
+
+    public enum TurnOverlapPolicy {
+        QUEUE,
+        REJECT
+    }
 }
@@ -0,0 +1,22 @@
+package com.lovingapp.config.recommendation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.lovingapp.service.recommendation.EmbeddingProvider;
+import com.lovingapp.service.recommendation.HashingEmbeddingProvider;
+
+@Configuration
+public class RecommendationConfig {
+
+    /**
+     * Local, deterministic embeddings for semantic matching, used unless
+     * another {@link EmbeddingProvider} bean is defined.
+     */
+    @Bean
+    @ConditionalOnMissingBean(EmbeddingProvider.class)
+    public EmbeddingProvider embeddingProvider(RecommendationProperties properties) {
+        return new HashingEmbeddingProvider(properties.getSemantic().getDimensions());
+    }
+}
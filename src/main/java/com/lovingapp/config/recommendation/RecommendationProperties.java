@@ -0,0 +1,193 @@
+package com.lovingapp.config.recommendation;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+@Data
+@Validated
+@ConfigurationProperties(prefix = "recommendation")
+public class RecommendationProperties {
+
+    private PackIndexProperties packIndex = new PackIndexProperties();
+    private RankingProperties ranking = new RankingProperties();
+    private HistoryCacheProperties historyCache = new HistoryCacheProperties();
+    @Valid
+    private SemanticProperties semantic = new SemanticProperties();
+    private BanditProperties bandit = new BanditProperties();
+    private CoCompletionProperties coCompletion = new CoCompletionProperties();
+
+    /**
+     * In-memory index of the ritual packs. Content changes made on this
+     * instance are indexed right after they commit; changes made elsewhere are
+     * detected by polling.
+     */
+    @Data
+    public static class PackIndexProperties {
+
+        /** How often ritual and pack counts and last update times are checked for changes */
+        private Duration refreshInterval = Duration.ofMinutes(1);
+
+        /** The index is rebuilt after this long even if no change was detected */
+        private Duration maxAge = Duration.ofMinutes(15);
+    }
+
+    /**
+     * Ranking of packs against the user's recommendation and ritual history.
+     * Scores are in units of the tag match score, where a shared relational
+     * need counts 3, a love type 2 and the journey 1.
+     */
+    @Data
+    public static class RankingProperties {
+
+        /** Number of packs returned when no limit is requested */
+        private int defaultLimit = 5;
+
+        private int maxLimit = 20;
+
+        /** Recommendations older than this do not affect the ranking */
+        private Duration historyWindow = Duration.ofDays(30);
+
+        /** Most recent recommendations within the window taken into account */
+        private int maxRecentRecommendations = 20;
+
+        /**
+         * The packs of this many latest recommendations are excluded, unless no
+         * other pack is left
+         */
+        private int excludeRecent = 3;
+
+        /**
+         * Penalty for a pack recommended before that, decreasing linearly to
+         * zero with the age rank of the recommendation
+         */
+        private double recentPenalty = 3.0;
+
+        /** Penalty for a pack with a completed ritual */
+        private double completedPenalty = 2.0;
+
+        /**
+         * Penalty per love type a pack shares with the packs ranked before it
+         */
+        private double diversityPenalty = 1.0;
+
+        /**
+         * Best tag matches ranked per requested pack, besides the semantically
+         * similar and co-completed packs; packs outside these are not ranked
+         */
+        private int candidatesPerResult = 8;
+    }
+
+    /**
+     * Per-user cache of the recommended and completed packs. Entries are
+     * dropped when the user's recommendations or ritual history change on this
+     * instance; changes made elsewhere are seen once the entry expires.
+     */
+    @Data
+    public static class HistoryCacheProperties {
+
+        private boolean enabled = true;
+
+        private int maxUsers = 10000;
+
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    /**
+     * Matching of the user context's semantic summary against the semantic
+     * summaries of the packs and their rituals.
+     */
+    @Data
+    public static class SemanticProperties {
+
+        private boolean enabled = true;
+
+        /**
+         * Score added for a cosine similarity of 1, in units of the tag match
+         * score
+         */
+        private double weight = 4.0;
+
+        /** Nearest packs whose similarity is added to their score */
+        private int candidates = 100;
+
+        /** Dimensions of the local hashing embeddings */
+        private int dimensions = 256;
+
+        /** Links per node of the neighbour graph (HNSW M) */
+        @Min(2)
+        private int maxNeighbours = 16;
+
+        /** Candidate list size when adding a pack to the graph */
+        @Min(1)
+        private int efConstruction = 100;
+
+        /** Candidate list size when searching; larger is slower and more accurate */
+        @Min(1)
+        private int efSearch = 128;
+
+        /**
+         * The graph is rebuilt once this share of its nodes belongs to changed
+         * or removed packs
+         */
+        private double maxDeletedRatio = 0.25;
+    }
+
+    /**
+     * Thompson sampling over the engagement of each pack per journey: a score
+     * drawn from the Beta distribution of its successes and failures is added
+     * to the match score, so packs that land rise and untried packs are still
+     * explored.
+     */
+    @Data
+    public static class BanditProperties {
+
+        private boolean enabled = true;
+
+        /** Score added for a sampled success rate of 1, in units of the tag match score */
+        private double weight = 2.0;
+
+        /** Beta prior, as if every pack had this many successes and failures */
+        private double priorSuccesses = 1.0;
+
+        private double priorFailures = 1.0;
+
+        /** How often the statistics are written to and reloaded from the database */
+        private Duration checkpointInterval = Duration.ofMinutes(1);
+    }
+
+    /**
+     * "Users who completed this also completed": pack-to-pack and
+     * ritual-to-ritual similarity of co-completion, computed offline from the
+     * completed ritual history. The packs completed together with the user's
+     * completed packs are boosted.
+     */
+    @Data
+    public static class CoCompletionProperties {
+
+        private boolean enabled = true;
+
+        /** When the matrices are recomputed; they are also computed at startup */
+        private String cron = "0 0 3 * * *";
+
+        /** Score added for a similarity of 1, in units of the tag match score */
+        private double weight = 2.0;
+
+        /** Pairs completed by fewer users are ignored as noise */
+        private int minSupport = 2;
+
+        /** Neighbours kept per pack or ritual */
+        private int maxNeighbours = 20;
+
+        /** Only a user's most recently completed items up to this many are counted */
+        private int maxItemsPerUser = 200;
+
+        /** Users whose pairs are counted together in one parallel batch */
+        private int batchUsers = 10000;
+    }
+}
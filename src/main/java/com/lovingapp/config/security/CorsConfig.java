@@ -27,6 +27,7 @@ public class CorsConfig {
                 "Authorization",
                 "Content-Type",
                 "Correlation-Id",
+                "Idempotency-Key",
                 "Accept"));
 
         configuration.setMaxAge(3600L);
@@ -0,0 +1,32 @@
+package com.lovingapp.config.web;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyProperties {
+
+    /** When disabled the Idempotency-Key header is ignored */
+    private boolean enabled = true;
+
+    /** How long a completed response is replayed for retries with the same key */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Added to the async request timeout (spring.mvc.async.request-timeout),
+     * since a turn may still finish after its request timed out; after both an
+     * unfinished request is considered abandoned (e.g. its instance crashed)
+     * and a retry may run it again
+     */
+    private Duration inProgressMargin = Duration.ofMinutes(1);
+
+    /** How often expired records are purged */
+    private Duration purgeInterval = Duration.ofHours(1);
+
+    /** Maximum accepted length of an Idempotency-Key */
+    private int maxKeyLength = 255;
+}
@@ -1,25 +1,45 @@
 package com.lovingapp.controller;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.slf4j.MDC;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.lovingapp.auth.CurrentUser;
+import com.lovingapp.exception.GlobalExceptionHandler;
+import com.lovingapp.exception.GlobalExceptionHandler.ErrorStatus;
+import com.lovingapp.model.dto.ChatDTOs.ChatMessageDTO;
 import com.lovingapp.model.dto.ChatDTOs.ChatSessionDTO;
+import com.lovingapp.model.dto.ChatDTOs.ChatStreamDeltaEvent;
+import com.lovingapp.model.dto.ChatDTOs.ChatStreamErrorEvent;
 import com.lovingapp.model.dto.ChatDTOs.RecommendRitualPackResponse;
 import com.lovingapp.model.dto.ChatDTOs.SendMessageRequest;
 import com.lovingapp.model.dto.ChatDTOs.SendMessageResponse;
+import com.lovingapp.model.dto.CursorPageDTO;
 import com.lovingapp.service.AIChatService;
+import com.lovingapp.service.IdempotencyService;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -29,8 +49,20 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class AIChatController {
 
+    private static final long STREAM_TIMEOUT_MS = 120_000L;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String DEFAULT_PAGE_SIZE = "20";
+    private static final long MAX_PAGE_SIZE = 100;
+
     private final AIChatService aiChatService;
+    private final ExecutorService chatStreamExecutor;
+    private final IdempotencyService idempotencyService;
 
+    /**
+     * Returns the whole transcript. Kept for existing clients; use
+     * {@link #getChatMessages} instead.
+     */
+    @Deprecated
     @GetMapping("/sessions/{sessionId}/messages")
     public ResponseEntity<ChatSessionDTO> getChatSessionWithHistory(
             @CurrentUser UUID userId,
@@ -44,6 +76,30 @@ public class AIChatController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Returns one page of the transcript, newest messages first. Pass
+     * {@code nextCursor} of a page as {@code cursor} to get the older messages.
+     */
+    @GetMapping("/sessions/{sessionId}/messages/page")
+    public ResponseEntity<CursorPageDTO<ChatMessageDTO>> getChatMessages(
+            @CurrentUser UUID userId,
+            @PathVariable UUID sessionId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        log.info("Fetch chat messages page request received sessionId={} limit={}", sessionId, limit);
+
+        CursorPageDTO<ChatMessageDTO> result = aiChatService.getChatMessages(userId, sessionId, cursor, limit);
+
+        log.info("Chat messages page fetched successfully sessionId={} count={}", sessionId,
+                result.getItems().size());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Returns all sessions of the user. Kept for existing clients; use
+     * {@link #listSessionsPage} instead.
+     */
+    @Deprecated
     @GetMapping("/sessions")
     public ResponseEntity<List<ChatSessionDTO>> listSessions(@CurrentUser UUID userId) {
         log.info("List chat sessions request received");
@@ -54,6 +110,23 @@ public class AIChatController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Returns one page of the user's sessions, most recently updated first. Pass
+     * {@code nextCursor} of a page as {@code cursor} to get the next page.
+     */
+    @GetMapping("/sessions/page")
+    public ResponseEntity<CursorPageDTO<ChatSessionDTO>> listSessionsPage(
+            @CurrentUser UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        log.info("List chat sessions page request received limit={}", limit);
+
+        CursorPageDTO<ChatSessionDTO> result = aiChatService.listSessions(userId, cursor, limit);
+
+        log.info("Chat sessions page fetched successfully count={}", result.getItems().size());
+        return ResponseEntity.ok(result);
+    }
+
     @PostMapping("/sessions")
     public ResponseEntity<ChatSessionDTO> createSession(@CurrentUser UUID userId) {
         log.info("Create chat session request received");
@@ -64,30 +137,104 @@ public class AIChatController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Returns a future so the servlet thread is released while the LLM call is
+     * in flight; the response is written once the turn completes.
+     *
+     * With an {@code Idempotency-Key} header a retried request joins the
+     * original while it is in flight and gets its stored response afterwards.
+     */
     @PostMapping("/sessions/{sessionId}/messages")
-    public ResponseEntity<SendMessageResponse> sendMessage(
+    public CompletableFuture<ResponseEntity<SendMessageResponse>> sendMessage(
             @CurrentUser UUID userId,
             @PathVariable UUID sessionId,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody SendMessageRequest request) {
         log.info("Send message request received sessionId={}", sessionId);
 
-        SendMessageResponse result = aiChatService.sendMessage(userId, sessionId, request);
+        return idempotencyService.execute(userId, idempotencyKey,
+                "POST /sessions/" + sessionId + "/messages\n" + request.getContent(), SendMessageResponse.class,
+                () -> aiChatService.sendMessage(userId, sessionId, request))
+                .thenApply(result -> {
+                    log.info("Message sent successfully sessionId={}", sessionId);
+                    return ResponseEntity.ok(result);
+                });
+    }
 
-        log.info("Message sent successfully sessionId={}", sessionId);
-        return ResponseEntity.ok(result);
+    /**
+     * Streaming variant of {@link #sendMessage}. Emits {@code delta} events with
+     * reply fragments as they are generated, then a single {@code done} event
+     * carrying the persisted {@link SendMessageResponse}, or an {@code error}
+     * event if the turn fails. A request retried with the same
+     * {@code Idempotency-Key} only receives the {@code done} event of the
+     * original.
+     */
+    @PostMapping(value = "/sessions/{sessionId}/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(
+            @CurrentUser UUID userId,
+            @PathVariable UUID sessionId,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody SendMessageRequest request) {
+        log.info("Stream message request received sessionId={}", sessionId);
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        AtomicBoolean clientConnected = new AtomicBoolean(true);
+        emitter.onTimeout(() -> clientConnected.set(false));
+        emitter.onError(error -> clientConnected.set(false));
+
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+
+        chatStreamExecutor.execute(() -> {
+            if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+            }
+            try {
+                SendMessageResponse result = idempotencyService.execute(userId, idempotencyKey,
+                        "POST /sessions/" + sessionId + "/messages/stream\n" + request.getContent(),
+                        SendMessageResponse.class,
+                        () -> CompletableFuture.completedFuture(aiChatService.streamMessage(userId, sessionId,
+                                request, delta -> sendEvent(emitter, clientConnected, "delta",
+                                        ChatStreamDeltaEvent.builder().delta(delta).build()))))
+                        .join();
+
+                sendEvent(emitter, clientConnected, "done", result);
+                emitter.complete();
+
+                log.info("Message streamed successfully sessionId={}", sessionId);
+            } catch (Exception e) {
+                ChatStreamErrorEvent errorEvent = toErrorEvent(
+                        e instanceof CompletionException && e.getCause() instanceof Exception cause ? cause : e);
+                log.warn("Message stream failed sessionId={} status={} error={}", sessionId,
+                        errorEvent.getStatus(), errorEvent.getError());
+
+                sendEvent(emitter, clientConnected, "error", errorEvent);
+                emitter.complete();
+            } finally {
+                MDC.clear();
+            }
+        });
+
+        return emitter;
     }
 
+    /**
+     * Supports the {@code Idempotency-Key} header like {@link #sendMessage}.
+     */
     @PostMapping("/sessions/{sessionId}/recommend")
-    public ResponseEntity<RecommendRitualPackResponse> recommendRitualPack(
+    public CompletableFuture<ResponseEntity<RecommendRitualPackResponse>> recommendRitualPack(
             @CurrentUser UUID userId,
-            @PathVariable UUID sessionId) {
+            @PathVariable UUID sessionId,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("Ritual pack recommendation request received sessionId={}", sessionId);
 
-        RecommendRitualPackResponse result = aiChatService.recommendRitualPack(userId, sessionId);
-
-        log.info("Ritual pack recommended successfully sessionId={} ritualPackId={}", sessionId,
-                result != null && result.getRitualPack() != null ? result.getRitualPack().getId() : null);
-        return ResponseEntity.ok(result);
+        return idempotencyService.execute(userId, idempotencyKey, "POST /sessions/" + sessionId + "/recommend",
+                RecommendRitualPackResponse.class, () -> aiChatService.recommendRitualPack(userId, sessionId))
+                .thenApply(result -> {
+                    log.info("Ritual pack recommended successfully sessionId={} ritualPackId={}", sessionId,
+                            result != null && result.getRitualPack() != null ? result.getRitualPack().getId()
+                                    : null);
+                    return ResponseEntity.ok(result);
+                });
     }
 
     @GetMapping("/sample-prompts")
@@ -111,4 +258,29 @@ public class AIChatController {
         log.info("Chat session deleted successfully sessionId={}", sessionId);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Sends an SSE event unless the client has gone away. A disconnected client
+     * does not abort the turn, so the reply is still generated and persisted.
+     */
+    private static void sendEvent(SseEmitter emitter, AtomicBoolean clientConnected, String name, Object data) {
+        if (!clientConnected.get()) {
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            clientConnected.set(false);
+            log.info("Chat stream client disconnected event={}: {}", name, e.getMessage());
+        }
+    }
+
+    private static ChatStreamErrorEvent toErrorEvent(Exception e) {
+        ErrorStatus errorStatus = GlobalExceptionHandler.errorStatus(e);
+        return ChatStreamErrorEvent.builder()
+                .status(errorStatus.status().value())
+                .error(errorStatus.status().getReasonPhrase())
+                .retryAfterSeconds(errorStatus.retryAfterSeconds())
+                .build();
+    }
 }
@@ -11,12 +11,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.lovingapp.auth.CurrentUser;
 import com.lovingapp.model.dto.UserContextDTOs.UserContextCreateRequest;
 import com.lovingapp.model.dto.UserContextDTOs.UserContextDTO;
 import com.lovingapp.service.UserContextService;
+import com.lovingapp.service.recommendation.CoCompletionMatrix.Neighbour;
+import com.lovingapp.service.recommendation.CoCompletionModel;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +33,7 @@ import lombok.extern.slf4j.Slf4j;
 public class DevToolsController {
 
     private final UserContextService userContextService;
+    private final CoCompletionModel coCompletionModel;
 
     @PostMapping("/user-contexts")
     public ResponseEntity<UserContextDTO> createUserContext(
@@ -64,4 +68,43 @@ public class DevToolsController {
         log.info("User contexts fetched successfully count={}", result == null ? 0 : result.size());
         return ResponseEntity.ok(result);
     }
+
+    @GetMapping("/user-contexts/session/{id}/merged")
+    public ResponseEntity<UserContextDTO> getMergedUserContextForConversation(
+            @CurrentUser UUID userId,
+            @PathVariable UUID id) {
+        log.info("Fetch merged user context for conversation request received ConversationId={}", id);
+
+        return userContextService.findMergedByConversationId(userId, id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/co-completion/rebuild")
+    public ResponseEntity<Void> rebuildCoCompletionModel() {
+        log.info("Co-completion model rebuild request received");
+
+        boolean queued = coCompletionModel.requestRebuild();
+
+        log.info("Co-completion model rebuild requested queued={}", queued);
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/co-completion/rituals/{id}")
+    public ResponseEntity<List<Neighbour>> getCoCompletedRituals(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "10") int limit) {
+        log.info("Fetch co-completed rituals request received ritualId={}", id);
+
+        return ResponseEntity.ok(coCompletionModel.rituals().neighbours(id, limit));
+    }
+
+    @GetMapping("/co-completion/packs/{id}")
+    public ResponseEntity<List<Neighbour>> getCoCompletedPacks(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "10") int limit) {
+        log.info("Fetch co-completed ritual packs request received ritualPackId={}", id);
+
+        return ResponseEntity.ok(coCompletionModel.packs().neighbours(id, limit));
+    }
 }
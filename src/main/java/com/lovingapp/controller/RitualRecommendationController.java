@@ -12,9 +12,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.lovingapp.auth.CurrentUser;
+import com.lovingapp.model.dto.RitualPackDTO;
 import com.lovingapp.model.dto.RitualRecommendationDTOs.RitualRecommendationCreateRequest;
 import com.lovingapp.model.dto.RitualRecommendationDTOs.RitualRecommendationDTO;
 import com.lovingapp.model.dto.RitualRecommendationDTOs.RitualRecommendationUpdateRequest;
@@ -43,6 +45,19 @@ public class RitualRecommendationController {
         return ResponseEntity.ok(list);
     }
 
+    @GetMapping("/ranked")
+    public ResponseEntity<List<RitualPackDTO>> listRanked(
+            @CurrentUser UUID userId,
+            @RequestParam(name = "sessionId") UUID sessionId,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        log.info("Fetch ranked ritual packs request received sessionId={} limit={}", sessionId, limit);
+
+        List<RitualPackDTO> ranked = ritualRecommendationService.rankRitualPacks(userId, sessionId, limit);
+
+        log.info("Ranked ritual packs fetched successfully sessionId={} count={}", sessionId, ranked.size());
+        return ResponseEntity.ok(ranked);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<RitualRecommendationDTO> listById(
             @CurrentUser UUID userId,
@@ -0,0 +1,14 @@
+package com.lovingapp.exception;
+
+import java.util.UUID;
+
+/**
+ * Thrown when a chat turn cannot start because another turn of the same
+ * session is still running. The client should retry later.
+ */
+public class ChatSessionBusyException extends RuntimeException {
+
+    public ChatSessionBusyException(UUID sessionId) {
+        super(String.format("Chat session with id='%s' is busy with another turn", sessionId));
+    }
+}
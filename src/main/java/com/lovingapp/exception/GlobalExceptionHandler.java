@@ -4,6 +4,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -22,13 +23,13 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<Void> handleNotFound(ResourceNotFoundException ex) {
         log.warn("Resource not found: {}", ex.getMessage());
-        return ResponseEntity.notFound().build();
+        return toResponse(ex);
     }
 
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<Void> handleUnauthorized(AccessDeniedException ex) {
         log.info("Unauthorized access attempt: {}", ex.getMessage());
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return toResponse(ex);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -49,59 +50,120 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(HandlerMethodValidationException.class)
     public ResponseEntity<Void> handleMethodValidation(HandlerMethodValidationException ex) {
         log.warn("Method argument validation failed: {}", ex.getMessage());
-        return ResponseEntity.badRequest().build();
+        return toResponse(ex);
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Void> handleBadRequest(IllegalArgumentException ex) {
         log.warn("Bad request: {}", ex.getMessage());
-        return ResponseEntity.badRequest().build();
+        return toResponse(ex);
     }
 
     @ExceptionHandler(ResourceAlreadyExistsException.class)
     public ResponseEntity<Void> handleResourceAlreadyExists(ResourceAlreadyExistsException ex) {
         log.warn("Resource already exists: {}", ex.getMessage());
-        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        return toResponse(ex);
+    }
+
+    @ExceptionHandler(IdempotencyKeyInUseException.class)
+    public ResponseEntity<Void> handleIdempotencyKeyInUse(IdempotencyKeyInUseException ex) {
+        log.warn("Idempotency key in use: {}", ex.getMessage());
+        return toResponse(ex);
+    }
+
+    @ExceptionHandler(ChatSessionBusyException.class)
+    public ResponseEntity<Void> handleChatSessionBusy(ChatSessionBusyException ex) {
+        log.warn("Chat session busy: {}", ex.getMessage());
+        return toResponse(ex);
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<Void> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException ex) {
+        log.warn("Idempotency key mismatch: {}", ex.getMessage());
+        return toResponse(ex);
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Void> handleGeneric(Exception ex) {
         log.error("Unhandled exception", ex);
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        return toResponse(ex);
+    }
+
+    @ExceptionHandler(LLMCapacityExceededException.class)
+    public ResponseEntity<Void> handleLlmCapacityExceeded(LLMCapacityExceededException ex) {
+        ErrorStatus errorStatus = errorStatus(ex);
+        log.warn("LLM capacity exceeded, shedding request retryAfterSeconds={}: {}",
+                errorStatus.retryAfterSeconds(), ex.getMessage());
+        return toResponse(errorStatus);
     }
 
     @ExceptionHandler(LLMException.class)
     public ResponseEntity<Void> handleLlmException(LLMException ex) {
-        LLMException.Type type = ex.getType();
         String msg = ex.getOpenAiMessage() != null && !ex.getOpenAiMessage().isBlank()
                 ? ex.getOpenAiMessage()
                 : ex.getMessage();
 
-        return switch (type) {
-            case UNAUTHORIZED -> {
-                log.warn("LLM unauthorized: {}", msg);
-                yield ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
-            }
-            case RATE_LIMIT -> {
-                log.warn("LLM rate limited: {}", msg);
-                yield ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
-            }
-            case REQUEST_PARSING -> {
-                log.warn("LLM bad request: {}", msg);
-                yield ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
-            }
-            case RESPONSE_PARSING -> {
-                log.warn("LLM response parsing failed: {}", msg);
-                yield ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
-            }
-            case SERVICE_UNAVAILABLE -> {
-                log.warn("LLM service unavailable: {}", msg);
-                yield ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
-            }
-            case UNKNOWN -> {
-                log.error("LLM unknown error: {}", msg);
-                yield ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-            }
-        };
+        switch (ex.getType()) {
+            case UNAUTHORIZED -> log.warn("LLM unauthorized: {}", msg);
+            case RATE_LIMIT -> log.warn("LLM rate limited: {}", msg);
+            case REQUEST_PARSING -> log.warn("LLM bad request: {}", msg);
+            case RESPONSE_PARSING -> log.warn("LLM response parsing failed: {}", msg);
+            case SERVICE_UNAVAILABLE -> log.warn("LLM service unavailable: {}", msg);
+            case TIMEOUT -> log.warn("LLM request timed out: {}", msg);
+            case UNKNOWN -> log.error("LLM unknown error: {}", msg);
+        }
+        return toResponse(ex);
+    }
+
+    /**
+     * Status an exception is answered with, and the seconds the client should
+     * wait before retrying when the failure is transient. Shared with the
+     * error events of streamed responses, which cannot rely on this advice.
+     */
+    public static ErrorStatus errorStatus(Exception ex) {
+        if (ex instanceof ResourceNotFoundException) {
+            return new ErrorStatus(HttpStatus.NOT_FOUND, null);
+        } else if (ex instanceof AccessDeniedException) {
+            return new ErrorStatus(HttpStatus.UNAUTHORIZED, null);
+        } else if (ex instanceof IllegalArgumentException || ex instanceof MethodArgumentNotValidException
+                || ex instanceof HandlerMethodValidationException) {
+            return new ErrorStatus(HttpStatus.BAD_REQUEST, null);
+        } else if (ex instanceof ResourceAlreadyExistsException) {
+            return new ErrorStatus(HttpStatus.CONFLICT, null);
+        } else if (ex instanceof IdempotencyKeyInUseException || ex instanceof ChatSessionBusyException) {
+            return new ErrorStatus(HttpStatus.CONFLICT, 1L);
+        } else if (ex instanceof IdempotencyKeyMismatchException) {
+            return new ErrorStatus(HttpStatus.UNPROCESSABLE_ENTITY, null);
+        } else if (ex instanceof LLMCapacityExceededException capacityExceeded) {
+            return new ErrorStatus(HttpStatus.TOO_MANY_REQUESTS,
+                    Math.max(1, (capacityExceeded.getRetryAfter().toMillis() + 999) / 1000));
+        } else if (ex instanceof LLMException llmException) {
+            return new ErrorStatus(switch (llmException.getType()) {
+                case RATE_LIMIT -> HttpStatus.TOO_MANY_REQUESTS;
+                case UNAUTHORIZED, SERVICE_UNAVAILABLE -> HttpStatus.SERVICE_UNAVAILABLE;
+                case REQUEST_PARSING, RESPONSE_PARSING -> HttpStatus.BAD_GATEWAY;
+                case TIMEOUT -> HttpStatus.GATEWAY_TIMEOUT;
+                case UNKNOWN -> HttpStatus.INTERNAL_SERVER_ERROR;
+            }, null);
+        }
+        return new ErrorStatus(HttpStatus.INTERNAL_SERVER_ERROR, null);
+    }
+
+    private static ResponseEntity<Void> toResponse(Exception ex) {
+        return toResponse(errorStatus(ex));
+    }
+
+    private static ResponseEntity<Void> toResponse(ErrorStatus errorStatus) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(errorStatus.status());
+        if (errorStatus.retryAfterSeconds() != null) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(errorStatus.retryAfterSeconds()));
+        }
+        return response.build();
+    }
+
+    /**
+     * @param retryAfterSeconds {@code null} unless retrying later may succeed
+     */
+    public record ErrorStatus(HttpStatus status, Long retryAfterSeconds) {
     }
 }
@@ -0,0 +1,12 @@
+package com.lovingapp.exception;
+
+/**
+ * Thrown when a request reuses an Idempotency-Key whose original request is
+ * still being processed by another instance. The client should retry later.
+ */
+public class IdempotencyKeyInUseException extends RuntimeException {
+
+    public IdempotencyKeyInUseException(String idempotencyKey) {
+        super(String.format("Request with Idempotency-Key='%s' is still in progress", idempotencyKey));
+    }
+}
@@ -0,0 +1,12 @@
+package com.lovingapp.exception;
+
+/**
+ * Thrown when an Idempotency-Key is reused for a different request than the
+ * one it was first sent with.
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException(String idempotencyKey) {
+        super(String.format("Idempotency-Key='%s' was already used for a different request", idempotencyKey));
+    }
+}
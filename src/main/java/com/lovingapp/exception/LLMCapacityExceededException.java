@@ -0,0 +1,21 @@
+package com.lovingapp.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an LLM call is shed because the LLM bulkhead is saturated.
+ * Carries the delay after which the client should retry.
+ */
+public class LLMCapacityExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LLMCapacityExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
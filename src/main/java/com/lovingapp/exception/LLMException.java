@@ -1,12 +1,19 @@
 package com.lovingapp.exception;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.openai.errors.BadRequestException;
 import com.openai.errors.InternalServerException;
 import com.openai.errors.OpenAIInvalidDataException;
 import com.openai.errors.OpenAIIoException;
+import com.openai.errors.OpenAIServiceException;
 import com.openai.errors.PermissionDeniedException;
 import com.openai.errors.RateLimitException;
 import com.openai.errors.SseException;
@@ -20,6 +27,7 @@ public class LLMException extends RuntimeException {
 
     private final String openAiMessage;
     private final Type type;
+    private final Duration retryAfter;
 
     public enum Type {
         REQUEST_PARSING,
@@ -27,6 +35,7 @@ public class LLMException extends RuntimeException {
         UNAUTHORIZED,
         RATE_LIMIT,
         SERVICE_UNAVAILABLE,
+        TIMEOUT,
         UNKNOWN
     }
 
@@ -34,6 +43,18 @@ public class LLMException extends RuntimeException {
         super(cause);
         this.type = classify(cause);
         this.openAiMessage = extractOpenAiMessage(cause);
+        this.retryAfter = extractRetryAfter(cause);
+    }
+
+    /**
+     * For failures raised by the application itself rather than the provider,
+     * e.g. a call rejected by an open circuit breaker.
+     */
+    public LLMException(Type type, String message) {
+        super(message);
+        this.type = type;
+        this.openAiMessage = message;
+        this.retryAfter = null;
     }
 
     public Type getType() {
@@ -44,6 +65,51 @@ public class LLMException extends RuntimeException {
         return openAiMessage;
     }
 
+    /**
+     * Delay requested by the provider via retry-after-ms / retry-after headers,
+     * or null when none was sent.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    private static Duration extractRetryAfter(Throwable t) {
+        Throwable cur = t;
+        while (cur != null) {
+            if (cur instanceof OpenAIServiceException serviceException) {
+                try {
+                    List<String> millis = serviceException.headers().values("retry-after-ms");
+                    if (!millis.isEmpty()) {
+                        return Duration.ofMillis((long) Double.parseDouble(millis.get(0).trim()));
+                    }
+
+                    List<String> seconds = serviceException.headers().values("retry-after");
+                    if (!seconds.isEmpty()) {
+                        return parseRetryAfterSeconds(seconds.get(0).trim());
+                    }
+                } catch (RuntimeException e) {
+                    log.debug("Ignoring unparseable retry-after header: {}", e.getMessage());
+                }
+                return null;
+            }
+            cur = cur.getCause();
+        }
+        return null;
+    }
+
+    /**
+     * retry-after is either delta-seconds or an HTTP date.
+     */
+    private static Duration parseRetryAfterSeconds(String value) {
+        try {
+            return Duration.ofMillis((long) (Double.parseDouble(value) * 1000));
+        } catch (NumberFormatException e) {
+            ZonedDateTime retryAt = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration delay = Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        }
+    }
+
     private static String extractOpenAiMessage(Throwable t) {
         Throwable cur = t;
         while (cur != null) {
@@ -62,6 +128,10 @@ public class LLMException extends RuntimeException {
                 return Type.UNAUTHORIZED;
             }
 
+            if (cur instanceof TimeoutException || cur instanceof InterruptedIOException) {
+                return Type.TIMEOUT;
+            }
+
             if (cur instanceof RateLimitException) {
                 return Type.RATE_LIMIT;
             }
@@ -0,0 +1,37 @@
+package com.lovingapp.helpers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a list ordered by a timestamp and then by id, passed to clients
+ * as an opaque cursor.
+ */
+public record KeysetCursor(OffsetDateTime timestamp, UUID id) {
+
+    public String encode() {
+        String position = timestamp.toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns {@code null} for a missing cursor, i.e. the first page.
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf('|');
+            return new KeysetCursor(OffsetDateTime.parse(position.substring(0, separator)),
+                    UUID.fromString(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.lovingapp.helpers.ai;
+
+/**
+ * Incrementally extracts the value of a single top-level string field from a
+ * JSON document that arrives in arbitrary chunks (e.g. streamed structured LLM
+ * output). Each call to {@link #feed(String)} returns only the newly decoded
+ * characters of the field value, so they can be forwarded to the client as
+ * soon as they are generated.
+ *
+ * The document is scanned structurally: the field name is only matched as a
+ * key of the top-level object, never inside a string value or a nested
+ * object. If the field's value is not a string (null, a number, an object...)
+ * the extractor fails and emits nothing more; the caller falls back to the
+ * fully parsed document.
+ *
+ * Not thread-safe; use one instance per stream.
+ */
+public final class JsonStringFieldStreamExtractor {
+
+    private enum State {
+        SEEKING_KEY,
+        SEEKING_VALUE,
+        IN_VALUE,
+        DONE,
+        FAILED
+    }
+
+    private final String fieldName;
+    private State state = State.SEEKING_KEY;
+
+    // Structure outside the target value
+    private int depth;
+    private boolean expectingKey;
+    private boolean inString;
+    private boolean keyCandidate;
+    private final StringBuilder key = new StringBuilder();
+    private boolean sawColon;
+
+    // Decoding of the target value and skipping of other strings
+    private boolean escaping;
+    private StringBuilder unicodeEscape;
+
+    public JsonStringFieldStreamExtractor(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * Feeds the next chunk of raw JSON and returns the decoded characters of the
+     * target field value contained in it (empty when there are none).
+     */
+    public String feed(String chunk) {
+        if (chunk == null || chunk.isEmpty() || state == State.DONE || state == State.FAILED) {
+            return "";
+        }
+
+        StringBuilder out = new StringBuilder(chunk.length());
+        for (int i = 0; i < chunk.length() && state != State.DONE && state != State.FAILED; i++) {
+            char c = chunk.charAt(i);
+            switch (state) {
+                case SEEKING_KEY -> scan(c);
+                case SEEKING_VALUE -> seekValue(c);
+                case IN_VALUE -> decode(c, out);
+                case DONE, FAILED -> {
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    public boolean isComplete() {
+        return state == State.DONE;
+    }
+
+    /**
+     * Whether the field turned out not to hold a string value.
+     */
+    public boolean isFailed() {
+        return state == State.FAILED;
+    }
+
+    private void scan(char c) {
+        if (inString) {
+            scanString(c);
+            return;
+        }
+
+        switch (c) {
+            case '"' -> {
+                inString = true;
+                keyCandidate = expectingKey;
+                key.setLength(0);
+            }
+            case '{' -> {
+                depth++;
+                expectingKey = depth == 1;
+            }
+            case '[' -> {
+                depth++;
+                expectingKey = false;
+            }
+            case '}', ']' -> {
+                depth--;
+                expectingKey = false;
+            }
+            // Commas at depth 1 separate the members of the top-level object
+            case ',' -> expectingKey = depth == 1;
+            default -> {
+                if (!Character.isWhitespace(c)) {
+                    expectingKey = false;
+                }
+            }
+        }
+    }
+
+    private void scanString(char c) {
+        if (escaping) {
+            escaping = false;
+            appendToKey(c);
+            return;
+        }
+
+        if (c == '\\') {
+            escaping = true;
+            appendToKey(c);
+        } else if (c == '"') {
+            inString = false;
+            expectingKey = false;
+            if (keyCandidate && fieldName.contentEquals(key)) {
+                state = State.SEEKING_VALUE;
+            }
+        } else {
+            appendToKey(c);
+        }
+    }
+
+    private void appendToKey(char c) {
+        // Only needs to hold one character more than the field name to tell them apart
+        if (keyCandidate && key.length() <= fieldName.length()) {
+            key.append(c);
+        }
+    }
+
+    /**
+     * Between the key and the opening quote of its value only whitespace and
+     * the colon are allowed.
+     */
+    private void seekValue(char c) {
+        if (Character.isWhitespace(c)) {
+            return;
+        }
+        if (c == ':' && !sawColon) {
+            sawColon = true;
+        } else if (c == '"' && sawColon) {
+            state = State.IN_VALUE;
+        } else {
+            state = State.FAILED;
+        }
+    }
+
+    private void decode(char c, StringBuilder out) {
+        if (unicodeEscape != null) {
+            unicodeEscape.append(c);
+            if (unicodeEscape.length() == 4) {
+                try {
+                    out.append((char) Integer.parseInt(unicodeEscape.toString(), 16));
+                } catch (NumberFormatException e) {
+                    state = State.FAILED;
+                }
+                unicodeEscape = null;
+            }
+            return;
+        }
+
+        if (escaping) {
+            escaping = false;
+            switch (c) {
+                case 'n' -> out.append('\n');
+                case 't' -> out.append('\t');
+                case 'r' -> out.append('\r');
+                case 'b' -> out.append('\b');
+                case 'f' -> out.append('\f');
+                case 'u' -> unicodeEscape = new StringBuilder(4);
+                default -> out.append(c); // covers \" \\ and \/
+            }
+            return;
+        }
+
+        if (c == '\\') {
+            escaping = true;
+        } else if (c == '"') {
+            state = State.DONE;
+        } else {
+            out.append(c);
+        }
+    }
+}
@@ -1,63 +1,39 @@
 package com.lovingapp.helpers.ai;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.util.StreamUtils;
-
 import com.lovingapp.model.dto.RitualPackDTO;
 import com.lovingapp.model.enums.Journey;
 import com.lovingapp.model.enums.LoveType;
 import com.lovingapp.model.enums.RelationalNeed;
 import com.lovingapp.model.enums.RelationshipStatus;
 
-import lombok.extern.slf4j.Slf4j;
-
-@Slf4j
+/**
+ * Slot names and slot values of the chat prompt templates. The enum
+ * definition lists never change at runtime and are built once; they are folded
+ * into the templates when these are compiled by the {@link PromptTemplateRegistry}.
+ */
 public final class LLMPromptHelper {
-    private static final String USER_CONTEXT_EXTRACTION_PROMPT_FILE_PATH = "prompts/user_context_extraction_prompt.txt";
-    private static final String WRAP_UP_CHAT_RESPONSE_PROMPT_FILE_PATH = "prompts/wrap_up_chat_response_prompt.txt";
-    private static final String EMPATHETIC_CHAT_RESPONSE_PROMPT_FILE_PATH = "prompts/empathetic_chat_response_prompt.txt";
-
-    public static String generateEmpatheticChatResponsePrompt() {
-        String template = readPromptFile(EMPATHETIC_CHAT_RESPONSE_PROMPT_FILE_PATH);
-
-        String loveTypeDefs = enumList(LoveType.values());
-        String journeyDefs = enumList(Journey.values());
-        String relationalNeedsDefs = enumList(RelationalNeed.values());
-        String relationshipStatusDefs = enumList(RelationshipStatus.values());
-
-        return template
-                .replace("{{LOVE_TYPES_ENUM}}", loveTypeDefs)
-                .replace("{{JOURNEY_ENUM}}", journeyDefs)
-                .replace("{{RELATIONAL_NEEDS_ENUM}}", relationalNeedsDefs)
-                .replace("{{RELATIONSHIP_STATUS_ENUM}}", relationshipStatusDefs);
-    }
 
-    public static String generateUserContextExtractionPrompt() {
-        String template = readPromptFile(USER_CONTEXT_EXTRACTION_PROMPT_FILE_PATH);
+    public static final String SUGGESTED_RITUAL_PACK_SLOT = "SUGGESTED_RITUAL_PACK";
 
-        String loveTypeDefs = enumList(LoveType.values());
-        String journeyDefs = enumList(Journey.values());
-        String relationalNeedsDefs = enumList(RelationalNeed.values());
-        String relationshipStatusDefs = enumList(RelationshipStatus.values());
+    /** Constant slot values shared by all chat prompt templates */
+    public static final Map<String, String> CONSTANT_SLOTS = Map.of(
+            "LOVE_TYPES_ENUM", enumList(LoveType.values(), LoveType::getDescription),
+            "JOURNEY_ENUM", enumList(Journey.values(), Journey::getDescription),
+            "RELATIONAL_NEEDS_ENUM", enumList(RelationalNeed.values(), RelationalNeed::getDescription),
+            "RELATIONSHIP_STATUS_ENUM", enumList(RelationshipStatus.values(), RelationshipStatus::getDescription));
 
-        return template
-                .replace("{{LOVE_TYPES_ENUM}}", loveTypeDefs)
-                .replace("{{JOURNEY_ENUM}}", journeyDefs)
-                .replace("{{RELATIONAL_NEEDS_ENUM}}", relationalNeedsDefs)
-                .replace("{{RELATIONSHIP_STATUS_ENUM}}", relationshipStatusDefs);
+    private LLMPromptHelper() {
     }
 
-    public static String generateWrapUpChatResponsePrompt(RitualPackDTO ritualPack) {
-        String template = readPromptFile(WRAP_UP_CHAT_RESPONSE_PROMPT_FILE_PATH);
-
-        String loveTypeDefs = enumList(LoveType.values());
-
-        // Format the ritual pack details
+    /**
+     * Formats the ritual pack details for the wrap-up prompt.
+     */
+    public static String formatRitualPackDetails(RitualPackDTO ritualPack) {
         StringBuilder packDetails = new StringBuilder();
         if (ritualPack != null) {
             if (ritualPack.getTitle() != null) {
@@ -70,35 +46,15 @@ public final class LLMPromptHelper {
                 packDetails.append("How It Helps: ").append(ritualPack.getHowItHelps());
             }
         }
-
-        return template
-                .replace("{{LOVE_TYPES_ENUM}}", loveTypeDefs)
-                .replace("{{SUGGESTED_RITUAL_PACK}}", packDetails.toString());
+        return packDetails.toString();
     }
 
-    private static String enumList(Enum<?>[] values) {
+    private static <E extends Enum<E>> String enumList(E[] values, Function<E, String> description) {
         return Arrays.stream(values)
                 .map(e -> {
-                    try {
-                        Object desc = e.getClass().getMethod("getDescription").invoke(e);
-                        if (desc != null) {
-                            return e.name() + " → " + desc.toString();
-                        }
-                    } catch (Exception ignored) {
-                        // No getDescription method or invocation failed; fall back to name
-                    }
-                    return e.name();
+                    String desc = description.apply(e);
+                    return desc != null ? e.name() + " → " + desc : e.name();
                 })
                 .collect(Collectors.joining("\n"));
     }
-
-    private static String readPromptFile(String filePath) {
-        try {
-            ClassPathResource resource = new ClassPathResource(filePath);
-            return StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            log.error("Error reading system prompt file", e);
-            throw new RuntimeException("Failed to load system prompt", e);
-        }
-    }
 }
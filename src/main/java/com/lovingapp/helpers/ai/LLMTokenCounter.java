@@ -0,0 +1,83 @@
+package com.lovingapp.helpers.ai;
+
+import java.util.List;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.lovingapp.model.domain.ai.LLMChatMessage;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts tokens locally with the BPE encoding of the configured model, so
+ * prompt sizes can be budgeted without a round trip to the provider.
+ * Models unknown to the tokenizer fall back to o200k_base, the encoding of the
+ * current OpenAI chat models. Thread-safe.
+ */
+@Slf4j
+public final class LLMTokenCounter {
+
+    /** Fixed per-message framing cost of the chat format (role and separators) */
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private static final String TRUNCATION_MARKER = " …";
+
+    private static final List<String> O200K_MODEL_PREFIXES = List.of("gpt-4o", "gpt-4.1", "gpt-4.5", "gpt-5",
+            "o1", "o3", "o4");
+
+    private final Encoding encoding;
+
+    public LLMTokenCounter(String model) {
+        EncodingRegistry registry = Encodings.newLazyEncodingRegistry();
+        this.encoding = usesO200k(model)
+                ? registry.getEncoding(EncodingType.O200K_BASE)
+                : registry.getEncodingForModel(model)
+                        .orElseGet(() -> registry.getEncoding(EncodingType.O200K_BASE));
+
+        log.info("LLM token counter created model={} encoding={}", model, encoding.getName());
+    }
+
+    public int count(String text) {
+        return text == null || text.isEmpty() ? 0 : encoding.countTokensOrdinary(text);
+    }
+
+    /**
+     * Tokens a chat message occupies in the prompt, including framing overhead.
+     */
+    public int count(LLMChatMessage message) {
+        return count(message.getContent()) + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    public int messageOverheadTokens() {
+        return MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    /**
+     * Cuts the text down to at most {@code maxTokens} tokens, keeping its
+     * beginning and marking the cut.
+     */
+    public String truncate(String text, int maxTokens) {
+        if (text == null || maxTokens <= 0) {
+            return "";
+        }
+
+        // One token is left for the truncation marker
+        EncodingResult result = encoding.encodeOrdinary(text, Math.max(1, maxTokens - 1));
+        if (!result.isTruncated()) {
+            return text;
+        }
+
+        return encoding.decode(result.getTokens()).stripTrailing() + TRUNCATION_MARKER;
+    }
+
+    /**
+     * The tokenizer's prefix matching maps newer model families such as
+     * gpt-4.1 onto the gpt-4 encoding, so those are resolved here first.
+     */
+    private static boolean usesO200k(String model) {
+        return model != null && O200K_MODEL_PREFIXES.stream().anyMatch(model::startsWith);
+    }
+}
@@ -0,0 +1,118 @@
+package com.lovingapp.helpers.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A prompt template compiled once into static text segments and named slots.
+ * Placeholders have the form {@code {{SLOT_NAME}}}; slots whose values are known
+ * at compile time (constants) are folded into the surrounding static text, so
+ * rendering only copies segments and the remaining per-call values into a
+ * single pre-sized buffer. Templates without per-call slots render to a cached
+ * string. Immutable and thread-safe.
+ */
+public final class PromptTemplate {
+
+    private static final Pattern SLOT_PATTERN = Pattern.compile("\\{\\{([A-Z][A-Z0-9_]*)}}");
+
+    private final String name;
+    private final String version;
+    private final String[] segments; // always slots.length + 1 entries
+    private final String[] slots;
+    private final int staticLength;
+    private final String constantRendering;
+
+    private PromptTemplate(String name, String version, String[] segments, String[] slots) {
+        this.name = name;
+        this.version = version;
+        this.segments = segments;
+        this.slots = slots;
+        this.staticLength = Arrays.stream(segments).mapToInt(String::length).sum();
+        this.constantRendering = slots.length == 0 ? segments[0] : null;
+    }
+
+    /**
+     * Compiles the template source, folding in the given constant slot values.
+     */
+    public static PromptTemplate compile(String name, String version, String source, Map<String, String> constants) {
+        List<String> segments = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        StringBuilder current = new StringBuilder(source.length());
+
+        Matcher matcher = SLOT_PATTERN.matcher(source);
+        int last = 0;
+        while (matcher.find()) {
+            current.append(source, last, matcher.start());
+            String slot = matcher.group(1);
+            String constant = constants.get(slot);
+            if (constant != null) {
+                current.append(constant);
+            } else {
+                segments.add(current.toString());
+                slots.add(slot);
+                current.setLength(0);
+            }
+            last = matcher.end();
+        }
+        current.append(source, last, source.length());
+        segments.add(current.toString());
+
+        return new PromptTemplate(name, version, segments.toArray(String[]::new), slots.toArray(String[]::new));
+    }
+
+    /**
+     * Renders a template that has no per-call slots.
+     */
+    public String render() {
+        return render(Map.of());
+    }
+
+    /**
+     * Renders the template with the given per-call slot values.
+     *
+     * @throws IllegalArgumentException when a slot of the template has no value
+     */
+    public String render(Map<String, String> values) {
+        if (constantRendering != null) {
+            return constantRendering;
+        }
+
+        String[] resolved = new String[slots.length];
+        int length = staticLength;
+        for (int i = 0; i < slots.length; i++) {
+            String value = values.get(slots[i]);
+            if (value == null) {
+                throw new IllegalArgumentException(
+                        "Missing value for slot " + slots[i] + " of prompt template " + name + "@" + version);
+            }
+            resolved[i] = value;
+            length += value.length();
+        }
+
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(segments[i]).append(resolved[i]);
+        }
+        out.append(segments[slots.length]);
+
+        return out.toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public Set<String> getSlotNames() {
+        return new LinkedHashSet<>(Arrays.asList(slots));
+    }
+}
@@ -0,0 +1,23 @@
+package com.lovingapp.helpers.ai;
+
+/**
+ * Prompt templates known to the {@link PromptTemplateRegistry}, by base file
+ * name under the prompt location.
+ */
+public enum PromptTemplateId {
+    EMPATHETIC_CHAT_RESPONSE("empathetic_chat_response_prompt"),
+    USER_CONTEXT_EXTRACTION("user_context_extraction_prompt"),
+    WRAP_UP_CHAT_RESPONSE("wrap_up_chat_response_prompt"),
+    COMBINED_CHAT_TURN("combined_chat_turn_prompt"),
+    CONVERSATION_SUMMARY("conversation_summary_prompt");
+
+    private final String fileName;
+
+    PromptTemplateId(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+}
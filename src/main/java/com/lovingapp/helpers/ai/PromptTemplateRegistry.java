@@ -0,0 +1,112 @@
+package com.lovingapp.helpers.ai;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import com.lovingapp.config.llm.LlmClientProperties;
+import com.lovingapp.config.llm.LlmClientProperties.PromptProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads every prompt template once at startup and keeps it precompiled, so
+ * building a prompt on a chat turn is a buffer copy rather than file I/O and
+ * string replacement. The template version is selected per template via
+ * {@code ai.prompts.versions}; version {@value #DEFAULT_VERSION} is the
+ * unsuffixed file, other versions live next to it as
+ * {@code <name>.<version>.txt}.
+ *
+ * With {@code ai.prompts.hot-reload} enabled (dev), a template whose file has
+ * changed is recompiled on the next access after the check interval.
+ */
+@Slf4j
+@Component
+public class PromptTemplateRegistry {
+
+    public static final String DEFAULT_VERSION = "v1";
+
+    private final ResourceLoader resourceLoader;
+    private final PromptProperties properties;
+    private final long checkIntervalNanos;
+    private final Map<PromptTemplateId, LoadedTemplate> templates = new EnumMap<>(PromptTemplateId.class);
+
+    private record LoadedTemplate(PromptTemplate template, Resource resource, long lastModified,
+            long checkedAtNanos) {
+    }
+
+    public PromptTemplateRegistry(ResourceLoader resourceLoader, LlmClientProperties llmClientProperties) {
+        this.resourceLoader = resourceLoader;
+        this.properties = llmClientProperties.getPrompts();
+        this.checkIntervalNanos = properties.getHotReloadCheckInterval().toNanos();
+
+        for (PromptTemplateId id : PromptTemplateId.values()) {
+            templates.put(id, load(id));
+        }
+
+        log.info("Prompt templates loaded count={} hotReload={}", templates.size(), properties.isHotReload());
+    }
+
+    public PromptTemplate get(PromptTemplateId id) {
+        if (!properties.isHotReload()) {
+            return templates.get(id).template();
+        }
+
+        synchronized (templates) {
+            LoadedTemplate loaded = templates.get(id);
+            long now = System.nanoTime();
+            if (now - loaded.checkedAtNanos() < checkIntervalNanos) {
+                return loaded.template();
+            }
+
+            LoadedTemplate current = reloadIfModified(id, loaded, now);
+            templates.put(id, current);
+            return current.template();
+        }
+    }
+
+    private LoadedTemplate reloadIfModified(PromptTemplateId id, LoadedTemplate loaded, long now) {
+        try {
+            if (loaded.resource().lastModified() == loaded.lastModified()) {
+                return new LoadedTemplate(loaded.template(), loaded.resource(), loaded.lastModified(), now);
+            }
+
+            LoadedTemplate reloaded = load(id);
+            log.info("Prompt template reloaded name={} version={}", reloaded.template().getName(),
+                    reloaded.template().getVersion());
+            return reloaded;
+        } catch (IOException | IllegalStateException e) {
+            log.warn("Prompt template reload failed, keeping previous version name={}: {}", id.getFileName(),
+                    e.getMessage());
+            return new LoadedTemplate(loaded.template(), loaded.resource(), loaded.lastModified(), now);
+        }
+    }
+
+    private LoadedTemplate load(PromptTemplateId id) {
+        String version = properties.getVersions().getOrDefault(id, DEFAULT_VERSION);
+        String fileName = DEFAULT_VERSION.equals(version)
+                ? id.getFileName() + ".txt"
+                : id.getFileName() + "." + version + ".txt";
+        Resource resource = resourceLoader.getResource(properties.getLocation() + fileName);
+
+        try {
+            String source = StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+            PromptTemplate template = PromptTemplate.compile(id.getFileName(), version, source,
+                    LLMPromptHelper.CONSTANT_SLOTS);
+            long lastModified = properties.isHotReload() ? resource.lastModified() : 0L;
+
+            log.info("Prompt template compiled name={} version={} slots={}", id.getFileName(), version,
+                    template.getSlotNames());
+            return new LoadedTemplate(template, resource, lastModified, System.nanoTime());
+        } catch (IOException e) {
+            log.error("Error reading prompt template file={}", fileName, e);
+            throw new IllegalStateException("Failed to load prompt template " + fileName, e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.lovingapp.infra.startup;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.lovingapp.client.OpenAiHttpClient;
+import com.lovingapp.config.llm.LlmClientProperties;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Component
+@Profile("!test")
+@RequiredArgsConstructor
+@Slf4j
+public class LlmConnectionWarmUpBootstrap implements ApplicationRunner {
+
+    private final OpenAiHttpClient openAiHttpClient;
+    private final LlmClientProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.getOpenai().getHttp().isWarmUpOnStartup()) {
+            log.info("LLM connection warm-up disabled");
+            return;
+        }
+
+        log.info("Starting LLM connection warm-up");
+
+        openAiHttpClient.warmUp(properties.getOpenai().getBaseUrl());
+
+        log.info("LLM connection warm-up completed");
+    }
+}
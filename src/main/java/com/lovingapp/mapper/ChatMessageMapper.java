@@ -1,9 +1,12 @@
 package com.lovingapp.mapper;
 
+import java.util.UUID;
+
 import org.springframework.stereotype.Component;
 
 import com.lovingapp.model.dto.ChatDTOs.ChatMessageDTO;
 import com.lovingapp.model.entity.ChatMessage;
+import com.lovingapp.repository.ChatMessageRepository.ChatMessageSummary;
 
 @Component
 public final class ChatMessageMapper {
@@ -22,4 +25,19 @@ public final class ChatMessageMapper {
                 .createdAt(message.getCreatedAt())
                 .build();
     }
+
+    public static ChatMessageDTO toDto(UUID sessionId, ChatMessageSummary message) {
+        if (message == null) {
+            return null;
+        }
+
+        return ChatMessageDTO.builder()
+                .id(message.getId())
+                .sessionId(sessionId)
+                .role(message.getRole())
+                .content(message.getContent())
+                .metadata(message.getMetadata())
+                .createdAt(message.getCreatedAt())
+                .build();
+    }
 }
@@ -4,6 +4,7 @@ import org.springframework.stereotype.Component;
 
 import com.lovingapp.model.dto.ChatDTOs.ChatSessionDTO;
 import com.lovingapp.model.entity.ChatSession;
+import com.lovingapp.repository.ChatSessionRepository.ChatSessionSummary;
 
 @Component
 public final class ChatSessionMapper {
@@ -21,4 +22,18 @@ public final class ChatSessionMapper {
                 .updatedAt(session.getUpdatedAt())
                 .build();
     }
+
+    public static ChatSessionDTO toDto(ChatSessionSummary session) {
+        if (session == null) {
+            return null;
+        }
+
+        return ChatSessionDTO.builder()
+                .id(session.getId())
+                .title(session.getTitle())
+                .lastMessagePreview(session.getLastMessagePreview())
+                .createdAt(session.getCreatedAt())
+                .updatedAt(session.getUpdatedAt())
+                .build();
+    }
 }
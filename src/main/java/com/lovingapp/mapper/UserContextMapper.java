@@ -1,11 +1,15 @@
 package com.lovingapp.mapper;
 
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.springframework.stereotype.Component;
 
 import com.lovingapp.model.dto.UserContextDTOs.UserContextDTO;
+import com.lovingapp.model.entity.MergedUserContext;
 import com.lovingapp.model.entity.UserContext;
 
 @Component
@@ -27,4 +31,37 @@ public final class UserContextMapper {
                 .updatedAt(entity.getUpdatedAt())
                 .build();
     }
+
+    /**
+     * Love types and relational needs are listed by descending weight.
+     */
+    public static UserContextDTO toDto(MergedUserContext entity) {
+        if (entity == null) {
+            return null;
+        }
+
+        return UserContextDTO.builder()
+                .id(entity.getId())
+                .conversationId(entity.getConversationId())
+                .journey(entity.getJourney())
+                .loveTypes(byWeight(entity.getLoveTypeWeights()))
+                .relationalNeeds(byWeight(entity.getRelationalNeedWeights()))
+                .relationshipStatus(entity.getRelationshipStatus())
+                .semanticSummary(entity.getSemanticSummary())
+                .createdAt(entity.getCreatedAt())
+                .updatedAt(entity.getUpdatedAt())
+                .build();
+    }
+
+    private static <E extends Enum<E>> List<E> byWeight(Map<E, Double> weights) {
+        if (weights == null) {
+            return Collections.emptyList();
+        }
+
+        return weights.entrySet().stream()
+                .sorted(Map.Entry.<E, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
 }
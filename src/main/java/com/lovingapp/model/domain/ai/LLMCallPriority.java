@@ -0,0 +1,21 @@
+package com.lovingapp.model.domain.ai;
+
+/**
+ * Whether an LLM call is awaited by a user or done in the background. The
+ * bulkhead admits background calls from a budget of their own and only when
+ * no interactive call is waiting.
+ */
+public enum LLMCallPriority {
+    INTERACTIVE("interactive"),
+    BACKGROUND("background");
+
+    private final String tagValue;
+
+    LLMCallPriority(String tagValue) {
+        this.tagValue = tagValue;
+    }
+
+    public String getTagValue() {
+        return tagValue;
+    }
+}
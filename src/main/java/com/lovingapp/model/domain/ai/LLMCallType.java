@@ -0,0 +1,23 @@
+package com.lovingapp.model.domain.ai;
+
+/**
+ * The kinds of LLM calls made by the chat flow. Used to select per-call
+ * settings (e.g. context budgets) and as a metrics tag.
+ */
+public enum LLMCallType {
+    EMPATHETIC("empathetic"),
+    EXTRACTION("extraction"),
+    WRAP_UP("wrap-up"),
+    COMBINED_TURN("combined-turn"),
+    CHECKPOINT("checkpoint");
+
+    private final String tagValue;
+
+    LLMCallType(String tagValue) {
+        this.tagValue = tagValue;
+    }
+
+    public String getTagValue() {
+        return tagValue;
+    }
+}
@@ -0,0 +1,27 @@
+package com.lovingapp.model.domain.ai;
+
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Empathetic reply that, once the conversation is ready for a ritual
+ * suggestion, also carries the extracted user context (combined turn mode).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LLMCombinedTurnResponse {
+    @JsonPropertyDescription("Empathetic response for the user query")
+    private String response;
+
+    @JsonPropertyDescription("Does LLM have all the information to suggest a ritual pack?")
+    private boolean readyForRitualSuggestion;
+
+    @JsonPropertyDescription("The user's extracted emotional and relational context. Fill only when readyForRitualSuggestion is true, otherwise return null.")
+    private LLMUserContextExtraction userContext;
+}
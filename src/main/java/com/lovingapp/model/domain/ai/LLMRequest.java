@@ -2,6 +2,7 @@ package com.lovingapp.model.domain.ai;
 
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,5 +18,8 @@ public class LLMRequest {
     private String systemPrompt;
     private List<LLMChatMessage> messages;
     private LLMResponseFormat responseFormat;
+    private LLMCallType callType; // used for per-call settings and metrics
+    private UUID userId; // user the call is made for, used for fair scheduling
+    private LLMCallPriority priority; // null is interactive
     private Map<String, Object> metadata; // optional — e.g. temperature, schema, etc.
 }
\ No newline at end of file
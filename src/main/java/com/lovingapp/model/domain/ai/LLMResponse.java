@@ -1,5 +1,7 @@
 package com.lovingapp.model.domain.ai;
 
+import java.time.Duration;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,4 +14,12 @@ import lombok.NoArgsConstructor;
 public class LLMResponse<T> {
     private String rawText; // The raw model text output
     private T parsed; // Parsed json object
+    private String model; // Model that served the call
+    private LLMUsage usage; // Token usage, null when the provider did not report it
+    private Duration timeToFirstByte; // Until response headers (blocking) or the first output delta (streaming)
+
+    public LLMResponse(String rawText, T parsed) {
+        this.rawText = rawText;
+        this.parsed = parsed;
+    }
 }
\ No newline at end of file
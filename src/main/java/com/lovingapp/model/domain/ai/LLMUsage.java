@@ -0,0 +1,19 @@
+package com.lovingapp.model.domain.ai;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Token usage reported by the provider for a single LLM call.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LLMUsage {
+    private long inputTokens;
+    private long cachedInputTokens; // part of inputTokens served from the provider's prompt cache
+    private long outputTokens;
+}
@@ -82,4 +82,30 @@ public class ChatDTOs {
         private UUID recommendationId;
         private ChatMessageDTO wrapUpResponse;
     }
+
+    /**
+     * Server-sent event carrying an incremental fragment of the assistant reply.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ChatStreamDeltaEvent {
+        private String delta;
+    }
+
+    /**
+     * Server-sent event emitted when a streamed chat turn fails.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ChatStreamErrorEvent {
+        private int status;
+        private String error;
+
+        /** Seconds to wait before retrying, or null unless the failure is transient */
+        private Long retryAfterSeconds;
+    }
 }
@@ -0,0 +1,24 @@
+package com.lovingapp.model.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of a cursor-paginated list. {@code nextCursor} is passed back to
+ * fetch the following page and is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageDTO<T> {
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+    private List<T> items;
+
+    private String nextCursor;
+}
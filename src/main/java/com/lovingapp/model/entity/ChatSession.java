@@ -4,13 +4,18 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Type;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import com.lovingapp.model.domain.ai.LLMUserContextExtraction;
+import com.vladmihalcea.hibernate.type.json.JsonType;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -19,7 +24,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "chat_sessions")
+@Table(name = "chat_sessions", indexes = {
+        @Index(name = "idx_chat_sessions_user_updated_at_id", columnList = "user_id, updated_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -41,6 +48,18 @@ public class ChatSession {
     @Column(name = "last_message_preview", length = 160)
     private String lastMessagePreview;
 
+    /**
+     * User context extracted alongside the latest assistant reply (combined turn
+     * mode), not yet confirmed by a recommendation. Only valid while
+     * {@link #provisionalContextMessageId} is the newest message of the session.
+     */
+    @Type(JsonType.class)
+    @Column(name = "provisional_user_context", columnDefinition = "jsonb")
+    private LLMUserContextExtraction provisionalUserContext;
+
+    @Column(name = "provisional_context_message_id", columnDefinition = "uuid")
+    private UUID provisionalContextMessageId;
+
     @CreationTimestamp
     @Column(name = "created_at", columnDefinition = "timestamptz", updatable = false, nullable = false)
     private OffsetDateTime createdAt;
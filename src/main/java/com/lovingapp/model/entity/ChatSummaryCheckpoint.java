@@ -0,0 +1,61 @@
+package com.lovingapp.model.entity;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UuidGenerator;
+
+import com.lovingapp.helpers.TimeOrderedUuidGenerator;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Rolling summary of a chat session up to and including
+ * {@link #coveredMessageId}. In the LLM context the newest checkpoint replaces
+ * the earlier messages and semantic summaries it covers; the transcript itself
+ * is left untouched.
+ */
+@Entity
+@Table(name = "chat_summary_checkpoints", indexes = {
+        @Index(name = "idx_chat_summary_checkpoints_session_created_at", columnList = "session_id, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatSummaryCheckpoint {
+
+    @Id
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
+    @Column(nullable = false, updatable = false)
+    private UUID id;
+
+    @Column(name = "session_id", nullable = false, columnDefinition = "uuid")
+    private UUID sessionId;
+
+    @NotBlank
+    @Column(name = "summary", columnDefinition = "text", nullable = false)
+    private String summary;
+
+    /** Newest message folded into the summary */
+    @Column(name = "covered_message_id", nullable = false, columnDefinition = "uuid")
+    private UUID coveredMessageId;
+
+    /** Creation time of the covered message */
+    @Column(name = "covered_until", nullable = false, columnDefinition = "timestamptz")
+    private OffsetDateTime coveredUntil;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false, columnDefinition = "timestamptz")
+    private OffsetDateTime createdAt;
+}
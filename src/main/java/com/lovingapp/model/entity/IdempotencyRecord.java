@@ -0,0 +1,79 @@
+package com.lovingapp.model.entity;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Type;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lovingapp.model.enums.IdempotencyStatus;
+import com.vladmihalcea.hibernate.type.json.JsonType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a request sent with an Idempotency-Key header, so retries of the
+ * same request are answered without running it again.
+ */
+@Entity
+@Table(name = "idempotency_records", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_records_user_key", columnNames = { "user_id", "idempotency_key" })
+}, indexes = {
+        @Index(name = "idx_idempotency_records_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(nullable = false, updatable = false)
+    private UUID id;
+
+    @NotNull
+    @Column(name = "user_id", nullable = false, columnDefinition = "uuid")
+    private UUID userId;
+
+    @NotNull
+    @Column(name = "idempotency_key", nullable = false, length = 255)
+    private String idempotencyKey;
+
+    /** SHA-256 of the endpoint and request body the key was first used with */
+    @NotNull
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private IdempotencyStatus status;
+
+    @Type(JsonType.class)
+    @Column(name = "response_body", columnDefinition = "jsonb")
+    private JsonNode responseBody;
+
+    @CreationTimestamp
+    @Column(name = "created_at", columnDefinition = "timestamptz", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @NotNull
+    @Column(name = "expires_at", columnDefinition = "timestamptz", nullable = false)
+    private OffsetDateTime expiresAt;
+}
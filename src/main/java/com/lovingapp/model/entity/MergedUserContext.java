@@ -0,0 +1,98 @@
+package com.lovingapp.model.entity;
+
+import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Type;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.UuidGenerator;
+
+import com.lovingapp.helpers.TimeOrderedUuidGenerator;
+import com.lovingapp.model.enums.Journey;
+import com.lovingapp.model.enums.LoveType;
+import com.lovingapp.model.enums.RelationalNeed;
+import com.lovingapp.model.enums.RelationshipStatus;
+import com.vladmihalcea.hibernate.type.json.JsonType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The user context of a conversation, merged from all user contexts extracted
+ * from it so far. Love types and relational needs carry recency-weighted
+ * scores; journey, relationship status and semantic summary are the latest
+ * extracted. The individual extractions remain in {@link UserContext}.
+ */
+@Entity
+@Table(name = "merged_user_contexts", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_merged_user_contexts_conversation_id", columnNames = "conversation_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MergedUserContext {
+
+    @Id
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
+    @Column(nullable = false, updatable = false)
+    private UUID id;
+
+    @NotNull
+    @Column(name = "user_id", nullable = false, columnDefinition = "uuid")
+    private UUID userId;
+
+    @NotNull
+    @Column(name = "conversation_id", nullable = false, updatable = false, columnDefinition = "uuid")
+    private UUID conversationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 40)
+    private Journey journey;
+
+    @Type(JsonType.class)
+    @Column(name = "love_type_weights", columnDefinition = "jsonb")
+    @Builder.Default
+    private Map<LoveType, Double> loveTypeWeights = new EnumMap<>(LoveType.class);
+
+    @Type(JsonType.class)
+    @Column(name = "relational_need_weights", columnDefinition = "jsonb")
+    @Builder.Default
+    private Map<RelationalNeed, Double> relationalNeedWeights = new EnumMap<>(RelationalNeed.class);
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "relationship_status", length = 30)
+    private RelationshipStatus relationshipStatus;
+
+    @Column(name = "semantic_summary", columnDefinition = "text")
+    private String semanticSummary;
+
+    /** Number of extractions merged in */
+    @Column(name = "merged_extractions", nullable = false)
+    private int mergedExtractions;
+
+    /** The newest extraction merged in */
+    @Column(name = "last_user_context_id", columnDefinition = "uuid")
+    private UUID lastUserContextId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", columnDefinition = "timestamptz", updatable = false, nullable = false)
+    private OffsetDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", columnDefinition = "timestamptz", nullable = false)
+    private OffsetDateTime updatedAt;
+}
@@ -5,7 +5,9 @@ import java.util.UUID;
 
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.UuidGenerator;
 
+import com.lovingapp.helpers.TimeOrderedUuidGenerator;
 import com.lovingapp.model.enums.RitualFeedback;
 import com.lovingapp.model.enums.RitualHistoryStatus;
 
@@ -13,9 +15,8 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -24,7 +25,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "ritual_history")
+@Table(name = "ritual_history", indexes = {
+        @Index(name = "idx_ritual_history_status_user_id", columnList = "status, user_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -32,7 +35,7 @@ import lombok.NoArgsConstructor;
 public class RitualHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
     @Column(nullable = false, updatable = false)
     private UUID id;
 
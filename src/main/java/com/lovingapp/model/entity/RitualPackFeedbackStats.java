@@ -0,0 +1,61 @@
+package com.lovingapp.model.entity;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.UuidGenerator;
+
+import com.lovingapp.helpers.TimeOrderedUuidGenerator;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Checkpointed engagement statistics of a ritual pack within a context
+ * segment: how often its recommendations and rituals landed (successes) or
+ * did not (failures), summed over all application instances.
+ */
+@Entity
+@Table(name = "ritual_pack_feedback_stats", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_ritual_pack_feedback_stats_pack_segment", columnNames = {
+                "ritual_pack_id", "segment" })
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RitualPackFeedbackStats {
+
+    @Id
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
+    @Column(nullable = false, updatable = false)
+    private UUID id;
+
+    @NotNull
+    @Column(name = "ritual_pack_id", nullable = false, updatable = false, columnDefinition = "uuid")
+    private UUID ritualPackId;
+
+    /** Journey of the user context, or NONE */
+    @NotNull
+    @Column(name = "segment", nullable = false, updatable = false, length = 40)
+    private String segment;
+
+    @Column(name = "successes", nullable = false)
+    private long successes;
+
+    @Column(name = "failures", nullable = false)
+    private long failures;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", columnDefinition = "timestamptz", nullable = false)
+    private OffsetDateTime updatedAt;
+}
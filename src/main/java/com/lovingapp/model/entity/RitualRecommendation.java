@@ -4,7 +4,9 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UuidGenerator;
 
+import com.lovingapp.helpers.TimeOrderedUuidGenerator;
 import com.lovingapp.model.enums.RecommendationSource;
 import com.lovingapp.model.enums.RecommendationStatus;
 
@@ -12,8 +14,6 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
@@ -31,7 +31,7 @@ import lombok.NoArgsConstructor;
 public class RitualRecommendation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
     @Column(nullable = false, updatable = false)
     private UUID id;
 
@@ -8,7 +8,9 @@ import java.util.UUID;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.Type;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.UuidGenerator;
 
+import com.lovingapp.helpers.TimeOrderedUuidGenerator;
 import com.lovingapp.model.enums.Journey;
 import com.lovingapp.model.enums.LoveType;
 import com.lovingapp.model.enums.RelationalNeed;
@@ -19,9 +21,8 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -30,7 +31,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "user_contexts")
+@Table(name = "user_contexts", indexes = {
+        @Index(name = "idx_user_contexts_conversation_context_hash", columnList = "conversation_id, context_hash")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -38,7 +41,7 @@ import lombok.NoArgsConstructor;
 public class UserContext {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
     @Column(nullable = false, updatable = false)
     private UUID id;
 
@@ -70,6 +73,13 @@ public class UserContext {
     @Column(name = "semantic_summary", columnDefinition = "text")
     private String semanticSummary;
 
+    /**
+     * SHA-256 of the LLM conversation context this user context was extracted
+     * from, used to reuse the extraction while the conversation is unchanged.
+     */
+    @Column(name = "context_hash", length = 64)
+    private String contextHash;
+
     @CreationTimestamp
     @Column(name = "created_at", columnDefinition = "timestamptz", updatable = false, nullable = false)
     private OffsetDateTime createdAt;
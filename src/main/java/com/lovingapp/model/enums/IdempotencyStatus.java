@@ -0,0 +1,6 @@
+package com.lovingapp.model.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
@@ -1,15 +1,73 @@
 package com.lovingapp.repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.lovingapp.model.domain.ChatMetadata;
 import com.lovingapp.model.entity.ChatMessage;
+import com.lovingapp.model.enums.ChatMessageRole;
 
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID> {
     List<ChatMessage> findBySessionIdOrderByCreatedAtAsc(UUID sessionId);
+    Optional<ChatMessage> findFirstBySessionIdOrderByCreatedAtDesc(UUID sessionId);
     void deleteBySessionId(UUID sessionId);
+
+    /**
+     * Transcript fields of a message.
+     */
+    interface ChatMessageSummary {
+        UUID getId();
+
+        ChatMessageRole getRole();
+
+        String getContent();
+
+        ChatMetadata getMetadata();
+
+        OffsetDateTime getCreatedAt();
+    }
+
+    @Query("""
+            select m.id as id, m.role as role, m.content as content, m.metadata as metadata,
+                   m.createdAt as createdAt
+            from ChatMessage m
+            where m.sessionId = :sessionId
+            order by m.createdAt desc, m.id desc
+            """)
+    List<ChatMessageSummary> findSummariesBySessionId(@Param("sessionId") UUID sessionId, Limit limit);
+
+    /**
+     * Ids of the newest messages of the session, newest first; served from the
+     * {@code (session_id, created_at, id)} index.
+     */
+    @Query("""
+            select m.id
+            from ChatMessage m
+            where m.sessionId = :sessionId
+            order by m.createdAt desc, m.id desc
+            """)
+    List<UUID> findNewestIdsBySessionId(@Param("sessionId") UUID sessionId, Limit limit);
+
+    /**
+     * Keyset page: the messages before {@code (createdAt, id)}, newest first.
+     */
+    @Query("""
+            select m.id as id, m.role as role, m.content as content, m.metadata as metadata,
+                   m.createdAt as createdAt
+            from ChatMessage m
+            where m.sessionId = :sessionId
+              and (m.createdAt < :createdAt or (m.createdAt = :createdAt and m.id < :id))
+            order by m.createdAt desc, m.id desc
+            """)
+    List<ChatMessageSummary> findSummariesBySessionIdBefore(@Param("sessionId") UUID sessionId,
+            @Param("createdAt") OffsetDateTime createdAt, @Param("id") UUID id, Limit limit);
 }
@@ -1,17 +1,85 @@
 package com.lovingapp.repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.lovingapp.model.entity.ChatSession;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface ChatSessionRepository extends JpaRepository<ChatSession, UUID> {
     Optional<ChatSession> findByIdAndUserId(UUID sessionId, UUID userId);
 
     List<ChatSession> findByUserIdOrderByUpdatedAtDesc(UUID userId);
+
+    /**
+     * Session list fields only, without the provisional user context.
+     */
+    interface ChatSessionSummary {
+        UUID getId();
+
+        String getTitle();
+
+        String getLastMessagePreview();
+
+        OffsetDateTime getCreatedAt();
+
+        OffsetDateTime getUpdatedAt();
+    }
+
+    @Query("""
+            select s.id as id, s.title as title, s.lastMessagePreview as lastMessagePreview,
+                   s.createdAt as createdAt, s.updatedAt as updatedAt
+            from ChatSession s
+            where s.userId = :userId
+            order by s.updatedAt desc, s.id desc
+            """)
+    List<ChatSessionSummary> findSummariesByUserId(@Param("userId") UUID userId, Limit limit);
+
+    /**
+     * Keyset page: the sessions after {@code (updatedAt, id)} in most recently
+     * updated first order.
+     */
+    @Query("""
+            select s.id as id, s.title as title, s.lastMessagePreview as lastMessagePreview,
+                   s.createdAt as createdAt, s.updatedAt as updatedAt
+            from ChatSession s
+            where s.userId = :userId
+              and (s.updatedAt < :updatedAt or (s.updatedAt = :updatedAt and s.id < :id))
+            order by s.updatedAt desc, s.id desc
+            """)
+    List<ChatSessionSummary> findSummariesByUserIdAfter(@Param("userId") UUID userId,
+            @Param("updatedAt") OffsetDateTime updatedAt, @Param("id") UUID id, Limit limit);
+
+    /**
+     * Loads the session with an exclusive row lock that still admits foreign
+     * key checks (SELECT ... FOR NO KEY UPDATE). Held by the write phase of a
+     * chat turn, which updates the row: write phases on the same session run
+     * one after the other, and a concurrent delete either completes before the
+     * turn writes or waits until the turn has committed.
+     */
+    @Query(value = """
+            select * from chat_sessions
+            where id = :sessionId and user_id = :userId
+            for no key update
+            """, nativeQuery = true)
+    Optional<ChatSession> findByIdAndUserIdForNoKeyUpdate(@Param("sessionId") UUID sessionId,
+            @Param("userId") UUID userId);
+
+    /**
+     * Loads the session with an exclusive row lock (SELECT ... FOR UPDATE).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ChatSession s where s.id = :sessionId and s.userId = :userId")
+    Optional<ChatSession> findByIdAndUserIdForUpdate(@Param("sessionId") UUID sessionId, @Param("userId") UUID userId);
 }
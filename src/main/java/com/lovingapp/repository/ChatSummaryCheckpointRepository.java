@@ -0,0 +1,18 @@
+package com.lovingapp.repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.lovingapp.model.entity.ChatSummaryCheckpoint;
+
+@Repository
+public interface ChatSummaryCheckpointRepository extends JpaRepository<ChatSummaryCheckpoint, UUID> {
+    Optional<ChatSummaryCheckpoint> findFirstBySessionIdOrderByCreatedAtDesc(UUID sessionId);
+    Optional<ChatSummaryCheckpoint> findFirstBySessionIdAndCreatedAtBeforeOrderByCreatedAtDesc(UUID sessionId,
+            OffsetDateTime createdAt);
+    void deleteBySessionId(UUID sessionId);
+}
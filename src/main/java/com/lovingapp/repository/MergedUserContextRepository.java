@@ -0,0 +1,50 @@
+package com.lovingapp.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.lovingapp.model.entity.MergedUserContext;
+import com.lovingapp.model.enums.Journey;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface MergedUserContextRepository extends JpaRepository<MergedUserContext, UUID> {
+
+    Optional<MergedUserContext> findByUserIdAndConversationId(UUID userId, UUID conversationId);
+
+    /**
+     * Inserts an empty merged context for the conversation unless one exists.
+     * Returns 1 if it was inserted.
+     */
+    @Modifying
+    @Query(value = """
+            insert into merged_user_contexts (id, user_id, conversation_id, merged_extractions, created_at, updated_at)
+            values (:id, :userId, :conversationId, 0, now(), now())
+            on conflict (conversation_id) do nothing
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("id") UUID id, @Param("userId") UUID userId,
+            @Param("conversationId") UUID conversationId);
+
+    /**
+     * Loads the merged context with an exclusive row lock (SELECT ... FOR
+     * UPDATE), so concurrent merges into it are applied one after the other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from MergedUserContext c where c.userId = :userId and c.conversationId = :conversationId")
+    Optional<MergedUserContext> findByUserIdAndConversationIdForUpdate(@Param("userId") UUID userId,
+            @Param("conversationId") UUID conversationId);
+
+    @Query("select c.journey from MergedUserContext c where c.userId = :userId and c.conversationId = :conversationId")
+    Optional<Journey> findJourneyByUserIdAndConversationId(@Param("userId") UUID userId,
+            @Param("conversationId") UUID conversationId);
+
+    void deleteByUserIdAndConversationId(UUID userId, UUID conversationId);
+}
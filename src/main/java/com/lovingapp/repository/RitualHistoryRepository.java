@@ -3,12 +3,19 @@ package com.lovingapp.repository;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.lovingapp.model.entity.RitualHistory;
 import com.lovingapp.model.enums.RitualHistoryStatus;
 
+import jakarta.persistence.QueryHint;
+
 public interface RitualHistoryRepository extends JpaRepository<RitualHistory, UUID> {
     List<RitualHistory> findByUserIdOrderByUpdatedAtDesc(UUID userId);
 
@@ -22,4 +29,32 @@ public interface RitualHistoryRepository extends JpaRepository<RitualHistory, UU
 
     List<RitualHistory> findByUserIdAndRitualIdAndStatusIn(UUID userId, UUID ritualId,
             List<RitualHistoryStatus> statuses);
+
+    @Query("""
+            select distinct h.ritualPackId from RitualHistory h
+            where h.userId = :userId and h.status = :status and h.ritualPackId is not null
+            """)
+    List<UUID> findDistinctRitualPackIdsByUserIdAndStatus(@Param("userId") UUID userId,
+            @Param("status") RitualHistoryStatus status);
+
+    interface UserRitual {
+        UUID getUserId();
+
+        UUID getRitualId();
+
+        UUID getRitualPackId();
+    }
+
+    /**
+     * Rituals of all users with the given status, grouped by user and most
+     * recently updated first within a user. Rows are fetched in chunks through a server-side cursor, so the stream must be
+     * consumed within a read-only transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select h.userId as userId, h.ritualId as ritualId, h.ritualPackId as ritualPackId
+            from RitualHistory h where h.status = :status
+            order by h.userId, h.updatedAt desc
+            """)
+    Stream<UserRitual> streamByStatusOrderByUserIdAndUpdatedAtDesc(@Param("status") RitualHistoryStatus status);
 }
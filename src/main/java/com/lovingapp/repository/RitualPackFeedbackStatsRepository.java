@@ -0,0 +1,32 @@
+package com.lovingapp.repository;
+
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.lovingapp.model.entity.RitualPackFeedbackStats;
+
+@Repository
+public interface RitualPackFeedbackStatsRepository extends JpaRepository<RitualPackFeedbackStats, UUID> {
+
+    /**
+     * Adds to the statistics of the pack and segment, creating them if absent.
+     * Safe for concurrent checkpoints of several instances.
+     */
+    @Modifying
+    @Query(value = """
+            insert into ritual_pack_feedback_stats (id, ritual_pack_id, segment, successes, failures, updated_at)
+            values (:id, :ritualPackId, :segment, :successes, :failures, now())
+            on conflict (ritual_pack_id, segment) do update
+            set successes = ritual_pack_feedback_stats.successes + excluded.successes,
+                failures = ritual_pack_feedback_stats.failures + excluded.failures,
+                updated_at = now()
+            """, nativeQuery = true)
+    int addCounts(@Param("id") UUID id, @Param("ritualPackId") UUID ritualPackId,
+            @Param("segment") String segment, @Param("successes") long successes,
+            @Param("failures") long failures);
+}
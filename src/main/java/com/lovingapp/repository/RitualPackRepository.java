@@ -1,13 +1,36 @@
 package com.lovingapp.repository;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.lovingapp.model.entity.RitualPack;
 
 @Repository
 public interface RitualPackRepository extends JpaRepository<RitualPack, UUID> {
-    // Custom query methods can be added here if needed
+
+    /**
+     * All packs with their rituals fetched in the same query, oldest first.
+     */
+    @EntityGraph(attributePaths = "rituals")
+    @Query("select p from RitualPack p order by p.createdAt, p.id")
+    List<RitualPack> findAllWithRituals();
+
+    /**
+     * Count and last update time of a table, which change whenever its content
+     * does.
+     */
+    interface ContentVersion {
+        long getCount();
+
+        OffsetDateTime getLastUpdatedAt();
+    }
+
+    @Query("select count(p) as count, max(p.updatedAt) as lastUpdatedAt from RitualPack p")
+    ContentVersion findContentVersion();
 }
@@ -1,9 +1,11 @@
 package com.lovingapp.repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -15,4 +17,11 @@ public interface RitualRecommendationRepository extends JpaRepository<RitualReco
     Optional<RitualRecommendation> findByIdAndUserId(UUID id, UUID userId);
 
     List<RitualRecommendation> findByUserIdOrderByCreatedAtDesc(UUID userId);
+
+    interface RecommendedPack {
+        UUID getRitualPackId();
+    }
+
+    List<RecommendedPack> findByUserIdAndCreatedAtAfterOrderByCreatedAtDesc(UUID userId, OffsetDateTime after,
+            Limit limit);
 }
@@ -4,12 +4,17 @@ import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.lovingapp.model.entity.Ritual;
+import com.lovingapp.repository.RitualPackRepository.ContentVersion;
 
 @Repository
 public interface RitualRepository extends JpaRepository<Ritual, UUID>, RitualRepositoryCustom {
     // Custom query methods can be added here if needed
     List<Ritual> findByIdIn(List<UUID> ids);
+
+    @Query("select count(r) as count, max(r.updatedAt) as lastUpdatedAt from Ritual r")
+    ContentVersion findContentVersion();
 }
@@ -1,6 +1,8 @@
 package com.lovingapp.repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -15,5 +17,13 @@ public interface UserContextRepository extends JpaRepository<UserContext, UUID>
 
     List<UserContext> findByUserIdAndConversationId(UUID userId, UUID conversationId);
 
+    List<UserContext> findByUserIdAndConversationIdOrderByCreatedAtAsc(UUID userId, UUID conversationId);
+
+    Optional<UserContext> findFirstByUserIdAndConversationIdAndCreatedAtBeforeOrderByCreatedAtDesc(UUID userId,
+            UUID conversationId, OffsetDateTime createdAt);
+
+    Optional<UserContext> findFirstByUserIdAndConversationIdAndContextHashOrderByCreatedAtDesc(UUID userId,
+            UUID conversationId, String contextHash);
+
     void deleteByUserIdAndConversationId(UUID userId, UUID conversationId);
 }
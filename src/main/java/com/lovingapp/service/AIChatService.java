@@ -1,34 +1,53 @@
 package com.lovingapp.service;
 
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.lovingapp.config.llm.LlmClientProperties;
+import com.lovingapp.config.llm.LlmClientProperties.TurnMode;
+import com.lovingapp.helpers.KeysetCursor;
 import com.lovingapp.mapper.ChatMessageMapper;
 import com.lovingapp.mapper.ChatSessionMapper;
+import com.lovingapp.model.domain.ai.LLMCallPriority;
+import com.lovingapp.model.domain.ai.LLMCombinedTurnResponse;
 import com.lovingapp.model.domain.ai.LLMEmpatheticResponse;
 import com.lovingapp.model.domain.ai.LLMUserContextExtraction;
+import com.lovingapp.model.dto.ChatDTOs.ChatMessageDTO;
 import com.lovingapp.model.dto.ChatDTOs.ChatSessionDTO;
 import com.lovingapp.model.dto.ChatDTOs.RecommendRitualPackResponse;
 import com.lovingapp.model.dto.ChatDTOs.SendMessageRequest;
 import com.lovingapp.model.dto.ChatDTOs.SendMessageResponse;
+import com.lovingapp.model.dto.CursorPageDTO;
 import com.lovingapp.model.dto.RitualPackDTO;
 import com.lovingapp.model.dto.UserContextDTOs.UserContextCreateRequest;
 import com.lovingapp.model.dto.UserContextDTOs.UserContextDTO;
 import com.lovingapp.model.entity.ChatMessage;
 import com.lovingapp.model.entity.ChatSession;
+import com.lovingapp.model.entity.ChatSummaryCheckpoint;
 import com.lovingapp.model.enums.ChatMessageRole;
+import com.lovingapp.service.chat.AIChatBackgroundContextExtractor;
+import com.lovingapp.service.chat.AIChatCheckpointPersistenceService;
+import com.lovingapp.service.chat.AIChatConversationCompactor;
 import com.lovingapp.service.chat.AIChatLLMHelper;
 import com.lovingapp.service.chat.AIChatMessagePersistenceService;
-import com.lovingapp.service.chat.AIChatRitualRecommendationAndHistoryHelper;
 import com.lovingapp.service.chat.AIChatSessionPersistenceService;
+import com.lovingapp.service.chat.AIChatTurnPersistenceService;
+import com.lovingapp.service.chat.AIChatTurnPersistenceService.RecommendationTurnResult;
+import com.lovingapp.service.chat.AIChatTurnSerializer;
+import com.lovingapp.service.chat.ChatMessageCache.ChatMessageWindow;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -45,78 +64,224 @@ public class AIChatService {
 	private final AIChatMessagePersistenceService chatMessagePersistenceService;
 	private final UserContextService userContextService;
 	private final RecommendationEngine recommendationEngine;
+	private final RitualRecommendationService ritualRecommendationService;
 	private final AIChatLLMHelper aiChatLLMHelper;
-	private final AIChatRitualRecommendationAndHistoryHelper ritualRecommendationAndHistoryHelper;
+	private final AIChatTurnPersistenceService chatTurnPersistenceService;
+	private final AIChatBackgroundContextExtractor backgroundContextExtractor;
+	private final AIChatCheckpointPersistenceService chatCheckpointPersistenceService;
+	private final AIChatConversationCompactor conversationCompactor;
+	private final AIChatTurnSerializer chatTurnSerializer;
+	private final LlmClientProperties llmClientProperties;
+	private final MeterRegistry meterRegistry;
 
 	@Transactional
 	public ChatSessionDTO createSession(UUID userId) {
 		return chatSessionPersistenceService.createSession(userId);
 	}
 
-	@Transactional
-	public SendMessageResponse sendMessage(UUID userId, UUID sessionId, SendMessageRequest request) {
+	/**
+	 * Runs a chat turn. Not transactional on purpose: inputs are read in short
+	 * transactions, the LLM is called without holding a database connection, and
+	 * the user message and the reply are persisted together in a single short
+	 * write transaction at the end. A failed LLM call thus leaves no unanswered
+	 * user message behind, and a retried request does not store it twice. The LLM call and the write phase run
+	 * asynchronously, so the calling request thread is released while the model
+	 * is generating.
+	 *
+	 * In combined turn mode the reply that becomes ready for a ritual suggestion
+	 * also carries the extracted user context, stored provisionally for the next
+	 * recommendation turn. Otherwise the user context is refreshed in the
+	 * background once the turn is complete. Once the conversation context has
+	 * grown too large, it is condensed into a summary checkpoint in the
+	 * background as well.
+	 *
+	 * Turns of a session run one at a time: a turn overlapping a running one is
+	 * queued behind it or rejected, see {@link AIChatTurnSerializer}.
+	 */
+	public CompletableFuture<SendMessageResponse> sendMessage(UUID userId, UUID sessionId,
+			SendMessageRequest request) {
+		return chatTurnSerializer.run(sessionId, () -> runChatTurn(userId, sessionId, request));
+	}
+
+	/**
+	 * Streaming variant of {@link #sendMessage}. Reply fragments are passed to
+	 * {@code onDelta} as the LLM generates them; the assistant message is
+	 * persisted only once the stream has completed.
+	 */
+	public SendMessageResponse streamMessage(UUID userId, UUID sessionId, SendMessageRequest request,
+			Consumer<String> onDelta) {
+		return chatTurnSerializer.run(sessionId, () -> CompletableFuture.completedFuture(
+				runStreamingChatTurn(userId, sessionId, request, onDelta)))
+				.join();
+	}
+
+	/**
+	 * Runs a recommendation turn. Like {@link #sendMessage} this is not
+	 * transactional: both LLM calls run asynchronously without a database
+	 * connection and all results are persisted together in one short write
+	 * transaction. It is serialized with the chat turns of the session.
+	 *
+	 * A conversation unchanged since the last recommendation (matched by content
+	 * hash, e.g. on a retried call) gets that recommendation and its wrap-up
+	 * message back, without any LLM call or write.
+	 *
+	 * Otherwise the user context is taken, in order of preference, from an
+	 * earlier extraction of the identical conversation context, from the
+	 * provisional context of the latest reply (combined turn mode or background
+	 * extraction) as long as no message was added after it, or from a still
+	 * running background extraction of the current conversation. Only otherwise
+	 * the extraction LLM call is made.
+	 */
+	public CompletableFuture<RecommendRitualPackResponse> recommendRitualPack(UUID userId, UUID sessionId) {
+		return chatTurnSerializer.run(sessionId, () -> runRecommendationTurn(userId, sessionId));
+	}
+
+	private CompletableFuture<SendMessageResponse> runChatTurn(UUID userId, UUID sessionId,
+			SendMessageRequest request) {
 		// 0. Validate session exists and belongs to the user
-		ChatSession session = chatSessionPersistenceService.findSessionByIdAndUserId(sessionId, userId);
+		chatSessionPersistenceService.findSessionByIdAndUserId(sessionId, userId);
+		backgroundContextExtractor.cancel(sessionId);
 
-		// 1. Save user message
-		chatMessagePersistenceService.saveUserMessage(sessionId, request.getContent());
+		// 1. Build user message; it is saved together with the reply, so a failed
+		// LLM call leaves nothing behind
+		ChatMessage userMessage = newUserMessage(sessionId, request);
 
 		// 2. Get conversation history
-		List<ChatMessage> messages = buildLlmConversationContext(userId, sessionId);
+		List<ChatMessage> messages = buildLlmConversationContext(userId, sessionId, userMessage);
 
 		// 3. Generate empathetic response from the conversation history using LLM
-		LLMEmpatheticResponse empatheticResponse = aiChatLLMHelper.generateEmpatheticResponse(sessionId, messages);
-		String response = empatheticResponse.getResponse();
-		boolean ready = empatheticResponse.isReadyForRitualSuggestion();
+		if (isCombinedTurnMode()) {
+			return aiChatLLMHelper.generateCombinedTurnResponse(userId, sessionId, messages)
+					.thenApply(combinedResponse -> completeChatTurn(userId, sessionId, userMessage,
+							combinedResponse.getResponse(), combinedResponse.isReadyForRitualSuggestion(),
+							combinedResponse.getUserContext()));
+		}
+
+		return aiChatLLMHelper.generateEmpatheticResponse(userId, sessionId, messages)
+				.thenApply(empatheticResponse -> completeChatTurn(userId, sessionId, userMessage,
+						empatheticResponse.getResponse(), empatheticResponse.isReadyForRitualSuggestion(), null));
+	}
 
-		// 4. Create and save assistant message
-		ChatMessage savedAssistantMessage = chatMessagePersistenceService.saveAssistantMessage(sessionId, response);
-		log.info("Assistant message created sessionId={} chatMessageId={} readyForRecommendation={}", sessionId,
-				savedAssistantMessage.getId(), ready);
+	private SendMessageResponse runStreamingChatTurn(UUID userId, UUID sessionId, SendMessageRequest request,
+			Consumer<String> onDelta) {
+		// 0. Validate session exists and belongs to the user
+		chatSessionPersistenceService.findSessionByIdAndUserId(sessionId, userId);
+		backgroundContextExtractor.cancel(sessionId);
 
-		chatSessionPersistenceService.updateSessionTitleAndLastMessagePreview(session, null, response);
+		// 1. Build user message; it is saved together with the reply, so a failed
+		// LLM call leaves nothing behind
+		ChatMessage userMessage = newUserMessage(sessionId, request);
 
-		return SendMessageResponse.builder()
-				.assistantResponse(ChatMessageMapper.toDto(savedAssistantMessage))
-				.isReadyForRitualPackRecommendation(ready)
-				.build();
+		// 2. Get conversation history
+		List<ChatMessage> messages = buildLlmConversationContext(userId, sessionId, userMessage);
+
+		// 3. Stream empathetic response from the conversation history using LLM and
+		// save it once the stream is complete
+		if (isCombinedTurnMode()) {
+			LLMCombinedTurnResponse combinedResponse = aiChatLLMHelper.streamCombinedTurnResponse(userId, sessionId,
+					messages, onDelta);
+			return completeChatTurn(userId, sessionId, userMessage, combinedResponse.getResponse(),
+					combinedResponse.isReadyForRitualSuggestion(), combinedResponse.getUserContext());
+		}
+
+		LLMEmpatheticResponse empatheticResponse = aiChatLLMHelper.streamEmpatheticResponse(userId, sessionId, messages,
+				onDelta);
+		return completeChatTurn(userId, sessionId, userMessage, empatheticResponse.getResponse(),
+				empatheticResponse.isReadyForRitualSuggestion(), null);
 	}
 
-	@Transactional
-	public RecommendRitualPackResponse recommendRitualPack(UUID userId, UUID sessionId) {
+	private CompletableFuture<RecommendRitualPackResponse> runRecommendationTurn(UUID userId, UUID sessionId) {
 		// Validate session exists and belongs to user and fetch chat messages
 		ChatSession session = chatSessionPersistenceService.findSessionByIdAndUserId(sessionId, userId);
 
 		List<ChatMessage> messages = buildLlmConversationContext(userId, sessionId);
 
-		// Extract user context from conversation using LLM
-		LLMUserContextExtraction extractedUserContext = aiChatLLMHelper.extractUserContext(userId, sessionId, messages);
-
-		// Save user context
-		UserContextDTO savedUserContext = saveUserContext(userId, sessionId, extractedUserContext);
-
-		// Get ritual pack recommendation
-		RitualPackDTO recommendedPack = getRitualPackRecommendation(savedUserContext);
-
-		// Generate wrap-up message using LLM
-		String wrapUpMessage = aiChatLLMHelper.generateWrapUpMessage(messages, recommendedPack, sessionId);
-
-		// Save wrap-up message
-		ChatMessage savedAssistantMessage = chatMessagePersistenceService.saveWrapUpMessage(sessionId, wrapUpMessage);
+		// Reuse an earlier or provisional user context if still current, otherwise
+		// extract it from conversation using LLM
+		String contextHash = aiChatLLMHelper.userContextExtractionHash(messages);
+		Optional<UserContextDTO> memoizedUserContext = userContextService.findByContextHash(userId, sessionId,
+				contextHash);
+		LLMUserContextExtraction provisionalUserContext = memoizedUserContext.isEmpty()
+				? findCurrentProvisionalUserContext(session, messages)
+				: null;
+		CompletableFuture<LLMUserContextExtraction> backgroundExtraction = memoizedUserContext.isEmpty()
+				&& provisionalUserContext == null
+						? backgroundContextExtractor.takeOver(sessionId, newestMessageId(messages))
+						: null;
+
+		if (memoizedUserContext.isPresent()) {
+			// Unchanged since the last recommendation: answer with it, without any LLM call
+			Optional<RecommendRitualPackResponse> repeatedRecommendation = findRepeatedRecommendation(userId,
+					sessionId);
+			if (repeatedRecommendation.isPresent()) {
+				log.info("Returning recommendation of unchanged conversation sessionId={} recommendationId={}",
+						sessionId, repeatedRecommendation.get().getRecommendationId());
+				recordRecommendUserContextSource("repeated");
+				return CompletableFuture.completedFuture(repeatedRecommendation.get());
+			}
+		}
 
-		// Create recommendation and history records
-		UUID recommendationId = ritualRecommendationAndHistoryHelper.createRecommendationAndHistory(
-				userId, sessionId, recommendedPack);
+		CompletableFuture<LLMUserContextExtraction> userContextFuture;
+		if (memoizedUserContext.isPresent()) {
+			log.info("Reusing user context of unchanged conversation sessionId={} userContextId={}", sessionId,
+					memoizedUserContext.get().getId());
+			recordRecommendUserContextSource("memoized");
+			userContextFuture = CompletableFuture.completedFuture(toUserContextExtraction(memoizedUserContext.get()));
+		} else if (provisionalUserContext != null) {
+			log.info("Using provisional user context sessionId={} sourceMessageId={}", sessionId,
+					session.getProvisionalContextMessageId());
+			recordRecommendUserContextSource("provisional");
+			userContextFuture = CompletableFuture.completedFuture(provisionalUserContext);
+		} else if (backgroundExtraction != null) {
+			log.info("Awaiting running background user context extraction sessionId={}", sessionId);
+			recordRecommendUserContextSource("background");
+			userContextFuture = backgroundExtraction.exceptionallyCompose(ex -> {
+				log.warn("Background user context extraction failed, extracting inline sessionId={}: {}",
+						sessionId, ex.getMessage());
+				return aiChatLLMHelper.extractUserContext(userId, sessionId, messages,
+						LLMCallPriority.INTERACTIVE);
+			});
+		} else {
+			recordRecommendUserContextSource("extracted");
+			userContextFuture = aiChatLLMHelper.extractUserContext(userId, sessionId, messages,
+					LLMCallPriority.INTERACTIVE);
+		}
 
-		// Update session title and lastMessagePreview
-		chatSessionPersistenceService.updateSessionTitleAndLastMessagePreview(session,
-				extractedUserContext.getConversationTitle(), "✨ Ritual pack suggested");
+		return userContextFuture
+				.thenCompose(extractedUserContext -> {
+					UserContextCreateRequest userContextRequest = toUserContextCreateRequest(sessionId,
+							extractedUserContext);
+
+					// Get ritual pack recommendation
+					RitualPackDTO recommendedPack = getRitualPackRecommendation(userId, sessionId,
+							userContextRequest);
+
+					// Generate wrap-up message using LLM
+					return aiChatLLMHelper.generateWrapUpMessage(userId, messages, recommendedPack, sessionId)
+							.thenApply(wrapUpMessage -> {
+								// Save user context, wrap-up message, recommendation and history records,
+								// and update session title and lastMessagePreview
+								RecommendationTurnResult turnResult = chatTurnPersistenceService
+										.completeRecommendationTurn(userId, sessionId, userContextRequest,
+												contextHash, recommendedPack, wrapUpMessage,
+												extractedUserContext.getConversationTitle());
+
+								return RecommendRitualPackResponse.builder()
+										.ritualPack(recommendedPack)
+										.recommendationId(turnResult.recommendationId())
+										.wrapUpResponse(ChatMessageMapper.toDto(turnResult.wrapUpMessage()))
+										.build();
+							});
+				});
+	}
 
-		return RecommendRitualPackResponse.builder()
-				.ritualPack(recommendedPack)
-				.recommendationId(recommendationId)
-				.wrapUpResponse(ChatMessageMapper.toDto(savedAssistantMessage))
-				.build();
+	/**
+	 * Returns a page of the transcript, newest messages first.
+	 */
+	@Transactional(readOnly = true)
+	public CursorPageDTO<ChatMessageDTO> getChatMessages(UUID userId, UUID sessionId, String cursor, int limit) {
+		chatSessionPersistenceService.findSessionByIdAndUserId(sessionId, userId);
+		return chatMessagePersistenceService.findMessagesBySessionId(sessionId, KeysetCursor.decode(cursor), limit);
 	}
 
 	@Transactional(readOnly = true)
@@ -146,18 +311,142 @@ public class AIChatService {
 		return chatSessionPersistenceService.listSessions(userId);
 	}
 
+	/**
+	 * Returns a page of the user's sessions, most recently updated first.
+	 */
+	@Transactional(readOnly = true)
+	public CursorPageDTO<ChatSessionDTO> listSessions(UUID userId, String cursor, int limit) {
+		return chatSessionPersistenceService.listSessions(userId, KeysetCursor.decode(cursor), limit);
+	}
+
 	@Transactional
 	public void deleteSession(UUID userId, UUID sessionId) {
+		backgroundContextExtractor.cancel(sessionId);
 		chatSessionPersistenceService.deleteSession(userId, sessionId);
 		userContextService.deleteByUserIdAndConversationId(userId, sessionId);
 	}
 
+	private boolean isCombinedTurnMode() {
+		return llmClientProperties.getChat().getTurnMode() == TurnMode.COMBINED;
+	}
+
+	/**
+	 * Save user and assistant message and update session preview, together with
+	 * the provisional user context of a combined turn (if any). Without one, the
+	 * user context is extracted in the background. The conversation is
+	 * checkpointed in the background if its context has grown too large.
+	 */
+	private SendMessageResponse completeChatTurn(UUID userId, UUID sessionId, ChatMessage userMessage,
+			String response, boolean ready, LLMUserContextExtraction provisionalUserContext) {
+		LLMUserContextExtraction userContext = ready && isComplete(provisionalUserContext)
+				? provisionalUserContext
+				: null;
+
+		ChatMessage savedAssistantMessage = chatTurnPersistenceService.completeChatTurn(userId, sessionId,
+				userMessage.getContent(), response, userContext);
+		log.info(
+				"Assistant message created sessionId={} chatMessageId={} readyForRecommendation={} provisionalUserContext={}",
+				sessionId, savedAssistantMessage.getId(), ready, userContext != null);
+
+		if (userContext == null) {
+			backgroundContextExtractor.schedule(userId, sessionId, savedAssistantMessage.getId(),
+					() -> buildLlmConversationContext(userId, sessionId));
+		}
+		conversationCompactor.compactIfNeeded(userId, sessionId,
+				() -> buildLlmConversationContext(userId, sessionId));
+
+		return SendMessageResponse.builder()
+				.assistantResponse(ChatMessageMapper.toDto(savedAssistantMessage))
+				.isReadyForRitualPackRecommendation(ready)
+				.build();
+	}
+
 	/**
-	 * Create and save user context.
+	 * The stored result of the last recommendation turn, if no message was added
+	 * to the conversation after it: the recommendation message is the newest
+	 * message and its wrap-up message precedes it.
 	 */
-	private UserContextDTO saveUserContext(UUID userId, UUID sessionId, LLMUserContextExtraction extractedUserContext) {
-		// Create and save user context
-		UserContextCreateRequest userContextRequest = UserContextCreateRequest.builder()
+	private Optional<RecommendRitualPackResponse> findRepeatedRecommendation(UUID userId, UUID sessionId) {
+		List<ChatMessage> messages = chatMessagePersistenceService.findRecentMessagesBySessionId(sessionId)
+				.messages();
+		if (messages.size() < 2) {
+			return Optional.empty();
+		}
+
+		ChatMessage recommendationMessage = messages.get(messages.size() - 1);
+		ChatMessage wrapUpMessage = messages.get(messages.size() - 2);
+		if (recommendationMessage.getRole() != ChatMessageRole.SYSTEM
+				|| recommendationMessage.getMetadata() == null
+				|| recommendationMessage.getMetadata().getRecommendationId() == null
+				|| wrapUpMessage.getRole() != ChatMessageRole.ASSISTANT) {
+			return Optional.empty();
+		}
+
+		UUID recommendationId = recommendationMessage.getMetadata().getRecommendationId();
+		return ritualRecommendationService.findById(userId, recommendationId)
+				.flatMap(recommendation -> recommendationEngine.findRitualPack(recommendation.getRitualPackId()))
+				.map(pack -> RecommendRitualPackResponse.builder()
+						.ritualPack(pack)
+						.recommendationId(recommendationId)
+						.wrapUpResponse(ChatMessageMapper.toDto(wrapUpMessage))
+						.build());
+	}
+
+	/**
+	 * The provisional user context of the session, if it was extracted with the
+	 * newest message of the conversation.
+	 */
+	private LLMUserContextExtraction findCurrentProvisionalUserContext(ChatSession session,
+			List<ChatMessage> messages) {
+		if (session.getProvisionalUserContext() == null || messages.isEmpty()) {
+			return null;
+		}
+
+		UUID newestMessageId = newestMessageId(messages);
+		if (newestMessageId == null || !newestMessageId.equals(session.getProvisionalContextMessageId())) {
+			log.info("Provisional user context is stale sessionId={} sourceMessageId={} newestMessageId={}",
+					session.getId(), session.getProvisionalContextMessageId(), newestMessageId);
+			return null;
+		}
+
+		return session.getProvisionalUserContext();
+	}
+
+	/**
+	 * The user message of a chat turn, not saved before the turn completes.
+	 */
+	private static ChatMessage newUserMessage(UUID sessionId, SendMessageRequest request) {
+		return ChatMessage.builder()
+				.sessionId(sessionId)
+				.role(ChatMessageRole.USER)
+				.content(request.getContent())
+				.build();
+	}
+
+	private static UUID newestMessageId(List<ChatMessage> messages) {
+		return messages.isEmpty() ? null : messages.get(messages.size() - 1).getId();
+	}
+
+	/**
+	 * Whether an extraction has all fields required for a recommendation.
+	 */
+	private static boolean isComplete(LLMUserContextExtraction userContext) {
+		return userContext != null
+				&& userContext.getJourney() != null
+				&& userContext.getLoveTypes() != null && !userContext.getLoveTypes().isEmpty()
+				&& userContext.getRelationalNeeds() != null && !userContext.getRelationalNeeds().isEmpty();
+	}
+
+	private void recordRecommendUserContextSource(String source) {
+		meterRegistry.counter("chat.recommend.user.context", "source", source).increment();
+	}
+
+	/**
+	 * Map the LLM extraction to a user context create request.
+	 */
+	private UserContextCreateRequest toUserContextCreateRequest(UUID sessionId,
+			LLMUserContextExtraction extractedUserContext) {
+		return UserContextCreateRequest.builder()
 				.conversationId(sessionId)
 				.journey(extractedUserContext.getJourney())
 				.loveTypes(extractedUserContext.getLoveTypes())
@@ -165,36 +454,86 @@ public class AIChatService {
 				.relationshipStatus(extractedUserContext.getRelationshipStatus())
 				.semanticSummary(extractedUserContext.getSemanticSummary())
 				.build();
+	}
 
-		UserContextDTO savedUserContext = userContextService.create(userId, userContextRequest);
-		log.info("User context saved successfully sessionId={} userContextId={}", sessionId, savedUserContext.getId());
-
-		return savedUserContext;
+	/**
+	 * Map a stored user context back to the extraction it was created from.
+	 */
+	private static LLMUserContextExtraction toUserContextExtraction(UserContextDTO userContext) {
+		return LLMUserContextExtraction.builder()
+				.journey(userContext.getJourney())
+				.loveTypes(userContext.getLoveTypes())
+				.relationalNeeds(userContext.getRelationalNeeds())
+				.relationshipStatus(userContext.getRelationshipStatus())
+				.semanticSummary(userContext.getSemanticSummary())
+				.build();
 	}
 
 	/**
-	 * Build conversation context for LLM by appending all semantic summaries found
-	 * for this conversation and the current messages.
+	 * Build conversation context for LLM by appending the semantic summary of the
+	 * merged user context of this conversation and the current messages. With a
+	 * summary checkpoint, the checkpoint replaces the summary and messages it
+	 * covers, so the context stays bounded however long the session runs.
+	 *
+	 * Without new user messages since the last recommendation (a repeated
+	 * recommendation turn) the context of that recommendation is rebuilt: its
+	 * messages without the wrap-up, and only the checkpoint and summary that
+	 * existed back then. An unchanged conversation thus always yields the same
+	 * context.
 	 */
 	private List<ChatMessage> buildLlmConversationContext(UUID userId, UUID sessionId) {
-		List<ChatMessage> allMessages = chatMessagePersistenceService.findMessagesBySessionId(sessionId);
-
-		// Find last recommendation system message
-		int lastRecommendationIndex = IntStream.range(0, allMessages.size())
-				.filter(i -> {
-					ChatMessage m = allMessages.get(i);
-					return m.getRole() == ChatMessageRole.SYSTEM
-							&& m.getMetadata() != null
-							&& m.getMetadata().getRecommendationId() != null;
-				})
-				.max()
-				.orElse(-1);
+		return buildLlmConversationContext(userId, sessionId, null);
+	}
 
-		List<ChatMessage> relevantMessages = lastRecommendationIndex >= 0
-				? allMessages.subList(lastRecommendationIndex + 1, allMessages.size())
-				: allMessages;
+	/**
+	 * Like {@link #buildLlmConversationContext(UUID, UUID)}, with the not yet
+	 * saved user message of the current turn (if any) as the newest message.
+	 */
+	private List<ChatMessage> buildLlmConversationContext(UUID userId, UUID sessionId,
+			ChatMessage pendingUserMessage) {
+		ChatMessageWindow recentMessages = chatMessagePersistenceService.findRecentMessagesBySessionId(sessionId);
+		List<ChatMessage> allMessages = withPendingMessage(recentMessages.messages(), pendingUserMessage);
+		boolean complete = recentMessages.complete();
+		ConversationSegment segment = findCurrentSegment(allMessages);
+
+		// Saved together with the recommendation being repeated
+		OffsetDateTime checkpointsBefore = segment.repeatedRecommendation()
+				? allMessages.get(segment.end()).getCreatedAt()
+				: null;
+		ChatSummaryCheckpoint checkpoint = chatCheckpointPersistenceService
+				.findLatestCheckpoint(sessionId, checkpointsBefore)
+				.orElse(null);
+		int coveredIndex = indexOfCoveredMessage(allMessages, checkpoint);
+
+		if (segment.start() == 0 && !complete && coveredIndex < 0) {
+			// The segment may reach back before the cached recent messages
+			allMessages = withPendingMessage(chatMessagePersistenceService.findMessagesBySessionId(sessionId),
+					pendingUserMessage);
+			complete = true;
+			segment = findCurrentSegment(allMessages);
+			coveredIndex = indexOfCoveredMessage(allMessages, checkpoint);
+		}
+		if (checkpoint != null && coveredIndex < 0 && complete) {
+			log.warn("Covered message of summary checkpoint not found, ignoring checkpoint sessionId={} checkpointId={}",
+					sessionId, checkpoint.getId());
+			checkpoint = null;
+		}
 
-		List<ChatMessage> semanticSummaries = userContextService.findByConversationId(userId, sessionId).stream()
+		// Not found among incomplete recent messages: the checkpoint covers only older ones
+		int from = Math.min(Math.max(segment.start(), coveredIndex + 1), segment.end());
+		List<ChatMessage> relevantMessages = allMessages.subList(from, segment.end());
+
+		OffsetDateTime summariesBefore = segment.repeatedRecommendation() && segment.end() > segment.start()
+				? allMessages.get(segment.end() - 1).getCreatedAt()
+				: null;
+		OffsetDateTime summariesAfter = checkpoint != null ? checkpoint.getCoveredUntil() : null;
+
+		Optional<UserContextDTO> userContext = summariesBefore == null
+				? userContextService.findMergedByConversationId(userId, sessionId)
+				: userContextService.findLatestByConversationId(userId, sessionId, summariesBefore);
+		List<ChatMessage> semanticSummaries = userContext.stream()
+				.filter(context -> summariesAfter == null || context.getUpdatedAt() == null
+						|| context.getUpdatedAt().isAfter(summariesAfter))
 				.map(UserContextDTO::getSemanticSummary)
 				.filter(summary -> summary != null && !summary.trim().isEmpty())
 				.map(summary -> ChatMessage.builder()
@@ -205,18 +544,107 @@ public class AIChatService {
 				.toList();
 
 		List<ChatMessage> llmContext = new ArrayList<>();
+		if (checkpoint != null) {
+			llmContext.add(ChatMessage.builder()
+					.sessionId(sessionId)
+					.role(ChatMessageRole.SYSTEM)
+					.content("Summary of the conversation so far:\n" + checkpoint.getSummary())
+					.build());
+		}
 		llmContext.addAll(semanticSummaries);
 		llmContext.addAll(relevantMessages);
 
 		return llmContext;
 	}
 
+	private static List<ChatMessage> withPendingMessage(List<ChatMessage> messages, ChatMessage pendingMessage) {
+		if (pendingMessage == null) {
+			return messages;
+		}
+		List<ChatMessage> withPending = new ArrayList<>(messages.size() + 1);
+		withPending.addAll(messages);
+		withPending.add(pendingMessage);
+		return withPending;
+	}
+
 	/**
-	 * Get ritual pack recommendation from recommendation engine.
+	 * Index of the newest message covered by the checkpoint, or -1.
 	 */
-	private RitualPackDTO getRitualPackRecommendation(UserContextDTO savedUserContext) {
-		UUID sessionId = savedUserContext.getConversationId();
-		RitualPackDTO recommendedPack = recommendationEngine.recommendRitualPack(savedUserContext)
+	private static int indexOfCoveredMessage(List<ChatMessage> messages, ChatSummaryCheckpoint checkpoint) {
+		if (checkpoint == null) {
+			return -1;
+		}
+		for (int i = messages.size() - 1; i >= 0; i--) {
+			if (checkpoint.getCoveredMessageId().equals(messages.get(i).getId())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Messages {@code start} to {@code end} (exclusive) of the transcript form the
+	 * conversation the next LLM call is about.
+	 */
+	private record ConversationSegment(int start, int end, boolean repeatedRecommendation) {
+	}
+
+	/**
+	 * Finds the messages since the last recommendation, or those of the last
+	 * recommendation if no user message followed it.
+	 */
+	private static ConversationSegment findCurrentSegment(List<ChatMessage> messages) {
+		// Find recommendation system messages
+		int[] recommendationIndexes = IntStream.range(0, messages.size())
+				.filter(i -> {
+					ChatMessage m = messages.get(i);
+					return m.getRole() == ChatMessageRole.SYSTEM
+							&& m.getMetadata() != null
+							&& m.getMetadata().getRecommendationId() != null;
+				})
+				.toArray();
+
+		int end = messages.size();
+		int last = recommendationIndexes.length - 1;
+		while (last >= 0 && !containsUserMessage(messages, recommendationIndexes[last] + 1, end)) {
+			end = recommendationIndexes[last];
+			last--;
+		}
+		boolean repeatedRecommendation = end < messages.size();
+		if (repeatedRecommendation && end > 0 && messages.get(end - 1).getRole() == ChatMessageRole.ASSISTANT) {
+			// Drop the wrap-up message saved together with the recommendation
+			end--;
+		}
+
+		int start = last >= 0 ? recommendationIndexes[last] + 1 : 0;
+		return new ConversationSegment(start, Math.max(start, end), repeatedRecommendation);
+	}
+
+	private static boolean containsUserMessage(List<ChatMessage> messages, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (messages.get(i).getRole() == ChatMessageRole.USER) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get ritual pack recommendation from recommendation engine. Scores against
+	 * the not yet persisted user context of the current turn.
+	 */
+	private RitualPackDTO getRitualPackRecommendation(UUID userId, UUID sessionId,
+			UserContextCreateRequest userContextRequest) {
+		UserContextDTO candidateUserContext = UserContextDTO.builder()
+				.conversationId(sessionId)
+				.journey(userContextRequest.getJourney())
+				.loveTypes(userContextRequest.getLoveTypes())
+				.relationalNeeds(userContextRequest.getRelationalNeeds())
+				.relationshipStatus(userContextRequest.getRelationshipStatus())
+				.semanticSummary(userContextRequest.getSemanticSummary())
+				.build();
+
+		RitualPackDTO recommendedPack = recommendationEngine.recommendRitualPack(userId, candidateUserContext)
 				.orElse(null);
 
 		if (recommendedPack == null) {
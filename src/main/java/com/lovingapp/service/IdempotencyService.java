@@ -0,0 +1,244 @@
+package com.lovingapp.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lovingapp.config.web.IdempotencyProperties;
+import com.lovingapp.exception.IdempotencyKeyInUseException;
+import com.lovingapp.exception.IdempotencyKeyMismatchException;
+import com.lovingapp.helpers.HashUtils;
+import com.lovingapp.model.entity.IdempotencyRecord;
+import com.lovingapp.model.enums.IdempotencyStatus;
+import com.lovingapp.repository.IdempotencyRecordRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs requests carrying an Idempotency-Key at most once per user and key.
+ * A retry while the original request is still running on this instance joins
+ * it; a retry after it completed gets the stored response replayed without
+ * running anything again. Failed requests are forgotten so they can be retried.
+ *
+ * Records are kept in the database so replays work across restarts and
+ * instances; a retry hitting another instance while the original is in flight
+ * is rejected as in progress. A request is considered in flight for the async
+ * request timeout plus a margin.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final String METRIC_NAME = "idempotency.requests";
+    // Servlet containers' default when spring.mvc.async.request-timeout is unset
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int COMPLETE_ATTEMPTS = 2;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final IdempotencyProperties properties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration inProgressTimeout;
+
+    private final Map<String, InFlightRequest> inFlightRequests = new ConcurrentHashMap<>();
+
+    private record InFlightRequest(String requestHash, CompletableFuture<Object> result) {
+    }
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+            IdempotencyProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            WebMvcProperties webMvcProperties) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+
+        Duration requestTimeout = webMvcProperties.getAsync().getRequestTimeout();
+        this.inProgressTimeout = (requestTimeout != null ? requestTimeout : DEFAULT_REQUEST_TIMEOUT)
+                .plus(properties.getInProgressMargin());
+    }
+
+    /**
+     * Runs {@code action} unless the request identified by
+     * {@code idempotencyKey} was already run or is running. {@code request}
+     * identifies the endpoint and payload; reusing a key for a different request
+     * fails with {@link IdempotencyKeyMismatchException}. Without a key the
+     * action simply runs.
+     */
+    public <T> CompletableFuture<T> execute(UUID userId, String idempotencyKey, String request,
+            Class<T> responseType, Supplier<CompletableFuture<T>> action) {
+        if (!properties.isEnabled() || idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > properties.getMaxKeyLength()) {
+            throw new IllegalArgumentException("Invalid Idempotency-Key");
+        }
+
+        String requestHash = HashUtils.sha256Hex(request);
+        String inFlightKey = userId + ":" + idempotencyKey;
+
+        // 1. Join the original request if it is running on this instance
+        InFlightRequest inFlightRequest = new InFlightRequest(requestHash, new CompletableFuture<>());
+        InFlightRequest running = inFlightRequests.putIfAbsent(inFlightKey, inFlightRequest);
+        if (running != null) {
+            if (!running.requestHash().equals(requestHash)) {
+                record("mismatch");
+                throw new IdempotencyKeyMismatchException(idempotencyKey);
+            }
+            record("joined");
+            log.info("Joining in-flight request idempotencyKey={}", idempotencyKey);
+            return running.result().thenApply(responseType::cast);
+        }
+
+        // 2. Replay a completed request or claim the key
+        IdempotencyRecord idempotencyRecord;
+        try {
+            Optional<T> storedResponse = findStoredResponse(userId, idempotencyKey, requestHash, responseType);
+            if (storedResponse.isPresent()) {
+                record("replayed");
+                log.info("Replaying stored response idempotencyKey={}", idempotencyKey);
+                inFlightRequests.remove(inFlightKey, inFlightRequest);
+                inFlightRequest.result().complete(storedResponse.get());
+                return CompletableFuture.completedFuture(storedResponse.get());
+            }
+
+            idempotencyRecord = claim(userId, idempotencyKey, requestHash);
+        } catch (RuntimeException e) {
+            inFlightRequests.remove(inFlightKey, inFlightRequest);
+            inFlightRequest.result().completeExceptionally(e);
+            throw e;
+        }
+
+        // 3. Run the request and store its response
+        record("executed");
+        CompletableFuture<T> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        return result.whenComplete((response, error) -> {
+            try {
+                if (error == null) {
+                    complete(idempotencyRecord, response, idempotencyKey);
+                } else {
+                    idempotencyRecordRepository.delete(idempotencyRecord);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Idempotency record could not be updated idempotencyKey={}: {}", idempotencyKey,
+                        e.getMessage());
+            } finally {
+                inFlightRequests.remove(inFlightKey, inFlightRequest);
+                if (error == null) {
+                    inFlightRequest.result().complete(response);
+                } else {
+                    inFlightRequest.result().completeExceptionally(error);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes expired records.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:PT1H}", initialDelayString = "${idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteExpired(OffsetDateTime.now());
+        log.info("Expired idempotency records purged count={}", deleted);
+    }
+
+    private <T> Optional<T> findStoredResponse(UUID userId, String idempotencyKey, String requestHash,
+            Class<T> responseType) {
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId,
+                idempotencyKey);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+
+        IdempotencyRecord idempotencyRecord = stored.get();
+        if (idempotencyRecord.getExpiresAt().isBefore(OffsetDateTime.now())) {
+            // Expired, or abandoned while in progress: the key can be used again
+            idempotencyRecordRepository.delete(idempotencyRecord);
+            idempotencyRecordRepository.flush();
+            return Optional.empty();
+        }
+        if (!idempotencyRecord.getRequestHash().equals(requestHash)) {
+            record("mismatch");
+            throw new IdempotencyKeyMismatchException(idempotencyKey);
+        }
+        if (idempotencyRecord.getStatus() != IdempotencyStatus.COMPLETED) {
+            record("in_progress");
+            throw new IdempotencyKeyInUseException(idempotencyKey);
+        }
+
+        try {
+            return Optional.of(objectMapper.treeToValue(idempotencyRecord.getResponseBody(), responseType));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response of Idempotency-Key='" + idempotencyKey
+                    + "' cannot be read", e);
+        }
+    }
+
+    private IdempotencyRecord claim(UUID userId, String idempotencyKey, String requestHash) {
+        IdempotencyRecord idempotencyRecord = IdempotencyRecord.builder()
+                .userId(userId)
+                .idempotencyKey(idempotencyKey)
+                .requestHash(requestHash)
+                .status(IdempotencyStatus.IN_PROGRESS)
+                .expiresAt(OffsetDateTime.now().plus(inProgressTimeout))
+                .build();
+        try {
+            return idempotencyRecordRepository.saveAndFlush(idempotencyRecord);
+        } catch (DataIntegrityViolationException e) {
+            // Claimed concurrently by another instance
+            record("in_progress");
+            throw new IdempotencyKeyInUseException(idempotencyKey);
+        }
+    }
+
+    /**
+     * Stores the response, retrying once. If it still cannot be stored the
+     * record is deleted, so retries run the request again instead of being
+     * rejected as in progress until the record expires.
+     */
+    private void complete(IdempotencyRecord idempotencyRecord, Object response, String idempotencyKey) {
+        idempotencyRecord.setStatus(IdempotencyStatus.COMPLETED);
+        idempotencyRecord.setResponseBody(objectMapper.valueToTree(response));
+
+        for (int attempt = 1;; attempt++) {
+            idempotencyRecord.setExpiresAt(OffsetDateTime.now().plus(properties.getTtl()));
+            try {
+                idempotencyRecordRepository.save(idempotencyRecord);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == COMPLETE_ATTEMPTS) {
+                    record("store_failed");
+                    log.error("Response could not be stored, forgetting idempotencyKey={}: {}", idempotencyKey,
+                            e.getMessage());
+                    idempotencyRecordRepository.delete(idempotencyRecord);
+                    return;
+                }
+                log.warn("Response could not be stored, retrying idempotencyKey={} attempt={}: {}", idempotencyKey,
+                        attempt, e.getMessage());
+            }
+        }
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter(METRIC_NAME, "outcome", outcome).increment();
+    }
+}
@@ -1,98 +1,307 @@
 package com.lovingapp.service;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import com.lovingapp.config.recommendation.RecommendationProperties;
+import com.lovingapp.config.recommendation.RecommendationProperties.BanditProperties;
+import com.lovingapp.config.recommendation.RecommendationProperties.CoCompletionProperties;
+import com.lovingapp.config.recommendation.RecommendationProperties.RankingProperties;
+import com.lovingapp.config.recommendation.RecommendationProperties.SemanticProperties;
 import com.lovingapp.model.dto.RitualPackDTO;
 import com.lovingapp.model.dto.UserContextDTOs.UserContextDTO;
+import com.lovingapp.model.enums.Journey;
+import com.lovingapp.service.recommendation.CoCompletionMatrix;
+import com.lovingapp.service.recommendation.CoCompletionModel;
+import com.lovingapp.service.recommendation.PackFeedbackStatistics;
+import com.lovingapp.service.recommendation.RitualPackIndex;
+import com.lovingapp.service.recommendation.RitualPackIndexProvider;
+import com.lovingapp.service.recommendation.SemanticPackIndex;
+import com.lovingapp.service.recommendation.SemanticPackIndex.Match;
+import com.lovingapp.service.recommendation.UserPackHistoryCache;
+import com.lovingapp.service.recommendation.UserPackHistoryCache.UserPackHistory;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RecommendationEngine {
 
-    private final RitualPackService ritualPackService;
+    // Moves excluded packs behind all others, keeping their relative order
+    private static final double EXCLUDED_PENALTY = 1_000_000d;
+
+    private final RitualPackIndexProvider ritualPackIndexProvider;
+    private final SemanticPackIndex semanticPackIndex;
+    private final UserPackHistoryCache userPackHistoryCache;
+    private final PackFeedbackStatistics packFeedbackStatistics;
+    private final CoCompletionModel coCompletionModel;
+    private final RankingProperties rankingProperties;
+    private final SemanticProperties semanticProperties;
+    private final BanditProperties banditProperties;
+    private final CoCompletionProperties coCompletionProperties;
+
+    public RecommendationEngine(RitualPackIndexProvider ritualPackIndexProvider,
+            SemanticPackIndex semanticPackIndex, UserPackHistoryCache userPackHistoryCache,
+            PackFeedbackStatistics packFeedbackStatistics, CoCompletionModel coCompletionModel,
+            RecommendationProperties recommendationProperties) {
+        this.ritualPackIndexProvider = ritualPackIndexProvider;
+        this.semanticPackIndex = semanticPackIndex;
+        this.userPackHistoryCache = userPackHistoryCache;
+        this.packFeedbackStatistics = packFeedbackStatistics;
+        this.coCompletionModel = coCompletionModel;
+        this.rankingProperties = recommendationProperties.getRanking();
+        this.semanticProperties = recommendationProperties.getSemantic();
+        this.banditProperties = recommendationProperties.getBandit();
+        this.coCompletionProperties = recommendationProperties.getCoCompletion();
+    }
 
     /**
-     * Recommends a ritual pack based on the user's context.
-     * Uses a simple scoring system to rank ritual packs based on how well they
-     * match the user's preferences.
+     * Recommends a ritual pack based on the user's context and history.
      * 
+     * @param userId      The user to recommend for
      * @param userContext The user's context containing preferences and needs
      * @return An Optional containing the recommended RitualPackDTO if available,
      *         empty otherwise
+     * @see #recommendRitualPacks(UUID, UserContextDTO, int)
+     */
+    public Optional<RitualPackDTO> recommendRitualPack(UUID userId, UserContextDTO userContext) {
+        Optional<RitualPackDTO> result = recommendRitualPacks(userId, userContext, 1).stream().findFirst();
+
+        result.ifPresent(
+                pack -> log.info("Ritual pack recommended packId={} title='{}'", pack.getId(), pack.getTitle()));
+        return result;
+    }
+
+    /**
+     * The ritual pack with the given id as recommendations serve it, if it is
+     * still in the catalogue.
+     */
+    public Optional<RitualPackDTO> findRitualPack(UUID packId) {
+        RitualPackIndex index = ritualPackIndexProvider.current();
+        int pack = index.indexOf(packId);
+        return pack >= 0 ? Optional.of(index.get(pack)) : Optional.empty();
+    }
+
+    /**
+     * Ranks up to {@code limit} ritual packs, best first.
+     *
+     * Packs are scored by how many relational needs, love types and journey
+     * they share with the user's context, plus the similarity of their
+     * semantic summaries to the context's, among the most similar packs, plus
+     * a success rate sampled from how the pack landed with users on the same
+     * journey (Thompson sampling), plus how often the pack was completed by
+     * the users who completed the same packs as the user (co-completion). The
+     * packs of the user's latest recommendations are excluded unless no other
+     * pack is left; packs recommended before that and packs the user has
+     * completed rituals of are down-weighted. Each pack is further penalized
+     * for the love types it shares with the packs ranked before it, so one
+     * love type does not dominate the list.
+     *
+     * Only candidates are ranked: the {@code candidatesPerResult} best tag
+     * matches per requested pack (plus the excluded ones), the semantically
+     * similar and the co-completed packs. The cost of a request is bounded by
+     * the candidates, not the catalogue; a pack outside them cannot be lifted by
+     * the engagement sample alone. Without a context every pack is a candidate.
+     *
+     * @param userContext The user's context, or {@code null} to rank by history
+     *                    only
      */
-    @Transactional(readOnly = true)
-    public Optional<RitualPackDTO> recommendRitualPack(UserContextDTO userContext) {
-        // Get all available ritual packs
-        List<RitualPackDTO> allPacks = ritualPackService.findAll();
+    public List<RitualPackDTO> recommendRitualPacks(UUID userId, UserContextDTO userContext, int limit) {
+        RitualPackIndex index = ritualPackIndexProvider.current();
 
-        if (allPacks.isEmpty()) {
+        if (index.isEmpty()) {
             log.info("No ritual packs available for recommendation");
-            // If no packs are available, return empty
-            return Optional.empty();
+            return List.of();
         }
 
         if (userContext == null) {
-            log.info("Cannot score ritual packs: user context is null (falling back to first pack)");
-            // return Optional.empty();
-            // If you want to return the first pack when no context is available, use:
-            return Optional.of(allPacks.get(0));
+            log.info("Cannot score ritual packs: user context is null (ranking by history only)");
         }
 
-        // Score and sort ritual packs based on user context
-        Optional<RitualPackDTO> result = allPacks.stream()
-                .map(pack -> {
-                    int score = calculateMatchScore(pack, userContext);
-                    // log.debug("Pack '{}' score: {}", pack.getTitle(), score);
-                    return new ScoredPack(pack, score);
-                })
-                .sorted(Comparator.comparingInt(ScoredPack::getScore).reversed())
-                .findFirst()
-                .map(ScoredPack::getPack);
+        long loveTypes = userContext != null ? RitualPackIndex.mask(userContext.getLoveTypes()) : 0L;
+        long relationalNeeds = userContext != null ? RitualPackIndex.mask(userContext.getRelationalNeeds()) : 0L;
+        long journey = userContext != null ? RitualPackIndex.mask(userContext.getJourney()) : 0L;
 
-        result.ifPresent(
-                pack -> log.info("Ritual pack recommended packId={} title='{}'", pack.getId(), pack.getTitle()));
-        return result;
+        int topMatches = userContext != null
+                ? limit * rankingProperties.getCandidatesPerResult() + rankingProperties.getExcludeRecent()
+                : index.size();
+        Candidates candidates = new Candidates(index, loveTypes, relationalNeeds, journey);
+        for (int pack : index.topK(loveTypes, relationalNeeds, journey, topMatches)) {
+            candidates.add(pack);
+        }
+
+        if (userContext != null) {
+            applySemanticSimilarity(index, candidates, userContext.getSemanticSummary());
+        }
+        UserPackHistory history = userPackHistoryCache.get(userId);
+        if (coCompletionProperties.isEnabled()) {
+            applyCoCompletion(index, candidates, history);
+        }
+        if (banditProperties.isEnabled()) {
+            applyEngagement(index, candidates, userContext != null ? userContext.getJourney() : null);
+        }
+        applyHistory(index, candidates, history);
+
+        return selectDiverse(index, candidates, Math.min(limit, candidates.size));
+    }
+
+    private void applySemanticSimilarity(RitualPackIndex index, Candidates candidates, String semanticSummary) {
+        for (Match match : semanticPackIndex.search(semanticSummary, semanticProperties.getCandidates())) {
+            int pack = index.indexOf(match.packId());
+            if (pack >= 0 && match.similarity() > 0) {
+                candidates.scores[candidates.add(pack)] += semanticProperties.getWeight() * match.similarity();
+            }
+        }
+    }
+
+    private void applyEngagement(RitualPackIndex index, Candidates candidates, Journey journey) {
+        for (int i = 0; i < candidates.size; i++) {
+            candidates.scores[i] += banditProperties.getWeight()
+                    * packFeedbackStatistics.sample(index.get(candidates.packs[i]).getId(), journey);
+        }
     }
 
     /**
-     * Calculates a match score for a ritual pack based on user context.
-     * Higher scores indicate better matches.
+     * Boosts each pack by its highest co-completion similarity to a pack the
+     * user has completed rituals of.
      */
-    private int calculateMatchScore(RitualPackDTO pack, UserContextDTO userContext) {
-        int score = 0;
-
-        // Match relational needs
-        if (userContext.getRelationalNeeds() != null && pack.getRelationalNeeds() != null) {
-            score += userContext.getRelationalNeeds().stream()
-                    .filter(need -> pack.getRelationalNeeds().contains(need))
-                    .count() * 3; // Higher weight for relational needs
+    private void applyCoCompletion(RitualPackIndex index, Candidates candidates, UserPackHistory history) {
+        CoCompletionMatrix matrix = coCompletionModel.packs();
+        Map<Integer, Float> similarities = new HashMap<>();
+
+        for (UUID packId : history.completed()) {
+            int item = matrix.indexOf(packId);
+            if (item < 0) {
+                continue;
+            }
+            for (int entry = matrix.rowStart(item); entry < matrix.rowEnd(item); entry++) {
+                int pack = index.indexOf(matrix.item(matrix.neighbour(entry)));
+                if (pack >= 0) {
+                    similarities.merge(pack, matrix.score(entry), Math::max);
+                }
+            }
         }
 
-        // Match love languages
-        if (userContext.getLoveTypes() != null && pack.getLoveTypes() != null) {
-            score += userContext.getLoveTypes().stream()
-                    .filter(loveType -> pack.getLoveTypes().contains(loveType))
-                    .count() * 2;
+        similarities.forEach((pack, similarity) -> candidates.scores[candidates.add(pack)] +=
+                coCompletionProperties.getWeight() * similarity);
+    }
+
+    private void applyHistory(RitualPackIndex index, Candidates candidates, UserPackHistory history) {
+        List<UUID> recentlyRecommended = history.recentlyRecommended();
+        int excludeRecent = rankingProperties.getExcludeRecent();
+        int maxRecent = rankingProperties.getMaxRecentRecommendations();
+        boolean[] penalized = new boolean[candidates.size];
+
+        // Latest first, so a pack is penalized for its latest recommendation only
+        for (int rank = 0; rank < recentlyRecommended.size(); rank++) {
+            int candidate = candidates.positionOf(index.indexOf(recentlyRecommended.get(rank)));
+            if (candidate < 0 || penalized[candidate]) {
+                continue;
+            }
+            penalized[candidate] = true;
+
+            if (rank < excludeRecent) {
+                candidates.scores[candidate] -= EXCLUDED_PENALTY;
+            } else {
+                candidates.scores[candidate] -= rankingProperties.getRecentPenalty() * (maxRecent - rank)
+                        / (maxRecent - excludeRecent);
+            }
         }
 
-        return score;
+        for (UUID packId : history.completed()) {
+            int candidate = candidates.positionOf(index.indexOf(packId));
+            if (candidate >= 0) {
+                candidates.scores[candidate] -= rankingProperties.getCompletedPenalty();
+            }
+        }
     }
 
     /**
-     * Helper class to associate ritual packs with their match scores
+     * Greedily picks the best remaining candidate after penalizing the love
+     * types already picked; the first indexed pack wins ties.
      */
-    @lombok.Value
-    private static class ScoredPack {
-        RitualPackDTO pack;
-        int score;
+    private List<RitualPackDTO> selectDiverse(RitualPackIndex index, Candidates candidates, int count) {
+        List<RitualPackDTO> ranked = new ArrayList<>(count);
+        boolean[] picked = new boolean[candidates.size];
+        long pickedLoveTypes = 0L;
+
+        for (int n = 0; n < count; n++) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < candidates.size; i++) {
+                if (picked[i]) {
+                    continue;
+                }
+                int pack = candidates.packs[i];
+                double score = candidates.scores[i] - rankingProperties.getDiversityPenalty()
+                        * Long.bitCount(index.loveTypes(pack) & pickedLoveTypes);
+                if (score > bestScore || (score == bestScore && pack < candidates.packs[best])) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+
+            picked[best] = true;
+            pickedLoveTypes |= index.loveTypes(candidates.packs[best]);
+            ranked.add(index.get(candidates.packs[best]));
+        }
+        return ranked;
+    }
+
+    /**
+     * The packs being ranked for one request with their scores, starting from
+     * the tag match score.
+     */
+    private static final class Candidates {
+
+        private final RitualPackIndex index;
+        private final long loveTypes;
+        private final long relationalNeeds;
+        private final long journey;
+        private final Map<Integer, Integer> positions = new HashMap<>();
+        private int[] packs = new int[16];
+        private double[] scores = new double[16];
+        private int size;
+
+        private Candidates(RitualPackIndex index, long loveTypes, long relationalNeeds, long journey) {
+            this.index = index;
+            this.loveTypes = loveTypes;
+            this.relationalNeeds = relationalNeeds;
+            this.journey = journey;
+        }
+
+        /**
+         * Position of the pack among the candidates, or -1.
+         */
+        private int positionOf(int pack) {
+            Integer position = pack >= 0 ? positions.get(pack) : null;
+            return position != null ? position : -1;
+        }
+
+        /**
+         * Adds the pack unless it is a candidate already, and returns its
+         * position.
+         */
+        private int add(int pack) {
+            Integer existing = positions.putIfAbsent(pack, size);
+            if (existing != null) {
+                return existing;
+            }
+
+            if (size == packs.length) {
+                packs = Arrays.copyOf(packs, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            packs[size] = pack;
+            scores[size] = index.score(pack, loveTypes, relationalNeeds, journey);
+            return size++;
+        }
     }
 }
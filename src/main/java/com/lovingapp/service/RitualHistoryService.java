@@ -10,6 +10,7 @@ import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +28,8 @@ import com.lovingapp.model.entity.RitualHistory;
 import com.lovingapp.model.enums.RitualFeedback;
 import com.lovingapp.model.enums.RitualHistoryStatus;
 import com.lovingapp.repository.RitualHistoryRepository;
+import com.lovingapp.service.recommendation.RitualPackOutcomeRecorder;
+import com.lovingapp.service.recommendation.UserRitualActivityChangedEvent;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -40,6 +43,8 @@ public class RitualHistoryService {
 	private final RitualHistoryRepository ritualHistoryRepository;
 	private final RitualPackService ritualPackService;
 	private final RitualService ritualService;
+	private final RitualPackOutcomeRecorder ritualPackOutcomeRecorder;
+	private final ApplicationEventPublisher eventPublisher;
 
 	public List<UserRitualDTO> listByUser(UUID userId, RitualHistoryStatus status) {
 		List<RitualHistory> histories = ritualHistoryRepository.findByUserIdOrderByUpdatedAtDesc(userId);
@@ -207,15 +212,17 @@ public class RitualHistoryService {
 				.build();
 
 		RitualHistory saved = ritualHistoryRepository.saveAndFlush(ritualHistory);
+		eventPublisher.publishEvent(new UserRitualActivityChangedEvent(userId));
 		return RitualHistoryMapper.toDto(saved);
 	}
 
 	@Transactional
 	public void delete(UUID ritualHistoryId) {
-		ritualHistoryRepository.findById(ritualHistoryId)
+		RitualHistory ritualHistory = ritualHistoryRepository.findById(ritualHistoryId)
 				.orElseThrow(() -> new ResourceNotFoundException("RitualHistory", "id", ritualHistoryId));
 
 		ritualHistoryRepository.deleteById(ritualHistoryId);
+		eventPublisher.publishEvent(new UserRitualActivityChangedEvent(ritualHistory.getUserId()));
 	}
 
 	@Transactional
@@ -227,7 +234,40 @@ public class RitualHistoryService {
 		// Validate all ritual IDs and ritual pack IDs in bulk
 		validateRitualHistoriesCreateRequests(requests);
 
-		List<RitualHistory> histories = requests.stream()
+		// Save all in a single batch
+		List<RitualHistory> savedHistories = ritualHistoryRepository
+				.saveAllAndFlush(toRitualHistories(userId, requests));
+		eventPublisher.publishEvent(new UserRitualActivityChangedEvent(userId));
+
+		// Convert back to DTOs and return
+		List<RitualHistoryDTO> result = savedHistories.stream()
+				.map(RitualHistoryMapper::toDto)
+				.collect(Collectors.toList());
+		return result;
+	}
+
+	/**
+	 * Creates ritual history records as part of a larger unit of work: they are
+	 * inserted in one JDBC batch when the calling transaction flushes, so the
+	 * returned records have no timestamps yet. The rituals and packs are not
+	 * validated; use for requests built from a pack just loaded from the
+	 * database, e.g. a recommended pack.
+	 */
+	@Transactional
+	public List<RitualHistoryDTO> saveRitualHistories(UUID userId, List<RitualHistoryCreateRequest> requests) {
+		if (requests == null || requests.isEmpty()) {
+			return List.of();
+		}
+
+		List<RitualHistory> savedHistories = ritualHistoryRepository.saveAll(toRitualHistories(userId, requests));
+		eventPublisher.publishEvent(new UserRitualActivityChangedEvent(userId));
+		return savedHistories.stream()
+				.map(RitualHistoryMapper::toDto)
+				.collect(Collectors.toList());
+	}
+
+	private static List<RitualHistory> toRitualHistories(UUID userId, List<RitualHistoryCreateRequest> requests) {
+		return requests.stream()
 				.map(request -> RitualHistory.builder()
 						.userId(userId)
 						.ritualId(request.getRitualId())
@@ -236,15 +276,6 @@ public class RitualHistoryService {
 						.status(request.getStatus())
 						.build())
 				.collect(Collectors.toList());
-
-		// Save all in a single batch
-		List<RitualHistory> savedHistories = ritualHistoryRepository.saveAllAndFlush(histories);
-
-		// Convert back to DTOs and return
-		List<RitualHistoryDTO> result = savedHistories.stream()
-				.map(RitualHistoryMapper::toDto)
-				.collect(Collectors.toList());
-		return result;
 	}
 
 	@Transactional
@@ -254,11 +285,14 @@ public class RitualHistoryService {
 		RitualHistory ritualHistory = ritualHistoryRepository.findByIdAndUserId(ritualHistoryId, userId)
 				.orElseThrow(() -> new ResourceNotFoundException("RitualHistory", "id", ritualHistoryId));
 
+		RitualHistoryStatus previousStatus = ritualHistory.getStatus();
 		ritualHistory.setStatus(status);
 		if (feedback != null) {
 			ritualHistory.setFeedback(feedback);
 		}
 		ritualHistoryRepository.save(ritualHistory);
+		ritualPackOutcomeRecorder.ritualStatusChanged(ritualHistory, previousStatus);
+		eventPublisher.publishEvent(new UserRitualActivityChangedEvent(userId));
 
 		log.info("Ritual status updated successfully ritualHistoryId={}", ritualHistoryId);
 
@@ -306,11 +340,14 @@ public class RitualHistoryService {
 			StatusUpdateEntry update = updatesMap.get(historyId);
 
 			if (update != null) {
+				RitualHistoryStatus previousStatus = history.getStatus();
 				history.setStatus(update.getStatus());
+				ritualPackOutcomeRecorder.ritualStatusChanged(history, previousStatus);
 			}
 		}
 
 		ritualHistoryRepository.saveAll(historiesById.values());
+		eventPublisher.publishEvent(new UserRitualActivityChangedEvent(userId));
 	}
 
 	private void validateRitualHistoriesCreateRequests(List<RitualHistoryCreateRequest> requests) {
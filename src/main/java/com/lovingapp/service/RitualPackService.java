@@ -1,5 +1,6 @@
 package com.lovingapp.service;
 
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -11,6 +12,7 @@ import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +24,7 @@ import com.lovingapp.model.entity.Ritual;
 import com.lovingapp.model.entity.RitualPack;
 import com.lovingapp.repository.RitualPackRepository;
 import com.lovingapp.repository.RitualRepository;
+import com.lovingapp.service.recommendation.RitualContentChangedEvent;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +36,7 @@ public class RitualPackService {
 
     private final RitualPackRepository ritualPackRepository;
     private final RitualRepository ritualRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<RitualPackDTO> findAll() {
@@ -41,6 +45,32 @@ public class RitualPackService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * All packs with their rituals, loaded in one query, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public List<RitualPackDTO> findAllWithRituals() {
+        return ritualPackRepository.findAllWithRituals().stream()
+                .map(RitualPackMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Version of the pack content, including the rituals in the packs. It
+     * changes whenever a pack or ritual is created, updated or deleted.
+     */
+    @Transactional(readOnly = true)
+    public ContentVersion findContentVersion() {
+        RitualPackRepository.ContentVersion packs = ritualPackRepository.findContentVersion();
+        RitualPackRepository.ContentVersion rituals = ritualRepository.findContentVersion();
+        return new ContentVersion(packs.getCount(), packs.getLastUpdatedAt(), rituals.getCount(),
+                rituals.getLastUpdatedAt());
+    }
+
+    public record ContentVersion(long packCount, OffsetDateTime packsUpdatedAt, long ritualCount,
+            OffsetDateTime ritualsUpdatedAt) {
+    }
+
     @Transactional(readOnly = true)
     public RitualPackDTO findById(UUID id) {
         return ritualPackRepository.findById(id)
@@ -90,6 +120,7 @@ public class RitualPackService {
             entity.setRituals(rituals);
         }
         RitualPack saved = ritualPackRepository.save(entity);
+        eventPublisher.publishEvent(new RitualContentChangedEvent());
 
         log.info("Ritual pack created successfully ritualPackId={}", saved.getId());
         return RitualPackMapper.toDto(saved);
@@ -112,6 +143,7 @@ public class RitualPackService {
         }
 
         RitualPack saved = ritualPackRepository.save(existing);
+        eventPublisher.publishEvent(new RitualContentChangedEvent());
 
         log.info("Ritual pack updated successfully ritualPackId={}", saved.getId());
     }
@@ -150,6 +182,7 @@ public class RitualPackService {
                 .collect(Collectors.toList());
 
         List<RitualPack> savedEntities = ritualPackRepository.saveAll(entities);
+        eventPublisher.publishEvent(new RitualContentChangedEvent());
         List<RitualPackDTO> result = savedEntities.stream()
                 .map(RitualPackMapper::toDto)
                 .collect(Collectors.toList());
@@ -208,6 +241,7 @@ public class RitualPackService {
         }
 
         ritualPackRepository.saveAll(toUpdate);
+        eventPublisher.publishEvent(new RitualContentChangedEvent());
         log.info("Bulk ritual packs updated successfully.");
     }
 
@@ -218,6 +252,7 @@ public class RitualPackService {
         RitualPack ritualPack = ritualPackRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("RitualPack", "id", id));
         ritualPackRepository.delete(ritualPack);
+        eventPublisher.publishEvent(new RitualContentChangedEvent());
 
         log.info("Ritual pack deleted successfully ritualPackId={}", id);
     }
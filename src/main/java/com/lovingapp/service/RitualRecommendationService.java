@@ -1,20 +1,29 @@
 package com.lovingapp.service;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.lovingapp.config.recommendation.RecommendationProperties;
+import com.lovingapp.config.recommendation.RecommendationProperties.RankingProperties;
 import com.lovingapp.exception.ResourceNotFoundException;
 import com.lovingapp.mapper.RitualRecommendationMapper;
 import com.lovingapp.model.dto.RitualHistoryDTOs.StatusUpdateEntry;
+import com.lovingapp.model.dto.RitualPackDTO;
 import com.lovingapp.model.dto.RitualRecommendationDTOs.RitualRecommendationCreateRequest;
 import com.lovingapp.model.dto.RitualRecommendationDTOs.RitualRecommendationDTO;
 import com.lovingapp.model.dto.RitualRecommendationDTOs.RitualRecommendationUpdateRequest;
+import com.lovingapp.model.dto.UserContextDTOs.UserContextDTO;
 import com.lovingapp.model.entity.RitualRecommendation;
+import com.lovingapp.model.enums.RecommendationStatus;
 import com.lovingapp.repository.RitualRecommendationRepository;
+import com.lovingapp.service.recommendation.RitualPackOutcomeRecorder;
+import com.lovingapp.service.recommendation.UserRitualActivityChangedEvent;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +35,11 @@ public class RitualRecommendationService {
 
     private final RitualRecommendationRepository ritualRecommendationRepository;
     private final RitualHistoryService ritualHistoryService;
+    private final UserContextService userContextService;
+    private final RecommendationEngine recommendationEngine;
+    private final RecommendationProperties recommendationProperties;
+    private final RitualPackOutcomeRecorder ritualPackOutcomeRecorder;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<RitualRecommendationDTO> getAll(UUID userId) {
@@ -36,23 +50,59 @@ public class RitualRecommendationService {
 
     @Transactional(readOnly = true)
     public RitualRecommendationDTO getById(UUID userId, UUID id) {
-        return ritualRecommendationRepository.findByIdAndUserId(id, userId)
-                .map(RitualRecommendationMapper::toDto)
+        return findById(userId, id)
                 .orElseThrow(() -> new ResourceNotFoundException("RitualRecommendation", "id", id));
     }
 
+    @Transactional(readOnly = true)
+    public Optional<RitualRecommendationDTO> findById(UUID userId, UUID id) {
+        return ritualRecommendationRepository.findByIdAndUserId(id, userId)
+                .map(RitualRecommendationMapper::toDto);
+    }
+
+    /**
+     * Ranks ritual packs for the merged user context of a chat session and the
+     * user's recommendation history, without recording a recommendation.
+     * {@code limit} defaults to and is capped by the configured limits.
+     */
+    public List<RitualPackDTO> rankRitualPacks(UUID userId, UUID sessionId, Integer limit) {
+        RankingProperties ranking = recommendationProperties.getRanking();
+        int count = limit == null
+                ? ranking.getDefaultLimit()
+                : Math.clamp(limit, 1, ranking.getMaxLimit());
+
+        UserContextDTO userContext = userContextService.findMergedByConversationId(userId, sessionId)
+                .orElse(null);
+        return recommendationEngine.recommendRitualPacks(userId, userContext, count);
+    }
+
     @Transactional
     public RitualRecommendationDTO create(UUID userId, RitualRecommendationCreateRequest request) {
-        RitualRecommendation entity = RitualRecommendation.builder()
+        RitualRecommendation saved = ritualRecommendationRepository.saveAndFlush(toEntity(userId, request));
+        eventPublisher.publishEvent(new UserRitualActivityChangedEvent(userId));
+        return RitualRecommendationMapper.toDto(saved);
+    }
+
+    /**
+     * Creates a recommendation as part of a larger unit of work: it is inserted
+     * when the calling transaction flushes. Returns its id, which is assigned in
+     * the application.
+     */
+    @Transactional
+    public UUID save(UUID userId, RitualRecommendationCreateRequest request) {
+        UUID recommendationId = ritualRecommendationRepository.save(toEntity(userId, request)).getId();
+        eventPublisher.publishEvent(new UserRitualActivityChangedEvent(userId));
+        return recommendationId;
+    }
+
+    private static RitualRecommendation toEntity(UUID userId, RitualRecommendationCreateRequest request) {
+        return RitualRecommendation.builder()
                 .userId(userId)
                 .source(request.getSource())
                 .sourceId(request.getSourceId())
                 .ritualPackId(request.getRitualPackId())
                 .status(request.getStatus())
                 .build();
-
-        RitualRecommendation saved = ritualRecommendationRepository.saveAndFlush(entity);
-        return RitualRecommendationMapper.toDto(saved);
     }
 
     @Transactional
@@ -62,8 +112,11 @@ public class RitualRecommendationService {
                 .findByIdAndUserId(recommendationId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("RitualRecommendation", "id", recommendationId));
 
+        RecommendationStatus previousStatus = ritualRecommendation.getStatus();
         ritualRecommendation.setStatus(request.getStatus());
         ritualRecommendationRepository.save(ritualRecommendation);
+        ritualPackOutcomeRecorder.recommendationStatusChanged(ritualRecommendation, previousStatus);
+        eventPublisher.publishEvent(new UserRitualActivityChangedEvent(userId));
 
         log.info("Ritual recommendation status updated successfully recommendationId={} status={}", recommendationId,
                 request.getStatus());
@@ -88,5 +141,6 @@ public class RitualRecommendationService {
         RitualRecommendation entity = ritualRecommendationRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("RitualRecommendation", "id", id));
         ritualRecommendationRepository.delete(entity);
+        eventPublisher.publishEvent(new UserRitualActivityChangedEvent(userId));
     }
 }
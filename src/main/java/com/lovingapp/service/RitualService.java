@@ -10,6 +10,7 @@ import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -30,6 +31,7 @@ import com.lovingapp.model.enums.RitualMode;
 import com.lovingapp.model.enums.RitualTone;
 import com.lovingapp.model.enums.TimeTaken;
 import com.lovingapp.repository.RitualRepository;
+import com.lovingapp.service.recommendation.RitualContentChangedEvent;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -40,6 +42,7 @@ import lombok.extern.slf4j.Slf4j;
 public class RitualService {
 
     private final RitualRepository ritualRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<RitualDTO> findAll() {
@@ -130,6 +133,7 @@ public class RitualService {
 
         Ritual ritual = RitualMapper.fromDto(ritualDTO);
         Ritual savedRitual = ritualRepository.save(ritual);
+        eventPublisher.publishEvent(new RitualContentChangedEvent());
 
         log.info("Ritual created successfully ritualId={}", savedRitual.getId());
         return RitualMapper.toDto(savedRitual);
@@ -144,6 +148,7 @@ public class RitualService {
 
         RitualMapper.updateEntityFromDto(ritualDTO, ritual);
         ritualRepository.save(ritual);
+        eventPublisher.publishEvent(new RitualContentChangedEvent());
 
         log.info("Ritual updated successfully ritualId={}", id);
     }
@@ -155,6 +160,7 @@ public class RitualService {
         Ritual ritual = ritualRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Ritual", "id", id));
         ritualRepository.delete(ritual);
+        eventPublisher.publishEvent(new RitualContentChangedEvent());
 
         log.info("Ritual deleted successfully ritualId={}", id);
     }
@@ -185,6 +191,7 @@ public class RitualService {
                 .collect(Collectors.toList());
 
         List<Ritual> saved = ritualRepository.saveAll(entities);
+        eventPublisher.publishEvent(new RitualContentChangedEvent());
 
         List<RitualDTO> result = saved.stream()
                 .map(RitualMapper::toDto)
@@ -233,6 +240,7 @@ public class RitualService {
                 .collect(Collectors.toList());
 
         ritualRepository.saveAll(toSave);
+        eventPublisher.publishEvent(new RitualContentChangedEvent());
 
         log.info("Bulk rituals updated successfully.");
     }
@@ -1,30 +1,54 @@
 package com.lovingapp.service;
 
+import java.time.OffsetDateTime;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.lovingapp.helpers.TimeOrderedUuidGenerator;
 import com.lovingapp.mapper.UserContextMapper;
 import com.lovingapp.model.dto.UserContextDTOs.UserContextCreateRequest;
 import com.lovingapp.model.dto.UserContextDTOs.UserContextDTO;
+import com.lovingapp.model.entity.MergedUserContext;
 import com.lovingapp.model.entity.UserContext;
+import com.lovingapp.model.enums.LoveType;
+import com.lovingapp.model.enums.RelationalNeed;
+import com.lovingapp.repository.MergedUserContextRepository;
 import com.lovingapp.repository.UserContextRepository;
 import com.lovingapp.service.chat.AIChatSessionPersistenceService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Every extracted user context is kept as a row of its own, for audit and to
+ * reuse extractions of an unchanged conversation. Each conversation also has
+ * one merged user context, updated in place as extractions are added: love
+ * types and relational needs are unioned with weights that decay with every
+ * newer extraction, journey, relationship status and semantic summary are the
+ * latest extracted.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserContextService {
 
+    /** Share of its weight a love type or need keeps with each newer extraction */
+    private static final double RECENCY_DECAY = 0.5;
+
+    /** Love types and needs whose weight decays below this are dropped */
+    private static final double MIN_WEIGHT = 0.2;
+
     private final UserContextRepository userContextRepository;
+    private final MergedUserContextRepository mergedUserContextRepository;
     private final AIChatSessionPersistenceService chatSessionPersistenceService;
 
     @Transactional(readOnly = true)
@@ -42,14 +66,165 @@ public class UserContextService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The merged user context of the conversation, with love types and
+     * relational needs ordered by weight.
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserContextDTO> findMergedByConversationId(UUID userId, UUID conversationId) {
+        return mergedUserContextRepository.findByUserIdAndConversationId(userId, conversationId)
+                .map(UserContextMapper::toDto);
+    }
+
+    /**
+     * The newest user context extracted from the conversation before
+     * {@code createdBefore}.
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserContextDTO> findLatestByConversationId(UUID userId, UUID conversationId,
+            OffsetDateTime createdBefore) {
+        return userContextRepository
+                .findFirstByUserIdAndConversationIdAndCreatedAtBeforeOrderByCreatedAtDesc(userId, conversationId,
+                        createdBefore)
+                .map(UserContextMapper::toDto);
+    }
+
+    /**
+     * Finds the user context extracted from exactly the given conversation
+     * context, if any.
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserContextDTO> findByContextHash(UUID userId, UUID conversationId, String contextHash) {
+        return userContextRepository
+                .findFirstByUserIdAndConversationIdAndContextHashOrderByCreatedAtDesc(userId, conversationId,
+                        contextHash)
+                .map(UserContextMapper::toDto);
+    }
+
     @Transactional
     public UserContextDTO create(UUID userId, UserContextCreateRequest request) {
+        if (request.getConversationId() != null) {
+            chatSessionPersistenceService.findSessionByIdAndUserId(request.getConversationId(), userId);
+        }
+
+        MergedUserContext mergedContext = lockMergedContext(userId, request.getConversationId());
+        UserContext savedContext = userContextRepository.saveAndFlush(toEntity(userId, request, null));
+        merge(mergedContext, savedContext);
+        return UserContextMapper.toDto(savedContext);
+    }
+
+    /**
+     * Creates a user context extracted from the conversation context with hash
+     * {@code contextHash}. If one was already stored for the same context it is
+     * returned instead of writing another row. A new user context is merged
+     * into the merged context of the conversation.
+     *
+     * Part of the write phase of a recommendation turn: a new user context is
+     * inserted together with the turn's other writes when the calling
+     * transaction flushes, so its timestamps are not set yet.
+     */
+    @Transactional
+    public UserContextDTO create(UUID userId, UserContextCreateRequest request, String contextHash) {
 
         if (request.getConversationId() != null) {
             chatSessionPersistenceService.findSessionByIdAndUserId(request.getConversationId(), userId);
         }
 
-        UserContext userContext = UserContext.builder()
+        if (contextHash != null && request.getConversationId() != null) {
+            Optional<UserContext> existing = userContextRepository
+                    .findFirstByUserIdAndConversationIdAndContextHashOrderByCreatedAtDesc(userId,
+                            request.getConversationId(), contextHash);
+            if (existing.isPresent()) {
+                log.info("User context for unchanged conversation context reused conversationId={} userContextId={}",
+                        request.getConversationId(), existing.get().getId());
+                return UserContextMapper.toDto(existing.get());
+            }
+        }
+
+        MergedUserContext mergedContext = lockMergedContext(userId, request.getConversationId());
+        UserContext savedContext = userContextRepository.save(toEntity(userId, request, contextHash));
+        merge(mergedContext, savedContext);
+        return UserContextMapper.toDto(savedContext);
+    }
+
+    @Transactional
+    public void deleteByUserIdAndConversationId(UUID userId, UUID conversationId) {
+        userContextRepository.deleteByUserIdAndConversationId(userId, conversationId);
+        mergedUserContextRepository.deleteByUserIdAndConversationId(userId, conversationId);
+    }
+
+    /**
+     * Loads the merged context of the conversation for update, creating it if
+     * needed. A newly created one first takes in the user contexts extracted
+     * before merged contexts existed. Done before the new user context is
+     * added, so it does not force an early flush of the calling transaction.
+     */
+    private MergedUserContext lockMergedContext(UUID userId, UUID conversationId) {
+        if (conversationId == null) {
+            return null;
+        }
+
+        boolean created = mergedUserContextRepository.insertIfAbsent(TimeOrderedUuidGenerator.next(), userId,
+                conversationId) > 0;
+        MergedUserContext mergedContext = mergedUserContextRepository
+                .findByUserIdAndConversationIdForUpdate(userId, conversationId)
+                .orElseThrow(() -> new IllegalStateException(
+                        "Merged user context of conversation " + conversationId + " not found"));
+
+        if (created) {
+            List<UserContext> earlierContexts = userContextRepository
+                    .findByUserIdAndConversationIdOrderByCreatedAtAsc(userId, conversationId);
+            earlierContexts.forEach(userContext -> merge(mergedContext, userContext));
+            log.info("Merged user context created conversationId={} earlierUserContexts={}", conversationId,
+                    earlierContexts.size());
+        }
+        return mergedContext;
+    }
+
+    private static void merge(MergedUserContext mergedContext, UserContext userContext) {
+        if (mergedContext == null) {
+            return;
+        }
+
+        mergedContext.setLoveTypeWeights(mergeWeights(mergedContext.getLoveTypeWeights(),
+                userContext.getLoveTypes(), LoveType.class));
+        mergedContext.setRelationalNeedWeights(mergeWeights(mergedContext.getRelationalNeedWeights(),
+                userContext.getRelationalNeeds(), RelationalNeed.class));
+        if (userContext.getJourney() != null) {
+            mergedContext.setJourney(userContext.getJourney());
+        }
+        if (userContext.getRelationshipStatus() != null) {
+            mergedContext.setRelationshipStatus(userContext.getRelationshipStatus());
+        }
+        if (userContext.getSemanticSummary() != null && !userContext.getSemanticSummary().isBlank()) {
+            mergedContext.setSemanticSummary(userContext.getSemanticSummary());
+        }
+        mergedContext.setMergedExtractions(mergedContext.getMergedExtractions() + 1);
+        mergedContext.setLastUserContextId(userContext.getId());
+    }
+
+    /**
+     * Decays the existing weights and adds 1 for each newly extracted value.
+     */
+    private static <E extends Enum<E>> Map<E, Double> mergeWeights(Map<E, Double> weights, List<E> extracted,
+            Class<E> type) {
+        Map<E, Double> merged = new EnumMap<>(type);
+        if (weights != null) {
+            weights.forEach((value, weight) -> {
+                double decayed = weight * RECENCY_DECAY;
+                if (decayed >= MIN_WEIGHT) {
+                    merged.put(value, decayed);
+                }
+            });
+        }
+        if (extracted != null) {
+            extracted.stream().distinct().forEach(value -> merged.merge(value, 1.0, Double::sum));
+        }
+        return merged;
+    }
+
+    private static UserContext toEntity(UUID userId, UserContextCreateRequest request, String contextHash) {
+        return UserContext.builder()
                 .userId(userId)
                 .conversationId(request.getConversationId())
                 .journey(request.getJourney())
@@ -57,14 +232,7 @@ public class UserContextService {
                 .relationalNeeds(Objects.requireNonNullElse(request.getRelationalNeeds(), Collections.emptyList()))
                 .relationshipStatus(request.getRelationshipStatus())
                 .semanticSummary(request.getSemanticSummary())
+                .contextHash(contextHash)
                 .build();
-
-        UserContext savedContext = userContextRepository.saveAndFlush(userContext);
-        return UserContextMapper.toDto(savedContext);
-    }
-
-    @Transactional
-    public void deleteByUserIdAndConversationId(UUID userId, UUID conversationId) {
-        userContextRepository.deleteByUserIdAndConversationId(userId, conversationId);
     }
-}
\ No newline at end of file
+}
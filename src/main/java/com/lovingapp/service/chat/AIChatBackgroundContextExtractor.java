@@ -0,0 +1,267 @@
+package com.lovingapp.service.chat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.lovingapp.config.llm.LlmClientProperties;
+import com.lovingapp.config.llm.LlmClientProperties.BackgroundExtractionProperties;
+import com.lovingapp.model.domain.ai.LLMCallPriority;
+import com.lovingapp.model.domain.ai.LLMUserContextExtraction;
+import com.lovingapp.model.entity.ChatMessage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Refreshes the provisional user context of a chat session in the background
+ * after each chat turn, so the recommendation turn usually finds an up-to-date
+ * context instead of running the extraction on the user's critical path.
+ *
+ * Extractions are debounced per session: a turn arriving while the previous one
+ * is still waiting or running cancels it (aborting an in-flight LLM call) and
+ * supersedes it. The result is stored tied to the message it was extracted up
+ * to, and discarded if the conversation has moved on by then.
+ *
+ * The debounce timer only hands the extraction to a virtual thread, which
+ * loads the conversation and makes the call, so one slow database read does
+ * not hold up the timers of other sessions. The LLM call is admitted with
+ * background priority.
+ */
+@Slf4j
+@Component
+public class AIChatBackgroundContextExtractor {
+
+    private static final String METRIC_NAME = "chat.context.background.extractions";
+
+    private final AIChatLLMHelper aiChatLLMHelper;
+    private final AIChatTurnPersistenceService chatTurnPersistenceService;
+    private final BackgroundExtractionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledThreadPoolExecutor debounceScheduler;
+    private final ExecutorService extractionExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("chat-context-extraction-", 0).factory());
+
+    private final Map<UUID, PendingExtraction> pendingExtractions = new ConcurrentHashMap<>();
+
+    public AIChatBackgroundContextExtractor(AIChatLLMHelper aiChatLLMHelper,
+            AIChatTurnPersistenceService chatTurnPersistenceService, LlmClientProperties llmClientProperties,
+            MeterRegistry meterRegistry) {
+        this.aiChatLLMHelper = aiChatLLMHelper;
+        this.chatTurnPersistenceService = chatTurnPersistenceService;
+        this.properties = llmClientProperties.getChat().getBackgroundExtraction();
+        this.meterRegistry = meterRegistry;
+        this.debounceScheduler = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().daemon().name("chat-context-debounce").factory());
+        this.debounceScheduler.setRemoveOnCancelPolicy(true);
+
+        meterRegistry.gaugeMapSize("chat.context.background.pending", List.of(), pendingExtractions);
+    }
+
+    /**
+     * Schedules a context extraction for the conversation up to
+     * {@code sourceMessageId}, superseding any extraction pending for the
+     * session. {@code conversation} is evaluated only when the debounce delay
+     * has passed.
+     */
+    public void schedule(UUID userId, UUID sessionId, UUID sourceMessageId,
+            Supplier<List<ChatMessage>> conversation) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        PendingExtraction extraction = new PendingExtraction(userId, sessionId, sourceMessageId);
+        PendingExtraction superseded = pendingExtractions.put(sessionId, extraction);
+        if (superseded != null && superseded.cancel()) {
+            record("superseded");
+        }
+
+        extraction.setTimer(debounceScheduler.schedule(() -> handOff(extraction, conversation),
+                properties.getDebounce().toMillis(), TimeUnit.MILLISECONDS));
+
+        log.debug("Background user context extraction scheduled sessionId={} sourceMessageId={}", sessionId,
+                sourceMessageId);
+    }
+
+    /**
+     * Cancels the extraction pending for the session, e.g. because a new turn
+     * has started or the session is being deleted.
+     */
+    public void cancel(UUID sessionId) {
+        PendingExtraction extraction = pendingExtractions.remove(sessionId);
+        if (extraction != null && extraction.cancel()) {
+            record("cancelled");
+            log.debug("Background user context extraction cancelled sessionId={}", sessionId);
+        }
+    }
+
+    /**
+     * Hands over a running extraction of exactly the conversation up to
+     * {@code sourceMessageId} to the caller. An extraction still waiting out its
+     * debounce delay, or one for another message, is cancelled and {@code null}
+     * returned, so the caller extracts inline.
+     *
+     * Cancelling the returned future does not abort the background call.
+     */
+    public CompletableFuture<LLMUserContextExtraction> takeOver(UUID sessionId, UUID sourceMessageId) {
+        PendingExtraction extraction = pendingExtractions.get(sessionId);
+        if (extraction == null) {
+            return null;
+        }
+
+        CompletableFuture<LLMUserContextExtraction> call = extraction.getCall();
+        if (call != null && extraction.sourceMessageId.equals(sourceMessageId)) {
+            record("taken_over");
+            return call.copy();
+        }
+
+        cancel(sessionId);
+        return null;
+    }
+
+    private void handOff(PendingExtraction extraction, Supplier<List<ChatMessage>> conversation) {
+        if (extraction.isCancelled()) {
+            return;
+        }
+
+        try {
+            extractionExecutor.execute(() -> start(extraction, conversation));
+        } catch (RejectedExecutionException e) {
+            pendingExtractions.remove(extraction.sessionId, extraction);
+        }
+    }
+
+    private void start(PendingExtraction extraction, Supplier<List<ChatMessage>> conversation) {
+        if (extraction.isCancelled()) {
+            return;
+        }
+
+        try {
+            List<ChatMessage> messages = conversation.get();
+            CompletableFuture<LLMUserContextExtraction> call = aiChatLLMHelper.extractUserContext(
+                    extraction.userId, extraction.sessionId, messages, LLMCallPriority.BACKGROUND);
+            if (!extraction.setCall(call)) {
+                return;
+            }
+
+            call.whenComplete((userContext, error) -> complete(extraction, userContext, error));
+        } catch (RuntimeException e) {
+            complete(extraction, null, e);
+        }
+    }
+
+    private void complete(PendingExtraction extraction, LLMUserContextExtraction userContext, Throwable error) {
+        try {
+            if (extraction.isCancelled()) {
+                return;
+            }
+            if (error != null) {
+                record("failed");
+                log.warn("Background user context extraction failed sessionId={}: {}", extraction.sessionId,
+                        error.getMessage());
+                return;
+            }
+
+            boolean stored = chatTurnPersistenceService.storeProvisionalUserContext(extraction.userId,
+                    extraction.sessionId, extraction.sourceMessageId, userContext);
+            record(stored ? "stored" : "stale");
+            log.info("Background user context extraction completed sessionId={} sourceMessageId={} stored={}",
+                    extraction.sessionId, extraction.sourceMessageId, stored);
+        } catch (RuntimeException e) {
+            record("failed");
+            log.warn("Background user context could not be stored sessionId={}: {}", extraction.sessionId,
+                    e.getMessage());
+        } finally {
+            pendingExtractions.remove(extraction.sessionId, extraction);
+        }
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter(METRIC_NAME, "outcome", outcome).increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        debounceScheduler.shutdownNow();
+        extractionExecutor.shutdownNow();
+        pendingExtractions.values().forEach(PendingExtraction::cancel);
+        pendingExtractions.clear();
+    }
+
+    /**
+     * One scheduled extraction: first a debounce timer, then the LLM call.
+     */
+    private static final class PendingExtraction {
+
+        private final UUID userId;
+        private final UUID sessionId;
+        private final UUID sourceMessageId;
+
+        private ScheduledFuture<?> timer;
+        private CompletableFuture<LLMUserContextExtraction> call;
+        private boolean cancelled;
+
+        private PendingExtraction(UUID userId, UUID sessionId, UUID sourceMessageId) {
+            this.userId = userId;
+            this.sessionId = sessionId;
+            this.sourceMessageId = sourceMessageId;
+        }
+
+        synchronized void setTimer(ScheduledFuture<?> timer) {
+            this.timer = timer;
+            if (cancelled) {
+                timer.cancel(false);
+            }
+        }
+
+        /**
+         * Returns false, and aborts the call, if the extraction was cancelled in
+         * the meantime.
+         */
+        synchronized boolean setCall(CompletableFuture<LLMUserContextExtraction> call) {
+            this.call = call;
+            if (cancelled) {
+                call.cancel(true);
+                return false;
+            }
+            return true;
+        }
+
+        synchronized CompletableFuture<LLMUserContextExtraction> getCall() {
+            return call;
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Returns whether there was still anything to cancel.
+         */
+        synchronized boolean cancel() {
+            if (cancelled || (call != null && call.isDone())) {
+                return false;
+            }
+            cancelled = true;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (call != null) {
+                call.cancel(true);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.lovingapp.service.chat;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.lovingapp.model.entity.ChatMessage;
+import com.lovingapp.model.entity.ChatSummaryCheckpoint;
+import com.lovingapp.repository.ChatSummaryCheckpointRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service for persisting the summary checkpoints of chat sessions. Older
+ * checkpoints are kept, so the context of an earlier recommendation can be
+ * rebuilt with the checkpoint it was built from.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AIChatCheckpointPersistenceService {
+
+    private final ChatSummaryCheckpointRepository chatSummaryCheckpointRepository;
+
+    /**
+     * The newest checkpoint of the session, or the newest one created before
+     * {@code createdBefore} if given.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ChatSummaryCheckpoint> findLatestCheckpoint(UUID sessionId, OffsetDateTime createdBefore) {
+        return createdBefore == null
+                ? chatSummaryCheckpointRepository.findFirstBySessionIdOrderByCreatedAtDesc(sessionId)
+                : chatSummaryCheckpointRepository.findFirstBySessionIdAndCreatedAtBeforeOrderByCreatedAtDesc(
+                        sessionId, createdBefore);
+    }
+
+    @Transactional
+    public ChatSummaryCheckpoint saveCheckpoint(UUID sessionId, String summary, ChatMessage coveredMessage) {
+        ChatSummaryCheckpoint checkpoint = ChatSummaryCheckpoint.builder()
+                .sessionId(sessionId)
+                .summary(summary)
+                .coveredMessageId(coveredMessage.getId())
+                .coveredUntil(coveredMessage.getCreatedAt())
+                .build();
+
+        ChatSummaryCheckpoint savedCheckpoint = chatSummaryCheckpointRepository.save(checkpoint);
+        log.info("Summary checkpoint saved sessionId={} checkpointId={} coveredMessageId={}", sessionId,
+                savedCheckpoint.getId(), coveredMessage.getId());
+
+        return savedCheckpoint;
+    }
+
+    @Transactional
+    public void deleteCheckpointsBySessionId(UUID sessionId) {
+        chatSummaryCheckpointRepository.deleteBySessionId(sessionId);
+    }
+}
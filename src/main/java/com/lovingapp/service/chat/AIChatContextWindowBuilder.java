@@ -0,0 +1,205 @@
+package com.lovingapp.service.chat;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+import com.lovingapp.config.llm.LlmClientProperties;
+import com.lovingapp.config.llm.LlmClientProperties.ContextWindowProperties;
+import com.lovingapp.helpers.ai.LLMTokenCounter;
+import com.lovingapp.model.domain.ai.LLMCallType;
+import com.lovingapp.model.domain.ai.LLMChatMessage;
+import com.lovingapp.model.entity.ChatMessage;
+import com.lovingapp.model.enums.ChatMessageRole;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fits the conversation context of an LLM call into a per-call-type token
+ * budget. Tokens are counted locally. Filling order:
+ * <ol>
+ * <li>the newest messages, verbatim, newest first</li>
+ * <li>the semantic summaries of earlier recommendation rounds, newest first, up
+ * to the summary budget</li>
+ * <li>a condensed digest of the older messages that did not fit verbatim,
+ * newest first; whatever still does not fit is dropped</li>
+ * </ol>
+ * Window sizes and token counts are recorded as metrics tagged by call type.
+ */
+@Slf4j
+@Component
+public class AIChatContextWindowBuilder {
+
+    private static final String METRIC_PREFIX = "llm.context.";
+    private static final String CONDENSED_HEADER = "Condensed earlier messages of this conversation (older ones omitted):";
+
+    private final LLMTokenCounter tokenCounter;
+    private final ContextWindowProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public AIChatContextWindowBuilder(LLMTokenCounter tokenCounter, LlmClientProperties llmClientProperties,
+            MeterRegistry meterRegistry) {
+        this.tokenCounter = tokenCounter;
+        this.properties = llmClientProperties.getContextWindow();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Builds the message window for one LLM call. {@code conversation} is the
+     * output of the chat service's context assembly: leading SYSTEM messages are
+     * semantic summaries, the rest are conversation turns in chronological order.
+     */
+    public List<LLMChatMessage> build(LLMCallType callType, UUID sessionId, String systemPrompt,
+            List<ChatMessage> conversation) {
+        List<LLMChatMessage> summaries = new ArrayList<>();
+        List<LLMChatMessage> turns = new ArrayList<>();
+        for (ChatMessage message : conversation) {
+            LLMChatMessage llmMessage = new LLMChatMessage(message.getRole(), message.getContent());
+            if (turns.isEmpty() && message.getRole() == ChatMessageRole.SYSTEM) {
+                summaries.add(llmMessage);
+            } else {
+                turns.add(llmMessage);
+            }
+        }
+
+        int historyTokens = countAll(summaries) + countAll(turns);
+
+        if (!properties.isEnabled()) {
+            List<LLMChatMessage> all = new ArrayList<>(summaries);
+            all.addAll(turns);
+            record(callType, historyTokens, historyTokens, all.size(), 0, 0);
+            return all;
+        }
+
+        int budget = Math.max(0, properties.maxTokensFor(callType) - tokenCounter.count(systemPrompt));
+        int summaryTokens = Math.min(countAll(summaries), properties.getSummaryMaxTokens());
+
+        // 1. Newest turns verbatim, leaving room for the summaries
+        Deque<LLMChatMessage> verbatim = new ArrayDeque<>();
+        int used = 0;
+        int index = turns.size() - 1;
+        for (; index >= 0; index--) {
+            LLMChatMessage turn = turns.get(index);
+            int cost = tokenCounter.count(turn);
+            boolean required = verbatim.size() < properties.getMinRecentMessages();
+
+            if (used + cost <= budget - summaryTokens) {
+                verbatim.addFirst(turn);
+                used += cost;
+            } else if (required) {
+                // Must keep, cut to what is left of the budget
+                int allowed = Math.max(1, budget - used - tokenCounter.messageOverheadTokens());
+                LLMChatMessage truncated = new LLMChatMessage(turn.getRole(),
+                        tokenCounter.truncate(turn.getContent(), allowed));
+                verbatim.addFirst(truncated);
+                used += tokenCounter.count(truncated);
+            } else {
+                break;
+            }
+        }
+
+        // 2. Summaries, newest first, within the summary budget
+        Deque<LLMChatMessage> keptSummaries = new ArrayDeque<>();
+        int summaryBudget = Math.min(properties.getSummaryMaxTokens(), Math.max(0, budget - used));
+        int summaryUsed = 0;
+        for (int i = summaries.size() - 1; i >= 0; i--) {
+            LLMChatMessage summary = summaries.get(i);
+            int cost = tokenCounter.count(summary);
+            if (summaryUsed + cost > summaryBudget) {
+                break;
+            }
+            keptSummaries.addFirst(summary);
+            summaryUsed += cost;
+        }
+        used += summaryUsed;
+
+        // 3. Condensed digest of the older turns that did not fit verbatim
+        Deque<String> condensedLines = new ArrayDeque<>();
+        int condensedTokens = tokenCounter.count(CONDENSED_HEADER) + tokenCounter.messageOverheadTokens();
+        for (; index >= 0 && properties.getCondensedMessageMaxTokens() > 0; index--) {
+            LLMChatMessage turn = turns.get(index);
+            String line = "- " + roleLabel(turn.getRole()) + ": "
+                    + tokenCounter.truncate(turn.getContent(), properties.getCondensedMessageMaxTokens());
+            int cost = tokenCounter.count(line) + 1;
+            if (used + condensedTokens + cost > budget) {
+                break;
+            }
+            condensedLines.addFirst(line);
+            condensedTokens += cost;
+        }
+
+        List<LLMChatMessage> window = new ArrayList<>(keptSummaries);
+        if (!condensedLines.isEmpty()) {
+            window.add(new LLMChatMessage(ChatMessageRole.SYSTEM,
+                    CONDENSED_HEADER + "\n" + String.join("\n", condensedLines)));
+            used += condensedTokens;
+        }
+        window.addAll(verbatim);
+
+        int dropped = index + 1;
+        record(callType, historyTokens, used, verbatim.size(), condensedLines.size(), dropped);
+
+        log.debug(
+                "LLM context window built sessionId={} callType={} historyTokens={} windowTokens={} verbatim={} condensed={} dropped={} summaries={}/{}",
+                sessionId, callType, historyTokens, used, verbatim.size(), condensedLines.size(), dropped,
+                keptSummaries.size(), summaries.size());
+
+        return window;
+    }
+
+    private int countAll(List<LLMChatMessage> messages) {
+        return messages.stream().mapToInt(tokenCounter::count).sum();
+    }
+
+    private static String roleLabel(ChatMessageRole role) {
+        return switch (role) {
+            case USER -> "User";
+            case ASSISTANT -> "Assistant";
+            case SYSTEM -> "System";
+        };
+    }
+
+    private void record(LLMCallType callType, int historyTokens, int windowTokens, int verbatimMessages,
+            int condensedMessages, int droppedMessages) {
+        String tag = callType.getTagValue();
+
+        DistributionSummary.builder(METRIC_PREFIX + "history.tokens")
+                .description("Tokens of the full conversation history before windowing")
+                .baseUnit("tokens")
+                .tag("call_type", tag)
+                .register(meterRegistry)
+                .record(historyTokens);
+        DistributionSummary.builder(METRIC_PREFIX + "window.tokens")
+                .description("Tokens of the conversation window sent to the LLM")
+                .baseUnit("tokens")
+                .tag("call_type", tag)
+                .register(meterRegistry)
+                .record(windowTokens);
+        DistributionSummary.builder(METRIC_PREFIX + "window.messages")
+                .description("Conversation messages kept verbatim in the LLM context window")
+                .baseUnit("messages")
+                .tag("call_type", tag)
+                .register(meterRegistry)
+                .record(verbatimMessages);
+
+        Counter.builder(METRIC_PREFIX + "messages.trimmed")
+                .description("Conversation messages not sent verbatim because of the token budget")
+                .tag("call_type", tag)
+                .tag("mode", "condensed")
+                .register(meterRegistry)
+                .increment(condensedMessages);
+        Counter.builder(METRIC_PREFIX + "messages.trimmed")
+                .description("Conversation messages not sent verbatim because of the token budget")
+                .tag("call_type", tag)
+                .tag("mode", "dropped")
+                .register(meterRegistry)
+                .increment(droppedMessages);
+    }
+}
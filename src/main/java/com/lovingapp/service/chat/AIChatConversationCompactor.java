@@ -0,0 +1,148 @@
+package com.lovingapp.service.chat;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.lovingapp.config.llm.LlmClientProperties;
+import com.lovingapp.config.llm.LlmClientProperties.SummaryCheckpointProperties;
+import com.lovingapp.helpers.ai.LLMTokenCounter;
+import com.lovingapp.model.domain.ai.LLMChatMessage;
+import com.lovingapp.model.entity.ChatMessage;
+import com.lovingapp.model.enums.ChatMessageRole;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the LLM context of long chat sessions bounded. After a chat turn, once
+ * the context (the latest checkpoint, the semantic summaries and the messages
+ * since) has grown beyond the trigger size, everything but the newest messages
+ * is condensed into a new summary checkpoint in the background. Later turns
+ * send the checkpoint instead of what it covers; the transcript is kept as is.
+ *
+ * At most one compaction runs per session at a time; a checkpoint that has
+ * been overtaken by a newer one by the time it is stored is discarded.
+ */
+@Slf4j
+@Component
+public class AIChatConversationCompactor {
+
+    private static final String METRIC_NAME = "chat.context.checkpoints";
+
+    private final AIChatLLMHelper aiChatLLMHelper;
+    private final AIChatTurnPersistenceService chatTurnPersistenceService;
+    private final LLMTokenCounter tokenCounter;
+    private final SummaryCheckpointProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService compactionExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("chat-checkpoint-", 0).factory());
+
+    private final Set<UUID> runningCompactions = ConcurrentHashMap.newKeySet();
+
+    public AIChatConversationCompactor(AIChatLLMHelper aiChatLLMHelper,
+            AIChatTurnPersistenceService chatTurnPersistenceService, LLMTokenCounter tokenCounter,
+            LlmClientProperties llmClientProperties, MeterRegistry meterRegistry) {
+        this.aiChatLLMHelper = aiChatLLMHelper;
+        this.chatTurnPersistenceService = chatTurnPersistenceService;
+        this.tokenCounter = tokenCounter;
+        this.properties = llmClientProperties.getChat().getSummaryCheckpoint();
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gaugeCollectionSize("chat.context.checkpoints.running", List.of(), runningCompactions);
+    }
+
+    /**
+     * Checks in the background whether the LLM context of the session has
+     * outgrown the trigger size, and if so stores a new checkpoint.
+     * {@code conversation} is the context as the next chat turn would send it.
+     */
+    public void compactIfNeeded(UUID userId, UUID sessionId, Supplier<List<ChatMessage>> conversation) {
+        if (!properties.isEnabled() || !runningCompactions.add(sessionId)) {
+            return;
+        }
+
+        try {
+            compactionExecutor.execute(() -> compact(userId, sessionId, conversation));
+        } catch (RejectedExecutionException e) {
+            runningCompactions.remove(sessionId);
+        }
+    }
+
+    private void compact(UUID userId, UUID sessionId, Supplier<List<ChatMessage>> conversation) {
+        try {
+            List<ChatMessage> messages = conversation.get();
+            int contextTokens = messages.stream()
+                    .mapToInt(message -> tokenCounter.count(new LLMChatMessage(message.getRole(), message.getContent())))
+                    .sum();
+            int turns = messages.size() - countLeadingSummaries(messages);
+            if (contextTokens < properties.getTriggerTokens() || turns <= properties.getKeepRecentMessages()) {
+                runningCompactions.remove(sessionId);
+                return;
+            }
+
+            // Everything up to the newest messages kept verbatim is condensed
+            int coveredIndex = messages.size() - properties.getKeepRecentMessages() - 1;
+            ChatMessage coveredMessage = messages.get(coveredIndex);
+            List<ChatMessage> covered = List.copyOf(messages.subList(0, coveredIndex + 1));
+
+            log.info("Summary checkpoint started sessionId={} contextTokens={} coveredMessages={}", sessionId,
+                    contextTokens, covered.size());
+
+            aiChatLLMHelper.summarizeConversation(userId, sessionId, covered)
+                    .whenComplete((summary, error) -> complete(userId, sessionId, coveredMessage, summary, error));
+        } catch (RuntimeException e) {
+            complete(userId, sessionId, null, null, e);
+        }
+    }
+
+    private void complete(UUID userId, UUID sessionId, ChatMessage coveredMessage, String summary,
+            Throwable error) {
+        try {
+            if (error != null) {
+                record("failed");
+                log.warn("Summary checkpoint failed sessionId={}: {}", sessionId, error.getMessage());
+                return;
+            }
+
+            boolean stored = chatTurnPersistenceService.storeSummaryCheckpoint(userId, sessionId, summary,
+                    coveredMessage);
+            record(stored ? "stored" : "stale");
+            log.info("Summary checkpoint completed sessionId={} coveredMessageId={} stored={}", sessionId,
+                    coveredMessage.getId(), stored);
+        } catch (RuntimeException e) {
+            record("failed");
+            log.warn("Summary checkpoint could not be stored sessionId={}: {}", sessionId, e.getMessage());
+        } finally {
+            runningCompactions.remove(sessionId);
+        }
+    }
+
+    /**
+     * Checkpoint and semantic summaries lead the context as SYSTEM messages.
+     */
+    private static int countLeadingSummaries(List<ChatMessage> messages) {
+        int count = 0;
+        while (count < messages.size() && messages.get(count).getRole() == ChatMessageRole.SYSTEM) {
+            count++;
+        }
+        return count;
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter(METRIC_NAME, "outcome", outcome).increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactionExecutor.shutdownNow();
+    }
+}
@@ -1,14 +1,23 @@
 package com.lovingapp.service.chat;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.springframework.stereotype.Component;
 
 import com.lovingapp.client.LlmClient;
+import com.lovingapp.helpers.HashUtils;
+import com.lovingapp.helpers.ai.JsonStringFieldStreamExtractor;
 import com.lovingapp.helpers.ai.LLMPromptHelper;
-import com.lovingapp.model.domain.ai.LLMChatMessage;
+import com.lovingapp.helpers.ai.PromptTemplate;
+import com.lovingapp.helpers.ai.PromptTemplateId;
+import com.lovingapp.helpers.ai.PromptTemplateRegistry;
+import com.lovingapp.model.domain.ai.LLMCallPriority;
+import com.lovingapp.model.domain.ai.LLMCallType;
+import com.lovingapp.model.domain.ai.LLMCombinedTurnResponse;
 import com.lovingapp.model.domain.ai.LLMEmpatheticResponse;
 import com.lovingapp.model.domain.ai.LLMRequest;
 import com.lovingapp.model.domain.ai.LLMResponse;
@@ -22,7 +31,8 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * Helper class for LLM-related operations in AI chat service.
- * Handles request creation, LLM calls, and response generation.
+ * Handles request creation, LLM calls, and response generation. Conversation
+ * history is fitted into the per-call token budget before each call.
  */
 @Slf4j
 @Component
@@ -30,87 +40,250 @@ import lombok.extern.slf4j.Slf4j;
 public class AIChatLLMHelper {
 
     private final LlmClient llmClient;
+    private final AIChatContextWindowBuilder contextWindowBuilder;
+    private final PromptTemplateRegistry promptTemplateRegistry;
 
     /**
-     * Generate empathetic response from conversation using LLM.
+     * Generate empathetic response from conversation using LLM. The call runs
+     * asynchronously; the returned future completes with the parsed response.
      */
-    public LLMEmpatheticResponse generateEmpatheticResponse(UUID sessionId, List<ChatMessage> messages) {
+    public CompletableFuture<LLMEmpatheticResponse> generateEmpatheticResponse(UUID userId, UUID sessionId,
+            List<ChatMessage> messages) {
+        String systemPrompt = promptTemplateRegistry.get(PromptTemplateId.EMPATHETIC_CHAT_RESPONSE).render();
         LLMRequest llmRequest = LLMRequest.builder()
-                .messages(messages.stream()
-                        .map(m -> new LLMChatMessage(m.getRole(), m.getContent()))
-                        .collect(Collectors.toList()))
-                .systemPrompt(LLMPromptHelper.generateEmpatheticChatResponsePrompt())
+                .userId(userId)
+                .callType(LLMCallType.EMPATHETIC)
+                .messages(contextWindowBuilder.build(LLMCallType.EMPATHETIC, sessionId, systemPrompt, messages))
+                .systemPrompt(systemPrompt)
                 .responseFormat(LLMResponseFormat.JSON)
                 .build();
 
         // Call LLM to generate empathetic response
         log.info("Generating empathetic response via LLM sessionId={}", sessionId);
 
-        LLMResponse<LLMEmpatheticResponse> aiReply = llmClient.generate(llmRequest, LLMEmpatheticResponse.class);
-        LLMEmpatheticResponse empatheticResponse = aiReply.getParsed();
+        return llmClient.generateAsync(llmRequest, LLMEmpatheticResponse.class)
+                .thenApply(aiReply -> {
+                    log.info("Empathetic response via LLM generated successfully sessionId={}", sessionId);
+                    return aiReply.getParsed();
+                });
+    }
+
+    /**
+     * Stream empathetic response from conversation using LLM. Only the decoded
+     * text of the "response" field is forwarded to {@code onResponseDelta}; the
+     * complete parsed response is returned once the stream finishes.
+     */
+    public LLMEmpatheticResponse streamEmpatheticResponse(UUID userId, UUID sessionId, List<ChatMessage> messages,
+            Consumer<String> onResponseDelta) {
+        String systemPrompt = promptTemplateRegistry.get(PromptTemplateId.EMPATHETIC_CHAT_RESPONSE).render();
+        LLMRequest llmRequest = LLMRequest.builder()
+                .userId(userId)
+                .callType(LLMCallType.EMPATHETIC)
+                .messages(contextWindowBuilder.build(LLMCallType.EMPATHETIC, sessionId, systemPrompt, messages))
+                .systemPrompt(systemPrompt)
+                .responseFormat(LLMResponseFormat.JSON)
+                .build();
 
-        log.info("Empathetic response via LLM generated successfully sessionId={}", sessionId);
+        log.info("Streaming empathetic response via LLM sessionId={}", sessionId);
+
+        LLMEmpatheticResponse empatheticResponse = streamResponseField(llmRequest, LLMEmpatheticResponse.class,
+                onResponseDelta);
+
+        log.info("Empathetic response via LLM streamed successfully sessionId={}", sessionId);
 
         return empatheticResponse;
     }
 
     /**
-     * Extract user context from conversation using LLM.
+     * Generate empathetic response and, once the conversation is ready for a
+     * ritual suggestion, the extracted user context in the same LLM call
+     * (combined turn mode). The call runs asynchronously.
      */
-    public LLMUserContextExtraction extractUserContext(UUID userId, UUID sessionId, List<ChatMessage> messages) {
+    public CompletableFuture<LLMCombinedTurnResponse> generateCombinedTurnResponse(UUID userId, UUID sessionId,
+            List<ChatMessage> messages) {
+        LLMRequest llmRequest = buildCombinedTurnRequest(userId, sessionId, messages);
+
+        log.info("Generating combined turn response via LLM sessionId={}", sessionId);
+
+        return llmClient.generateAsync(llmRequest, LLMCombinedTurnResponse.class)
+                .thenApply(aiReply -> {
+                    LLMCombinedTurnResponse combinedResponse = aiReply.getParsed();
+                    log.info("Combined turn response via LLM generated successfully sessionId={} userContext={}",
+                            sessionId, combinedResponse.getUserContext() != null);
+                    return combinedResponse;
+                });
+    }
+
+    /**
+     * Streaming variant of {@link #generateCombinedTurnResponse}. Only the decoded
+     * text of the "response" field is forwarded to {@code onResponseDelta}.
+     */
+    public LLMCombinedTurnResponse streamCombinedTurnResponse(UUID userId, UUID sessionId,
+            List<ChatMessage> messages, Consumer<String> onResponseDelta) {
+        LLMRequest llmRequest = buildCombinedTurnRequest(userId, sessionId, messages);
+
+        log.info("Streaming combined turn response via LLM sessionId={}", sessionId);
+
+        LLMCombinedTurnResponse combinedResponse = streamResponseField(llmRequest, LLMCombinedTurnResponse.class,
+                onResponseDelta);
+
+        log.info("Combined turn response via LLM streamed successfully sessionId={} userContext={}", sessionId,
+                combinedResponse.getUserContext() != null);
+
+        return combinedResponse;
+    }
+
+    /**
+     * Extract user context from conversation using LLM. The call runs
+     * asynchronously; the returned future completes with the parsed extraction,
+     * and cancelling it aborts the call. Extractions nobody waits for are
+     * admitted with {@link LLMCallPriority#BACKGROUND}.
+     */
+    public CompletableFuture<LLMUserContextExtraction> extractUserContext(UUID userId, UUID sessionId,
+            List<ChatMessage> messages, LLMCallPriority priority) {
+        String systemPrompt = promptTemplateRegistry.get(PromptTemplateId.USER_CONTEXT_EXTRACTION).render();
         LLMRequest extractionRequest = LLMRequest.builder()
-                .messages(messages.stream()
-                        .map(m -> new LLMChatMessage(m.getRole(), m.getContent()))
-                        .collect(Collectors.toList()))
-                .systemPrompt(LLMPromptHelper.generateUserContextExtractionPrompt())
+                .userId(userId)
+                .callType(LLMCallType.EXTRACTION)
+                .priority(priority)
+                .messages(contextWindowBuilder.build(LLMCallType.EXTRACTION, sessionId, systemPrompt, messages))
+                .systemPrompt(systemPrompt)
                 .responseFormat(LLMResponseFormat.JSON)
                 .build();
 
         log.info("Extracting user context from conversation via LLM sessionId={}", sessionId);
 
-        LLMResponse<LLMUserContextExtraction> llmUserContextResponse = llmClient.generate(extractionRequest,
-                LLMUserContextExtraction.class);
-        LLMUserContextExtraction llmUserContext = llmUserContextResponse.getParsed();
+        CompletableFuture<LLMResponse<LLMUserContextExtraction>> llmCall = llmClient.generateAsync(
+                extractionRequest, LLMUserContextExtraction.class);
+        CompletableFuture<LLMUserContextExtraction> extraction = llmCall
+                .thenApply(llmUserContextResponse -> {
+                    log.info("User context extracted successfully via LLM sessionId={}", sessionId);
+                    return llmUserContextResponse.getParsed();
+                });
 
-        log.info("User context extracted successfully via LLM sessionId={}", sessionId);
+        // Cancelling the extraction aborts the LLM call
+        extraction.whenComplete((userContext, error) -> {
+            if (extraction.isCancelled()) {
+                llmCall.cancel(true);
+            }
+        });
+        return extraction;
+    }
 
-        return llmUserContext;
+    /**
+     * Content hash of the conversation context as input of the user context
+     * extraction, including the extraction prompt version. Equal hashes mean the
+     * extraction can be reused.
+     */
+    public String userContextExtractionHash(List<ChatMessage> messages) {
+        PromptTemplate template = promptTemplateRegistry.get(PromptTemplateId.USER_CONTEXT_EXTRACTION);
+        StringBuilder input = new StringBuilder()
+                .append(template.getName()).append('@').append(template.getVersion());
+        for (ChatMessage message : messages) {
+            input.append('\u001e').append(message.getRole()).append('\u001f').append(message.getContent());
+        }
+        return HashUtils.sha256Hex(input.toString());
+    }
+
+    /**
+     * Condense the conversation, including the summaries leading it, into one
+     * checkpoint summary via LLM. The call runs asynchronously; the returned
+     * future fails if the LLM returns no summary.
+     */
+    public CompletableFuture<String> summarizeConversation(UUID userId, UUID sessionId,
+            List<ChatMessage> messages) {
+        String systemPrompt = promptTemplateRegistry.get(PromptTemplateId.CONVERSATION_SUMMARY).render();
+        LLMRequest summaryRequest = LLMRequest.builder()
+                .userId(userId)
+                .callType(LLMCallType.CHECKPOINT)
+                .priority(LLMCallPriority.BACKGROUND)
+                .messages(contextWindowBuilder.build(LLMCallType.CHECKPOINT, sessionId, systemPrompt, messages))
+                .systemPrompt(systemPrompt)
+                .responseFormat(LLMResponseFormat.TEXT)
+                .build();
+
+        log.info("Summarizing conversation via LLM sessionId={} messagesCount={}", sessionId, messages.size());
+
+        return llmClient.generateAsync(summaryRequest, String.class)
+                .thenApply(summaryResponse -> {
+                    String summary = summaryResponse.getRawText();
+                    if (summary == null || summary.isBlank()) {
+                        throw new IllegalStateException("LLM returned an empty conversation summary");
+                    }
+
+                    log.info("Conversation summarized successfully via LLM sessionId={}", sessionId);
+                    return summary.trim();
+                });
     }
 
     /**
      * Generate contextual wrap-up message via LLM that ties the pack to the user's
-     * situation.
+     * situation. The returned future never fails: any LLM error or empty reply
+     * resolves to the fallback message.
      */
-    public String generateWrapUpMessage(List<ChatMessage> messages, RitualPackDTO recommendedPack, UUID sessionId) {
-        String wrapUpMessage = "";
+    public CompletableFuture<String> generateWrapUpMessage(UUID userId, List<ChatMessage> messages,
+            RitualPackDTO recommendedPack, UUID sessionId) {
+        if (recommendedPack == null) {
+            return CompletableFuture.completedFuture(getFallbackWrapUpMessage(null));
+        }
 
-        try {
-            if (recommendedPack != null) {
-                LLMRequest wrapUpRequest = LLMRequest.builder()
-                        .messages(messages.stream()
-                                .map(m -> new LLMChatMessage(m.getRole(), m.getContent()))
-                                .collect(Collectors.toList()))
-                        .systemPrompt(LLMPromptHelper.generateWrapUpChatResponsePrompt(recommendedPack))
-                        .responseFormat(LLMResponseFormat.TEXT)
-                        .build();
+        String systemPrompt = promptTemplateRegistry.get(PromptTemplateId.WRAP_UP_CHAT_RESPONSE)
+                .render(Map.of(LLMPromptHelper.SUGGESTED_RITUAL_PACK_SLOT,
+                        LLMPromptHelper.formatRitualPackDetails(recommendedPack)));
+        LLMRequest wrapUpRequest = LLMRequest.builder()
+                .userId(userId)
+                .callType(LLMCallType.WRAP_UP)
+                .messages(contextWindowBuilder.build(LLMCallType.WRAP_UP, sessionId, systemPrompt, messages))
+                .systemPrompt(systemPrompt)
+                .responseFormat(LLMResponseFormat.TEXT)
+                .build();
 
-                log.info("Generating contextual wrap-up message via LLM sessionId={}", sessionId);
+        log.info("Generating contextual wrap-up message via LLM sessionId={}", sessionId);
 
-                LLMResponse<String> wrapUpResponse = llmClient.generate(wrapUpRequest);
-                wrapUpMessage = wrapUpResponse.getRawText();
+        return llmClient.generateAsync(wrapUpRequest, String.class)
+                .handle((wrapUpResponse, ex) -> {
+                    if (ex != null) {
+                        log.warn("Ritual wrap-up message LLM generation failed sessionId={}: {}", sessionId,
+                                ex.getMessage());
+                        return getFallbackWrapUpMessage(recommendedPack);
+                    }
 
-                log.info("Contextual wrap-up message generated successfully sessionId={}", sessionId);
-            }
+                    String wrapUpMessage = wrapUpResponse.getRawText();
+                    if (wrapUpMessage == null || wrapUpMessage.trim().isEmpty()) {
+                        return getFallbackWrapUpMessage(recommendedPack);
+                    }
 
-            if (wrapUpMessage == null || wrapUpMessage.trim().isEmpty()) {
-                wrapUpMessage = getFallbackWrapUpMessage(recommendedPack);
-            }
-        } catch (Exception ex) {
-            log.warn("Ritual wrap-up message LLM generation failed sessionId={}: {}", sessionId, ex.getMessage());
-            wrapUpMessage = getFallbackWrapUpMessage(recommendedPack);
-        }
+                    log.info("Contextual wrap-up message generated successfully sessionId={}", sessionId);
+                    return wrapUpMessage;
+                });
+    }
 
-        return wrapUpMessage;
+    private LLMRequest buildCombinedTurnRequest(UUID userId, UUID sessionId, List<ChatMessage> messages) {
+        String systemPrompt = promptTemplateRegistry.get(PromptTemplateId.COMBINED_CHAT_TURN).render();
+        return LLMRequest.builder()
+                .userId(userId)
+                .callType(LLMCallType.COMBINED_TURN)
+                .messages(contextWindowBuilder.build(LLMCallType.COMBINED_TURN, sessionId, systemPrompt, messages))
+                .systemPrompt(systemPrompt)
+                .responseFormat(LLMResponseFormat.JSON)
+                .build();
+    }
+
+    /**
+     * Streams a JSON response, forwarding only the decoded text of its "response"
+     * field, and returns the parsed result.
+     */
+    private <T> T streamResponseField(LLMRequest llmRequest, Class<T> responseClass,
+            Consumer<String> onResponseDelta) {
+        JsonStringFieldStreamExtractor responseExtractor = new JsonStringFieldStreamExtractor("response");
+        LLMResponse<T> aiReply = llmClient.generateStream(llmRequest, responseClass,
+                delta -> {
+                    String text = responseExtractor.feed(delta);
+                    if (!text.isEmpty()) {
+                        onResponseDelta.accept(text);
+                    }
+                });
+        return aiReply.getParsed();
     }
 
     /**
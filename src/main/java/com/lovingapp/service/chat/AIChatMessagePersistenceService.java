@@ -1,15 +1,25 @@
 package com.lovingapp.service.chat;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.lovingapp.helpers.KeysetCursor;
+import com.lovingapp.mapper.ChatMessageMapper;
 import com.lovingapp.model.domain.ChatMetadata;
+import com.lovingapp.model.dto.ChatDTOs.ChatMessageDTO;
+import com.lovingapp.model.dto.CursorPageDTO;
 import com.lovingapp.model.entity.ChatMessage;
 import com.lovingapp.model.enums.ChatMessageRole;
 import com.lovingapp.repository.ChatMessageRepository;
+import com.lovingapp.repository.ChatMessageRepository.ChatMessageSummary;
+import com.lovingapp.service.chat.ChatMessageCache.ChatMessageWindow;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +36,7 @@ import lombok.extern.slf4j.Slf4j;
 public class AIChatMessagePersistenceService {
 
         private final ChatMessageRepository chatMessageRepository;
+        private final ChatMessageCache chatMessageCache;
 
         @Transactional
         public ChatMessage saveUserMessage(UUID sessionId, String content) {
@@ -35,7 +46,8 @@ public class AIChatMessagePersistenceService {
                                 .content(content)
                                 .build();
 
-                ChatMessage savedUserMessage = chatMessageRepository.saveAndFlush(userMessage);
+                ChatMessage savedUserMessage = chatMessageRepository.save(userMessage);
+                cacheAfterCommit(savedUserMessage);
                 log.info("User chat message saved successfully sessionId={} chatMessageId={}", sessionId,
                                 savedUserMessage.getId());
 
@@ -50,7 +62,8 @@ public class AIChatMessagePersistenceService {
                                 .content(content)
                                 .build();
 
-                ChatMessage savedAssistantMessage = chatMessageRepository.saveAndFlush(assistantMessage);
+                ChatMessage savedAssistantMessage = chatMessageRepository.save(assistantMessage);
+                cacheAfterCommit(savedAssistantMessage);
                 log.info("Assistant message created sessionId={} chatMessageId={}", sessionId,
                                 savedAssistantMessage.getId());
 
@@ -68,7 +81,8 @@ public class AIChatMessagePersistenceService {
                                 .content(wrapUpMessage)
                                 .build();
 
-                ChatMessage savedAssistantMessage = chatMessageRepository.saveAndFlush(assistantMessage);
+                ChatMessage savedAssistantMessage = chatMessageRepository.save(assistantMessage);
+                cacheAfterCommit(savedAssistantMessage);
 
                 log.info("Recommendation wrap-up message saved successfully sessionId={} chatMessageId={}", sessionId,
                                 savedAssistantMessage.getId());
@@ -90,7 +104,8 @@ public class AIChatMessagePersistenceService {
                                                 .build())
                                 .build();
 
-                ChatMessage savedRecommendationMessage = chatMessageRepository.saveAndFlush(recommendationMessage);
+                ChatMessage savedRecommendationMessage = chatMessageRepository.save(recommendationMessage);
+                cacheAfterCommit(savedRecommendationMessage);
 
                 log.info(
                                 "System chat message with recommendation metadata saved successfully sessionId={} chatMessageId={}",
@@ -100,13 +115,110 @@ public class AIChatMessagePersistenceService {
                 return savedRecommendationMessage;
         }
 
+        /**
+         * Returns the full transcript of the session, from the message cache if it
+         * holds the session from its first message.
+         */
         @Transactional(readOnly = true)
         public List<ChatMessage> findMessagesBySessionId(UUID sessionId) {
-                return chatMessageRepository.findBySessionIdOrderByCreatedAtAsc(sessionId);
+                ChatMessageWindow cached = findCachedMessages(sessionId);
+                if (cached != null && cached.complete()) {
+                        return cached.messages();
+                }
+                return loadMessagesBySessionId(sessionId);
+        }
+
+        /**
+         * Returns the most recent messages of the session, usually from the message
+         * cache without a query. The window may not reach back to the first
+         * message; callers needing older messages use
+         * {@link #findMessagesBySessionId}.
+         */
+        @Transactional(readOnly = true)
+        public ChatMessageWindow findRecentMessagesBySessionId(UUID sessionId) {
+                ChatMessageWindow cached = findCachedMessages(sessionId);
+                if (cached != null) {
+                        return cached;
+                }
+                return new ChatMessageWindow(loadMessagesBySessionId(sessionId), true);
+        }
+
+        /**
+         * Returns the messages of the session before {@code cursor}, newest first.
+         */
+        @Transactional(readOnly = true)
+        public CursorPageDTO<ChatMessageDTO> findMessagesBySessionId(UUID sessionId, KeysetCursor cursor,
+                        int limit) {
+                // One extra row tells whether there is a next page
+                List<ChatMessageSummary> messages = cursor == null
+                                ? chatMessageRepository.findSummariesBySessionId(sessionId, Limit.of(limit + 1))
+                                : chatMessageRepository.findSummariesBySessionIdBefore(sessionId, cursor.timestamp(),
+                                                cursor.id(), Limit.of(limit + 1));
+
+                List<ChatMessageSummary> page = messages.subList(0, Math.min(limit, messages.size()));
+                ChatMessageSummary last = messages.size() > limit ? page.get(page.size() - 1) : null;
+
+                return CursorPageDTO.<ChatMessageDTO>builder()
+                                .items(page.stream()
+                                                .map(message -> ChatMessageMapper.toDto(sessionId, message))
+                                                .toList())
+                                .nextCursor(last != null
+                                                ? new KeysetCursor(last.getCreatedAt(), last.getId()).encode()
+                                                : null)
+                                .build();
+        }
+
+        @Transactional(readOnly = true)
+        public Optional<ChatMessage> findNewestMessageBySessionId(UUID sessionId) {
+                return chatMessageRepository.findFirstBySessionIdOrderByCreatedAtDesc(sessionId);
         }
 
         @Transactional
         public void deleteMessagesBySessionId(UUID sessionId) {
                 chatMessageRepository.deleteBySessionId(sessionId);
+                chatMessageCache.invalidate(sessionId);
+                afterCommit(() -> chatMessageCache.invalidate(sessionId));
+        }
+
+        private ChatMessageWindow findCachedMessages(UUID sessionId) {
+                if (!chatMessageCache.isEnabled()) {
+                        return null;
+                }
+                return chatMessageCache.get(sessionId, () -> chatMessageRepository
+                                .findNewestIdsBySessionId(sessionId, Limit.of(1)).stream()
+                                .findFirst()
+                                .orElse(null));
+        }
+
+        private List<ChatMessage> loadMessagesBySessionId(UUID sessionId) {
+                long generation = chatMessageCache.generation(sessionId);
+                List<ChatMessage> messages = chatMessageRepository.findBySessionIdOrderByCreatedAtAsc(sessionId);
+                if (chatMessageCache.isEnabled()) {
+                        chatMessageCache.put(sessionId, messages, generation);
+                }
+                return messages;
+        }
+
+        /**
+         * Adds the message to the message cache once it is committed, so the cache
+         * never shows a message that is rolled back.
+         */
+        private void cacheAfterCommit(ChatMessage message) {
+                if (chatMessageCache.isEnabled()) {
+                        afterCommit(() -> chatMessageCache.append(message));
+                }
+        }
+
+        private static void afterCommit(Runnable action) {
+                if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                        action.run();
+                        return;
+                }
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                                action.run();
+                        }
+                });
         }
 }
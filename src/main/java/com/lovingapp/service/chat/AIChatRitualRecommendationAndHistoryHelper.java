@@ -11,7 +11,6 @@ import com.lovingapp.model.dto.RitualHistoryDTOs.RitualHistoryCreateRequest;
 import com.lovingapp.model.dto.RitualHistoryDTOs.RitualHistoryDTO;
 import com.lovingapp.model.dto.RitualPackDTO;
 import com.lovingapp.model.dto.RitualRecommendationDTOs.RitualRecommendationCreateRequest;
-import com.lovingapp.model.dto.RitualRecommendationDTOs.RitualRecommendationDTO;
 import com.lovingapp.model.enums.RecommendationSource;
 import com.lovingapp.model.enums.RecommendationStatus;
 import com.lovingapp.model.enums.RitualHistoryStatus;
@@ -50,20 +49,19 @@ public class AIChatRitualRecommendationAndHistoryHelper {
                     .ritualPackId(recommendedPack.getId())
                     .status(RecommendationStatus.SUGGESTED)
                     .build();
-            RitualRecommendationDTO savedRecommendation = ritualRecommendationService.create(userId,
-                    recommendationCreateRequest);
+            UUID recommendationId = ritualRecommendationService.save(userId, recommendationCreateRequest);
 
             log.info("Ritual recommendation saved successfully sessionId={} recommendationId={}", sessionId,
-                    savedRecommendation.getId());
+                    recommendationId);
 
             // Create and save system chat message with recommendation metadata
-            chatMessagePersistenceService.saveRecommendationMessage(sessionId, savedRecommendation.getId());
+            chatMessagePersistenceService.saveRecommendationMessage(sessionId, recommendationId);
 
             // Bulk create ritual history records for the rituals inside recommended ritual
             // pack
-            createRitualHistories(userId, sessionId, recommendedPack, savedRecommendation.getId());
+            createRitualHistories(userId, sessionId, recommendedPack, recommendationId);
 
-            return savedRecommendation.getId();
+            return recommendationId;
         }
 
         return null;
@@ -95,7 +93,8 @@ public class AIChatRitualRecommendationAndHistoryHelper {
                             .status(RitualHistoryStatus.SUGGESTED)
                             .build())
                     .collect(Collectors.toList());
-            createdHistories = ritualHistoryService.bulkCreateRitualHistories(userId, histories);
+            // The pack comes from the recommendation engine, its rituals need no validation
+            createdHistories = ritualHistoryService.saveRitualHistories(userId, histories);
 
             log.info(
                     "Ritual history records created for recommended pack sessionId={} recommendationId={} count={}",
@@ -4,14 +4,19 @@ import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.lovingapp.exception.ResourceNotFoundException;
+import com.lovingapp.helpers.KeysetCursor;
 import com.lovingapp.mapper.ChatSessionMapper;
+import com.lovingapp.model.domain.ai.LLMUserContextExtraction;
 import com.lovingapp.model.dto.ChatDTOs.ChatSessionDTO;
+import com.lovingapp.model.dto.CursorPageDTO;
 import com.lovingapp.model.entity.ChatSession;
 import com.lovingapp.repository.ChatSessionRepository;
+import com.lovingapp.repository.ChatSessionRepository.ChatSessionSummary;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +32,7 @@ public class AIChatSessionPersistenceService {
 
     private final ChatSessionRepository chatSessionRepository;
     private final AIChatMessagePersistenceService chatMessagePersistenceService;
+    private final AIChatCheckpointPersistenceService chatCheckpointPersistenceService;
 
     @Transactional
     public ChatSessionDTO createSession(UUID userId) {
@@ -37,9 +43,14 @@ public class AIChatSessionPersistenceService {
         return ChatSessionMapper.toDto(saved);
     }
 
+    /**
+     * Looks the session up by id, so a session already loaded in the current
+     * transaction is returned without a query.
+     */
     @Transactional(readOnly = true)
     public ChatSession findSessionByIdAndUserId(UUID sessionId, UUID userId) {
-        return chatSessionRepository.findByIdAndUserId(sessionId, userId)
+        return chatSessionRepository.findById(sessionId)
+                .filter(session -> session.getUserId().equals(userId))
                 .orElseThrow(() -> new ResourceNotFoundException("ChatSession", "id", sessionId));
     }
 
@@ -50,13 +61,47 @@ public class AIChatSessionPersistenceService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns the sessions after {@code cursor}, most recently updated first.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ChatSessionDTO> listSessions(UUID userId, KeysetCursor cursor, int limit) {
+        // One extra row tells whether there is a next page
+        List<ChatSessionSummary> sessions = cursor == null
+                ? chatSessionRepository.findSummariesByUserId(userId, Limit.of(limit + 1))
+                : chatSessionRepository.findSummariesByUserIdAfter(userId, cursor.timestamp(), cursor.id(),
+                        Limit.of(limit + 1));
+
+        List<ChatSessionSummary> page = sessions.subList(0, Math.min(limit, sessions.size()));
+        ChatSessionSummary last = sessions.size() > limit ? page.get(page.size() - 1) : null;
+
+        return CursorPageDTO.<ChatSessionDTO>builder()
+                .items(page.stream().map(ChatSessionMapper::toDto).toList())
+                .nextCursor(last != null ? new KeysetCursor(last.getUpdatedAt(), last.getId()).encode() : null)
+                .build();
+    }
+
+    /**
+     * Locks the session row exclusively for the lifetime of the calling
+     * transaction, so that write phases on the same session, which all update
+     * the row, run one after the other instead of deadlocking, and cannot write
+     * into a session that is being deleted.
+     */
+    @Transactional
+    public ChatSession lockSessionForWrite(UUID sessionId, UUID userId) {
+        return chatSessionRepository.findByIdAndUserIdForNoKeyUpdate(sessionId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("ChatSession", "id", sessionId));
+    }
+
     @Transactional
     public void deleteSession(UUID userId, UUID sessionId) {
-        chatSessionRepository.findByIdAndUserId(sessionId, userId)
+        // Exclusive lock waits for in-flight chat turn writes to commit first
+        chatSessionRepository.findByIdAndUserIdForUpdate(sessionId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("ChatSession", "id", sessionId));
 
         // Delete messages first to avoid FK constraints if any
         chatMessagePersistenceService.deleteMessagesBySessionId(sessionId);
+        chatCheckpointPersistenceService.deleteCheckpointsBySessionId(sessionId);
         // Then delete the session
         chatSessionRepository.deleteById(sessionId);
     }
@@ -80,4 +125,20 @@ public class AIChatSessionPersistenceService {
             log.info("Session lastMessagePreview updated via JPA dirty checking sessionId={}", session.getId());
         }
     }
+
+    /**
+     * Replace the provisional user context of the session; {@code null} clears
+     * it.
+     */
+    public void updateProvisionalUserContext(ChatSession session, LLMUserContextExtraction userContext,
+            UUID sourceMessageId) {
+        if (userContext == null && session.getProvisionalUserContext() == null) {
+            return;
+        }
+
+        session.setProvisionalUserContext(userContext);
+        session.setProvisionalContextMessageId(sourceMessageId);
+        log.info("Session provisional user context {} via JPA dirty checking sessionId={}",
+                userContext != null ? "updated" : "cleared", session.getId());
+    }
 }
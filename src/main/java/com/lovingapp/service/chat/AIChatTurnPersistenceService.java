@@ -0,0 +1,157 @@
+package com.lovingapp.service.chat;
+
+import java.util.UUID;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.lovingapp.exception.ResourceNotFoundException;
+import com.lovingapp.model.domain.ai.LLMUserContextExtraction;
+import com.lovingapp.model.dto.RitualPackDTO;
+import com.lovingapp.model.dto.UserContextDTOs.UserContextCreateRequest;
+import com.lovingapp.model.dto.UserContextDTOs.UserContextDTO;
+import com.lovingapp.model.entity.ChatMessage;
+import com.lovingapp.model.entity.ChatSession;
+import com.lovingapp.model.entity.ChatSummaryCheckpoint;
+import com.lovingapp.service.UserContextService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write phase of a chat turn.
+ * Chat turns read their inputs in short read-only transactions, call the LLM
+ * without any transaction, and then persist all results here in a single short
+ * transaction. The session row is share-locked first so a session deleted while
+ * the LLM was running is detected and the turn's writes are discarded instead
+ * of leaving orphaned rows behind.
+ *
+ * The inserts and updates of a turn are only added to the persistence context
+ * and flushed on commit, as one JDBC batch per table and statement; ids are
+ * assigned in the application, so nothing has to be read back. Besides those
+ * batches a turn makes one round trip to lock the session. A recommendation
+ * turn also looks up a user context stored for the same context hash and, when
+ * it stores a new one, creates the conversation's merged user context if absent
+ * and selects it for update, two more round trips.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AIChatTurnPersistenceService {
+
+    private final AIChatSessionPersistenceService chatSessionPersistenceService;
+    private final AIChatMessagePersistenceService chatMessagePersistenceService;
+    private final AIChatCheckpointPersistenceService chatCheckpointPersistenceService;
+    private final UserContextService userContextService;
+    private final AIChatRitualRecommendationAndHistoryHelper ritualRecommendationAndHistoryHelper;
+
+    public record RecommendationTurnResult(
+            UserContextDTO userContext,
+            ChatMessage wrapUpMessage,
+            UUID recommendationId) {
+    }
+
+    /**
+     * Persists the user message and the assistant reply of a regular chat turn
+     * and updates the session preview. The user message is saved first, so it
+     * precedes the reply in the transcript. A user context extracted in the
+     * same LLM call is stored on the session provisionally, tied to the saved
+     * reply; without one any earlier provisional context is cleared.
+     */
+    @Transactional
+    public ChatMessage completeChatTurn(UUID userId, UUID sessionId, String userMessage, String response,
+            LLMUserContextExtraction provisionalUserContext) {
+        ChatSession session = lockSessionForTurn(userId, sessionId);
+
+        chatMessagePersistenceService.saveUserMessage(sessionId, userMessage);
+        ChatMessage savedAssistantMessage = chatMessagePersistenceService.saveAssistantMessage(sessionId, response);
+        chatSessionPersistenceService.updateSessionTitleAndLastMessagePreview(session, null, response);
+        chatSessionPersistenceService.updateProvisionalUserContext(session, provisionalUserContext,
+                provisionalUserContext != null ? savedAssistantMessage.getId() : null);
+
+        return savedAssistantMessage;
+    }
+
+    /**
+     * Persists everything produced by a recommendation turn: the extracted user
+     * context, the wrap-up message, the recommendation with its ritual history
+     * records and the session title/preview. A user context already stored for
+     * the same conversation context hash is reused.
+     */
+    @Transactional
+    public RecommendationTurnResult completeRecommendationTurn(UUID userId, UUID sessionId,
+            UserContextCreateRequest userContextRequest, String contextHash, RitualPackDTO recommendedPack,
+            String wrapUpMessage, String conversationTitle) {
+        ChatSession session = lockSessionForTurn(userId, sessionId);
+
+        UserContextDTO savedUserContext = userContextService.create(userId, userContextRequest, contextHash);
+        log.info("User context saved successfully sessionId={} userContextId={}", sessionId,
+                savedUserContext.getId());
+
+        ChatMessage savedWrapUpMessage = chatMessagePersistenceService.saveWrapUpMessage(sessionId, wrapUpMessage);
+
+        UUID recommendationId = ritualRecommendationAndHistoryHelper.createRecommendationAndHistory(
+                userId, sessionId, recommendedPack);
+
+        chatSessionPersistenceService.updateSessionTitleAndLastMessagePreview(session, conversationTitle,
+                "✨ Ritual pack suggested");
+        chatSessionPersistenceService.updateProvisionalUserContext(session, null, null);
+
+        return new RecommendationTurnResult(savedUserContext, savedWrapUpMessage, recommendationId);
+    }
+
+    /**
+     * Stores a user context extracted in the background as the session's
+     * provisional context, unless a message was added to the conversation after
+     * {@code sourceMessageId} in the meantime. Returns whether it was stored.
+     */
+    @Transactional
+    public boolean storeProvisionalUserContext(UUID userId, UUID sessionId, UUID sourceMessageId,
+            LLMUserContextExtraction userContext) {
+        ChatSession session = lockSessionForTurn(userId, sessionId);
+
+        UUID newestMessageId = chatMessagePersistenceService.findNewestMessageBySessionId(sessionId)
+                .map(ChatMessage::getId)
+                .orElse(null);
+        if (!sourceMessageId.equals(newestMessageId)) {
+            log.info("Discarding stale provisional user context sessionId={} sourceMessageId={} newestMessageId={}",
+                    sessionId, sourceMessageId, newestMessageId);
+            return false;
+        }
+
+        chatSessionPersistenceService.updateProvisionalUserContext(session, userContext, sourceMessageId);
+        return true;
+    }
+
+    /**
+     * Stores a summary checkpoint of the conversation up to and including
+     * {@code coveredMessage}, unless a checkpoint reaching as far or further was
+     * stored in the meantime. Returns whether it was stored.
+     */
+    @Transactional
+    public boolean storeSummaryCheckpoint(UUID userId, UUID sessionId, String summary, ChatMessage coveredMessage) {
+        lockSessionForTurn(userId, sessionId);
+
+        ChatSummaryCheckpoint latestCheckpoint = chatCheckpointPersistenceService
+                .findLatestCheckpoint(sessionId, null)
+                .orElse(null);
+        if (latestCheckpoint != null && !latestCheckpoint.getCoveredUntil().isBefore(coveredMessage.getCreatedAt())) {
+            log.info("Discarding stale summary checkpoint sessionId={} coveredMessageId={} latestCoveredMessageId={}",
+                    sessionId, coveredMessage.getId(), latestCheckpoint.getCoveredMessageId());
+            return false;
+        }
+
+        chatCheckpointPersistenceService.saveCheckpoint(sessionId, summary, coveredMessage);
+        return true;
+    }
+
+    private ChatSession lockSessionForTurn(UUID userId, UUID sessionId) {
+        try {
+            return chatSessionPersistenceService.lockSessionForWrite(sessionId, userId);
+        } catch (ResourceNotFoundException e) {
+            log.warn("Chat session deleted while turn was in progress, discarding turn results sessionId={}",
+                    sessionId);
+            throw e;
+        }
+    }
+}
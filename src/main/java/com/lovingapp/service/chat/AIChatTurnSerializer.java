@@ -0,0 +1,258 @@
+package com.lovingapp.service.chat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+
+import com.lovingapp.config.llm.LlmClientProperties;
+import com.lovingapp.config.llm.LlmClientProperties.TurnLockMode;
+import com.lovingapp.config.llm.LlmClientProperties.TurnOverlapPolicy;
+import com.lovingapp.config.llm.LlmClientProperties.TurnSerializationProperties;
+import com.lovingapp.exception.ChatSessionBusyException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the turns of a chat session one at a time, so concurrent requests on
+ * the same session neither duplicate LLM work nor interleave their writes.
+ *
+ * Each session with a running turn has an asynchronous FIFO of its own: a
+ * turn starts when the previous turn of its session has completed, without
+ * blocking any thread while it waits, and the queue is dropped once it drains.
+ * The queues are guarded by a fixed number of striped locks, which are held
+ * only while a turn is queued or released. Overlapping turns are queued up to a
+ * limit and a maximum wait, or rejected right away, depending on
+ * configuration. In advisory lock mode a Postgres advisory lock on the session
+ * is taken as well, serializing turns across instances; a turn waiting for an
+ * instance holding it waits on a virtual thread, not the request thread.
+ */
+@Slf4j
+@Component
+public class AIChatTurnSerializer {
+
+    private static final Duration ADVISORY_LOCK_RETRY_DELAY = Duration.ofMillis(100);
+
+    private final TurnSerializationProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Object[] stripes;
+    private final Map<UUID, SessionTurns> sessions = new ConcurrentHashMap<>();
+    private final PostgresAdvisoryLocks advisoryLocks;
+    private final ExecutorService turnExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("chat-turn-", 0).factory());
+
+    /** Turns of one session, guarded by the session's stripe */
+    private static final class SessionTurns {
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+        private int turns;
+    }
+
+    public AIChatTurnSerializer(LlmClientProperties llmClientProperties, DataSource dataSource,
+            MeterRegistry meterRegistry) {
+        this.properties = llmClientProperties.getChat().getTurnSerialization();
+        this.meterRegistry = meterRegistry;
+        this.stripes = new Object[properties.getStripes()];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+        this.advisoryLocks = properties.getLockMode() == TurnLockMode.ADVISORY
+                ? new PostgresAdvisoryLocks(dataSource, meterRegistry)
+                : null;
+
+        meterRegistry.gaugeMapSize("chat.turn.sessions", List.of(), sessions);
+
+        log.info("Chat turn serializer created enabled={} lockMode={} onOverlap={} stripes={} maxWait={}",
+                properties.isEnabled(), properties.getLockMode(), properties.getOnOverlap(), stripes.length,
+                properties.getMaxWait());
+    }
+
+    /**
+     * Runs {@code turn} once no other turn of the session is running. Fails with
+     * {@link ChatSessionBusyException} if the turn cannot start in time or
+     * overlapping turns are rejected.
+     */
+    public <T> CompletableFuture<T> run(UUID sessionId, Supplier<CompletableFuture<T>> turn) {
+        if (!properties.isEnabled()) {
+            return turn.get();
+        }
+
+        long start = System.nanoTime();
+        Object stripe = stripes[Math.floorMod(sessionId.hashCode(), stripes.length)];
+        CompletableFuture<Void> released = new CompletableFuture<>();
+        CompletableFuture<Void> previous;
+        SessionTurns session;
+
+        synchronized (stripe) {
+            session = sessions.computeIfAbsent(sessionId, id -> new SessionTurns());
+            if (session.turns > 0 && (properties.getOnOverlap() == TurnOverlapPolicy.REJECT
+                    || session.turns > properties.getMaxQueuedTurnsPerSession())) {
+                recordWait(start, "rejected");
+                log.info("Chat turn rejected, session busy sessionId={} turns={}", sessionId, session.turns);
+                throw new ChatSessionBusyException(sessionId);
+            }
+            previous = session.tail;
+            session.tail = released;
+            session.turns++;
+        }
+
+        AtomicBoolean releasedOnce = new AtomicBoolean(false);
+        Runnable release = () -> {
+            if (releasedOnce.compareAndSet(false, true)) {
+                synchronized (stripe) {
+                    if (--session.turns == 0) {
+                        sessions.remove(sessionId, session);
+                    }
+                }
+                released.complete(null);
+            }
+        };
+
+        if (previous.isDone()) {
+            // Uncontended: run on the calling thread
+            return runWithLocks(sessionId, start, release, turn);
+        }
+
+        log.info("Chat turn queued behind running turn sessionId={}", sessionId);
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+
+        return previous.copy()
+                .orTimeout(properties.getMaxWait().toMillis(), TimeUnit.MILLISECONDS)
+                .handle((ignored, timeout) -> timeout)
+                .thenComposeAsync(timeout -> {
+                    if (timeout != null) {
+                        // Keep the FIFO intact: pass the session on once the turn ahead is done
+                        previous.whenComplete((v, e) -> release.run());
+                        recordWait(start, "timeout");
+                        log.info("Chat turn timed out waiting for running turn sessionId={}", sessionId);
+                        throw new CompletionException(new ChatSessionBusyException(sessionId));
+                    }
+
+                    if (mdcContext != null) {
+                        MDC.setContextMap(mdcContext);
+                    }
+                    try {
+                        return runWithLocks(sessionId, start, release, turn);
+                    } finally {
+                        MDC.clear();
+                    }
+                }, turnExecutor);
+    }
+
+    private <T> CompletableFuture<T> runWithLocks(UUID sessionId, long start, Runnable release,
+            Supplier<CompletableFuture<T>> turn) {
+        CompletableFuture<Boolean> locked = advisoryLocks != null
+                ? acquireAdvisoryLock(sessionId, start)
+                : CompletableFuture.completedFuture(false);
+
+        // Runs on the calling thread, or on the virtual thread that took a contended advisory lock
+        return locked.thenCompose(advisoryLocked -> {
+            recordWait(start, "acquired");
+            CompletableFuture<T> result;
+            try {
+                result = turn.get();
+            } catch (RuntimeException e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+            return result.whenComplete((response, error) -> {
+                if (advisoryLocked) {
+                    advisoryLocks.unlock(sessionId);
+                }
+            });
+        }).whenComplete((response, error) -> release.run());
+    }
+
+    /**
+     * Takes the advisory lock of the session. The first attempt is made on the
+     * calling thread; while another instance holds the lock, the attempts are
+     * repeated on a virtual thread until the maximum wait has passed, so no
+     * request thread is parked waiting for another instance.
+     */
+    private CompletableFuture<Boolean> acquireAdvisoryLock(UUID sessionId, long start) {
+        try {
+            if (advisoryLocks.tryLock(sessionId)) {
+                return CompletableFuture.completedFuture(true);
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (properties.getOnOverlap() == TurnOverlapPolicy.REJECT) {
+            return CompletableFuture.failedFuture(rejectBusyOnAnotherInstance(sessionId, start));
+        }
+
+        log.info("Chat turn waiting for session lock held by another instance sessionId={}", sessionId);
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        CompletableFuture<Boolean> locked = new CompletableFuture<>();
+        try {
+            turnExecutor.execute(() -> {
+                if (mdcContext != null) {
+                    MDC.setContextMap(mdcContext);
+                }
+                try {
+                    awaitAdvisoryLock(sessionId, start);
+                    locked.complete(true);
+                } catch (RuntimeException e) {
+                    locked.completeExceptionally(e);
+                } finally {
+                    MDC.clear();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new ChatSessionBusyException(sessionId));
+        }
+        return locked;
+    }
+
+    private void awaitAdvisoryLock(UUID sessionId, long start) {
+        long deadline = start + properties.getMaxWait().toNanos();
+        do {
+            if (System.nanoTime() + ADVISORY_LOCK_RETRY_DELAY.toNanos() > deadline) {
+                throw rejectBusyOnAnotherInstance(sessionId, start);
+            }
+            try {
+                Thread.sleep(ADVISORY_LOCK_RETRY_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ChatSessionBusyException(sessionId);
+            }
+        } while (!advisoryLocks.tryLock(sessionId));
+    }
+
+    private ChatSessionBusyException rejectBusyOnAnotherInstance(UUID sessionId, long start) {
+        recordWait(start, "rejected");
+        log.info("Chat turn rejected, session busy on another instance sessionId={}", sessionId);
+        return new ChatSessionBusyException(sessionId);
+    }
+
+    private void recordWait(long start, String outcome) {
+        Timer.builder("chat.turn.lock.wait")
+                .description("Time chat turns waited for the preceding turn of their session")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        turnExecutor.close();
+        if (advisoryLocks != null) {
+            advisoryLocks.close();
+        }
+    }
+}
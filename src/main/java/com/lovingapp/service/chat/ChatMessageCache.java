@@ -0,0 +1,326 @@
+package com.lovingapp.service.chat;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.lovingapp.config.llm.LlmClientProperties;
+import com.lovingapp.config.llm.LlmClientProperties.MessageCacheProperties;
+import com.lovingapp.model.domain.ChatMetadata;
+import com.lovingapp.model.entity.ChatMessage;
+import com.lovingapp.model.enums.ChatMessageRole;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded in-memory window of the most recent messages per chat session, so a
+ * steady-state chat turn builds its LLM context without a transcript query.
+ *
+ * Kept current write-through by {@link AIChatMessagePersistenceService}, which
+ * appends saved messages once their transaction has committed. A window that
+ * was loaded while a message of the same session was being written is not
+ * stored. Messages written through another instance are not appended here, so
+ * by default a window is only served after checking that its newest message is
+ * still the newest of the session in the database, an index lookup instead of
+ * the transcript query; a window that is behind is dropped.
+ *
+ * Memory is bounded both by the number of sessions and by the estimated heap
+ * size of the cached messages, their content included ({@code max-size}); a
+ * window larger than that on its own is not cached. Sessions are evicted when
+ * idle and, least recently used first, beyond either bound.
+ */
+@Slf4j
+@Component
+public class ChatMessageCache {
+
+    private static final String METRIC_NAME = "chat.message.cache";
+    private static final int GENERATION_STRIPES = 1024;
+    // Record, id, timestamp and list slot of a cached message, besides its content
+    private static final long MESSAGE_OVERHEAD_BYTES = 160;
+
+    private final MessageCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<UUID, Window> windows = new ConcurrentHashMap<>();
+    // Estimated heap size of all windows, kept in step with the map
+    private final AtomicLong cachedBytes = new AtomicLong();
+    // Bumped on every write to a session, per stripe of sessions
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * Messages of a session in creation order; {@code complete} if they start
+     * with the first message of the session.
+     */
+    public record ChatMessageWindow(List<ChatMessage> messages, boolean complete) {
+    }
+
+    private record CachedMessage(UUID id, ChatMessageRole role, String content, UUID recommendationId,
+            OffsetDateTime createdAt) {
+    }
+
+    // Same order as (created_at, id) in Postgres, which compares uuids as unsigned bytes
+    private static final Comparator<CachedMessage> CREATION_ORDER = Comparator
+            .comparing(CachedMessage::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CachedMessage::id, (a, b) -> {
+                int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+                return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+            });
+
+    private static final class Window {
+
+        private final List<CachedMessage> messages;
+        private final boolean complete;
+        private final UUID newestMessageId;
+        private final long bytes;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private Window(List<CachedMessage> messages, boolean complete) {
+            this.messages = messages;
+            this.complete = complete;
+            this.newestMessageId = messages.stream().max(CREATION_ORDER).map(CachedMessage::id).orElse(null);
+            this.bytes = messages.stream().mapToLong(ChatMessageCache::estimateBytes).sum();
+        }
+    }
+
+    public ChatMessageCache(LlmClientProperties llmClientProperties, MeterRegistry meterRegistry) {
+        this.properties = llmClientProperties.getChat().getMessageCache();
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gaugeMapSize(METRIC_NAME + ".sessions", List.of(), windows);
+        meterRegistry.gauge(METRIC_NAME + ".size.bytes", cachedBytes);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Returns the cached window of the session, or {@code null} on a miss.
+     * {@code newestMessageId} looks up the id of the newest message of the
+     * session in the database; it is only called for a cached window, and a
+     * window whose newest message differs is dropped.
+     */
+    public ChatMessageWindow get(UUID sessionId, Supplier<UUID> newestMessageId) {
+        Window window = windows.get(sessionId);
+        if (window == null) {
+            record("miss");
+            return null;
+        }
+
+        if (properties.isVerifyNewestMessage() && !Objects.equals(newestMessageId.get(), window.newestMessageId)) {
+            windows.computeIfPresent(sessionId, (id, existing) -> {
+                generations.incrementAndGet(stripe(id));
+                return existing == window ? replace(existing, null) : existing;
+            });
+            record("stale");
+            log.debug("Chat session behind the database dropped from message cache sessionId={}", sessionId);
+            return null;
+        }
+
+        record("hit");
+        window.lastAccessNanos = System.nanoTime();
+        return new ChatMessageWindow(window.messages.stream()
+                .map(message -> toChatMessage(sessionId, message))
+                .toList(),
+                window.complete);
+    }
+
+    /**
+     * Returns a token to pass to {@link #put} for a transcript about to be
+     * loaded.
+     */
+    public long generation(UUID sessionId) {
+        return generations.get(stripe(sessionId));
+    }
+
+    /**
+     * Caches the full transcript of the session, loaded after
+     * {@link #generation} returned {@code generation}. Discarded if a message of
+     * the session was written in the meantime.
+     */
+    public void put(UUID sessionId, List<ChatMessage> transcript, long generation) {
+        int from = Math.max(0, transcript.size() - properties.getMaxMessagesPerSession());
+        Window loaded = new Window(transcript.subList(from, transcript.size()).stream()
+                .map(ChatMessageCache::toCachedMessage)
+                .toList(), from == 0);
+
+        if (loaded.bytes > properties.getMaxSize().toBytes()) {
+            log.debug("Chat session too large for message cache sessionId={} bytes={}", sessionId, loaded.bytes);
+            return;
+        }
+
+        windows.compute(sessionId, (id, existing) -> {
+            if (generations.get(stripe(sessionId)) != generation) {
+                record("stale_load");
+                return existing;
+            }
+            return replace(existing, loaded);
+        });
+        evictIfFull();
+    }
+
+    /**
+     * Appends a committed message to the window of its session, if cached.
+     */
+    public void append(ChatMessage message) {
+        CachedMessage cachedMessage = toCachedMessage(message);
+        windows.compute(message.getSessionId(), (id, existing) -> {
+            generations.incrementAndGet(stripe(id));
+            if (existing == null || contains(existing, cachedMessage.id())) {
+                return existing;
+            }
+
+            List<CachedMessage> messages = new ArrayList<>(existing.messages.size() + 1);
+            messages.addAll(existing.messages);
+            messages.add(cachedMessage);
+            boolean complete = existing.complete;
+            if (messages.size() > properties.getMaxMessagesPerSession()) {
+                messages.remove(0);
+                complete = false;
+            }
+
+            Window appended = new Window(List.copyOf(messages), complete);
+            appended.lastAccessNanos = existing.lastAccessNanos;
+            return replace(existing, appended.bytes > properties.getMaxSize().toBytes() ? null : appended);
+        });
+        evictIfFull();
+    }
+
+    public void invalidate(UUID sessionId) {
+        windows.compute(sessionId, (id, existing) -> {
+            generations.incrementAndGet(stripe(id));
+            return replace(existing, null);
+        });
+    }
+
+    /**
+     * Evicts sessions that have not been accessed within the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${ai.chat.message-cache.sweep-interval:PT1M}")
+    public void evictIdle() {
+        long idleBefore = System.nanoTime() - properties.getIdleTimeout().toNanos();
+        int evicted = 0;
+        for (Map.Entry<UUID, Window> entry : windows.entrySet()) {
+            if (entry.getValue().lastAccessNanos - idleBefore < 0 && remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+
+        if (evicted > 0) {
+            meterRegistry.counter(METRIC_NAME + ".evictions", "cause", "idle").increment(evicted);
+            log.debug("Idle chat sessions evicted from message cache count={}", evicted);
+        }
+    }
+
+    /**
+     * Beyond the maximum number of sessions or size, evicts least recently used
+     * sessions down to nine tenths of the exceeded bound at once, so the scan is
+     * amortized over many insertions.
+     */
+    private void evictIfFull() {
+        int maxSessions = properties.getMaxSessions();
+        long maxBytes = properties.getMaxSize().toBytes();
+        boolean tooManySessions = windows.size() > maxSessions;
+        boolean tooLarge = cachedBytes.get() > maxBytes;
+        if (!tooManySessions && !tooLarge) {
+            return;
+        }
+
+        int sessionsTarget = tooManySessions ? maxSessions - maxSessions / 10 : Integer.MAX_VALUE;
+        long bytesTarget = tooLarge ? maxBytes - maxBytes / 10 : Long.MAX_VALUE;
+        // Snapshot the access times, they keep changing while sorting
+        record Access(UUID sessionId, Window window, long lastAccessNanos) {
+        }
+        List<Access> leastRecentlyUsed = windows.entrySet().stream()
+                .map(entry -> new Access(entry.getKey(), entry.getValue(), entry.getValue().lastAccessNanos))
+                .sorted(Comparator.comparingLong(Access::lastAccessNanos))
+                .toList();
+
+        int evicted = 0;
+        for (Access access : leastRecentlyUsed) {
+            if (windows.size() <= sessionsTarget && cachedBytes.get() <= bytesTarget) {
+                break;
+            }
+            if (remove(access.sessionId(), access.window())) {
+                evicted++;
+            }
+        }
+
+        meterRegistry.counter(METRIC_NAME + ".evictions", "cause", "size").increment(evicted);
+        log.debug("Chat sessions evicted from full message cache count={}", evicted);
+    }
+
+    /**
+     * Accounts for replacing {@code existing} by {@code replacement} (either may
+     * be {@code null}) within a compute on the session's entry.
+     */
+    private Window replace(Window existing, Window replacement) {
+        cachedBytes.addAndGet((replacement != null ? replacement.bytes : 0)
+                - (existing != null ? existing.bytes : 0));
+        return replacement;
+    }
+
+    private boolean remove(UUID sessionId, Window window) {
+        if (!windows.remove(sessionId, window)) {
+            return false;
+        }
+        cachedBytes.addAndGet(-window.bytes);
+        return true;
+    }
+
+    private static boolean contains(Window window, UUID messageId) {
+        // Only a message loaded with the window can be appended again
+        for (int i = window.messages.size() - 1; i >= 0 && i >= window.messages.size() - 4; i--) {
+            if (window.messages.get(i).id().equals(messageId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void record(String result) {
+        meterRegistry.counter(METRIC_NAME + ".requests", "result", result).increment();
+    }
+
+    private static int stripe(UUID sessionId) {
+        return Math.floorMod(sessionId.hashCode(), GENERATION_STRIPES);
+    }
+
+    private static long estimateBytes(CachedMessage message) {
+        // Two bytes per char at most
+        return MESSAGE_OVERHEAD_BYTES + (message.content() != null ? 2L * message.content().length() : 0);
+    }
+
+    private static CachedMessage toCachedMessage(ChatMessage message) {
+        return new CachedMessage(message.getId(), message.getRole(), message.getContent(),
+                message.getMetadata() != null ? message.getMetadata().getRecommendationId() : null,
+                // Same precision as read back from Postgres
+                message.getCreatedAt() != null ? message.getCreatedAt().truncatedTo(ChronoUnit.MICROS) : null);
+    }
+
+    private static ChatMessage toChatMessage(UUID sessionId, CachedMessage message) {
+        return ChatMessage.builder()
+                .id(message.id())
+                .sessionId(sessionId)
+                .role(message.role())
+                .content(message.content())
+                .metadata(message.recommendationId() != null
+                        ? ChatMetadata.builder().recommendationId(message.recommendationId()).build()
+                        : null)
+                .createdAt(message.createdAt())
+                .build();
+    }
+}
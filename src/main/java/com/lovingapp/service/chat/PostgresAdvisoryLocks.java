@@ -0,0 +1,190 @@
+package com.lovingapp.service.chat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Session-level Postgres advisory locks keyed by UUID. All locks of the
+ * instance are held on one connection taken from the pool and kept open for
+ * the life of the instance; the short lock statements are serialized on it.
+ * Advisory locks are reentrant per connection, so callers must serialize
+ * holders of the same key within the instance themselves.
+ *
+ * Postgres releases all locks of a connection when it is lost. The locks held
+ * are tracked, and the connection is validated periodically and whenever a
+ * statement fails: a lost connection is replaced and its locks re-acquired on
+ * the new one. A lock another instance has taken in the meantime cannot be
+ * re-acquired; it is counted as lost and logged, and the turn holding it is
+ * then only protected by the session row lock of its write phases.
+ */
+@Slf4j
+class PostgresAdvisoryLocks implements AutoCloseable {
+
+    private static final long VALIDATION_INTERVAL_SECONDS = 5;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource dataSource;
+    private final Counter lostLocks;
+    private final ScheduledExecutorService validator = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("chat-turn-advisory-locks").factory());
+
+    // Guarded by this
+    private final Set<UUID> held = new HashSet<>();
+    private Connection connection;
+
+    PostgresAdvisoryLocks(DataSource dataSource, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.lostLocks = Counter.builder("chat.turn.advisory.locks.lost")
+                .description("Advisory locks released by a lost connection and taken by another instance")
+                .register(meterRegistry);
+        validator.scheduleWithFixedDelay(this::validate, VALIDATION_INTERVAL_SECONDS, VALIDATION_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    synchronized boolean tryLock(UUID id) {
+        try {
+            if (!execute("select pg_try_advisory_lock(?)", id)) {
+                return false;
+            }
+        } catch (SQLException e) {
+            // The statement may have failed because the connection is gone; one retry on a fresh one
+            reconnect(e);
+            if (!executeOrThrow("select pg_try_advisory_lock(?)", id)) {
+                return false;
+            }
+        }
+        held.add(id);
+        return true;
+    }
+
+    synchronized void unlock(UUID id) {
+        if (!held.remove(id)) {
+            return;
+        }
+        try {
+            if (!execute("select pg_advisory_unlock(?)", id)) {
+                log.warn("Advisory lock was not held on unlock id={}", id);
+            }
+        } catch (SQLException e) {
+            // A lost connection has released the lock already
+            reconnect(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        validator.shutdownNow();
+        held.clear();
+        closeConnection();
+    }
+
+    private synchronized void validate() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return;
+            }
+            reconnect(new SQLException("Connection is no longer valid"));
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Advisory lock connection validation failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces a failed connection and re-acquires the locks held on it. If no
+     * new connection can be opened, the next use or validation tries again.
+     */
+    private void reconnect(Exception cause) {
+        log.warn("Advisory lock connection lost, re-acquiring held locks={}: {}", held.size(), cause.getMessage());
+        closeConnection();
+        try {
+            openConnection();
+            for (Iterator<UUID> locks = held.iterator(); locks.hasNext();) {
+                UUID id = locks.next();
+                if (!execute("select pg_try_advisory_lock(?)", id)) {
+                    locks.remove();
+                    lostLocks.increment();
+                    log.error("Advisory lock lost to another instance after reconnect id={}", id);
+                }
+            }
+        } catch (SQLException e) {
+            closeConnection();
+            log.warn("Advisory lock connection could not be reopened: {}", e.getMessage());
+        }
+    }
+
+    private boolean executeOrThrow(String sql, UUID id) {
+        try {
+            return execute(sql, id);
+        } catch (SQLException e) {
+            closeConnection();
+            throw new IllegalStateException("Advisory lock operation failed", e);
+        }
+    }
+
+    private boolean execute(String sql, UUID id) throws SQLException {
+        if (connection == null) {
+            openConnection();
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, key(id));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private void openConnection() throws SQLException {
+        connection = dataSource.getConnection();
+        connection.setAutoCommit(true);
+        log.info("Advisory lock connection opened");
+    }
+
+    private void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Advisory lock connection close failed: {}", e.getMessage());
+        }
+        connection = null;
+    }
+
+    /**
+     * Mixes all 128 bits of the id into the 64-bit lock key (MurmurHash3
+     * finalizer over both halves). Unlike xor-ing the halves, related ids do
+     * not map to the same key; a rare collision only makes two sessions wait
+     * for each other.
+     */
+    static long key(UUID id) {
+        return mix(mix(id.getMostSignificantBits()) + id.getLeastSignificantBits());
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
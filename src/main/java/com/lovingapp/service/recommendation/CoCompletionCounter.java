@@ -0,0 +1,227 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts how often two items were completed by the same user, one user at a
+ * time, and turns the counts into a {@link CoCompletionMatrix}. Users are
+ * buffered in batches whose pairs are counted in parallel on a fork-join pool,
+ * so the history rows are never held at once. The pair counts are not bounded
+ * by the batch: every distinct pair is kept until {@link #build}, since one
+ * seen once so far may still reach the minimum support in a later batch. They
+ * grow with the distinct pairs completed together, at worst quadratically in
+ * the number of items; {@code maxItemsPerUser} only bounds the pairs a single
+ * user adds. Not thread-safe.
+ */
+final class CoCompletionCounter {
+
+    // Users counted sequentially by one fork-join task
+    private static final int USERS_PER_TASK = 256;
+
+    private final int maxItemsPerUser;
+    private final int batchUsers;
+    private final ForkJoinPool pool;
+
+    private final Map<UUID, Integer> ids = new HashMap<>();
+    private final List<UUID> items = new ArrayList<>();
+    private int[] itemCounts = new int[64];
+    // Number of the last user whose basket took the item, to skip duplicates
+    private int[] lastUser = new int[64];
+    private final PairCounts pairCounts = new PairCounts();
+    private int users;
+
+    // Items of the users in the current batch, user by user
+    private int[] batchItems = new int[1024];
+    private final int[] batchOffsets;
+    private int batchSize;
+
+    /**
+     * @param maxItemsPerUser items of a user beyond this many are ignored, so
+     *                        a single heavy user neither dominates the counts
+     *                        nor adds a quadratic number of pairs
+     * @param batchUsers      users buffered before their pairs are counted
+     */
+    CoCompletionCounter(int maxItemsPerUser, int batchUsers, ForkJoinPool pool) {
+        this.maxItemsPerUser = maxItemsPerUser;
+        this.batchUsers = batchUsers;
+        this.pool = pool;
+        this.batchOffsets = new int[batchUsers + 1];
+    }
+
+    int users() {
+        return users;
+    }
+
+    int pairs() {
+        return pairCounts.size();
+    }
+
+    /**
+     * Adds the items one user completed, most recent first; duplicates are
+     * counted once. Only the first {@code maxItemsPerUser} distinct items are
+     * kept, so a heavy user is represented by their recent behaviour.
+     */
+    void addUser(List<UUID> completed) {
+        int user = users + 1;
+        int[] basket = new int[Math.min(completed.size(), maxItemsPerUser)];
+        int size = 0;
+        for (int i = 0; i < completed.size() && size < basket.length; i++) {
+            int id = id(completed.get(i));
+            if (lastUser[id] != user) {
+                lastUser[id] = user;
+                basket[size++] = id;
+            }
+        }
+        if (size == 0) {
+            return;
+        }
+
+        users++;
+        int start = batchOffsets[batchSize];
+        if (start + size > batchItems.length) {
+            batchItems = Arrays.copyOf(batchItems, Math.max(batchItems.length * 2, start + size));
+        }
+        for (int i = 0; i < size; i++) {
+            itemCounts[basket[i]]++;
+            batchItems[start + i] = basket[i];
+        }
+        batchOffsets[++batchSize] = start + size;
+
+        if (batchSize == batchUsers) {
+            flush();
+        }
+    }
+
+    /**
+     * Counts the buffered users and builds the matrix. Pairs completed by
+     * fewer than {@code minSupport} users are dropped; the others are scored
+     * by cosine similarity, {@code count / sqrt(count(a) * count(b))}, so
+     * popular items do not become everyone's neighbour, and each item keeps
+     * its {@code maxNeighbours} best.
+     */
+    CoCompletionMatrix build(int minSupport, int maxNeighbours) {
+        flush();
+
+        int size = items.size();
+        int[] degrees = new int[size];
+        pairCounts.forEach((a, b, count) -> {
+            if (count >= minSupport) {
+                degrees[a]++;
+                degrees[b]++;
+            }
+        });
+
+        int[] starts = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            starts[i + 1] = starts[i] + degrees[i];
+        }
+
+        // Score bits (positive floats order like ints) over neighbour, so a row sorts by score
+        long[] entries = new long[starts[size]];
+        int[] filled = Arrays.copyOf(starts, size);
+        pairCounts.forEach((a, b, count) -> {
+            if (count >= minSupport) {
+                long bits = (long) Float.floatToIntBits(
+                        (float) (count / Math.sqrt((double) itemCounts[a] * itemCounts[b]))) << 32;
+                entries[filled[a]++] = bits | b;
+                entries[filled[b]++] = bits | a;
+            }
+        });
+
+        int[] offsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] = offsets[i] + Math.min(degrees[i], maxNeighbours);
+        }
+        int[] neighbours = new int[offsets[size]];
+        float[] scores = new float[offsets[size]];
+        for (int i = 0; i < size; i++) {
+            Arrays.sort(entries, starts[i], starts[i + 1]);
+            // Best first from the end of the sorted row
+            for (int entry = offsets[i], from = starts[i + 1] - 1; entry < offsets[i + 1]; entry++, from--) {
+                neighbours[entry] = (int) entries[from];
+                scores[entry] = Float.intBitsToFloat((int) (entries[from] >>> 32));
+            }
+        }
+
+        return new CoCompletionMatrix(items.toArray(new UUID[0]), offsets, neighbours, scores);
+    }
+
+    private int id(UUID item) {
+        Integer id = ids.get(item);
+        if (id != null) {
+            return id;
+        }
+
+        int next = items.size();
+        ids.put(item, next);
+        items.add(item);
+        if (next == itemCounts.length) {
+            itemCounts = Arrays.copyOf(itemCounts, next * 2);
+            lastUser = Arrays.copyOf(lastUser, next * 2);
+        }
+        return next;
+    }
+
+    private void flush() {
+        if (batchSize == 0) {
+            return;
+        }
+        pairCounts.addAll(pool.invoke(new CountTask(batchItems, batchOffsets, 0, batchSize)));
+        batchSize = 0;
+    }
+
+    /**
+     * Counts the pairs of a range of users, splitting it in halves down to
+     * {@link #USERS_PER_TASK} users and merging the smaller counts into the
+     * larger.
+     */
+    private static final class CountTask extends RecursiveTask<PairCounts> {
+
+        private final int[] items;
+        private final int[] offsets;
+        private final int from;
+        private final int to;
+
+        private CountTask(int[] items, int[] offsets, int from, int to) {
+            this.items = items;
+            this.offsets = offsets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PairCounts compute() {
+            if (to - from <= USERS_PER_TASK) {
+                PairCounts counts = new PairCounts();
+                for (int user = from; user < to; user++) {
+                    for (int i = offsets[user]; i < offsets[user + 1]; i++) {
+                        for (int j = i + 1; j < offsets[user + 1]; j++) {
+                            counts.increment(items[i], items[j]);
+                        }
+                    }
+                }
+                return counts;
+            }
+
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(items, offsets, from, middle);
+            left.fork();
+            PairCounts right = new CountTask(items, offsets, middle, to).compute();
+            PairCounts joined = left.join();
+
+            if (joined.size() < right.size()) {
+                right.addAll(joined);
+                return right;
+            }
+            joined.addAll(right);
+            return joined;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable, sparse item-to-item similarity of co-completion, in compressed
+ * sparse row form: the neighbours of item {@code i} are
+ * {@code neighbours[offsets[i]..offsets[i + 1])} with their scores in the
+ * parallel {@code scores} array, best first. Items are numbered densely, so a
+ * row is read without allocation or boxing.
+ */
+public final class CoCompletionMatrix {
+
+    private static final CoCompletionMatrix EMPTY = new CoCompletionMatrix(new UUID[0], new int[1], new int[0],
+            new float[0]);
+
+    private final UUID[] items;
+    private final Map<UUID, Integer> positions;
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final float[] scores;
+
+    public record Neighbour(UUID id, float score) {
+    }
+
+    CoCompletionMatrix(UUID[] items, int[] offsets, int[] neighbours, float[] scores) {
+        this.items = items;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.scores = scores;
+        this.positions = new HashMap<>(items.length * 2);
+        for (int i = 0; i < items.length; i++) {
+            positions.put(items[i], i);
+        }
+    }
+
+    public static CoCompletionMatrix empty() {
+        return EMPTY;
+    }
+
+    /** Number of items, with or without neighbours */
+    public int size() {
+        return items.length;
+    }
+
+    /** Number of stored neighbour entries over all items */
+    public int entries() {
+        return neighbours.length;
+    }
+
+    /**
+     * Number of the item with the given id, or -1 if no counted user basket
+     * holds it.
+     */
+    public int indexOf(UUID id) {
+        Integer position = positions.get(id);
+        return position != null ? position : -1;
+    }
+
+    public UUID item(int item) {
+        return items[item];
+    }
+
+    public int rowStart(int item) {
+        return offsets[item];
+    }
+
+    public int rowEnd(int item) {
+        return offsets[item + 1];
+    }
+
+    /** Item number of the neighbour entry */
+    public int neighbour(int entry) {
+        return neighbours[entry];
+    }
+
+    /** Cosine similarity of the neighbour entry, in (0, 1] */
+    public float score(int entry) {
+        return scores[entry];
+    }
+
+    /**
+     * Up to {@code limit} items most often completed by the users who
+     * completed the given one, best first.
+     */
+    public List<Neighbour> neighbours(UUID id, int limit) {
+        int item = indexOf(id);
+        if (item < 0) {
+            return List.of();
+        }
+
+        int end = Math.min(rowEnd(item), rowStart(item) + Math.max(limit, 0));
+        List<Neighbour> result = new ArrayList<>(end - rowStart(item));
+        for (int entry = rowStart(item); entry < end; entry++) {
+            result.add(new Neighbour(items[neighbours[entry]], scores[entry]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,195 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lovingapp.config.recommendation.RecommendationProperties;
+import com.lovingapp.config.recommendation.RecommendationProperties.CoCompletionProperties;
+import com.lovingapp.model.enums.RitualHistoryStatus;
+import com.lovingapp.repository.RitualHistoryRepository;
+import com.lovingapp.repository.RitualHistoryRepository.UserRitual;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the current co-completion matrices of rituals and of ritual packs,
+ * computed offline from the completed ritual history. The history is streamed
+ * user by user through a server-side cursor and counted in parallel batches on
+ * a fork-join pool of the rebuild's own, so the rows are never held at once;
+ * the pair counts still grow with the distinct pairs completed together.
+ * Rebuilds run at startup, on the configured schedule and on demand, one at a
+ * time; a new model replaces the old one atomically.
+ */
+@Slf4j
+@Component
+public class CoCompletionModel {
+
+    private static final String METRIC_NAME = "recommendation.co.completion";
+    private static final ForkJoinWorkerThreadFactory COUNT_THREAD_FACTORY = pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("co-completion-count-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    private final RitualHistoryRepository ritualHistoryRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final CoCompletionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("co-completion-model").daemon().factory());
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private volatile Snapshot snapshot = new Snapshot(CoCompletionMatrix.empty(), CoCompletionMatrix.empty());
+
+    private record Snapshot(CoCompletionMatrix rituals, CoCompletionMatrix packs) {
+    }
+
+    public CoCompletionModel(RitualHistoryRepository ritualHistoryRepository,
+            PlatformTransactionManager transactionManager, RecommendationProperties recommendationProperties,
+            MeterRegistry meterRegistry) {
+        this.ritualHistoryRepository = ritualHistoryRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.properties = recommendationProperties.getCoCompletion();
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gauge(METRIC_NAME + ".packs", List.of(), this, model -> model.snapshot.packs().size());
+        meterRegistry.gauge(METRIC_NAME + ".rituals", List.of(), this, model -> model.snapshot.rituals().size());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public CoCompletionMatrix rituals() {
+        return snapshot.rituals();
+    }
+
+    public CoCompletionMatrix packs() {
+        return snapshot.packs();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRebuild();
+    }
+
+    @Scheduled(cron = "${recommendation.co-completion.cron:0 0 3 * * *}")
+    public void scheduledRebuild() {
+        requestRebuild();
+    }
+
+    /**
+     * Queues a rebuild in the background unless one is already queued.
+     * Returns whether it was queued.
+     */
+    public boolean requestRebuild() {
+        if (!properties.isEnabled() || !rebuildQueued.compareAndSet(false, true)) {
+            return false;
+        }
+
+        try {
+            rebuildExecutor.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("Co-completion model rebuild failed, keeping the current model: {}", e.getMessage());
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            rebuildQueued.set(false);
+            return false;
+        }
+    }
+
+    private synchronized void rebuild() {
+        long startNanos = System.nanoTime();
+        try {
+            // Not the common pool, which parallel streams and other callers share
+            try (ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                    COUNT_THREAD_FACTORY, null, false)) {
+                CoCompletionCounter ritualCounter = newCounter(pool);
+                CoCompletionCounter packCounter = newCounter(pool);
+                long rows = readOnlyTransactionTemplate.execute(status -> count(ritualCounter, packCounter));
+
+                Snapshot rebuilt = new Snapshot(
+                        ritualCounter.build(properties.getMinSupport(), properties.getMaxNeighbours()),
+                        packCounter.build(properties.getMinSupport(), properties.getMaxNeighbours()));
+                snapshot = rebuilt;
+
+                meterRegistry.counter(METRIC_NAME + ".rebuilds", "outcome", "success").increment();
+                log.info("Co-completion model built rows={} users={} ritualPairs={} packPairs={} ritualEntries={} "
+                        + "packEntries={} durationMs={}", rows, ritualCounter.users(), ritualCounter.pairs(),
+                        packCounter.pairs(), rebuilt.rituals().entries(), rebuilt.packs().entries(),
+                        (System.nanoTime() - startNanos) / 1_000_000);
+            }
+        } catch (RuntimeException e) {
+            meterRegistry.counter(METRIC_NAME + ".rebuilds", "outcome", "failed").increment();
+            throw e;
+        }
+    }
+
+    private CoCompletionCounter newCounter(ForkJoinPool pool) {
+        return new CoCompletionCounter(properties.getMaxItemsPerUser(), properties.getBatchUsers(), pool);
+    }
+
+    /**
+     * Feeds the completed rituals and packs of each user to the counters.
+     * Rows arrive ordered by user and most recent first, so only one user is
+     * held at a time and the counters keep each user's recent items.
+     */
+    private long count(CoCompletionCounter ritualCounter, CoCompletionCounter packCounter) {
+        long rows = 0;
+        UUID currentUser = null;
+        List<UUID> rituals = new ArrayList<>();
+        List<UUID> packs = new ArrayList<>();
+
+        try (Stream<UserRitual> stream = ritualHistoryRepository
+                .streamByStatusOrderByUserIdAndUpdatedAtDesc(RitualHistoryStatus.COMPLETED)) {
+            for (UserRitual row : (Iterable<UserRitual>) stream::iterator) {
+                if (!Objects.equals(row.getUserId(), currentUser)) {
+                    ritualCounter.addUser(rituals);
+                    packCounter.addUser(packs);
+                    rituals.clear();
+                    packs.clear();
+                    currentUser = row.getUserId();
+                }
+                rituals.add(row.getRitualId());
+                if (row.getRitualPackId() != null) {
+                    packs.add(row.getRitualPackId());
+                }
+                rows++;
+            }
+        }
+        ritualCounter.addUser(rituals);
+        packCounter.addUser(packs);
+        return rows;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+}
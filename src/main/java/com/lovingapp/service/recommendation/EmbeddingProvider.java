@@ -0,0 +1,18 @@
+package com.lovingapp.service.recommendation;
+
+/**
+ * Turns text into embedding vectors for semantic matching. Implementations
+ * must be thread-safe and deterministic: the same text always yields the same
+ * vector, so the vectors of unchanged content can be kept across index
+ * rebuilds.
+ */
+public interface EmbeddingProvider {
+
+    int dimensions();
+
+    /**
+     * The embedding of the text, of length {@link #dimensions()} and unit
+     * length, or all zeros if the text has no content to embed.
+     */
+    float[] embed(String text);
+}
@@ -0,0 +1,89 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Local embedding provider using feature hashing: the words and word pairs of
+ * the text are hashed into a fixed number of signed dimensions, weighted by
+ * log term frequency. Needs no model or network, so semantic matching works
+ * offline; texts are similar when they share vocabulary.
+ */
+public class HashingEmbeddingProvider implements EmbeddingProvider {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final float BIGRAM_WEIGHT = 0.5f;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "have", "he", "her", "his",
+            "in", "is", "it", "its", "of", "on", "or", "she", "that", "the", "their", "them", "they", "this",
+            "to", "was", "were", "will", "with");
+
+    private final int dimensions;
+
+    public HashingEmbeddingProvider(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("dimensions must be positive");
+        }
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] counts = new float[dimensions];
+        if (text == null || text.isBlank()) {
+            return counts;
+        }
+
+        String previous = null;
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (word.length() < 2 || STOP_WORDS.contains(word)) {
+                continue;
+            }
+            add(counts, hash(word), 1f);
+            if (previous != null) {
+                add(counts, hash(previous + ' ' + word), BIGRAM_WEIGHT);
+            }
+            previous = word;
+        }
+
+        // Log term frequency, keeping the sign of the hashed feature
+        double norm = 0;
+        for (int i = 0; i < dimensions; i++) {
+            float count = counts[i];
+            counts[i] = Math.signum(count) * (float) Math.log1p(Math.abs(count));
+            norm += counts[i] * counts[i];
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < dimensions; i++) {
+                counts[i] *= scale;
+            }
+        }
+        return counts;
+    }
+
+    private void add(float[] counts, long hash, float weight) {
+        int dimension = (int) Long.remainderUnsigned(hash >>> 1, dimensions);
+        counts[dimension] += (hash & 1) == 0 ? weight : -weight;
+    }
+
+    /**
+     * 64-bit FNV-1a, which unlike {@link String#hashCode()} spreads short words
+     * over all bits.
+     */
+    private static long hash(String feature) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < feature.length(); i++) {
+            hash ^= feature.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
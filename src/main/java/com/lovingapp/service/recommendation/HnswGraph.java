@@ -0,0 +1,320 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Hierarchical navigable small world graph (Malkov and Yashunin) for
+ * approximate nearest neighbour search by cosine similarity over unit-length
+ * vectors. Each vector is a node linked to its nearest neighbours on layer 0
+ * and, with exponentially decreasing probability, on higher layers; a search
+ * descends greedily from the sparse top layer and explores layer 0 with a
+ * bounded candidate list.
+ *
+ * Nodes are never removed: a deleted node keeps routing searches but is left
+ * out of results, until the graph is rebuilt. Not thread-safe; concurrent
+ * searches are safe as long as no node is added or deleted meanwhile.
+ */
+final class HnswGraph {
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingDouble(Candidate::similarity)
+            .reversed();
+    private static final Comparator<Candidate> WORST_FIRST = Comparator.comparingDouble(Candidate::similarity);
+
+    private final int maxNeighbours;
+    private final int maxNeighboursLayer0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    // Fixed seed, so the same content always yields the same graph
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private final List<Node> nodes = new ArrayList<>();
+    private int entryPoint = -1;
+    private int topLevel = -1;
+    private int deleted;
+
+    record Hit(UUID id, float similarity) {
+    }
+
+    private record Candidate(int node, float similarity) {
+    }
+
+    private static final class Node {
+
+        private final UUID id;
+        private final float[] vector;
+        private final int[][] neighbours;
+        private final int[] neighbourCounts;
+        private boolean deleted;
+
+        private Node(UUID id, float[] vector, int level, int maxNeighbours, int maxNeighboursLayer0) {
+            this.id = id;
+            this.vector = vector;
+            this.neighbours = new int[level + 1][];
+            this.neighbourCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                int max = l == 0 ? maxNeighboursLayer0 : maxNeighbours;
+                // Room to grow by half before trimming, see link
+                neighbours[l] = new int[max + max / 2];
+            }
+        }
+    }
+
+    /**
+     * @param maxNeighbours  links per node on the upper layers (M), at least 2;
+     *                       layer 0 keeps twice as many
+     * @param efConstruction candidate list size when linking a new node
+     */
+    HnswGraph(int maxNeighbours, int efConstruction) {
+        if (maxNeighbours < 2) {
+            // The level distribution divides by log(M)
+            throw new IllegalArgumentException("maxNeighbours must be at least 2: " + maxNeighbours);
+        }
+        this.maxNeighbours = maxNeighbours;
+        this.maxNeighboursLayer0 = 2 * maxNeighbours;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(maxNeighbours);
+    }
+
+    /** Number of nodes not deleted */
+    int size() {
+        return nodes.size() - deleted;
+    }
+
+    int deletedCount() {
+        return deleted;
+    }
+
+    /**
+     * Adds a node and returns its number.
+     */
+    int add(UUID id, float[] vector) {
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        int node = nodes.size();
+        nodes.add(new Node(id, vector, level, maxNeighbours, maxNeighboursLayer0));
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int l = topLevel; l > level; l--) {
+            current = closest(vector, current, l);
+        }
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            PriorityQueue<Candidate> found = searchLayer(vector, current, efConstruction, l);
+            List<Candidate> candidates = sortedBestFirst(found);
+            current = candidates.get(0).node();
+
+            for (Candidate neighbour : selectNeighbours(candidates, maxNeighboursAt(l))) {
+                link(node, neighbour.node(), l);
+                link(neighbour.node(), node, l);
+            }
+        }
+
+        if (level > topLevel) {
+            entryPoint = node;
+            topLevel = level;
+        }
+        return node;
+    }
+
+    void delete(int node) {
+        Node deletedNode = nodes.get(node);
+        if (!deletedNode.deleted) {
+            deletedNode.deleted = true;
+            deleted++;
+        }
+    }
+
+    /**
+     * The {@code k} nodes most similar to the query, best first.
+     *
+     * @param ef candidate list size; larger is slower and more accurate
+     */
+    List<Hit> search(float[] query, int k, int ef) {
+        if (entryPoint < 0 || k <= 0) {
+            return List.of();
+        }
+
+        int current = entryPoint;
+        for (int l = topLevel; l > 0; l--) {
+            current = closest(query, current, l);
+        }
+
+        // Deleted nodes take up candidate slots, so widen the search by their share
+        int width = Math.max(ef, k) + (int) ((long) Math.max(ef, k) * deleted / nodes.size());
+        List<Hit> hits = new ArrayList<>(k);
+        for (Candidate candidate : sortedBestFirst(searchLayer(query, current, width, 0))) {
+            Node node = nodes.get(candidate.node());
+            if (!node.deleted) {
+                hits.add(new Hit(node.id, candidate.similarity()));
+                if (hits.size() == k) {
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+
+    private int maxNeighboursAt(int level) {
+        return level == 0 ? maxNeighboursLayer0 : maxNeighbours;
+    }
+
+    /**
+     * Greedy walk on one layer towards the query.
+     */
+    private int closest(float[] query, int start, int level) {
+        int current = start;
+        float currentSimilarity = similarity(query, nodes.get(current).vector);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            Node node = nodes.get(current);
+            for (int i = 0; i < node.neighbourCounts[level]; i++) {
+                int neighbour = node.neighbours[level][i];
+                float neighbourSimilarity = similarity(query, nodes.get(neighbour).vector);
+                if (neighbourSimilarity > currentSimilarity) {
+                    current = neighbour;
+                    currentSimilarity = neighbourSimilarity;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search on one layer keeping the {@code ef} most similar nodes
+     * found; returns them worst first.
+     */
+    private PriorityQueue<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(BEST_FIRST);
+        PriorityQueue<Candidate> found = new PriorityQueue<>(WORST_FIRST);
+
+        Candidate first = new Candidate(start, similarity(query, nodes.get(start).vector));
+        visited.set(start);
+        candidates.add(first);
+        found.add(first);
+
+        while (!candidates.isEmpty()) {
+            Candidate candidate = candidates.poll();
+            if (found.size() >= ef && candidate.similarity() < found.peek().similarity()) {
+                break;
+            }
+
+            Node node = nodes.get(candidate.node());
+            for (int i = 0; i < node.neighbourCounts[level]; i++) {
+                int neighbour = node.neighbours[level][i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+
+                float similarity = similarity(query, nodes.get(neighbour).vector);
+                if (found.size() < ef || similarity > found.peek().similarity()) {
+                    Candidate next = new Candidate(neighbour, similarity);
+                    candidates.add(next);
+                    found.add(next);
+                    if (found.size() > ef) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Neighbour selection heuristic: a candidate is kept only if it is more
+     * similar to the base than to any candidate kept before, which spreads the
+     * links over directions; remaining slots are filled with the closest
+     * skipped candidates. {@code candidates} must be best first.
+     */
+    private List<Candidate> selectNeighbours(List<Candidate> candidates, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        List<Candidate> skipped = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() == max) {
+                break;
+            }
+            float[] vector = nodes.get(candidate.node()).vector;
+            boolean diverse = true;
+            for (Candidate kept : selected) {
+                if (similarity(vector, nodes.get(kept.node()).vector) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : skipped).add(candidate);
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < max; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * Links {@code from} to {@code to} on the layer. A neighbour list may grow
+     * to half again its size before the selection heuristic trims it back,
+     * which keeps links to outlying nodes (plain closest-first trimming would
+     * leave them unreachable) at a fraction of the cost of trimming on every
+     * link.
+     */
+    private void link(int from, int to, int level) {
+        Node node = nodes.get(from);
+        int[] neighbours = node.neighbours[level];
+        int count = node.neighbourCounts[level];
+        neighbours[count++] = to;
+
+        if (count < neighbours.length) {
+            node.neighbourCounts[level] = count;
+            return;
+        }
+
+        List<Candidate> candidates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            candidates.add(new Candidate(neighbours[i], similarity(node.vector, nodes.get(neighbours[i]).vector)));
+        }
+        candidates.sort(BEST_FIRST);
+
+        List<Candidate> selected = selectNeighbours(candidates, maxNeighboursAt(level));
+        for (int i = 0; i < selected.size(); i++) {
+            neighbours[i] = selected.get(i).node();
+        }
+        node.neighbourCounts[level] = selected.size();
+    }
+
+    private static List<Candidate> sortedBestFirst(PriorityQueue<Candidate> found) {
+        List<Candidate> sorted = new ArrayList<>(found);
+        sorted.sort(BEST_FIRST);
+        return sorted;
+    }
+
+    private static float similarity(float[] a, float[] b) {
+        // Independent partial sums, so the loop is not bound by addition latency
+        float dot0 = 0;
+        float dot1 = 0;
+        float dot2 = 0;
+        float dot3 = 0;
+        int i = 0;
+        for (int end = a.length - 3; i < end; i += 4) {
+            dot0 += a[i] * b[i];
+            dot1 += a[i + 1] * b[i + 1];
+            dot2 += a[i + 2] * b[i + 2];
+            dot3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            dot0 += a[i] * b[i];
+        }
+        return (dot0 + dot1) + (dot2 + dot3);
+    }
+}
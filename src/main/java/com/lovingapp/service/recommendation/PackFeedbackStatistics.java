@@ -0,0 +1,275 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lovingapp.config.recommendation.RecommendationProperties;
+import com.lovingapp.config.recommendation.RecommendationProperties.BanditProperties;
+import com.lovingapp.helpers.TimeOrderedUuidGenerator;
+import com.lovingapp.model.entity.RitualPackFeedbackStats;
+import com.lovingapp.model.enums.Journey;
+import com.lovingapp.repository.RitualPackFeedbackStatsRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Engagement statistics per ritual pack and journey segment, for Thompson
+ * sampling in the recommendation engine. Outcomes are counted in memory in
+ * striped {@link LongAdder}s, so recording never blocks and sampling reads no
+ * database. A periodic checkpoint adds the counts since the last one to the
+ * database and reloads the totals, which then include the outcomes recorded by
+ * other instances. A last checkpoint runs when the application context stops,
+ * after the web server and while the database is still available.
+ */
+@Slf4j
+@Component
+public class PackFeedbackStatistics implements SmartLifecycle {
+
+    // Stopped after the web server (DEFAULT_PHASE - 2048), so late outcomes are flushed too
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final String METRIC_NAME = "recommendation.bandit";
+    private static final String NO_SEGMENT = "NONE";
+    private static final Journey[] JOURNEYS = Journey.values();
+
+    private final RitualPackFeedbackStatsRepository statsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BanditProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // Per pack, one cell per segment: no journey, then each journey by ordinal
+    private final Map<UUID, Cell[]> cells = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    private static final class Cell {
+
+        // Recorded on this instance since the last checkpoint
+        private final LongAdder pendingSuccesses = new LongAdder();
+        private final LongAdder pendingFailures = new LongAdder();
+        // Totals of all instances as of the last checkpoint; written by the checkpoint only
+        private volatile long successes;
+        private volatile long failures;
+    }
+
+    private record Delta(UUID ritualPackId, int segment, long successes, long failures) {
+    }
+
+    public PackFeedbackStatistics(RitualPackFeedbackStatsRepository statsRepository,
+            TransactionTemplate transactionTemplate, RecommendationProperties recommendationProperties,
+            MeterRegistry meterRegistry) {
+        this.statsRepository = statsRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = recommendationProperties.getBandit();
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gaugeMapSize(METRIC_NAME + ".packs", List.of(), cells);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Counts the outcome once the transaction that recorded it has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRitualPackOutcome(RitualPackOutcomeEvent event) {
+        Cell cell = cellsOf(event.ritualPackId())[segment(event.journey())];
+        (event.success() ? cell.pendingSuccesses : cell.pendingFailures).increment();
+        meterRegistry.counter(METRIC_NAME + ".outcomes", "outcome", event.success() ? "success" : "failure")
+                .increment();
+    }
+
+    /**
+     * A success rate of the pack for the journey, drawn from the Beta
+     * posterior of its successes and failures.
+     */
+    public double sample(UUID ritualPackId, Journey journey) {
+        double alpha = properties.getPriorSuccesses();
+        double beta = properties.getPriorFailures();
+
+        Cell[] packCells = cells.get(ritualPackId);
+        if (packCells != null) {
+            Cell cell = packCells[segment(journey)];
+            alpha += cell.successes + cell.pendingSuccesses.sum();
+            beta += cell.failures + cell.pendingFailures.sum();
+        }
+        return sampleBeta(alpha, beta, ThreadLocalRandom.current());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void onApplicationReady() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Ritual pack feedback statistics could not be loaded: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the outcomes recorded since the last checkpoint and reloads the
+     * totals. Outcomes that could not be written are kept for the next one.
+     */
+    @Scheduled(fixedDelayString = "${recommendation.bandit.checkpoint-interval:PT1M}", initialDelayString = "${recommendation.bandit.checkpoint-interval:PT1M}")
+    public synchronized void checkpoint() {
+        List<Delta> deltas = new ArrayList<>();
+        cells.forEach((ritualPackId, packCells) -> {
+            for (int segment = 0; segment < packCells.length; segment++) {
+                long successes = packCells[segment].pendingSuccesses.sumThenReset();
+                long failures = packCells[segment].pendingFailures.sumThenReset();
+                if (successes > 0 || failures > 0) {
+                    deltas.add(new Delta(ritualPackId, segment, successes, failures));
+                }
+            }
+        });
+
+        try {
+            if (!deltas.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> deltas
+                        .forEach(delta -> statsRepository.addCounts(TimeOrderedUuidGenerator.next(), delta.ritualPackId(),
+                                segmentName(delta.segment()), delta.successes(), delta.failures())));
+            }
+        } catch (RuntimeException e) {
+            for (Delta delta : deltas) {
+                Cell cell = cellsOf(delta.ritualPackId())[delta.segment()];
+                cell.pendingSuccesses.add(delta.successes());
+                cell.pendingFailures.add(delta.failures());
+            }
+            log.warn("Ritual pack feedback checkpoint failed, keeping outcomes count={}: {}", deltas.size(),
+                    e.getMessage());
+            return;
+        }
+
+        // Written deltas count towards the totals until the reload replaces them
+        for (Delta delta : deltas) {
+            Cell cell = cellsOf(delta.ritualPackId())[delta.segment()];
+            cell.successes += delta.successes();
+            cell.failures += delta.failures();
+        }
+
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Ritual pack feedback statistics could not be reloaded: {}", e.getMessage());
+        }
+        log.debug("Ritual pack feedback checkpoint completed written={}", deltas.size());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        try {
+            checkpoint();
+        } finally {
+            running = false;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void reload() {
+        for (RitualPackFeedbackStats stats : statsRepository.findAll()) {
+            int segment = segment(stats.getSegment());
+            if (segment < 0) {
+                continue;
+            }
+            Cell cell = cellsOf(stats.getRitualPackId())[segment];
+            cell.successes = stats.getSuccesses();
+            cell.failures = stats.getFailures();
+        }
+    }
+
+    private Cell[] cellsOf(UUID ritualPackId) {
+        return cells.computeIfAbsent(ritualPackId, id -> {
+            Cell[] packCells = new Cell[JOURNEYS.length + 1];
+            for (int i = 0; i < packCells.length; i++) {
+                packCells[i] = new Cell();
+            }
+            return packCells;
+        });
+    }
+
+    private static int segment(Journey journey) {
+        return journey == null ? 0 : journey.ordinal() + 1;
+    }
+
+    /**
+     * Segment of a stored name, or -1 for a journey that no longer exists.
+     */
+    private static int segment(String name) {
+        if (NO_SEGMENT.equals(name)) {
+            return 0;
+        }
+        for (Journey journey : JOURNEYS) {
+            if (journey.name().equals(name)) {
+                return segment(journey);
+            }
+        }
+        return -1;
+    }
+
+    private static String segmentName(int segment) {
+        return segment == 0 ? NO_SEGMENT : JOURNEYS[segment - 1].name();
+    }
+
+    /**
+     * Beta(alpha, beta) as X / (X + Y) of two Gamma variates.
+     */
+    static double sampleBeta(double alpha, double beta, RandomGenerator random) {
+        double x = sampleGamma(alpha, random);
+        double y = sampleGamma(beta, random);
+        return x / (x + y);
+    }
+
+    /**
+     * Gamma(shape, 1) by Marsaglia and Tsang; shapes below 1 are boosted by
+     * one and scaled back.
+     */
+    private static double sampleGamma(double shape, RandomGenerator random) {
+        if (shape < 1) {
+            return sampleGamma(shape + 1, random) * Math.pow(random.nextDouble(), 1 / shape);
+        }
+
+        double d = shape - 1.0 / 3;
+        double c = 1 / Math.sqrt(9 * d);
+        while (true) {
+            double x = random.nextGaussian();
+            double v = 1 + c * x;
+            if (v <= 0) {
+                continue;
+            }
+            v = v * v * v;
+            double u = random.nextDouble();
+            if (Math.log(u) < 0.5 * x * x + d - d * v + d * Math.log(v)) {
+                return d * v;
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Counts of unordered item pairs in an open-addressing hash table of
+ * primitive arrays, packing a pair of dense item numbers into one long key.
+ * Not thread-safe.
+ */
+final class PairCounts {
+
+    private static final long EMPTY = -1L;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+
+    interface PairConsumer {
+        void accept(int first, int second, int count);
+    }
+
+    PairCounts() {
+        allocate(MIN_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Counts the pair once; {@code first} and {@code second} must differ.
+     */
+    void increment(int first, int second) {
+        add(key(first, second), 1);
+    }
+
+    void addAll(PairCounts other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                add(other.keys[i], other.counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Visits every pair once, with {@code first < second}.
+     */
+    void forEach(PairConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept((int) (keys[i] >>> 32), (int) keys[i], counts[i]);
+            }
+        }
+    }
+
+    private void add(long key, int count) {
+        int slot = slot(keys, key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+            if (size > keys.length * 3 / 4) {
+                grow();
+                slot = slot(keys, key);
+            }
+        }
+        counts[slot] += count;
+    }
+
+    private static long key(int first, int second) {
+        return first < second
+                ? ((long) first << 32) | second
+                : ((long) second << 32) | first;
+    }
+
+    private static int slot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        // Fibonacci hashing spreads the packed keys over the table
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+}
@@ -0,0 +1,7 @@
+package com.lovingapp.service.recommendation;
+
+/**
+ * Published when rituals or ritual packs are created, updated or deleted.
+ */
+public record RitualContentChangedEvent() {
+}
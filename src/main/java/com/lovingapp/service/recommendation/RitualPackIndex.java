@@ -0,0 +1,195 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.lovingapp.model.dto.RitualPackDTO;
+import com.lovingapp.model.enums.Journey;
+
+/**
+ * Immutable, in-memory index of the ritual packs for recommendation. The tags
+ * of each pack (love types, relational needs, journey) are encoded as
+ * bitmasks by enum ordinal in parallel primitive arrays, so scoring a pack is a
+ * few ANDs and popcounts, and the best matching packs are selected without
+ * scoring into a per-request array of all packs.
+ *
+ * Packs keep the order they were indexed in, which breaks ties between equal
+ * scores. The indexed DTOs are shared by all readers and must not be modified.
+ */
+public final class RitualPackIndex {
+
+    private static final int RELATIONAL_NEED_WEIGHT = 3;
+    private static final int LOVE_TYPE_WEIGHT = 2;
+    private static final int JOURNEY_WEIGHT = 1;
+
+    private static final RitualPackIndex EMPTY = new RitualPackIndex(List.of());
+
+    private final RitualPackDTO[] packs;
+    private final long[] loveTypeMasks;
+    private final long[] relationalNeedMasks;
+    private final long[] journeyMasks;
+    private final Map<UUID, Integer> positions;
+
+    private RitualPackIndex(List<RitualPackDTO> packs) {
+        int size = packs.size();
+        this.packs = packs.toArray(new RitualPackDTO[0]);
+        this.loveTypeMasks = new long[size];
+        this.relationalNeedMasks = new long[size];
+        this.journeyMasks = new long[size];
+        this.positions = new HashMap<>(size * 2);
+
+        for (int i = 0; i < size; i++) {
+            RitualPackDTO pack = this.packs[i];
+            positions.put(pack.getId(), i);
+            loveTypeMasks[i] = mask(pack.getLoveTypes());
+            relationalNeedMasks[i] = mask(pack.getRelationalNeeds());
+            journeyMasks[i] = mask(pack.getJourney());
+        }
+    }
+
+    public static RitualPackIndex of(List<RitualPackDTO> packs) {
+        return packs.isEmpty() ? EMPTY : new RitualPackIndex(packs);
+    }
+
+    public static RitualPackIndex empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return packs.length;
+    }
+
+    public boolean isEmpty() {
+        return packs.length == 0;
+    }
+
+    public RitualPackDTO get(int pack) {
+        return packs[pack];
+    }
+
+    /**
+     * Position of the pack with the given id, or -1 if it is not indexed.
+     */
+    public int indexOf(UUID packId) {
+        Integer position = positions.get(packId);
+        return position != null ? position : -1;
+    }
+
+    public long loveTypes(int pack) {
+        return loveTypeMasks[pack];
+    }
+
+    /**
+     * Bitmask of the given enum values by ordinal; {@code null} is empty.
+     */
+    public static <E extends Enum<E>> long mask(Collection<E> values) {
+        long mask = 0L;
+        if (values != null) {
+            for (E value : values) {
+                if (value != null) {
+                    mask |= 1L << value.ordinal();
+                }
+            }
+        }
+        return mask;
+    }
+
+    public static long mask(Journey journey) {
+        return journey != null ? 1L << journey.ordinal() : 0L;
+    }
+
+    /**
+     * Match score of a pack: weighted number of relational needs, love types
+     * and journey it shares with the query masks.
+     */
+    public int score(int pack, long loveTypes, long relationalNeeds, long journey) {
+        return RELATIONAL_NEED_WEIGHT * Long.bitCount(relationalNeedMasks[pack] & relationalNeeds)
+                + LOVE_TYPE_WEIGHT * Long.bitCount(loveTypeMasks[pack] & loveTypes)
+                + JOURNEY_WEIGHT * Long.bitCount(journeyMasks[pack] & journey);
+    }
+
+    /**
+     * The {@code k} highest scoring packs, best first, ties in index order.
+     * Selected with a bounded min-heap, O(n log k).
+     */
+    public int[] topK(long loveTypes, long relationalNeeds, long journey, int k) {
+        int capacity = Math.min(k, packs.length);
+        if (capacity <= 0) {
+            return new int[0];
+        }
+
+        // Heap root is the worst kept pack: lowest score, then highest index
+        int[] heapPacks = new int[capacity];
+        int[] heapScores = new int[capacity];
+        int size = 0;
+
+        for (int i = 0; i < packs.length; i++) {
+            int score = score(i, loveTypes, relationalNeeds, journey);
+            if (size < capacity) {
+                heapPacks[size] = i;
+                heapScores[size] = score;
+                siftUp(heapPacks, heapScores, size);
+                size++;
+            } else if (score > heapScores[0]) {
+                // Later packs lose ties, so only a strictly higher score replaces the root
+                heapPacks[0] = i;
+                heapScores[0] = score;
+                siftDown(heapPacks, heapScores, size);
+            }
+        }
+
+        // Drain worst first into the result from the back
+        int[] result = new int[size];
+        for (int n = size; n > 0; n--) {
+            result[n - 1] = heapPacks[0];
+            heapPacks[0] = heapPacks[n - 1];
+            heapScores[0] = heapScores[n - 1];
+            siftDown(heapPacks, heapScores, n - 1);
+        }
+        return result;
+    }
+
+    private static boolean worse(int[] packs, int[] scores, int a, int b) {
+        return scores[a] < scores[b] || (scores[a] == scores[b] && packs[a] > packs[b]);
+    }
+
+    private static void siftUp(int[] packs, int[] scores, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(packs, scores, index, parent)) {
+                return;
+            }
+            swap(packs, scores, index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] packs, int[] scores, int size) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int right = left + 1;
+            int worst = right < size && worse(packs, scores, right, left) ? right : left;
+            if (!worse(packs, scores, worst, index)) {
+                return;
+            }
+            swap(packs, scores, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] packs, int[] scores, int a, int b) {
+        int pack = packs[a];
+        packs[a] = packs[b];
+        packs[b] = pack;
+        int score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
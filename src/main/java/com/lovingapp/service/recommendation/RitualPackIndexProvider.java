@@ -0,0 +1,164 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.lovingapp.config.recommendation.RecommendationProperties;
+import com.lovingapp.config.recommendation.RecommendationProperties.PackIndexProperties;
+import com.lovingapp.model.dto.RitualPackDTO;
+import com.lovingapp.service.RitualPackService;
+import com.lovingapp.service.RitualPackService.ContentVersion;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the current {@link RitualPackIndex}, so recommendations are served
+ * without a database query. The index is built when the application is ready
+ * and rebuilt in the background after rituals or packs change on this
+ * instance; changes made by other instances are picked up by periodically
+ * comparing the content version. A new index replaces the old one atomically,
+ * readers never see a partially built index. Each rebuild also syncs the
+ * {@link SemanticPackIndex}.
+ */
+@Slf4j
+@Component
+public class RitualPackIndexProvider {
+
+    private static final String METRIC_NAME = "ritual.pack.index";
+
+    private final RitualPackService ritualPackService;
+    private final SemanticPackIndex semanticPackIndex;
+    private final PackIndexProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("ritual-pack-index").daemon().factory());
+
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(RitualPackIndex index, ContentVersion version, long builtAtNanos) {
+    }
+
+    public RitualPackIndexProvider(RitualPackService ritualPackService, SemanticPackIndex semanticPackIndex,
+            RecommendationProperties recommendationProperties, MeterRegistry meterRegistry) {
+        this.ritualPackService = ritualPackService;
+        this.semanticPackIndex = semanticPackIndex;
+        this.properties = recommendationProperties.getPackIndex();
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gauge(METRIC_NAME + ".size", List.of(), this, provider -> {
+            Snapshot current = provider.snapshot;
+            return current != null ? current.index().size() : 0;
+        });
+    }
+
+    /**
+     * The current index, built on the calling thread if none has been built
+     * yet.
+     */
+    public RitualPackIndex current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = refresh();
+        }
+        return current.index();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRefresh();
+    }
+
+    /**
+     * Rebuilds the index once the transaction that changed the content has
+     * committed. Changes arriving while a rebuild is queued share it.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRitualContentChanged(RitualContentChangedEvent event) {
+        requestRefresh();
+    }
+
+    /**
+     * Rebuilds the index if the content has changed since it was built, or if
+     * it is older than the maximum age.
+     */
+    @Scheduled(fixedDelayString = "${recommendation.pack-index.refresh-interval:PT1M}")
+    public void refreshIfStale() {
+        Snapshot current = snapshot;
+        try {
+            if (current == null
+                    || System.nanoTime() - current.builtAtNanos() >= properties.getMaxAge().toNanos()
+                    || !current.version().equals(ritualPackService.findContentVersion())) {
+                refresh();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ritual pack index refresh failed, keeping the current index: {}", e.getMessage());
+        }
+    }
+
+    private void requestRefresh() {
+        if (!refreshQueued.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                refreshQueued.set(false);
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.warn("Ritual pack index refresh failed, keeping the current index: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshQueued.set(false);
+        }
+    }
+
+    private synchronized Snapshot refresh() {
+        long startNanos = System.nanoTime();
+        try {
+            // Read before loading, so a change made meanwhile triggers another rebuild
+            ContentVersion version = ritualPackService.findContentVersion();
+            List<RitualPackDTO> packs = ritualPackService.findAllWithRituals();
+            RitualPackIndex index = RitualPackIndex.of(packs);
+
+            Snapshot refreshed = new Snapshot(index, version, System.nanoTime());
+            snapshot = refreshed;
+            syncSemanticIndex(packs);
+
+            meterRegistry.counter(METRIC_NAME + ".rebuilds", "outcome", "success").increment();
+            log.info("Ritual pack index built packs={} durationMs={}", index.size(),
+                    (System.nanoTime() - startNanos) / 1_000_000);
+            return refreshed;
+        } catch (RuntimeException e) {
+            meterRegistry.counter(METRIC_NAME + ".rebuilds", "outcome", "failed").increment();
+            throw e;
+        }
+    }
+
+    private void syncSemanticIndex(List<RitualPackDTO> packs) {
+        try {
+            semanticPackIndex.sync(packs);
+        } catch (RuntimeException e) {
+            // Recommendations fall back to tag matching for the packs not synced
+            log.warn("Semantic pack index sync failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+}
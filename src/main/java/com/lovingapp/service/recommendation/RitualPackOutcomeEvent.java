@@ -0,0 +1,13 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.UUID;
+
+import com.lovingapp.model.enums.Journey;
+
+/**
+ * Published when a recommended pack has landed with the user or not;
+ * {@code journey} is that of the user context it was recommended for, if
+ * known.
+ */
+public record RitualPackOutcomeEvent(UUID ritualPackId, Journey journey, boolean success) {
+}
@@ -0,0 +1,97 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.UUID;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.lovingapp.model.entity.RitualHistory;
+import com.lovingapp.model.entity.RitualRecommendation;
+import com.lovingapp.model.enums.Journey;
+import com.lovingapp.model.enums.RecommendationSource;
+import com.lovingapp.model.enums.RecommendationStatus;
+import com.lovingapp.model.enums.RitualFeedback;
+import com.lovingapp.model.enums.RitualHistoryStatus;
+import com.lovingapp.repository.MergedUserContextRepository;
+import com.lovingapp.repository.RitualRecommendationRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Turns status changes of recommendations and rituals into pack outcomes for
+ * {@link PackFeedbackStatistics}. A recommendation landed when the user added
+ * the pack and did not when they skipped it; a ritual of the pack landed when
+ * it was completed with positive feedback and did not when it was completed
+ * with negative feedback or abandoned. The outcome is attributed to the
+ * journey of the chat conversation the pack was recommended in.
+ */
+@Component
+@RequiredArgsConstructor
+public class RitualPackOutcomeRecorder {
+
+    private final RitualRecommendationRepository ritualRecommendationRepository;
+    private final MergedUserContextRepository mergedUserContextRepository;
+    private final PackFeedbackStatistics packFeedbackStatistics;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void recommendationStatusChanged(RitualRecommendation recommendation, RecommendationStatus previous) {
+        RecommendationStatus status = recommendation.getStatus();
+        if (!packFeedbackStatistics.isEnabled() || status == previous
+                || (status != RecommendationStatus.ADDED && status != RecommendationStatus.SKIPPED)) {
+            return;
+        }
+
+        publish(recommendation.getRitualPackId(), journeyOf(recommendation),
+                status == RecommendationStatus.ADDED);
+    }
+
+    public void ritualStatusChanged(RitualHistory history, RitualHistoryStatus previous) {
+        if (!packFeedbackStatistics.isEnabled() || history.getRitualPackId() == null
+                || history.getStatus() == previous) {
+            return;
+        }
+
+        Boolean success = switch (history.getStatus()) {
+            case COMPLETED -> landed(history.getFeedback());
+            case ABANDONED -> false;
+            default -> null;
+        };
+        if (success == null) {
+            return;
+        }
+
+        Journey journey = history.getRecommendationId() == null ? null
+                : ritualRecommendationRepository.findByIdAndUserId(history.getRecommendationId(), history.getUserId())
+                        .map(this::journeyOf)
+                        .orElse(null);
+        publish(history.getRitualPackId(), journey, success);
+    }
+
+    /**
+     * Whether feedback on a completed ritual means it landed, or {@code null}
+     * if it tells neither way.
+     */
+    private static Boolean landed(RitualFeedback feedback) {
+        if (feedback == null) {
+            return null;
+        }
+        return switch (feedback) {
+            case WARM, JOYFUL, CALM, ENERGIZED -> true;
+            case SAD, FRUSTRATED -> false;
+            case NEUTRAL -> null;
+        };
+    }
+
+    private Journey journeyOf(RitualRecommendation recommendation) {
+        if (recommendation.getSource() != RecommendationSource.CHAT || recommendation.getSourceId() == null) {
+            return null;
+        }
+        return mergedUserContextRepository
+                .findJourneyByUserIdAndConversationId(recommendation.getUserId(), recommendation.getSourceId())
+                .orElse(null);
+    }
+
+    private void publish(UUID ritualPackId, Journey journey, boolean success) {
+        eventPublisher.publishEvent(new RitualPackOutcomeEvent(ritualPackId, journey, success));
+    }
+}
@@ -0,0 +1,209 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.lovingapp.config.recommendation.RecommendationProperties;
+import com.lovingapp.config.recommendation.RecommendationProperties.SemanticProperties;
+import com.lovingapp.model.dto.RitualDTO;
+import com.lovingapp.model.dto.RitualPackDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Approximate nearest neighbour index of the ritual packs by the embedding of
+ * their semantic summary and the semantic summaries of their rituals, used to
+ * match the semantic summary of a user context.
+ *
+ * Kept in sync with the pack index by {@link RitualPackIndexProvider}: only
+ * packs whose text changed are embedded and added again, their old nodes are
+ * deleted. Once deleted nodes make up too large a share of the graph, it is
+ * rebuilt from the stored embeddings and swapped in.
+ */
+@Slf4j
+@Component
+public class SemanticPackIndex {
+
+    private static final String METRIC_NAME = "ritual.pack.semantic.index";
+
+    private final EmbeddingProvider embeddingProvider;
+    private final SemanticProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // Searches hold the read lock, adding to and deleting from the graph the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile HnswGraph graph;
+
+    // Only accessed by sync, which is serialized
+    private final Map<UUID, Entry> entries = new HashMap<>();
+
+    public record Match(UUID packId, float similarity) {
+    }
+
+    private record Entry(String text, float[] vector, int node) {
+    }
+
+    public SemanticPackIndex(EmbeddingProvider embeddingProvider,
+            RecommendationProperties recommendationProperties, MeterRegistry meterRegistry) {
+        this.embeddingProvider = embeddingProvider;
+        this.properties = recommendationProperties.getSemantic();
+        this.meterRegistry = meterRegistry;
+        this.graph = newGraph();
+
+        meterRegistry.gauge(METRIC_NAME + ".size", List.of(), this, index -> index.graph.size());
+    }
+
+    /**
+     * The packs most similar to the text, best first. Packs without semantic
+     * summaries are never matched.
+     */
+    public List<Match> search(String text, int limit) {
+        if (!properties.isEnabled() || text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        float[] query = embeddingProvider.embed(text);
+        if (isZero(query)) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return graph.search(query, limit, properties.getEfSearch()).stream()
+                    .map(hit -> new Match(hit.id(), hit.similarity()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Brings the index in line with the given packs. Calls must not overlap.
+     */
+    public void sync(List<RitualPackDTO> packs) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        Map<UUID, String> texts = new HashMap<>();
+        for (RitualPackDTO pack : packs) {
+            texts.put(pack.getId(), text(pack));
+        }
+
+        // Embed outside the lock, only what is new or changed
+        Map<UUID, float[]> changed = new HashMap<>();
+        texts.forEach((packId, text) -> {
+            Entry entry = entries.get(packId);
+            if (entry == null || !entry.text().equals(text)) {
+                changed.put(packId, embeddingProvider.embed(text));
+            }
+        });
+        Set<UUID> removed = new HashSet<>(entries.keySet());
+        removed.removeAll(texts.keySet());
+
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        int stale = (int) changed.keySet().stream().filter(entries::containsKey).count() + removed.size();
+        HnswGraph current = graph;
+        // The first sync builds the whole graph, also without blocking searches
+        boolean rebuild = entries.isEmpty()
+                || current.deletedCount() + stale > properties.getMaxDeletedRatio() * texts.size();
+
+        if (rebuild) {
+            rebuild(texts, changed);
+        } else {
+            update(texts, changed, removed);
+        }
+
+        meterRegistry.counter(METRIC_NAME + ".syncs", "type", rebuild ? "rebuild" : "incremental").increment();
+        log.info("Semantic pack index synced packs={} changed={} removed={} rebuilt={} durationMs={}", texts.size(),
+                changed.size(), removed.size(), rebuild, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private void update(Map<UUID, String> texts, Map<UUID, float[]> changed, Set<UUID> removed) {
+        lock.writeLock().lock();
+        try {
+            HnswGraph current = graph;
+            for (UUID packId : removed) {
+                Entry entry = entries.remove(packId);
+                if (entry.node() >= 0) {
+                    current.delete(entry.node());
+                }
+            }
+            changed.forEach((packId, vector) -> {
+                Entry entry = entries.get(packId);
+                if (entry != null && entry.node() >= 0) {
+                    current.delete(entry.node());
+                }
+                entries.put(packId, new Entry(texts.get(packId), vector, add(current, packId, vector)));
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Builds a new graph from the stored and changed embeddings without
+     * blocking searches, then swaps it in.
+     */
+    private void rebuild(Map<UUID, String> texts, Map<UUID, float[]> changed) {
+        HnswGraph rebuilt = newGraph();
+        Map<UUID, Entry> rebuiltEntries = new HashMap<>();
+        texts.forEach((packId, text) -> {
+            float[] vector = changed.containsKey(packId) ? changed.get(packId) : entries.get(packId).vector();
+            rebuiltEntries.put(packId, new Entry(text, vector, add(rebuilt, packId, vector)));
+        });
+
+        lock.writeLock().lock();
+        try {
+            graph = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        entries.clear();
+        entries.putAll(rebuiltEntries);
+    }
+
+    /**
+     * Adds the pack to the graph unless its text had nothing to embed; returns
+     * its node or -1.
+     */
+    private static int add(HnswGraph graph, UUID packId, float[] vector) {
+        return isZero(vector) ? -1 : graph.add(packId, vector);
+    }
+
+    private HnswGraph newGraph() {
+        return new HnswGraph(properties.getMaxNeighbours(), properties.getEfConstruction());
+    }
+
+    private static String text(RitualPackDTO pack) {
+        String ritualSummaries = pack.getRituals() == null ? "" : pack.getRituals().stream()
+                .map(RitualDTO::getSemanticSummary)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining("\n"));
+        return Objects.toString(pack.getSemanticSummary(), "") + "\n" + ritualSummaries;
+    }
+
+    private static boolean isZero(float[] vector) {
+        for (float value : vector) {
+            if (value != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
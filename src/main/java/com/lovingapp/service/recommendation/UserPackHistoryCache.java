@@ -0,0 +1,142 @@
+package com.lovingapp.service.recommendation;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.lovingapp.config.recommendation.RecommendationProperties;
+import com.lovingapp.config.recommendation.RecommendationProperties.HistoryCacheProperties;
+import com.lovingapp.config.recommendation.RecommendationProperties.RankingProperties;
+import com.lovingapp.model.enums.RitualHistoryStatus;
+import com.lovingapp.repository.RitualHistoryRepository;
+import com.lovingapp.repository.RitualRecommendationRepository;
+import com.lovingapp.repository.RitualRecommendationRepository.RecommendedPack;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-user projection of the ritual packs a user was recently recommended and
+ * has completed rituals of, so ranking does not scan the user's
+ * recommendations and ritual history on every request.
+ *
+ * The cache is per instance. Entries are dropped once a transaction on this
+ * instance changing the user's recommendations or history has committed
+ * ({@link UserRitualActivityChangedEvent}), and a projection that was loaded
+ * while such a change was committing is not stored. Changes committed on
+ * other instances are not seen until the entry expires after the configured
+ * time to live.
+ */
+@Slf4j
+@Component
+public class UserPackHistoryCache {
+
+    private static final String METRIC_NAME = "recommendation.history.cache";
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final RitualRecommendationRepository ritualRecommendationRepository;
+    private final RitualHistoryRepository ritualHistoryRepository;
+    private final HistoryCacheProperties properties;
+    private final RankingProperties rankingProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped on every change to a user's activity, per stripe of users
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * Packs of the user's recent recommendations, latest first and once per
+     * recommendation, and the packs the user has completed rituals of.
+     */
+    public record UserPackHistory(List<UUID> recentlyRecommended, Set<UUID> completed) {
+    }
+
+    private record Entry(UserPackHistory history, long expiresAtNanos) {
+    }
+
+    public UserPackHistoryCache(RitualRecommendationRepository ritualRecommendationRepository,
+            RitualHistoryRepository ritualHistoryRepository, RecommendationProperties recommendationProperties,
+            MeterRegistry meterRegistry) {
+        this.ritualRecommendationRepository = ritualRecommendationRepository;
+        this.ritualHistoryRepository = ritualHistoryRepository;
+        this.properties = recommendationProperties.getHistoryCache();
+        this.rankingProperties = recommendationProperties.getRanking();
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gaugeMapSize(METRIC_NAME + ".users", List.of(), entries);
+    }
+
+    public UserPackHistory get(UUID userId) {
+        if (!properties.isEnabled()) {
+            return load(userId);
+        }
+
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+            meterRegistry.counter(METRIC_NAME, "result", "hit").increment();
+            return entry.history();
+        }
+
+        meterRegistry.counter(METRIC_NAME, "result", "miss").increment();
+        long generation = generations.get(stripe(userId));
+        UserPackHistory history = load(userId);
+
+        if (entries.size() < properties.getMaxUsers() || entries.containsKey(userId)) {
+            Entry loaded = new Entry(history, System.nanoTime() + properties.getTtl().toNanos());
+            entries.compute(userId, (id, existing) -> generations.get(stripe(id)) == generation ? loaded : existing);
+        }
+        return history;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRitualActivityChanged(UserRitualActivityChangedEvent event) {
+        entries.compute(event.userId(), (id, existing) -> {
+            generations.incrementAndGet(stripe(id));
+            return null;
+        });
+    }
+
+    /**
+     * Evicts expired entries.
+     */
+    @Scheduled(fixedDelayString = "${recommendation.history-cache.sweep-interval:PT1M}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        int sizeBefore = entries.size();
+        entries.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0);
+
+        int evicted = sizeBefore - entries.size();
+        if (evicted > 0) {
+            meterRegistry.counter(METRIC_NAME + ".evictions").increment(evicted);
+            log.debug("Expired users evicted from recommendation history cache count={}", evicted);
+        }
+    }
+
+    private UserPackHistory load(UUID userId) {
+        OffsetDateTime since = OffsetDateTime.now().minus(rankingProperties.getHistoryWindow());
+        List<UUID> recentlyRecommended = ritualRecommendationRepository
+                .findByUserIdAndCreatedAtAfterOrderByCreatedAtDesc(userId, since,
+                        Limit.of(rankingProperties.getMaxRecentRecommendations()))
+                .stream()
+                .map(RecommendedPack::getRitualPackId)
+                .toList();
+        Set<UUID> completed = Set.copyOf(
+                ritualHistoryRepository.findDistinctRitualPackIdsByUserIdAndStatus(userId,
+                        RitualHistoryStatus.COMPLETED));
+
+        return new UserPackHistory(recentlyRecommended, completed);
+    }
+
+    private static int stripe(UUID userId) {
+        return Math.floorMod(userId.hashCode(), GENERATION_STRIPES);
+    }
+}
@@ -0,0 +1,10 @@
+package com.lovingapp.service.recommendation;
+
+import java.util.UUID;
+
+/**
+ * Published when ritual recommendations or ritual history of a user are
+ * created, updated or deleted.
+ */
+public record UserRitualActivityChangedEvent(UUID userId) {
+}
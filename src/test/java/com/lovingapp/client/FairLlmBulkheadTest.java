@@ -0,0 +1,217 @@
+package com.lovingapp.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.lovingapp.config.llm.LlmClientProperties.BulkheadProperties;
+import com.lovingapp.exception.LLMCapacityExceededException;
+import com.lovingapp.model.domain.ai.LLMCallPriority;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FairLlmBulkheadTest {
+
+    private static final LLMCallPriority INTERACTIVE = LLMCallPriority.INTERACTIVE;
+    private static final LLMCallPriority BACKGROUND = LLMCallPriority.BACKGROUND;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LinkedBlockingQueue<String> admitted = new LinkedBlockingQueue<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void freedPermitsGoToWaitingUsersInRoundRobinOrder() throws Exception {
+        BulkheadProperties properties = properties(1);
+        FairLlmBulkhead bulkhead = new FairLlmBulkhead(properties, meterRegistry);
+        UUID busyUser = UUID.randomUUID();
+        UUID otherUser = UUID.randomUUID();
+
+        long held = bulkhead.acquire(busyUser, INTERACTIVE);
+        CompletableFuture<Long> busy1 = waitFor(bulkhead, busyUser, INTERACTIVE, "busy-1");
+        CompletableFuture<Long> busy2 = waitFor(bulkhead, busyUser, INTERACTIVE, "busy-2");
+        CompletableFuture<Long> other = waitFor(bulkhead, otherUser, INTERACTIVE, "other");
+        awaitQueued(INTERACTIVE, 3);
+
+        bulkhead.release(held, INTERACTIVE);
+        assertThat(admitted.poll(5, TimeUnit.SECONDS)).isEqualTo("busy-1");
+        bulkhead.release(busy1.get(), INTERACTIVE);
+        // The other user is served before the busy user's second call
+        assertThat(admitted.poll(5, TimeUnit.SECONDS)).isEqualTo("other");
+        bulkhead.release(other.get(), INTERACTIVE);
+        assertThat(admitted.poll(5, TimeUnit.SECONDS)).isEqualTo("busy-2");
+        bulkhead.release(busy2.get(), INTERACTIVE);
+
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void callsBeyondTheUserQueueLimitAreShed() throws Exception {
+        BulkheadProperties properties = properties(1);
+        properties.setMaxQueuedCallsPerUser(1);
+        FairLlmBulkhead bulkhead = new FairLlmBulkhead(properties, meterRegistry);
+        UUID user = UUID.randomUUID();
+
+        long held = bulkhead.acquire(user, INTERACTIVE);
+        CompletableFuture<Long> queued = waitFor(bulkhead, user, INTERACTIVE, "queued");
+        awaitQueued(INTERACTIVE, 1);
+
+        assertThatThrownBy(() -> bulkhead.acquire(user, INTERACTIVE))
+                .isInstanceOf(LLMCapacityExceededException.class);
+        assertThat(shed("user_queue_full", INTERACTIVE)).isEqualTo(1);
+
+        // Another user still gets a place in the queue
+        CompletableFuture<Long> other = waitFor(bulkhead, UUID.randomUUID(), INTERACTIVE, "other");
+        awaitQueued(INTERACTIVE, 2);
+
+        bulkhead.release(held, INTERACTIVE);
+        bulkhead.release(queued.get(5, TimeUnit.SECONDS), INTERACTIVE);
+        bulkhead.release(other.get(5, TimeUnit.SECONDS), INTERACTIVE);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void waitingCallIsShedAfterMaxWait() {
+        BulkheadProperties properties = properties(1);
+        properties.setMaxWait(Duration.ofMillis(50));
+        FairLlmBulkhead bulkhead = new FairLlmBulkhead(properties, meterRegistry);
+
+        long held = bulkhead.acquire(UUID.randomUUID(), INTERACTIVE);
+
+        assertThatThrownBy(() -> bulkhead.acquire(UUID.randomUUID(), INTERACTIVE))
+                .isInstanceOf(LLMCapacityExceededException.class);
+        assertThat(shed("wait_timeout", INTERACTIVE)).isEqualTo(1);
+        assertThat(queued(INTERACTIVE)).isZero();
+
+        bulkhead.release(held, INTERACTIVE);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void backgroundCallsAreCappedBelowTheTotal() throws Exception {
+        BulkheadProperties properties = properties(3);
+        properties.setMaxConcurrentBackgroundCalls(1);
+        FairLlmBulkhead bulkhead = new FairLlmBulkhead(properties, meterRegistry);
+        UUID user = UUID.randomUUID();
+
+        long background1 = bulkhead.acquire(user, BACKGROUND);
+        CompletableFuture<Long> background2 = waitFor(bulkhead, user, BACKGROUND, "background-2");
+        awaitQueued(BACKGROUND, 1);
+
+        // The user's interactive calls still find free permits
+        long interactive1 = bulkhead.acquire(user, INTERACTIVE);
+        long interactive2 = bulkhead.acquire(user, INTERACTIVE);
+        assertThat(inFlight()).isEqualTo(3);
+        assertThat(background2).isNotDone();
+
+        bulkhead.release(interactive1, INTERACTIVE);
+        bulkhead.release(interactive2, INTERACTIVE);
+        assertThat(admitted.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+        bulkhead.release(background1, BACKGROUND);
+        assertThat(admitted.poll(5, TimeUnit.SECONDS)).isEqualTo("background-2");
+        bulkhead.release(background2.get(), BACKGROUND);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void waitingInteractiveCallsAreAdmittedBeforeBackgroundCalls() throws Exception {
+        FairLlmBulkhead bulkhead = new FairLlmBulkhead(properties(1), meterRegistry);
+
+        long held = bulkhead.acquire(UUID.randomUUID(), INTERACTIVE);
+        CompletableFuture<Long> background = waitFor(bulkhead, UUID.randomUUID(), BACKGROUND, "background");
+        awaitQueued(BACKGROUND, 1);
+        CompletableFuture<Long> interactive = waitFor(bulkhead, UUID.randomUUID(), INTERACTIVE, "interactive");
+        awaitQueued(INTERACTIVE, 1);
+
+        // Background calls do not take a free permit while an interactive call waits
+        assertThat(bulkhead.tryAcquire(BACKGROUND)).isNegative();
+
+        bulkhead.release(held, INTERACTIVE);
+        assertThat(admitted.poll(5, TimeUnit.SECONDS)).isEqualTo("interactive");
+        bulkhead.release(interactive.get(), INTERACTIVE);
+        assertThat(admitted.poll(5, TimeUnit.SECONDS)).isEqualTo("background");
+        bulkhead.release(background.get(), BACKGROUND);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void backgroundQueueLimitsDoNotTouchTheInteractiveQueue() throws Exception {
+        BulkheadProperties properties = properties(1);
+        properties.setMaxQueuedCallsPerUser(1);
+        properties.setMaxQueuedBackgroundCallsPerUser(1);
+        FairLlmBulkhead bulkhead = new FairLlmBulkhead(properties, meterRegistry);
+        UUID user = UUID.randomUUID();
+
+        long held = bulkhead.acquire(UUID.randomUUID(), INTERACTIVE);
+        CompletableFuture<Long> background = waitFor(bulkhead, user, BACKGROUND, "background");
+        awaitQueued(BACKGROUND, 1);
+        assertThatThrownBy(() -> bulkhead.acquire(user, BACKGROUND))
+                .isInstanceOf(LLMCapacityExceededException.class);
+        assertThat(shed("user_queue_full", BACKGROUND)).isEqualTo(1);
+
+        CompletableFuture<Long> interactive = waitFor(bulkhead, user, INTERACTIVE, "interactive");
+        awaitQueued(INTERACTIVE, 1);
+
+        bulkhead.release(held, INTERACTIVE);
+        bulkhead.release(interactive.get(5, TimeUnit.SECONDS), INTERACTIVE);
+        bulkhead.release(background.get(5, TimeUnit.SECONDS), BACKGROUND);
+        assertThat(List.of(admitted.poll(), admitted.poll())).containsExactly("interactive", "background");
+        assertThat(inFlight()).isZero();
+    }
+
+    private CompletableFuture<Long> waitFor(FairLlmBulkhead bulkhead, UUID user, LLMCallPriority priority,
+            String name) {
+        return CompletableFuture.supplyAsync(() -> {
+            long acquiredAt = bulkhead.acquire(user, priority);
+            admitted.add(name);
+            return acquiredAt;
+        }, executor);
+    }
+
+    private void awaitQueued(LLMCallPriority priority, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queued(priority) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(queued(priority)).isEqualTo(expected);
+    }
+
+    private int queued(LLMCallPriority priority) {
+        return (int) meterRegistry.get("llm.bulkhead.queue.depth").tag("priority", priority.getTagValue())
+                .gauge().value();
+    }
+
+    private int inFlight() {
+        return (int) meterRegistry.get("llm.bulkhead.in.flight").gauge().value();
+    }
+
+    private double shed(String reason, LLMCallPriority priority) {
+        return meterRegistry.counter("llm.bulkhead.shed", "reason", reason, "priority", priority.getTagValue())
+                .count();
+    }
+
+    private static BulkheadProperties properties(int maxConcurrentCalls) {
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.setMaxConcurrentCalls(maxConcurrentCalls);
+        properties.setMaxWait(Duration.ofSeconds(10));
+        properties.setBackgroundMaxWait(Duration.ofSeconds(10));
+        return properties;
+    }
+}
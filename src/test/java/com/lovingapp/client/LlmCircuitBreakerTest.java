@@ -0,0 +1,151 @@
+package com.lovingapp.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.lovingapp.client.LlmCircuitBreaker.State;
+import com.lovingapp.config.llm.LlmClientProperties.CircuitBreakerProperties;
+
+class LlmCircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        LlmCircuitBreaker breaker = breaker();
+
+        record(breaker, true, 3);
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        LlmCircuitBreaker breaker = breaker();
+
+        record(breaker, false, 2);
+        record(breaker, true, 1);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+
+        // 2 failures out of 4 calls is the 50% threshold
+        record(breaker, true, 1);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void failuresSlideOutOfWindow() {
+        LlmCircuitBreaker breaker = breaker();
+
+        record(breaker, true, 1);
+        record(breaker, false, 6);
+        // Window of 6: the early failure has dropped out, so one more failure is 1 in 6
+        record(breaker, true, 1);
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void rejectsWhileOpenThenAdmitsLimitedTrialCalls() {
+        LlmCircuitBreaker breaker = openBreaker();
+
+        clock.addAndGet(OPEN_DURATION.toNanos() - 1);
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        clock.addAndGet(1);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void closesWhenAllTrialCallsSucceed() {
+        LlmCircuitBreaker breaker = openBreaker();
+        clock.addAndGet(OPEN_DURATION.toNanos());
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onResult(false);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        breaker.onResult(false);
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        // The window starts over: earlier failures do not count any more
+        record(breaker, true, 3);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void reopensWhenTrialCallFails() {
+        LlmCircuitBreaker breaker = openBreaker();
+        clock.addAndGet(OPEN_DURATION.toNanos());
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onResult(true);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        // The open duration restarts from the failed trial
+        clock.addAndGet(OPEN_DURATION.toNanos());
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void lateResultWhileOpenIsIgnored() {
+        LlmCircuitBreaker breaker = openBreaker();
+
+        breaker.onResult(false);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void disabledBreakerAlwaysPermits() {
+        CircuitBreakerProperties properties = properties();
+        properties.setEnabled(false);
+        LlmCircuitBreaker breaker = new LlmCircuitBreaker("test", properties, clock::get);
+
+        record(breaker, true, 20);
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    private LlmCircuitBreaker openBreaker() {
+        LlmCircuitBreaker breaker = breaker();
+        record(breaker, true, 4);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        return breaker;
+    }
+
+    private LlmCircuitBreaker breaker() {
+        return new LlmCircuitBreaker("test", properties(), clock::get);
+    }
+
+    private static CircuitBreakerProperties properties() {
+        CircuitBreakerProperties properties = new CircuitBreakerProperties();
+        properties.setWindowSize(6);
+        properties.setMinimumCalls(4);
+        properties.setFailureRateThresholdPercent(50);
+        properties.setOpenDuration(OPEN_DURATION);
+        properties.setHalfOpenPermittedCalls(2);
+        return properties;
+    }
+
+    private static void record(LlmCircuitBreaker breaker, boolean failure, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onResult(failure);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.lovingapp.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.lovingapp.config.llm.LlmClientProperties.BulkheadProperties;
+import com.lovingapp.config.llm.LlmClientProperties.HedgingProperties;
+import com.lovingapp.config.llm.LlmClientProperties.ResilienceProperties;
+import com.lovingapp.model.domain.ai.LLMRequest;
+import com.lovingapp.model.domain.ai.LLMResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResilientLlmClientTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void hedgeIsSkippedWhenBulkheadHasNoFreePermit() {
+        FairLlmBulkhead bulkhead = bulkhead(1);
+        SlowFirstCallClient provider = new SlowFirstCallClient(Duration.ofMillis(300));
+        LlmClient client = new BulkheadLlmClient(new ResilientLlmClient(provider, hedgingProperties(), executor,
+                bulkhead, meterRegistry), bulkhead);
+
+        client.generate(request(), String.class);
+        provider.slowFromNow();
+        LLMResponse<String> response = client.generate(request(), String.class);
+
+        assertThat(response.getRawText()).isEqualTo("call-2");
+        assertThat(provider.calls.get()).isEqualTo(2);
+        assertThat(meterRegistry.counter("llm.resilience.hedges.skipped", "call_type", "other").count())
+                .isEqualTo(1);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void hedgeTakesAndReleasesItsOwnPermit() throws Exception {
+        FairLlmBulkhead bulkhead = bulkhead(2);
+        SlowFirstCallClient provider = new SlowFirstCallClient(Duration.ofSeconds(30));
+        LlmClient client = new BulkheadLlmClient(new ResilientLlmClient(provider, hedgingProperties(), executor,
+                bulkhead, meterRegistry), bulkhead);
+
+        client.generate(request(), String.class);
+        provider.slowFromNow();
+        LLMResponse<String> response = client.generate(request(), String.class);
+
+        assertThat(response.getRawText()).isEqualTo("call-3");
+        assertThat(meterRegistry.counter("llm.resilience.hedges.won", "call_type", "other").count()).isEqualTo(1);
+        // The cancelled primary finishes in the background and gives its permit back
+        assertThat(provider.slowCallEnded.await(5, TimeUnit.SECONDS)).isTrue();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (inFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(inFlight()).isZero();
+    }
+
+    private FairLlmBulkhead bulkhead(int maxConcurrentCalls) {
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.setMaxConcurrentCalls(maxConcurrentCalls);
+        return new FairLlmBulkhead(properties, meterRegistry);
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("llm.bulkhead.in.flight").gauge().value();
+    }
+
+    private static ResilienceProperties hedgingProperties() {
+        ResilienceProperties properties = new ResilienceProperties();
+        HedgingProperties hedging = properties.getDefaults().getHedging();
+        hedging.setEnabled(true);
+        hedging.setMinSamples(1);
+        hedging.setMinDelay(Duration.ofMillis(50));
+        properties.getDefaults().getCircuitBreaker().setEnabled(false);
+        return properties;
+    }
+
+    private static LLMRequest request() {
+        return LLMRequest.builder().build();
+    }
+
+    /**
+     * Answers right away, except for the first call after {@link #slowFromNow()},
+     * which takes {@code slowDuration} unless interrupted.
+     */
+    private static final class SlowFirstCallClient implements LlmClient {
+
+        private final Duration slowDuration;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch slowCallEnded = new CountDownLatch(1);
+        private volatile int slowCall = -1;
+
+        private SlowFirstCallClient(Duration slowDuration) {
+            this.slowDuration = slowDuration;
+        }
+
+        private void slowFromNow() {
+            slowCall = calls.get() + 1;
+        }
+
+        @Override
+        public <T> LLMResponse<T> generate(LLMRequest request, Class<T> responseClass) {
+            int call = calls.incrementAndGet();
+            if (call == slowCall) {
+                try {
+                    Thread.sleep(slowDuration);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    slowCallEnded.countDown();
+                }
+            }
+            return new LLMResponse<>("call-" + call, null);
+        }
+    }
+}
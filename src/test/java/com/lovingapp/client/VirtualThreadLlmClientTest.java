@@ -0,0 +1,108 @@
+package com.lovingapp.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.lovingapp.exception.LLMException;
+import com.lovingapp.model.domain.ai.LLMRequest;
+import com.lovingapp.model.domain.ai.LLMResponse;
+
+class VirtualThreadLlmClientTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void deadlineRunsAbortHandlerOfRunningCall() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        LlmClient hangingTransport = new LlmClient() {
+            @Override
+            public <T> LLMResponse<T> generate(LLMRequest request, Class<T> responseClass) {
+                VirtualThreadLlmClient.onCurrentCallAborted(cancelled::countDown);
+                // Ignores interrupts, like a transport that only stops when its call is cancelled
+                while (cancelled.getCount() > 0) {
+                    Thread.onSpinWait();
+                }
+                throw new IllegalStateException("cancelled");
+            }
+        };
+
+        try (VirtualThreadLlmClient client = new VirtualThreadLlmClient(hangingTransport, executor,
+                Duration.ofMillis(50))) {
+            CompletableFuture<LLMResponse<String>> result = client.generateAsync(LLMRequest.builder().build(),
+                    String.class);
+
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(LLMException.class);
+            assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Test
+    void handlerRegisteredAfterAbortRunsOnce() throws Exception {
+        CountDownLatch aborted = new CountDownLatch(1);
+        CountDownLatch registered = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        LlmClient transport = new LlmClient() {
+            @Override
+            public <T> LLMResponse<T> generate(LLMRequest request, Class<T> responseClass) {
+                awaitUninterruptibly(aborted);
+                VirtualThreadLlmClient.onCurrentCallAborted(runs::incrementAndGet);
+                registered.countDown();
+                throw new IllegalStateException("aborted");
+            }
+        };
+
+        try (VirtualThreadLlmClient client = new VirtualThreadLlmClient(transport, executor, null)) {
+            CompletableFuture<LLMResponse<String>> result = client.generateAsync(LLMRequest.builder().build(),
+                    String.class);
+            result.cancel(true);
+            aborted.countDown();
+
+            assertThat(registered.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(runs.get()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void abortHandlerOutsideAsyncCallIsIgnored() {
+        AtomicInteger runs = new AtomicInteger();
+
+        VirtualThreadLlmClient.onCurrentCallAborted(runs::incrementAndGet);
+
+        assertThat(VirtualThreadLlmClient.isCurrentCallAborted()).isFalse();
+        assertThat(runs.get()).isZero();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
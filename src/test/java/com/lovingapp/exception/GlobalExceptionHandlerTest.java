@@ -0,0 +1,56 @@
+package com.lovingapp.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.lovingapp.exception.GlobalExceptionHandler.ErrorStatus;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void transientConflictsAskToRetry() {
+        ChatSessionBusyException busy = new ChatSessionBusyException(UUID.randomUUID());
+
+        ResponseEntity<Void> response = handler.handleChatSessionBusy(busy);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(GlobalExceptionHandler.errorStatus(busy)).isEqualTo(new ErrorStatus(HttpStatus.CONFLICT, 1L));
+    }
+
+    @Test
+    void capacityExceededRetriesAfterWholeSeconds() {
+        LLMCapacityExceededException shed = new LLMCapacityExceededException("queue full", Duration.ofMillis(1500));
+
+        ResponseEntity<Void> response = handler.handleLlmCapacityExceeded(shed);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+
+    @Test
+    void llmFailuresMapToGatewayStatuses() {
+        LLMException timeout = new LLMException(LLMException.Type.TIMEOUT, "timed out");
+
+        assertThat(handler.handleLlmException(timeout).getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+        assertThat(GlobalExceptionHandler.errorStatus(timeout).retryAfterSeconds()).isNull();
+        assertThat(GlobalExceptionHandler.errorStatus(
+                new LLMException(LLMException.Type.RESPONSE_PARSING, "bad json")).status())
+                .isEqualTo(HttpStatus.BAD_GATEWAY);
+    }
+
+    @Test
+    void unknownFailuresAreInternalErrors() {
+        assertThat(GlobalExceptionHandler.errorStatus(new IllegalStateException("boom")))
+                .isEqualTo(new ErrorStatus(HttpStatus.INTERNAL_SERVER_ERROR, null));
+    }
+}
@@ -0,0 +1,61 @@
+package com.lovingapp.helpers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpStatus;
+
+import com.lovingapp.exception.GlobalExceptionHandler;
+
+class KeysetCursorTest {
+
+    @Test
+    void decodesWhatItEncodes() {
+        KeysetCursor cursor = new KeysetCursor(OffsetDateTime.of(2026, 3, 4, 5, 6, 7, 123_456_000,
+                ZoneOffset.ofHours(2)), UUID.randomUUID());
+
+        String encoded = cursor.encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+        assertThat(KeysetCursor.decode(encoded)).isEqualTo(cursor);
+    }
+
+    @Test
+    void missingCursorIsTheFirstPage() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode(" ")).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "not base64!",
+            "2026-03-04T05:06:07Z",
+            "2026-03-04T05:06:07Z|not-a-uuid",
+            "yesterday|00000000-0000-0000-0000-000000000001",
+            "|00000000-0000-0000-0000-000000000001" })
+    void malformedCursorIsRejected(String position) {
+        String cursor = position.equals("not base64!") ? position
+                : Base64.getUrlEncoder().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(cursor))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void malformedCursorIsABadRequest() {
+        IllegalArgumentException invalid = new IllegalArgumentException("Invalid cursor");
+
+        assertThat(new GlobalExceptionHandler().handleBadRequest(invalid).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,114 @@
+package com.lovingapp.helpers.ai;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class JsonStringFieldStreamExtractorTest {
+
+    @Test
+    void extractsValueFromSingleChunk() {
+        JsonStringFieldStreamExtractor extractor = new JsonStringFieldStreamExtractor("response");
+
+        assertThat(extractor.feed("{\"response\": \"Hello there\", \"other\": 1}")).isEqualTo("Hello there");
+        assertThat(extractor.isComplete()).isTrue();
+    }
+
+    @Test
+    void extractsValueSplitAcrossEveryCharacter() {
+        String json = "{ \"mood\" : \"ok\" ,\n \"response\"\t:\n\"Hi, \\\"you\\\"\" }";
+        JsonStringFieldStreamExtractor extractor = new JsonStringFieldStreamExtractor("response");
+
+        StringBuilder out = new StringBuilder();
+        for (char c : json.toCharArray()) {
+            out.append(extractor.feed(String.valueOf(c)));
+        }
+
+        assertThat(out).hasToString("Hi, \"you\"");
+        assertThat(extractor.isComplete()).isTrue();
+    }
+
+    @Test
+    void decodesEscapes() {
+        JsonStringFieldStreamExtractor extractor = new JsonStringFieldStreamExtractor("response");
+
+        assertThat(extractor.feed("{\"response\":\"a\\nb\\tc\\\\d\\/e\\\"f\"}")).isEqualTo("a\nb\tc\\d/e\"f");
+    }
+
+    @Test
+    void decodesUnicodeEscapeSplitAcrossChunks() {
+        JsonStringFieldStreamExtractor extractor = new JsonStringFieldStreamExtractor("response");
+
+        String out = extractor.feed("{\"response\":\"caf\\u0")
+                + extractor.feed("0")
+                + extractor.feed("e9 \\")
+                + extractor.feed("u2764!\"}");
+
+        assertThat(out).isEqualTo("caf\u00e9 \u2764!");
+        assertThat(extractor.isComplete()).isTrue();
+    }
+
+    @Test
+    void keySplitAcrossChunksIsMatched() {
+        JsonStringFieldStreamExtractor extractor = new JsonStringFieldStreamExtractor("response");
+
+        String out = extractor.feed("{\"resp") + extractor.feed("onse\"") + extractor.feed(":") + extractor.feed(" \"x\"");
+
+        assertThat(out).isEqualTo("x");
+    }
+
+    @Test
+    void failsOnNullValueWithoutStreamingNextKey() {
+        JsonStringFieldStreamExtractor extractor = new JsonStringFieldStreamExtractor("response");
+
+        assertThat(extractor.feed("{\"response\": null, \"intent\": \"chat\"}")).isEmpty();
+        assertThat(extractor.isFailed()).isTrue();
+        assertThat(extractor.isComplete()).isFalse();
+    }
+
+    @Test
+    void failsOnNumberAndObjectValues() {
+        JsonStringFieldStreamExtractor number = new JsonStringFieldStreamExtractor("response");
+        JsonStringFieldStreamExtractor object = new JsonStringFieldStreamExtractor("response");
+
+        assertThat(number.feed("{\"response\": 42, \"intent\": \"chat\"}")).isEmpty();
+        assertThat(object.feed("{\"response\": {\"text\": \"hi\"}}")).isEmpty();
+        assertThat(number.isFailed()).isTrue();
+        assertThat(object.isFailed()).isTrue();
+    }
+
+    @Test
+    void ignoresFieldNameInsideEarlierStringValue() {
+        JsonStringFieldStreamExtractor extractor = new JsonStringFieldStreamExtractor("response");
+
+        String out = extractor.feed("{\"note\": \"the \\\"response\\\": \\\"fake\\\" text\", ")
+                + extractor.feed("\"response\": \"real\"}");
+
+        assertThat(out).isEqualTo("real");
+    }
+
+    @Test
+    void ignoresFieldNameAsValueAndInNestedObject() {
+        JsonStringFieldStreamExtractor extractor = new JsonStringFieldStreamExtractor("response");
+
+        String out = extractor.feed("{\"kind\": \"response\", \"meta\": {\"response\": \"nested\"}, "
+                + "\"list\": [\"response\", {\"response\": \"x\"}], \"response\": \"top\"}");
+
+        assertThat(out).isEqualTo("top");
+    }
+
+    @Test
+    void ignoresKeysWithFieldNameAsPrefix() {
+        JsonStringFieldStreamExtractor extractor = new JsonStringFieldStreamExtractor("response");
+
+        assertThat(extractor.feed("{\"responseType\": \"text\", \"response\": \"ok\"}")).isEqualTo("ok");
+    }
+
+    @Test
+    void emitsNothingAfterValueIsComplete() {
+        JsonStringFieldStreamExtractor extractor = new JsonStringFieldStreamExtractor("response");
+
+        assertThat(extractor.feed("{\"response\": \"done\"")).isEqualTo("done");
+        assertThat(extractor.feed(", \"response\": \"again\"}")).isEmpty();
+    }
+}
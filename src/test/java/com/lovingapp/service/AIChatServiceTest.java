@@ -0,0 +1,226 @@
+package com.lovingapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.lovingapp.config.llm.LlmClientProperties;
+import com.lovingapp.exception.LLMException;
+import com.lovingapp.model.domain.ChatMetadata;
+import com.lovingapp.model.domain.ai.LLMEmpatheticResponse;
+import com.lovingapp.model.dto.ChatDTOs.RecommendRitualPackResponse;
+import com.lovingapp.model.dto.ChatDTOs.SendMessageRequest;
+import com.lovingapp.model.dto.RitualPackDTO;
+import com.lovingapp.model.dto.RitualRecommendationDTOs.RitualRecommendationDTO;
+import com.lovingapp.model.dto.UserContextDTOs.UserContextDTO;
+import com.lovingapp.model.entity.ChatMessage;
+import com.lovingapp.model.entity.ChatSession;
+import com.lovingapp.model.enums.ChatMessageRole;
+import com.lovingapp.service.chat.AIChatBackgroundContextExtractor;
+import com.lovingapp.service.chat.AIChatCheckpointPersistenceService;
+import com.lovingapp.service.chat.AIChatConversationCompactor;
+import com.lovingapp.service.chat.AIChatLLMHelper;
+import com.lovingapp.service.chat.AIChatMessagePersistenceService;
+import com.lovingapp.service.chat.AIChatSessionPersistenceService;
+import com.lovingapp.service.chat.AIChatTurnPersistenceService;
+import com.lovingapp.service.chat.AIChatTurnPersistenceService.RecommendationTurnResult;
+import com.lovingapp.service.chat.AIChatTurnSerializer;
+import com.lovingapp.service.chat.ChatMessageCache.ChatMessageWindow;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AIChatServiceTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID sessionId = UUID.randomUUID();
+    private final SendMessageRequest request = new SendMessageRequest("How can we argue less?");
+
+    private final AIChatSessionPersistenceService chatSessionPersistenceService = mock(
+            AIChatSessionPersistenceService.class);
+    private final AIChatMessagePersistenceService chatMessagePersistenceService = mock(
+            AIChatMessagePersistenceService.class);
+    private final UserContextService userContextService = mock(UserContextService.class);
+    private final RecommendationEngine recommendationEngine = mock(RecommendationEngine.class);
+    private final RitualRecommendationService ritualRecommendationService = mock(RitualRecommendationService.class);
+    private final AIChatLLMHelper aiChatLLMHelper = mock(AIChatLLMHelper.class);
+    private final AIChatTurnPersistenceService chatTurnPersistenceService = mock(AIChatTurnPersistenceService.class);
+    private final AIChatBackgroundContextExtractor backgroundContextExtractor = mock(
+            AIChatBackgroundContextExtractor.class);
+    private final LlmClientProperties properties = new LlmClientProperties();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AIChatTurnSerializer chatTurnSerializer = new AIChatTurnSerializer(properties, null, meterRegistry);
+
+    private final AIChatService service = new AIChatService(chatSessionPersistenceService,
+            chatMessagePersistenceService, userContextService, recommendationEngine, ritualRecommendationService,
+            aiChatLLMHelper, chatTurnPersistenceService, backgroundContextExtractor,
+            mock(AIChatCheckpointPersistenceService.class), mock(AIChatConversationCompactor.class),
+            chatTurnSerializer, properties, meterRegistry);
+
+    private final List<ChatMessage> transcript = List.of(
+            message(ChatMessageRole.USER, "We keep fighting about chores"),
+            message(ChatMessageRole.ASSISTANT, "That sounds exhausting"));
+
+    @BeforeEach
+    void setUp() {
+        when(chatSessionPersistenceService.findSessionByIdAndUserId(sessionId, userId))
+                .thenReturn(ChatSession.builder().id(sessionId).userId(userId).build());
+        when(chatMessagePersistenceService.findRecentMessagesBySessionId(sessionId))
+                .thenReturn(new ChatMessageWindow(transcript, true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        chatTurnSerializer.shutdown();
+    }
+
+    @Test
+    void failedLlmCallLeavesNoMessageBehind() {
+        when(aiChatLLMHelper.generateEmpatheticResponse(eq(userId), eq(sessionId), anyList()))
+                .thenReturn(CompletableFuture.failedFuture(
+                        new LLMException(LLMException.Type.SERVICE_UNAVAILABLE, "circuit open")));
+
+        CompletableFuture<?> turn = service.sendMessage(userId, sessionId, request);
+
+        assertThatThrownBy(() -> turn.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(LLMException.class);
+        verifyNothingSaved();
+    }
+
+    @Test
+    void failedStreamLeavesNoMessageBehind() {
+        when(aiChatLLMHelper.streamEmpatheticResponse(eq(userId), eq(sessionId), anyList(), any()))
+                .thenThrow(new LLMException(LLMException.Type.TIMEOUT, "stream timed out"));
+
+        assertThatThrownBy(() -> service.streamMessage(userId, sessionId, request, delta -> {
+        })).hasCauseInstanceOf(LLMException.class);
+        verifyNothingSaved();
+    }
+
+    @Test
+    void userMessageIsSavedWithTheReply() throws Exception {
+        ArgumentCaptor<List<ChatMessage>> context = listCaptor();
+        when(aiChatLLMHelper.generateEmpatheticResponse(eq(userId), eq(sessionId), context.capture()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        LLMEmpatheticResponse.builder().response("Let's look at it together").build()));
+        when(chatTurnPersistenceService.completeChatTurn(userId, sessionId, request.getContent(),
+                "Let's look at it together", null))
+                .thenReturn(message(ChatMessageRole.ASSISTANT, "Let's look at it together"));
+
+        service.sendMessage(userId, sessionId, request).get(1, TimeUnit.SECONDS);
+
+        // The LLM sees the message before it is saved
+        assertThat(context.getValue()).extracting(ChatMessage::getContent)
+                .containsExactly(transcript.get(0).getContent(), transcript.get(1).getContent(),
+                        request.getContent());
+        verify(chatTurnPersistenceService).completeChatTurn(userId, sessionId, request.getContent(),
+                "Let's look at it together", null);
+        verify(chatMessagePersistenceService, never()).saveUserMessage(any(), anyString());
+    }
+
+    @Test
+    void unchangedConversationGetsTheLastRecommendationBack() throws Exception {
+        UUID recommendationId = UUID.randomUUID();
+        RitualPackDTO pack = RitualPackDTO.builder().id(UUID.randomUUID()).title("Chore truce").build();
+        ChatMessage wrapUp = message(ChatMessageRole.ASSISTANT, "Try this pack together");
+        givenTranscript(wrapUp, recommendationMessage(recommendationId));
+        givenMemoizedUserContext();
+        when(ritualRecommendationService.findById(userId, recommendationId)).thenReturn(Optional.of(
+                RitualRecommendationDTO.builder().id(recommendationId).ritualPackId(pack.getId()).build()));
+        when(recommendationEngine.findRitualPack(pack.getId())).thenReturn(Optional.of(pack));
+
+        RecommendRitualPackResponse response = service.recommendRitualPack(userId, sessionId).get(1,
+                TimeUnit.SECONDS);
+
+        assertThat(response.getRecommendationId()).isEqualTo(recommendationId);
+        assertThat(response.getRitualPack()).isSameAs(pack);
+        assertThat(response.getWrapUpResponse().getId()).isEqualTo(wrapUp.getId());
+        verify(aiChatLLMHelper, never()).generateWrapUpMessage(any(), anyList(), any(), any());
+        verify(aiChatLLMHelper, never()).extractUserContext(any(), any(), anyList(), any());
+        verify(recommendationEngine, never()).recommendRitualPack(any(), any());
+        verifyNoInteractions(chatTurnPersistenceService);
+    }
+
+    @Test
+    void recommendationOfARemovedPackIsRankedAgain() throws Exception {
+        UUID recommendationId = UUID.randomUUID();
+        givenTranscript(message(ChatMessageRole.ASSISTANT, "Try this pack together"),
+                recommendationMessage(recommendationId));
+        givenMemoizedUserContext();
+        when(ritualRecommendationService.findById(userId, recommendationId)).thenReturn(Optional.of(
+                RitualRecommendationDTO.builder().id(recommendationId).ritualPackId(UUID.randomUUID()).build()));
+        when(recommendationEngine.findRitualPack(any())).thenReturn(Optional.empty());
+        when(aiChatLLMHelper.generateWrapUpMessage(eq(userId), anyList(), any(), eq(sessionId)))
+                .thenReturn(CompletableFuture.completedFuture("Here is something else"));
+        ChatMessage newWrapUp = message(ChatMessageRole.ASSISTANT, "Here is something else");
+        when(chatTurnPersistenceService.completeRecommendationTurn(eq(userId), eq(sessionId), any(), eq("hash"),
+                any(), eq("Here is something else"), any()))
+                .thenReturn(new RecommendationTurnResult(null, newWrapUp, null));
+
+        RecommendRitualPackResponse response = service.recommendRitualPack(userId, sessionId).get(1,
+                TimeUnit.SECONDS);
+
+        assertThat(response.getWrapUpResponse().getId()).isEqualTo(newWrapUp.getId());
+        verify(aiChatLLMHelper, never()).extractUserContext(any(), any(), anyList(), any());
+    }
+
+    private void givenTranscript(ChatMessage... newest) {
+        List<ChatMessage> messages = new ArrayList<>(transcript);
+        messages.addAll(List.of(newest));
+        when(chatMessagePersistenceService.findRecentMessagesBySessionId(sessionId))
+                .thenReturn(new ChatMessageWindow(messages, true));
+    }
+
+    private void givenMemoizedUserContext() {
+        when(aiChatLLMHelper.userContextExtractionHash(anyList())).thenReturn("hash");
+        when(userContextService.findByContextHash(userId, sessionId, "hash")).thenReturn(Optional.of(
+                UserContextDTO.builder().id(UUID.randomUUID()).conversationId(sessionId).build()));
+    }
+
+    private ChatMessage recommendationMessage(UUID recommendationId) {
+        ChatMessage message = message(ChatMessageRole.SYSTEM, "Recommended ritual pack");
+        message.setMetadata(ChatMetadata.builder().recommendationId(recommendationId).build());
+        return message;
+    }
+
+    private void verifyNothingSaved() {
+        verify(chatMessagePersistenceService, never()).saveUserMessage(any(), anyString());
+        verify(chatTurnPersistenceService, never()).completeChatTurn(any(), any(), any(), any(), any());
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static ArgumentCaptor<List<ChatMessage>> listCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+    }
+
+    private ChatMessage message(ChatMessageRole role, String content) {
+        return ChatMessage.builder()
+                .id(UUID.randomUUID())
+                .sessionId(sessionId)
+                .role(role)
+                .content(content)
+                .build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.lovingapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcProperties;
+import org.springframework.dao.QueryTimeoutException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lovingapp.config.web.IdempotencyProperties;
+import com.lovingapp.model.entity.IdempotencyRecord;
+import com.lovingapp.model.enums.IdempotencyStatus;
+import com.lovingapp.repository.IdempotencyRecordRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IdempotencyServiceTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private final IdempotencyRecordRepository idempotencyRecordRepository = mock(IdempotencyRecordRepository.class);
+    private final WebMvcProperties webMvcProperties = new WebMvcProperties();
+
+    @BeforeEach
+    void setUp() {
+        webMvcProperties.getAsync().setRequestTimeout(Duration.ofSeconds(150));
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(any(), any())).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void inProgressRecordOutlivesTheRequestTimeout() {
+        ArgumentCaptor<IdempotencyRecord> claimed = ArgumentCaptor.forClass(IdempotencyRecord.class);
+
+        service().execute(userId, "key", "POST /sessions", String.class, CompletableFuture::new);
+
+        verify(idempotencyRecordRepository).saveAndFlush(claimed.capture());
+        assertThat(claimed.getValue().getExpiresAt())
+                .isCloseTo(OffsetDateTime.now().plusSeconds(150 + 60), within(5, ChronoUnit.SECONDS));
+    }
+
+    @Test
+    void failedCompletionIsRetried() {
+        when(idempotencyRecordRepository.save(any()))
+                .thenThrow(new QueryTimeoutException("statement timeout"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        String response = service().execute(userId, "key", "POST /sessions", String.class,
+                () -> CompletableFuture.completedFuture("ok")).join();
+
+        assertThat(response).isEqualTo("ok");
+        verify(idempotencyRecordRepository, times(2)).save(any());
+        verify(idempotencyRecordRepository, never()).delete(any());
+    }
+
+    @Test
+    void recordIsForgottenWhenTheResponseCannotBeStored() {
+        ArgumentCaptor<IdempotencyRecord> deleted = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        when(idempotencyRecordRepository.save(any())).thenThrow(new QueryTimeoutException("statement timeout"));
+
+        String response = service().execute(userId, "key", "POST /sessions", String.class,
+                () -> CompletableFuture.completedFuture("ok")).join();
+
+        // The caller still gets its response; a retry runs the request again
+        assertThat(response).isEqualTo("ok");
+        verify(idempotencyRecordRepository).delete(deleted.capture());
+        assertThat(deleted.getValue().getStatus()).isEqualTo(IdempotencyStatus.COMPLETED);
+    }
+
+    private IdempotencyService service() {
+        return new IdempotencyService(idempotencyRecordRepository, new IdempotencyProperties(), new ObjectMapper(),
+                new SimpleMeterRegistry(), webMvcProperties);
+    }
+}
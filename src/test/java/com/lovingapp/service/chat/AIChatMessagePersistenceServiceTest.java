@@ -0,0 +1,52 @@
+package com.lovingapp.service.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.lovingapp.AbstractIntegrationTest;
+import com.lovingapp.helpers.KeysetCursor;
+import com.lovingapp.model.dto.ChatDTOs.ChatMessageDTO;
+import com.lovingapp.model.dto.CursorPageDTO;
+
+class AIChatMessagePersistenceServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private AIChatSessionPersistenceService chatSessionPersistenceService;
+
+    @Autowired
+    private AIChatMessagePersistenceService chatMessagePersistenceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pagesBreakTimestampTiesById() {
+        UUID sessionId = chatSessionPersistenceService.createSession(UUID.randomUUID()).getId();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(chatMessagePersistenceService.saveUserMessage(sessionId, "message " + i).getId());
+        }
+        jdbcTemplate.update("update chat_messages set created_at = now() where session_id = ?", sessionId);
+
+        List<UUID> paged = new ArrayList<>();
+        KeysetCursor cursor = null;
+        do {
+            CursorPageDTO<ChatMessageDTO> page = chatMessagePersistenceService.findMessagesBySessionId(sessionId,
+                    cursor, 2);
+            page.getItems().forEach(message -> paged.add(message.getId()));
+            cursor = KeysetCursor.decode(page.getNextCursor());
+        } while (cursor != null);
+
+        // Newest first, ties in descending id order as Postgres compares uuids
+        ids.sort(Comparator.comparing(UUID::toString).reversed());
+        assertThat(paged).containsExactlyElementsOf(ids);
+    }
+}
@@ -0,0 +1,80 @@
+package com.lovingapp.service.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lovingapp.AbstractIntegrationTest;
+import com.lovingapp.model.dto.ChatDTOs.ChatSessionDTO;
+import com.lovingapp.model.entity.ChatSession;
+import com.lovingapp.repository.ChatSessionRepository;
+
+class AIChatSessionPersistenceServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private AIChatSessionPersistenceService chatSessionPersistenceService;
+
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void concurrentWritePhasesOnOneSessionRunOneAfterTheOther() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID sessionId = chatSessionPersistenceService.createSession(userId).getId();
+
+        // Each write phase waits for the other to hold the lock too before updating the row;
+        // with a shared lock both would get it and deadlock upgrading it
+        CountDownLatch bothLocked = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<CompletableFuture<Void>> writePhases = List.of("first", "second").stream()
+                    .map(preview -> CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+                        ChatSession session = chatSessionPersistenceService.lockSessionForWrite(sessionId, userId);
+                        bothLocked.countDown();
+                        awaitQuietly(bothLocked);
+                        chatSessionPersistenceService.updateSessionTitleAndLastMessagePreview(session, null, preview);
+                    }), executor))
+                    .toList();
+
+            CompletableFuture.allOf(writePhases.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ChatSession session = chatSessionRepository.findById(sessionId).orElseThrow();
+        assertThat(session.getLastMessagePreview()).isIn("first", "second");
+    }
+
+    @Test
+    void lockSessionForWriteReturnsTheSession() {
+        UUID userId = UUID.randomUUID();
+        ChatSessionDTO created = chatSessionPersistenceService.createSession(userId);
+
+        ChatSession locked = transactionTemplate
+                .execute(status -> chatSessionPersistenceService.lockSessionForWrite(created.getId(), userId));
+
+        assertThat(locked.getId()).isEqualTo(created.getId());
+        assertThat(locked.getUserId()).isEqualTo(userId);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
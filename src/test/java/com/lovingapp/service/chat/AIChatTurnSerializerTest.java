@@ -0,0 +1,192 @@
+package com.lovingapp.service.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.lovingapp.config.llm.LlmClientProperties;
+import com.lovingapp.config.llm.LlmClientProperties.TurnLockMode;
+import com.lovingapp.config.llm.LlmClientProperties.TurnOverlapPolicy;
+import com.lovingapp.config.llm.LlmClientProperties.TurnSerializationProperties;
+import com.lovingapp.exception.ChatSessionBusyException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AIChatTurnSerializerTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AIChatTurnSerializer serializer;
+
+    @AfterEach
+    void tearDown() {
+        serializer.shutdown();
+    }
+
+    @Test
+    void sessionsSharingAStripeDoNotRejectEachOther() throws Exception {
+        serializer = serializer(TurnOverlapPolicy.REJECT);
+        UUID session = UUID.randomUUID();
+        CompletableFuture<String> running = new CompletableFuture<>();
+
+        CompletableFuture<String> first = serializer.run(session, () -> running);
+        CompletableFuture<String> other = serializer.run(UUID.randomUUID(),
+                () -> CompletableFuture.completedFuture("other"));
+
+        assertThat(other.get(1, TimeUnit.SECONDS)).isEqualTo("other");
+        assertThatThrownBy(() -> serializer.run(session, () -> CompletableFuture.completedFuture("again")))
+                .isInstanceOf(ChatSessionBusyException.class);
+
+        running.complete("first");
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(sessions()).isZero();
+    }
+
+    @Test
+    void sessionsSharingAStripeDoNotWaitForEachOther() throws Exception {
+        serializer = serializer(TurnOverlapPolicy.QUEUE);
+        UUID session = UUID.randomUUID();
+        UUID otherSession = UUID.randomUUID();
+        CompletableFuture<String> running = new CompletableFuture<>();
+        CompletableFuture<String> otherRunning = new CompletableFuture<>();
+
+        CompletableFuture<String> first = serializer.run(session, () -> running);
+        CompletableFuture<String> queued = serializer.run(session,
+                () -> CompletableFuture.completedFuture("queued"));
+        CompletableFuture<String> other = serializer.run(otherSession, () -> otherRunning);
+        assertThat(sessions()).isEqualTo(2);
+
+        // The other session's turn started right away, and finishing it does not start the queued one
+        otherRunning.complete("other");
+        assertThat(other.get(1, TimeUnit.SECONDS)).isEqualTo("other");
+        assertThat(queued).isNotDone();
+        assertThat(sessions()).isEqualTo(1);
+
+        running.complete("first");
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(queued.get(1, TimeUnit.SECONDS)).isEqualTo("queued");
+        assertThat(sessions()).isZero();
+    }
+
+    @Test
+    void queuedTurnTimesOutAndKeepsTheQueueInOrder() throws Exception {
+        serializer = serializer(TurnOverlapPolicy.QUEUE);
+        UUID session = UUID.randomUUID();
+        CompletableFuture<String> running = new CompletableFuture<>();
+
+        serializer.run(session, () -> running);
+        CompletableFuture<String> queued = serializer.run(session,
+                () -> CompletableFuture.completedFuture("queued"));
+
+        assertThatThrownBy(() -> queued.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ChatSessionBusyException.class);
+        assertThat(sessions()).isEqualTo(1);
+
+        running.complete("first");
+        assertThat(serializer.run(session, () -> CompletableFuture.completedFuture("next")).get(1,
+                TimeUnit.SECONDS)).isEqualTo("next");
+        assertThat(sessions()).isZero();
+    }
+
+    @Test
+    void turnWaitingForAnotherInstanceDoesNotBlockTheCaller() throws Exception {
+        // Held by another instance for the first two attempts
+        serializer = serializer(TurnOverlapPolicy.QUEUE, TurnLockMode.ADVISORY, dataSource(false, false, true),
+                Duration.ofSeconds(5));
+        Thread caller = Thread.currentThread();
+        AtomicReference<Thread> turnThread = new AtomicReference<>();
+
+        CompletableFuture<String> turn = serializer.run(UUID.randomUUID(), () -> {
+            turnThread.set(Thread.currentThread());
+            return CompletableFuture.completedFuture("turn");
+        });
+
+        assertThat(turn).isNotDone();
+        assertThat(turn.get(1, TimeUnit.SECONDS)).isEqualTo("turn");
+        assertThat(turnThread.get()).isNotSameAs(caller);
+        assertThat(turnThread.get().isVirtual()).isTrue();
+        assertThat(sessions()).isZero();
+    }
+
+    @Test
+    void turnIsRejectedRightAwayWhileAnotherInstanceHoldsTheSession() {
+        serializer = serializer(TurnOverlapPolicy.REJECT, TurnLockMode.ADVISORY, dataSource(false),
+                Duration.ofSeconds(5));
+
+        CompletableFuture<String> turn = serializer.run(UUID.randomUUID(),
+                () -> CompletableFuture.completedFuture("turn"));
+
+        assertThat(turn).isCompletedExceptionally();
+        assertThatThrownBy(turn::join).hasCauseInstanceOf(ChatSessionBusyException.class);
+        assertThat(sessions()).isZero();
+    }
+
+    private int sessions() {
+        return (int) meterRegistry.get("chat.turn.sessions").gauge().value();
+    }
+
+    private AIChatTurnSerializer serializer(TurnOverlapPolicy onOverlap) {
+        return serializer(onOverlap, TurnLockMode.LOCAL, null, Duration.ofMillis(200));
+    }
+
+    private AIChatTurnSerializer serializer(TurnOverlapPolicy onOverlap, TurnLockMode lockMode,
+            DataSource dataSource, Duration maxWait) {
+        LlmClientProperties properties = new LlmClientProperties();
+        TurnSerializationProperties turnSerialization = properties.getChat().getTurnSerialization();
+        turnSerialization.setOnOverlap(onOverlap);
+        turnSerialization.setLockMode(lockMode);
+        turnSerialization.setMaxWait(maxWait);
+        // Every session shares the one stripe
+        turnSerialization.setStripes(1);
+        return new AIChatTurnSerializer(properties, dataSource, meterRegistry);
+    }
+
+    /**
+     * A connection whose advisory lock attempts return {@code attempts} in
+     * turn, the last one from then on; unlocking succeeds.
+     */
+    private static DataSource dataSource(Boolean... attempts) {
+        try {
+            DataSource dataSource = mock(DataSource.class);
+            Connection connection = mock(Connection.class);
+            PreparedStatement tryLock = mock(PreparedStatement.class);
+            PreparedStatement unlock = mock(PreparedStatement.class);
+            ResultSet tryLockResult = mock(ResultSet.class);
+            ResultSet unlockResult = mock(ResultSet.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            when(connection.isValid(anyInt())).thenReturn(true);
+            when(connection.prepareStatement(startsWith("select pg_try_advisory_lock"))).thenReturn(tryLock);
+            when(connection.prepareStatement(startsWith("select pg_advisory_unlock"))).thenReturn(unlock);
+            when(tryLock.executeQuery()).thenReturn(tryLockResult);
+            when(unlock.executeQuery()).thenReturn(unlockResult);
+            when(tryLockResult.next()).thenReturn(true);
+            when(tryLockResult.getBoolean(1)).thenReturn(attempts[0], Arrays.copyOfRange(attempts, 1, attempts.length));
+            when(unlockResult.next()).thenReturn(true);
+            when(unlockResult.getBoolean(1)).thenReturn(true);
+            return dataSource;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
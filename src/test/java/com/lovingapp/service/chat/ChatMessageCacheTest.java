@@ -0,0 +1,241 @@
+package com.lovingapp.service.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import com.lovingapp.config.llm.LlmClientProperties;
+import com.lovingapp.model.entity.ChatMessage;
+import com.lovingapp.model.enums.ChatMessageRole;
+import com.lovingapp.service.chat.ChatMessageCache.ChatMessageWindow;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ChatMessageCacheTest {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2026, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private final UUID sessionId = UUID.randomUUID();
+    private final LlmClientProperties properties = new LlmClientProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void loadIsDiscardedWhenTheSessionWasWrittenMeanwhile() {
+        ChatMessageCache cache = cache(100);
+        List<ChatMessage> transcript = transcript(3);
+
+        long generation = cache.generation(sessionId);
+        cache.append(message(3));
+        cache.put(sessionId, transcript, generation);
+
+        assertThat(cache.get(sessionId, newest(transcript))).isNull();
+        assertThat(requests("stale_load")).isEqualTo(1);
+    }
+
+    @Test
+    void loadIsDiscardedWhenTheSessionWasInvalidatedMeanwhile() {
+        ChatMessageCache cache = cache(100);
+        List<ChatMessage> transcript = transcript(3);
+
+        long generation = cache.generation(sessionId);
+        cache.invalidate(sessionId);
+        cache.put(sessionId, transcript, generation);
+
+        assertThat(cache.get(sessionId, newest(transcript))).isNull();
+    }
+
+    @Test
+    void committedMessagesAreAppendedOnce() {
+        ChatMessageCache cache = cache(100);
+        List<ChatMessage> transcript = transcript(3);
+        cache.put(sessionId, transcript, cache.generation(sessionId));
+
+        ChatMessage next = message(3);
+        cache.append(next);
+        cache.append(next);
+
+        ChatMessageWindow window = cache.get(sessionId, () -> next.getId());
+        assertThat(window.complete()).isTrue();
+        assertThat(window.messages()).extracting(ChatMessage::getId)
+                .containsExactly(transcript.get(0).getId(), transcript.get(1).getId(), transcript.get(2).getId(),
+                        next.getId());
+    }
+
+    @Test
+    void windowKeepsTheMostRecentMessages() {
+        ChatMessageCache cache = cache(3);
+        List<ChatMessage> transcript = transcript(3);
+        cache.put(sessionId, transcript, cache.generation(sessionId));
+
+        ChatMessage next = message(3);
+        cache.append(next);
+
+        ChatMessageWindow window = cache.get(sessionId, () -> next.getId());
+        assertThat(window.complete()).isFalse();
+        assertThat(window.messages()).extracting(ChatMessage::getId)
+                .containsExactly(transcript.get(1).getId(), transcript.get(2).getId(), next.getId());
+    }
+
+    @Test
+    void invalidateDropsTheWindow() {
+        ChatMessageCache cache = cache(100);
+        List<ChatMessage> transcript = transcript(2);
+        cache.put(sessionId, transcript, cache.generation(sessionId));
+
+        cache.invalidate(sessionId);
+
+        assertThat(cache.get(sessionId, newest(transcript))).isNull();
+        assertThat(requests("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void windowBehindTheDatabaseIsDropped() {
+        ChatMessageCache cache = cache(100);
+        List<ChatMessage> transcript = transcript(2);
+        cache.put(sessionId, transcript, cache.generation(sessionId));
+
+        // Written through another instance
+        UUID newerElsewhere = UUID.randomUUID();
+        assertThat(cache.get(sessionId, () -> newerElsewhere)).isNull();
+        assertThat(requests("stale")).isEqualTo(1);
+
+        // Dropped, so the next read loads the transcript
+        AtomicInteger lookups = new AtomicInteger();
+        assertThat(cache.get(sessionId, () -> {
+            lookups.incrementAndGet();
+            return newerElsewhere;
+        })).isNull();
+        assertThat(lookups).hasValue(0);
+        assertThat(requests("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void newestMessageIsOrderedLikePostgres() {
+        ChatMessageCache cache = cache(100);
+        // Same timestamp: Postgres orders uuids as unsigned bytes, so the id with the high bit set is newer
+        ChatMessage low = message(new UUID(0x7fffffffffffffffL, 0), START);
+        ChatMessage high = message(new UUID(0x8000000000000000L, 0), START);
+        cache.put(sessionId, List.of(high, low), cache.generation(sessionId));
+
+        assertThat(cache.get(sessionId, () -> high.getId())).isNotNull();
+        assertThat(cache.get(sessionId, () -> low.getId())).isNull();
+    }
+
+    @Test
+    void newestMessageIsNotLookedUpWhenVerificationIsOff() {
+        properties.getChat().getMessageCache().setVerifyNewestMessage(false);
+        ChatMessageCache cache = cache(100);
+        cache.put(sessionId, transcript(2), cache.generation(sessionId));
+
+        ChatMessageWindow window = cache.get(sessionId, () -> {
+            throw new AssertionError("newest message looked up");
+        });
+
+        assertThat(window.messages()).hasSize(2);
+    }
+
+    @Test
+    void leastRecentlyUsedSessionsAreEvictedBeyondTheSizeBound() {
+        // Three messages of 248 estimated bytes per session: room for two sessions
+        properties.getChat().getMessageCache().setMaxSize(DataSize.ofBytes(2000));
+        ChatMessageCache cache = cache(100);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        List<ChatMessage> firstTranscript = transcript(first, 3);
+        cache.put(first, firstTranscript, cache.generation(first));
+        cache.put(second, transcript(second, 3), cache.generation(second));
+        assertThat(cachedBytes()).isEqualTo(2 * 3 * 248);
+
+        // Used again, so the second session is the least recently used one
+        assertThat(cache.get(first, newest(firstTranscript))).isNotNull();
+        cache.put(third, transcript(third, 3), cache.generation(third));
+
+        assertThat(cache.get(second, () -> null)).isNull();
+        assertThat(cache.get(first, newest(firstTranscript))).isNotNull();
+        assertThat(cachedBytes()).isEqualTo(2 * 3 * 248);
+        assertThat(meterRegistry.counter("chat.message.cache.evictions", "cause", "size").count()).isEqualTo(1);
+    }
+
+    @Test
+    void windowLargerThanTheSizeBoundIsNotCached() {
+        properties.getChat().getMessageCache().setMaxSize(DataSize.ofBytes(500));
+        ChatMessageCache cache = cache(100);
+        List<ChatMessage> transcript = transcript(3);
+
+        cache.put(sessionId, transcript, cache.generation(sessionId));
+
+        assertThat(cache.get(sessionId, newest(transcript))).isNull();
+        assertThat(cachedBytes()).isZero();
+    }
+
+    @Test
+    void sizeFollowsAppendsAndInvalidation() {
+        ChatMessageCache cache = cache(2);
+        cache.put(sessionId, transcript(2), cache.generation(sessionId));
+        assertThat(cachedBytes()).isEqualTo(2 * 248);
+
+        // The oldest message makes room for the appended one
+        cache.append(message(2));
+        assertThat(cachedBytes()).isEqualTo(2 * 248);
+
+        cache.invalidate(sessionId);
+        assertThat(cachedBytes()).isZero();
+    }
+
+    private ChatMessageCache cache(int maxMessagesPerSession) {
+        properties.getChat().getMessageCache().setMaxMessagesPerSession(maxMessagesPerSession);
+        return new ChatMessageCache(properties, meterRegistry);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.counter("chat.message.cache.requests", "result", result).count();
+    }
+
+    private double cachedBytes() {
+        return meterRegistry.get("chat.message.cache.size.bytes").gauge().value();
+    }
+
+    private static Supplier<UUID> newest(List<ChatMessage> transcript) {
+        return () -> transcript.get(transcript.size() - 1).getId();
+    }
+
+    private List<ChatMessage> transcript(int size) {
+        return transcript(sessionId, size);
+    }
+
+    private static List<ChatMessage> transcript(UUID session, int size) {
+        List<ChatMessage> transcript = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            transcript.add(message(session, UUID.randomUUID(), START.plusSeconds(i)));
+        }
+        return transcript;
+    }
+
+    private ChatMessage message(int index) {
+        return message(UUID.randomUUID(), START.plusSeconds(index));
+    }
+
+    private ChatMessage message(UUID id, OffsetDateTime createdAt) {
+        return message(sessionId, id, createdAt);
+    }
+
+    private static ChatMessage message(UUID session, UUID id, OffsetDateTime createdAt) {
+        return ChatMessage.builder()
+                .id(id)
+                .sessionId(session)
+                .role(ChatMessageRole.USER)
+                .content("message " + id)
+                .createdAt(createdAt)
+                .build();
+    }
+}
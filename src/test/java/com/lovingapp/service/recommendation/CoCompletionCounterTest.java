@@ -0,0 +1,115 @@
+package com.lovingapp.service.recommendation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.lovingapp.service.recommendation.CoCompletionMatrix.Neighbour;
+
+class CoCompletionCounterTest {
+
+    private static final UUID A = new UUID(0L, 1);
+    private static final UUID B = new UUID(0L, 2);
+    private static final UUID C = new UUID(0L, 3);
+    private static final UUID D = new UUID(0L, 4);
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void buildKeepsSupportedPairsBestFirst() {
+        // Two users per batch, so the counts are merged over three flushes
+        CoCompletionCounter counter = new CoCompletionCounter(200, 2, pool);
+        counter.addUser(List.of(A, B, C));
+        counter.addUser(List.of(A, B));
+        counter.addUser(List.of(A, C));
+        counter.addUser(List.of(D, A));
+        counter.addUser(List.of(B, A));
+
+        CoCompletionMatrix matrix = counter.build(2, 20);
+
+        assertThat(counter.users()).isEqualTo(5);
+        // A-B, A-C, B-C and A-D; the last two were completed together only once
+        assertThat(counter.pairs()).isEqualTo(4);
+        assertThat(matrix.size()).isEqualTo(4);
+        assertThat(matrix.entries()).isEqualTo(4);
+
+        // A was completed 5 times, B 3 and C 2
+        List<Neighbour> ofA = matrix.neighbours(A, 10);
+        assertThat(ofA).extracting(Neighbour::id).containsExactly(B, C);
+        assertThat(ofA.get(0).score()).isCloseTo((float) (3 / Math.sqrt(15)), within(1e-6f));
+        assertThat(ofA.get(1).score()).isCloseTo((float) (2 / Math.sqrt(10)), within(1e-6f));
+        assertThat(matrix.neighbours(B, 10)).extracting(Neighbour::id).containsExactly(A);
+        assertThat(matrix.neighbours(C, 10)).extracting(Neighbour::id).containsExactly(A);
+        assertThat(matrix.neighbours(D, 10)).isEmpty();
+
+        // The rows are contiguous in item order
+        int previousEnd = 0;
+        for (int item = 0; item < matrix.size(); item++) {
+            assertThat(matrix.rowStart(item)).isEqualTo(previousEnd);
+            previousEnd = matrix.rowEnd(item);
+        }
+        assertThat(previousEnd).isEqualTo(matrix.entries());
+    }
+
+    @Test
+    void buildKeepsTheBestNeighboursOfARow() {
+        CoCompletionCounter counter = new CoCompletionCounter(200, 2, pool);
+        counter.addUser(List.of(A, B, C));
+        counter.addUser(List.of(A, B));
+        counter.addUser(List.of(A, C));
+        counter.addUser(List.of(B, A));
+
+        CoCompletionMatrix matrix = counter.build(1, 1);
+
+        assertThat(matrix.neighbours(A, 10)).extracting(Neighbour::id).containsExactly(B);
+        assertThat(matrix.entries()).isEqualTo(3);
+    }
+
+    @Test
+    void duplicatesOfAUserAreCountedOnce() {
+        CoCompletionCounter counter = new CoCompletionCounter(200, 10, pool);
+        counter.addUser(List.of(A, A, B, A));
+        counter.addUser(List.of(B, A, B));
+
+        CoCompletionMatrix matrix = counter.build(2, 20);
+
+        assertThat(matrix.neighbours(A, 10)).containsExactly(new Neighbour(B, 1.0f));
+    }
+
+    @Test
+    void onlyTheMostRecentItemsOfAUserAreCounted() {
+        CoCompletionCounter counter = new CoCompletionCounter(2, 10, pool);
+        counter.addUser(List.of(A, B));
+        // Most recent first: A and B are beyond the limit
+        counter.addUser(List.of(C, D, C, A, B));
+        counter.addUser(List.of(D, C));
+
+        CoCompletionMatrix matrix = counter.build(1, 20);
+
+        assertThat(matrix.neighbours(C, 10)).containsExactly(new Neighbour(D, 1.0f));
+        assertThat(matrix.neighbours(A, 10)).containsExactly(new Neighbour(B, 1.0f));
+        assertThat(counter.pairs()).isEqualTo(2);
+    }
+
+    @Test
+    void usersWithoutItemsAreSkipped() {
+        CoCompletionCounter counter = new CoCompletionCounter(200, 10, pool);
+        counter.addUser(List.of());
+
+        CoCompletionMatrix matrix = counter.build(1, 20);
+
+        assertThat(counter.users()).isZero();
+        assertThat(matrix.size()).isZero();
+    }
+}
@@ -0,0 +1,124 @@
+package com.lovingapp.service.recommendation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.lovingapp.service.recommendation.HnswGraph.Hit;
+
+class HnswGraphTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int NODES = 2000;
+    private static final int QUERIES = 100;
+    private static final int K = 10;
+
+    private final SplittableRandom random = new SplittableRandom(7);
+    private final List<UUID> ids = new ArrayList<>();
+    private final List<float[]> vectors = new ArrayList<>();
+
+    @Test
+    void searchFindsMostTrueNearestNeighbours() {
+        HnswGraph graph = graph();
+
+        assertThat(recall(graph, Set.of())).isGreaterThanOrEqualTo(0.95);
+    }
+
+    @Test
+    void deletedNodesAreLeftOutOfResults() {
+        HnswGraph graph = graph();
+        Set<Integer> deleted = new HashSet<>();
+        for (int node = 0; node < NODES; node += 4) {
+            graph.delete(node);
+            deleted.add(node);
+        }
+        graph.delete(0);
+
+        assertThat(graph.size()).isEqualTo(NODES - deleted.size());
+        assertThat(graph.deletedCount()).isEqualTo(deleted.size());
+        Set<UUID> deletedIds = new HashSet<>();
+        deleted.forEach(node -> deletedIds.add(ids.get(node)));
+        for (int q = 0; q < QUERIES; q++) {
+            assertThat(graph.search(randomUnitVector(), K, 64)).extracting(Hit::id).doesNotContainAnyElementsOf(
+                    deletedIds);
+        }
+        assertThat(recall(graph, deleted)).isGreaterThanOrEqualTo(0.95);
+    }
+
+    @Test
+    void searchOfAnEmptyGraphFindsNothing() {
+        assertThat(new HnswGraph(16, 100).search(randomUnitVector(), K, 64)).isEmpty();
+    }
+
+    @Test
+    void rejectsFewerThanTwoNeighbours() {
+        assertThatThrownBy(() -> new HnswGraph(1, 100)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private HnswGraph graph() {
+        HnswGraph graph = new HnswGraph(16, 100);
+        for (int i = 0; i < NODES; i++) {
+            UUID id = new UUID(0L, i);
+            float[] vector = randomUnitVector();
+            ids.add(id);
+            vectors.add(vector);
+            assertThat(graph.add(id, vector)).isEqualTo(i);
+        }
+        return graph;
+    }
+
+    /**
+     * Share of the true top K by brute force that the graph search returns.
+     */
+    private double recall(HnswGraph graph, Set<Integer> deleted) {
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = randomUnitVector();
+            Set<UUID> exact = new HashSet<>();
+            IntStream.range(0, NODES)
+                    .filter(node -> !deleted.contains(node))
+                    .boxed()
+                    .sorted(Comparator.comparingDouble((Integer node) -> dot(query, vectors.get(node))).reversed())
+                    .limit(K)
+                    .forEach(node -> exact.add(ids.get(node)));
+
+            for (Hit hit : graph.search(query, K, 64)) {
+                if (exact.contains(hit.id())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (QUERIES * K);
+    }
+
+    private float[] randomUnitVector() {
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) (random.nextDouble() * 2 - 1);
+            norm += vector[i] * vector[i];
+        }
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,142 @@
+package com.lovingapp.service.recommendation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lovingapp.config.recommendation.RecommendationProperties;
+import com.lovingapp.model.entity.RitualPackFeedbackStats;
+import com.lovingapp.model.enums.Journey;
+import com.lovingapp.repository.RitualPackFeedbackStatsRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PackFeedbackStatisticsTest {
+
+    private static final int SAMPLES = 20_000;
+
+    private final UUID packId = UUID.randomUUID();
+    private final RitualPackFeedbackStatsRepository statsRepository = mock(RitualPackFeedbackStatsRepository.class);
+    private final PackFeedbackStatistics statistics = new PackFeedbackStatistics(statsRepository,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), new RecommendationProperties(),
+            new SimpleMeterRegistry());
+
+    @Test
+    void betaSamplesHaveTheExpectedMeanAndVariance() {
+        assertMoments(2, 5);
+        // Shapes below 1 take the boosted Gamma path
+        assertMoments(0.5, 0.5);
+    }
+
+    @Test
+    void checkpointWritesTheOutcomesSinceTheLastOne() {
+        record(Journey.FEELING_DISTANT, true);
+        record(Journey.FEELING_DISTANT, true);
+        record(Journey.FEELING_DISTANT, false);
+        record(null, false);
+
+        statistics.checkpoint();
+
+        ArgumentCaptor<UUID> ids = ArgumentCaptor.forClass(UUID.class);
+        verify(statsRepository).addCounts(ids.capture(), eq(packId), eq("FEELING_DISTANT"), eq(2L), eq(1L));
+        verify(statsRepository).addCounts(any(), eq(packId), eq("NONE"), eq(0L), eq(1L));
+        assertThat(ids.getValue().version()).isEqualTo(7);
+
+        statistics.checkpoint();
+        verify(statsRepository, times(2)).addCounts(any(), any(), anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void outcomesAreKeptWhenTheCheckpointFails() {
+        when(statsRepository.addCounts(any(), any(), anyString(), anyLong(), anyLong()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(1);
+        record(Journey.FEELING_DISTANT, true);
+
+        statistics.checkpoint();
+        record(Journey.FEELING_DISTANT, true);
+        statistics.checkpoint();
+
+        verify(statsRepository).addCounts(any(), eq(packId), eq("FEELING_DISTANT"), eq(2L), eq(0L));
+    }
+
+    @Test
+    void writtenOutcomesCountUntilTheReloadReplacesThem() {
+        for (int i = 0; i < 1000; i++) {
+            record(Journey.FEELING_DISTANT, true);
+        }
+
+        // The reload has not seen the written counts yet
+        statistics.checkpoint();
+
+        assertThat(statistics.sample(packId, Journey.FEELING_DISTANT)).isGreaterThan(0.98);
+    }
+
+    @Test
+    void reloadedTotalsReplaceTheWrittenOnes() {
+        record(Journey.FEELING_DISTANT, true);
+        when(statsRepository.findAll()).thenReturn(List.of(RitualPackFeedbackStats.builder()
+                .ritualPackId(packId)
+                .segment("FEELING_DISTANT")
+                .successes(100)
+                .failures(900)
+                .build()));
+
+        statistics.checkpoint();
+
+        for (int i = 0; i < 100; i++) {
+            // Beta(101, 901): mean 0.1, standard deviation below 0.01
+            assertThat(statistics.sample(packId, Journey.FEELING_DISTANT)).isBetween(0.05, 0.15);
+        }
+    }
+
+    @Test
+    void stopWritesTheLastOutcomes() {
+        statistics.start();
+        record(null, true);
+
+        statistics.stop();
+
+        assertThat(statistics.isRunning()).isFalse();
+        verify(statsRepository).addCounts(any(), eq(packId), eq("NONE"), eq(1L), eq(0L));
+    }
+
+    private void record(Journey journey, boolean success) {
+        statistics.onRitualPackOutcome(new RitualPackOutcomeEvent(packId, journey, success));
+    }
+
+    private static void assertMoments(double alpha, double beta) {
+        SplittableRandom random = new SplittableRandom(11);
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            double sample = PackFeedbackStatistics.sampleBeta(alpha, beta, random);
+            assertThat(sample).isBetween(0.0, 1.0);
+            sum += sample;
+            sumOfSquares += sample * sample;
+        }
+
+        double mean = sum / SAMPLES;
+        double variance = sumOfSquares / SAMPLES - mean * mean;
+        double expectedMean = alpha / (alpha + beta);
+        double expectedVariance = alpha * beta / ((alpha + beta) * (alpha + beta) * (alpha + beta + 1));
+        assertThat(mean).isCloseTo(expectedMean, within(0.01));
+        assertThat(variance).isCloseTo(expectedVariance, within(0.1 * expectedVariance));
+    }
+}
@@ -0,0 +1,81 @@
+package com.lovingapp.service.recommendation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class PairCountsTest {
+
+    @Test
+    void pairsAreUnordered() {
+        PairCounts counts = new PairCounts();
+
+        counts.increment(3, 7);
+        counts.increment(7, 3);
+
+        assertThat(counts.size()).isEqualTo(1);
+        assertThat(collect(counts)).containsExactly(Map.entry(pair(3, 7), 2));
+    }
+
+    @Test
+    void countsSurviveGrowth() {
+        PairCounts counts = new PairCounts();
+        Map<Long, Integer> expected = new HashMap<>();
+        // Far beyond the initial capacity of 16, so the table grows several times
+        for (int a = 0; a < 60; a++) {
+            for (int b = a + 1; b < 60; b++) {
+                for (int i = 0; i <= (a + b) % 3; i++) {
+                    counts.increment(b, a);
+                }
+                expected.put(pair(a, b), (a + b) % 3 + 1);
+            }
+        }
+
+        assertThat(counts.size()).isEqualTo(60 * 59 / 2);
+        assertThat(collect(counts)).isEqualTo(expected);
+    }
+
+    @Test
+    void addAllMergesTheCounts() {
+        PairCounts counts = new PairCounts();
+        counts.increment(0, 1);
+        counts.increment(1, 2);
+        PairCounts other = new PairCounts();
+        other.increment(1, 0);
+        for (int b = 10; b < 40; b++) {
+            other.increment(5, b);
+        }
+
+        counts.addAll(other);
+
+        Map<Long, Integer> merged = collect(counts);
+        assertThat(counts.size()).isEqualTo(32);
+        assertThat(merged).containsEntry(pair(0, 1), 2).containsEntry(pair(1, 2), 1).containsEntry(pair(5, 39), 1);
+        // The merged table is left as it was
+        assertThat(other.size()).isEqualTo(31);
+    }
+
+    @Test
+    void forEachVisitsTheSmallerItemFirst() {
+        PairCounts counts = new PairCounts();
+        counts.increment(9, 2);
+        counts.increment(4, 1);
+
+        counts.forEach((first, second, count) -> assertThat(first).isLessThan(second));
+    }
+
+    private static Map<Long, Integer> collect(PairCounts counts) {
+        Map<Long, Integer> collected = new HashMap<>();
+        counts.forEach((first, second, count) -> {
+            assertThat(collected.put(pair(first, second), count)).isNull();
+        });
+        return collected;
+    }
+
+    private static long pair(int first, int second) {
+        return ((long) first << 32) | second;
+    }
+}
@@ -0,0 +1,137 @@
+package com.lovingapp.service.recommendation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.lovingapp.config.recommendation.RecommendationProperties;
+import com.lovingapp.model.dto.RitualPackDTO;
+import com.lovingapp.model.dto.UserContextDTOs.UserContextDTO;
+import com.lovingapp.model.enums.Journey;
+import com.lovingapp.model.enums.LoveType;
+import com.lovingapp.model.enums.RelationalNeed;
+import com.lovingapp.service.RecommendationEngine;
+import com.lovingapp.service.recommendation.UserPackHistoryCache.UserPackHistory;
+
+class RecommendationEngineTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private final UserContextDTO userContext = UserContextDTO.builder()
+            .loveTypes(List.of(LoveType.BELONG, LoveType.CARE))
+            .relationalNeeds(List.of(RelationalNeed.CONNECTION, RelationalNeed.TRUST_AND_SAFETY))
+            .journey(Journey.FEELING_DISTANT)
+            .build();
+
+    private final RitualPackIndexProvider ritualPackIndexProvider = mock(RitualPackIndexProvider.class);
+    private final UserPackHistoryCache userPackHistoryCache = mock(UserPackHistoryCache.class);
+    private final RecommendationProperties properties = new RecommendationProperties();
+
+    @BeforeEach
+    void setUp() {
+        // Ranked by tags and history only
+        properties.getBandit().setEnabled(false);
+        properties.getCoCompletion().setEnabled(false);
+        givenHistory(List.of(), Set.of());
+    }
+
+    @Test
+    void packsAreRankedBestFirstWithTiesInIndexOrder() {
+        List<RitualPackDTO> packs = givenPacks(
+                pack(List.of(), List.of(), Journey.FEELING_DISTANT), // 1
+                pack(List.of(), List.of(RelationalNeed.CONNECTION), null), // 3
+                pack(List.of(), List.of(RelationalNeed.TRUST_AND_SAFETY), Journey.FEELING_DISTANT), // 4
+                pack(List.of(), List.of(RelationalNeed.TRUST_AND_SAFETY), null)); // 3
+
+        assertThat(engine().recommendRitualPacks(userId, userContext, 3))
+                .containsExactly(packs.get(2), packs.get(1), packs.get(3));
+    }
+
+    @Test
+    void latestRecommendationsAreExcluded() {
+        List<RitualPackDTO> packs = givenPacks(
+                pack(List.of(), List.of(RelationalNeed.CONNECTION), null), // 3
+                pack(List.of(LoveType.BELONG), List.of(), null), // 2
+                pack(List.of(), List.of(), Journey.FEELING_DISTANT)); // 1
+        givenHistory(List.of(packs.get(0).getId()), Set.of());
+
+        assertThat(engine().recommendRitualPacks(userId, userContext, 2))
+                .containsExactly(packs.get(1), packs.get(2));
+    }
+
+    @Test
+    void excludedPacksFollowAllOthersInTheirOrder() {
+        List<RitualPackDTO> packs = givenPacks(
+                pack(List.of(), List.of(RelationalNeed.CONNECTION), null), // 3
+                pack(List.of(LoveType.BELONG), List.of(), null), // 2
+                pack(List.of(), List.of(), null)); // 0
+        // The latest first
+        givenHistory(List.of(packs.get(1).getId(), packs.get(0).getId()), Set.of());
+
+        assertThat(engine().recommendRitualPacks(userId, userContext, 3))
+                .containsExactly(packs.get(2), packs.get(0), packs.get(1));
+    }
+
+    @Test
+    void olderRecommendationsAndCompletedPacksAreDownWeighted() {
+        List<RitualPackDTO> packs = givenPacks(
+                pack(null, null, null), pack(null, null, null), pack(null, null, null),
+                pack(null, null, null), pack(null, null, null), pack(null, null, null),
+                pack(null, null, null));
+        // Packs 0-2 are excluded, 3 and 4 penalized by 3 and 3 * 16/17
+        givenHistory(packs.subList(0, 5).stream().map(RitualPackDTO::getId).toList(), Set.of(packs.get(6).getId()));
+
+        assertThat(engine().recommendRitualPacks(userId, null, 7)).containsExactly(packs.get(5), packs.get(6),
+                packs.get(4), packs.get(3), packs.get(0), packs.get(1), packs.get(2));
+    }
+
+    @Test
+    void sharedLoveTypesArePenalized() {
+        properties.getRanking().setDiversityPenalty(2.0);
+        List<RitualPackDTO> packs = givenPacks(
+                pack(List.of(LoveType.BELONG), List.of(), Journey.FEELING_DISTANT), // 3
+                pack(List.of(LoveType.BELONG), List.of(), Journey.FEELING_DISTANT), // 3, 1 after the first
+                pack(List.of(LoveType.CARE), List.of(), null)); // 2
+
+        assertThat(engine().recommendRitualPacks(userId, userContext, 3))
+                .containsExactly(packs.get(0), packs.get(2), packs.get(1));
+    }
+
+    @Test
+    void limitBeyondTheCatalogueReturnsEveryPack() {
+        List<RitualPackDTO> packs = givenPacks(pack(List.of(LoveType.CARE), List.of(), null));
+
+        assertThat(engine().recommendRitualPacks(userId, userContext, 5)).containsExactly(packs.get(0));
+    }
+
+    private RecommendationEngine engine() {
+        return new RecommendationEngine(ritualPackIndexProvider, mock(SemanticPackIndex.class), userPackHistoryCache,
+                mock(PackFeedbackStatistics.class), mock(CoCompletionModel.class), properties);
+    }
+
+    private List<RitualPackDTO> givenPacks(RitualPackDTO... packs) {
+        when(ritualPackIndexProvider.current()).thenReturn(RitualPackIndex.of(Arrays.asList(packs)));
+        return List.of(packs);
+    }
+
+    private void givenHistory(List<UUID> recentlyRecommended, Set<UUID> completed) {
+        when(userPackHistoryCache.get(userId)).thenReturn(new UserPackHistory(recentlyRecommended, completed));
+    }
+
+    private static RitualPackDTO pack(List<LoveType> loveTypes, List<RelationalNeed> relationalNeeds,
+            Journey journey) {
+        return RitualPackDTO.builder()
+                .id(UUID.randomUUID())
+                .loveTypes(loveTypes)
+                .relationalNeeds(relationalNeeds)
+                .journey(journey)
+                .build();
+    }
+}
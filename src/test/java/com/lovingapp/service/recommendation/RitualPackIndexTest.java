@@ -0,0 +1,111 @@
+package com.lovingapp.service.recommendation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.lovingapp.model.dto.RitualPackDTO;
+import com.lovingapp.model.enums.Journey;
+import com.lovingapp.model.enums.LoveType;
+import com.lovingapp.model.enums.RelationalNeed;
+
+class RitualPackIndexTest {
+
+    private static final long LOVE_TYPES = RitualPackIndex.mask(Set.of(LoveType.BELONG, LoveType.CARE));
+    private static final long RELATIONAL_NEEDS = RitualPackIndex.mask(
+            Set.of(RelationalNeed.CONNECTION, RelationalNeed.TRUST_AND_SAFETY));
+    private static final long JOURNEY = RitualPackIndex.mask(Journey.FEELING_DISTANT);
+
+    @Test
+    void scoreWeighsRelationalNeedsThenLoveTypesThenJourney() {
+        RitualPackIndex index = RitualPackIndex.of(List.of(
+                pack(List.of(LoveType.BELONG), List.of(), null),
+                pack(List.of(), List.of(RelationalNeed.CONNECTION), null),
+                pack(List.of(), List.of(), Journey.FEELING_DISTANT),
+                pack(List.of(LoveType.BELONG, LoveType.CARE, LoveType.FIRE),
+                        List.of(RelationalNeed.CONNECTION, RelationalNeed.TRUST_AND_SAFETY, RelationalNeed.SUPPORT),
+                        Journey.FEELING_DISTANT),
+                pack(List.of(LoveType.SPARK), List.of(RelationalNeed.INTIMACY), Journey.LOST_TOUCH)));
+
+        assertThat(score(index, 0)).isEqualTo(2);
+        assertThat(score(index, 1)).isEqualTo(3);
+        assertThat(score(index, 2)).isEqualTo(1);
+        // Only the shared tags count
+        assertThat(score(index, 3)).isEqualTo(2 * 3 + 2 * 2 + 1);
+        assertThat(score(index, 4)).isZero();
+    }
+
+    @Test
+    void untaggedPacksScoreZero() {
+        RitualPackIndex index = RitualPackIndex.of(List.of(pack(null, null, null)));
+
+        assertThat(score(index, 0)).isZero();
+    }
+
+    @Test
+    void topKIsBestFirstWithTiesInIndexOrder() {
+        RitualPackIndex index = RitualPackIndex.of(List.of(
+                pack(List.of(LoveType.BELONG), List.of(), null), // 2
+                pack(List.of(), List.of(RelationalNeed.CONNECTION), null), // 3
+                pack(List.of(), List.of(), Journey.FEELING_DISTANT), // 1
+                pack(List.of(LoveType.CARE), List.of(), null), // 2
+                pack(List.of(), List.of(RelationalNeed.TRUST_AND_SAFETY), Journey.FEELING_DISTANT), // 4
+                pack(List.of(LoveType.BELONG), List.of(), null))); // 2
+
+        assertThat(index.topK(LOVE_TYPES, RELATIONAL_NEEDS, JOURNEY, 4)).containsExactly(4, 1, 0, 3);
+        assertThat(index.topK(LOVE_TYPES, RELATIONAL_NEEDS, JOURNEY, 1)).containsExactly(4);
+    }
+
+    @Test
+    void topKOfEqualScoresKeepsTheFirstIndexed() {
+        List<RitualPackDTO> packs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            packs.add(pack(List.of(LoveType.BELONG), List.of(), null));
+        }
+        RitualPackIndex index = RitualPackIndex.of(packs);
+
+        assertThat(index.topK(LOVE_TYPES, RELATIONAL_NEEDS, JOURNEY, 5)).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    void topKBeyondTheCatalogueReturnsEveryPack() {
+        RitualPackIndex index = RitualPackIndex.of(List.of(
+                pack(List.of(), List.of(), null),
+                pack(List.of(LoveType.CARE), List.of(), null),
+                pack(List.of(), List.of(RelationalNeed.CONNECTION), null)));
+
+        assertThat(index.topK(LOVE_TYPES, RELATIONAL_NEEDS, JOURNEY, 10)).containsExactly(2, 1, 0);
+        assertThat(RitualPackIndex.empty().topK(LOVE_TYPES, RELATIONAL_NEEDS, JOURNEY, 10)).isEmpty();
+        assertThat(index.topK(LOVE_TYPES, RELATIONAL_NEEDS, JOURNEY, 0)).isEmpty();
+    }
+
+    @Test
+    void packsAreFoundById() {
+        RitualPackDTO first = pack(List.of(), List.of(), null);
+        RitualPackDTO second = pack(List.of(), List.of(), null);
+        RitualPackIndex index = RitualPackIndex.of(List.of(first, second));
+
+        assertThat(index.indexOf(second.getId())).isEqualTo(1);
+        assertThat(index.get(1)).isSameAs(second);
+        assertThat(index.indexOf(UUID.randomUUID())).isEqualTo(-1);
+    }
+
+    private static int score(RitualPackIndex index, int pack) {
+        return index.score(pack, LOVE_TYPES, RELATIONAL_NEEDS, JOURNEY);
+    }
+
+    private static RitualPackDTO pack(List<LoveType> loveTypes, List<RelationalNeed> relationalNeeds,
+            Journey journey) {
+        return RitualPackDTO.builder()
+                .id(UUID.randomUUID())
+                .loveTypes(loveTypes)
+                .relationalNeeds(relationalNeeds)
+                .journey(journey)
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.lovingapp.service.recommendation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.lovingapp.config.recommendation.RecommendationProperties;
+import com.lovingapp.model.enums.RitualHistoryStatus;
+import com.lovingapp.repository.RitualHistoryRepository;
+import com.lovingapp.repository.RitualRecommendationRepository;
+import com.lovingapp.repository.RitualRecommendationRepository.RecommendedPack;
+import com.lovingapp.service.recommendation.UserPackHistoryCache.UserPackHistory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserPackHistoryCacheTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID recommendedPackId = UUID.randomUUID();
+    private final UUID completedPackId = UUID.randomUUID();
+
+    private final RitualRecommendationRepository ritualRecommendationRepository = mock(
+            RitualRecommendationRepository.class);
+    private final RitualHistoryRepository ritualHistoryRepository = mock(RitualHistoryRepository.class);
+    private final RecommendationProperties properties = new RecommendationProperties();
+
+    @BeforeEach
+    void setUp() {
+        RecommendedPack recommendedPack = () -> recommendedPackId;
+        when(ritualRecommendationRepository.findByUserIdAndCreatedAtAfterOrderByCreatedAtDesc(eq(userId), any(),
+                any())).thenReturn(List.of(recommendedPack));
+        when(ritualHistoryRepository.findDistinctRitualPackIdsByUserIdAndStatus(userId,
+                RitualHistoryStatus.COMPLETED)).thenReturn(List.of(completedPackId));
+    }
+
+    @Test
+    void historyIsLoadedOnce() {
+        UserPackHistoryCache cache = cache();
+
+        UserPackHistory first = cache.get(userId);
+        UserPackHistory second = cache.get(userId);
+
+        assertThat(first.recentlyRecommended()).containsExactly(recommendedPackId);
+        assertThat(first.completed()).containsExactly(completedPackId);
+        assertThat(second).isSameAs(first);
+        verifyLoaded(1);
+    }
+
+    @Test
+    void changeOfTheUsersActivityDropsTheEntry() {
+        UserPackHistoryCache cache = cache();
+        cache.get(userId);
+
+        cache.onUserRitualActivityChanged(new UserRitualActivityChangedEvent(userId));
+        cache.get(userId);
+
+        verifyLoaded(2);
+    }
+
+    @Test
+    void changeOfAnotherUsersActivityKeepsTheEntry() {
+        UserPackHistoryCache cache = cache();
+        cache.get(userId);
+
+        cache.onUserRitualActivityChanged(new UserRitualActivityChangedEvent(UUID.randomUUID()));
+        cache.get(userId);
+
+        verifyLoaded(1);
+    }
+
+    @Test
+    void historyLoadedDuringAChangeIsNotStored() {
+        UserPackHistoryCache cache = cache();
+        // The change commits while the history is being read
+        when(ritualHistoryRepository.findDistinctRitualPackIdsByUserIdAndStatus(userId,
+                RitualHistoryStatus.COMPLETED)).thenAnswer(invocation -> {
+                    cache.onUserRitualActivityChanged(new UserRitualActivityChangedEvent(userId));
+                    return List.of(completedPackId);
+                });
+
+        cache.get(userId);
+        cache.get(userId);
+
+        verifyLoaded(2);
+    }
+
+    @Test
+    void expiredEntriesAreReloaded() {
+        properties.getHistoryCache().setTtl(Duration.ZERO);
+        UserPackHistoryCache cache = cache();
+
+        cache.get(userId);
+        cache.evictExpired();
+        cache.get(userId);
+
+        verifyLoaded(2);
+    }
+
+    @Test
+    void disabledCacheAlwaysLoads() {
+        properties.getHistoryCache().setEnabled(false);
+        UserPackHistoryCache cache = cache();
+
+        cache.get(userId);
+        cache.get(userId);
+
+        verifyLoaded(2);
+    }
+
+    private UserPackHistoryCache cache() {
+        return new UserPackHistoryCache(ritualRecommendationRepository, ritualHistoryRepository, properties,
+                new SimpleMeterRegistry());
+    }
+
+    private void verifyLoaded(int times) {
+        verify(ritualHistoryRepository, times(times)).findDistinctRitualPackIdsByUserIdAndStatus(userId,
+                RitualHistoryStatus.COMPLETED);
+    }
+}